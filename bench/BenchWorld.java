@@ -0,0 +1,90 @@
+package bench;
+
+import jade.core.Actor;
+import jade.core.World;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+
+/**
+ * A plain {@code World} used by the benchmarks, along with helpers for filling it with walls and
+ * actors. Everything is driven by a seeded {@code Dice} so that every run measures the same map.
+ */
+public class BenchWorld extends World
+{
+    public static final int SEED = 42;
+
+    private static final ColoredChar FLOOR = ColoredChar.create('.');
+    private static final ColoredChar WALL = ColoredChar.create('#');
+
+    public BenchWorld(int size)
+    {
+        super(size, size);
+    }
+
+    /**
+     * Turns the given percentage of tiles into walls, leaving the center open so it can always be
+     * used as a starting point. The edge of the map is always wall, as it is on generated maps,
+     * since {@code AStar} does not expect to walk off the map.
+     */
+    public BenchWorld scatterWalls(int percent, Dice dice)
+    {
+        for(int x = 0; x < width(); x++)
+            for(int y = 0; y < height(); y++)
+                if(x == 0 || y == 0 || x == width() - 1 || y == height() - 1 || dice.chance(percent))
+                    setTile(WALL, false, x, y);
+                else
+                    setTile(FLOOR, true, x, y);
+        setTile(FLOOR, true, width() / 2, height() / 2);
+        return this;
+    }
+
+    /**
+     * Adds one {@code Walker} for every hundred tiles times the given percentage, at random open
+     * tiles. The given {@code Dice} also becomes the {@code Dice} of the {@code World}, which the
+     * walkers draw from, so parallel ticks stay deterministic.
+     */
+    public BenchWorld scatterWalkers(int percent, Dice dice)
+    {
+        return scatterWalkers(percent, 0, dice);
+    }
+
+    /**
+     * Adds walkers as {@code scatterWalkers(percent, dice)} does, each of which also does the given
+     * number of square roots every time it acts, standing in for the work of a real AI.
+     */
+    public BenchWorld scatterWalkers(int percent, int work, Dice dice)
+    {
+        setDice(dice);
+        int count = width() * height() * percent / 100;
+        for(int i = 0; i < count; i++)
+            addActor(new Walker(work), dice);
+        return this;
+    }
+
+    /**
+     * An {@code Actor} which steps in a random direction whenever the tile there is open.
+     */
+    public static class Walker extends Actor
+    {
+        private int work;
+        private double sum;
+
+        public Walker(int work)
+        {
+            super(ColoredChar.create('w'));
+            this.work = work;
+        }
+
+        @Override
+        public void act()
+        {
+            for(int i = 0; i < work; i++)
+                sum += Math.sqrt(sum + i);
+            Dice dice = world().dice();
+            int x = x() + dice.nextInt(-1, 1);
+            int y = y() + dice.nextInt(-1, 1);
+            if(world().insideBounds(x, y) && world().passableAt(x, y))
+                setPos(x, y);
+        }
+    }
+}
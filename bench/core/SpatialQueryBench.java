@@ -0,0 +1,100 @@
+package bench.core;
+
+import bench.BenchWorld;
+import jade.core.Actor;
+import jade.core.World;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the range queries of {@code World} around random points, against {@code cellScan},
+ * which gathers the same square of actors by calling {@code getActorsAt} for every cell in it, as
+ * callers had to before the range queries existed. The actor density is the number of actors per
+ * hundred tiles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialQueryBench
+{
+    private static final int QUERIES = 2000;
+
+    @Param({"500"})
+    public int size;
+
+    @Param({"1", "10", "50"})
+    public int actorPercent;
+
+    @Param({"10"})
+    public int radius;
+
+    @Param({"8"})
+    public int nearest;
+
+    private World world;
+    private Coordinate[] centers;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        Dice dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size).scatterWalkers(actorPercent, dice);
+        centers = new Coordinate[QUERIES];
+        for(int i = 0; i < QUERIES; i++)
+            centers[i] = new Coordinate(dice.nextInt(size - 1), dice.nextInt(size - 1));
+    }
+
+    @Benchmark
+    public Collection<Actor> cellScan()
+    {
+        Coordinate center = centers[next++ % QUERIES];
+        int x1 = Math.max(center.x() - radius, 0);
+        int y1 = Math.max(center.y() - radius, 0);
+        int x2 = Math.min(center.x() + radius, size - 1);
+        int y2 = Math.min(center.y() + radius, size - 1);
+        List<Actor> actors = new ArrayList<Actor>();
+        for(int x = x1; x <= x2; x++)
+            for(int y = y1; y <= y2; y++)
+                actors.addAll(world.getActorsAt(Actor.class, x, y));
+        return actors;
+    }
+
+    @Benchmark
+    public Collection<Actor> getActorsIn()
+    {
+        Coordinate center = centers[next++ % QUERIES];
+        return world.getActorsIn(Actor.class, center.x() - radius, center.y() - radius, center.x()
+                + radius, center.y() + radius);
+    }
+
+    @Benchmark
+    public Collection<Actor> getActorsWithin()
+    {
+        return world.getActorsWithin(Actor.class, centers[next++ % QUERIES], radius);
+    }
+
+    @Benchmark
+    public List<Actor> getNearestActors()
+    {
+        return world.getNearestActors(Actor.class, centers[next++ % QUERIES], nearest);
+    }
+}
@@ -0,0 +1,157 @@
+package bench.core;
+
+import bench.BenchWorld;
+import jade.core.Actor;
+import jade.core.World;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the flat tile arrays of {@code World} with the grid of one {@code Tile} object per cell
+ * it used to keep, which {@code LegacyGrid} reproduces. The {@code construct} benchmarks build an
+ * empty map; run them with {@code -prof gc} and read {@code gc.alloc.rate.norm} for the bytes
+ * allocated per map, nearly all of which the map retains. The {@code scan} benchmarks read every
+ * tile of a map with randomly scattered walls, and {@code setTile} writes a random one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileBench
+{
+    private static final ColoredChar FLOOR = ColoredChar.create('.');
+    private static final ColoredChar WALL = ColoredChar.create('#');
+
+    @Param({"256", "2000"})
+    public int size;
+
+    private World world;
+    private LegacyGrid legacy;
+    private Dice dice;
+
+    @Setup
+    public void setup()
+    {
+        dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size).scatterWalls(20, dice);
+        legacy = new LegacyGrid(size, size);
+        for(int x = 0; x < size; x++)
+            for(int y = 0; y < size; y++)
+                legacy.setTile(world.tileAt(x, y), world.passableAt(x, y), x, y);
+    }
+
+    @Benchmark
+    public World construct()
+    {
+        return new BenchWorld(size);
+    }
+
+    @Benchmark
+    public LegacyGrid constructLegacy()
+    {
+        return new LegacyGrid(size, size);
+    }
+
+    @Benchmark
+    public int scan()
+    {
+        int open = 0;
+        for(int y = 0; y < size; y++)
+            for(int x = 0; x < size; x++)
+                if(world.passableAt(x, y) && world.tileAt(x, y) == FLOOR)
+                    open++;
+        return open;
+    }
+
+    @Benchmark
+    public int scanLegacy()
+    {
+        int open = 0;
+        for(int y = 0; y < size; y++)
+            for(int x = 0; x < size; x++)
+                if(legacy.passableAt(x, y) && legacy.tileAt(x, y) == FLOOR)
+                    open++;
+        return open;
+    }
+
+    @Benchmark
+    public World setTile()
+    {
+        int x = dice.nextInt(size - 1);
+        int y = dice.nextInt(size - 1);
+        world.setTile(dice.chance(20) ? WALL : FLOOR, dice.chance(80), x, y);
+        return world;
+    }
+
+    @Benchmark
+    public LegacyGrid setTileLegacy()
+    {
+        int x = dice.nextInt(size - 1);
+        int y = dice.nextInt(size - 1);
+        legacy.setTile(dice.chance(20) ? WALL : FLOOR, dice.chance(80), x, y);
+        return legacy;
+    }
+
+    /**
+     * The tile storage of {@code World} before it moved to flat arrays: a {@code Tile} per cell,
+     * each with its own face, passability and empty set of occupants.
+     */
+    public static class LegacyGrid
+    {
+        private Tile[][] grid;
+
+        public LegacyGrid(int width, int height)
+        {
+            grid = new Tile[width][height];
+            for(int x = 0; x < width; x++)
+                for(int y = 0; y < height; y++)
+                    grid[x][y] = new Tile();
+        }
+
+        public ColoredChar tileAt(int x, int y)
+        {
+            return grid[x][y].face;
+        }
+
+        public boolean passableAt(int x, int y)
+        {
+            return grid[x][y].passable;
+        }
+
+        public void setTile(ColoredChar face, boolean passable, int x, int y)
+        {
+            grid[x][y].face = face;
+            grid[x][y].passable = passable;
+        }
+
+        private static class Tile
+        {
+            public boolean passable;
+            public ColoredChar face;
+            public Set<Actor> actors;
+
+            public Tile()
+            {
+                passable = true;
+                face = ColoredChar.create('.');
+                actors = new HashSet<Actor>();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package bench.core;
+
+import bench.BenchWorld;
+import jade.core.Actor;
+import jade.core.World;
+import jade.util.Dice;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@code World.tick} with randomly walking actors, and {@code World.getActors} on the
+ * resulting population. The actor density is the number of actors per hundred tiles. With a
+ * {@code parallelism} above 0, ticks run on a {@code ForkJoinPool} of that many threads, and {@code
+ * work} is the number of square roots each actor does as it acts, so that the scaling of parallel
+ * ticks across cores can be measured against the serial tick at 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBench
+{
+    @Param({"64", "256"})
+    public int size;
+
+    @Param({"1", "10"})
+    public int actorPercent;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"0", "2000"})
+    public int work;
+
+    private World world;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup()
+    {
+        Dice dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size).scatterWalls(20, dice).scatterWalkers(actorPercent, work,
+                dice);
+        if(parallelism > 0)
+        {
+            pool = new ForkJoinPool(parallelism);
+            world.setTickPool(pool);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if(pool != null)
+            pool.shutdown();
+    }
+
+    @Benchmark
+    public World tick()
+    {
+        world.tick();
+        return world;
+    }
+
+    @Benchmark
+    public Collection<BenchWorld.Walker> getActors()
+    {
+        return world.getActors(BenchWorld.Walker.class);
+    }
+
+    @Benchmark
+    public void iterateActors(Blackhole hole)
+    {
+        for(Actor actor : world.getActors(BenchWorld.Walker.class))
+            hole.consume(actor);
+    }
+}
@@ -0,0 +1,105 @@
+package bench.fov;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.fov.Light;
+import jade.fov.LightMap;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a {@code LightMap} lighting a map with randomly scattered walls. {@code moveLights}
+ * steps every moving light once and updates, as a turn with torch bearers would. {@code flipTile}
+ * toggles one tile and updates, recalculating only the static lights which reach it. {@code
+ * rebuild} recalculates every light, which is what an update would cost without the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightMapBench
+{
+    @Param({"500"})
+    public int size;
+
+    @Param({"500"})
+    public int staticLights;
+
+    @Param({"50"})
+    public int movingLights;
+
+    @Param({"8"})
+    public int radius;
+
+    private World world;
+    private LightMap lights;
+    private Light[] moving;
+    private Dice dice;
+
+    @Setup
+    public void setup()
+    {
+        dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size).scatterWalls(20, dice);
+        lights = new LightMap(world);
+        for(int i = 0; i < staticLights; i++)
+        {
+            Coordinate pos = world.getOpenTile(dice);
+            lights.addLight(new Light(pos.x(), pos.y(), radius, Color.ORANGE));
+        }
+        moving = new Light[movingLights];
+        for(int i = 0; i < movingLights; i++)
+        {
+            Coordinate pos = world.getOpenTile(dice);
+            moving[i] = new Light(pos.x(), pos.y(), radius / 2, Color.YELLOW);
+            lights.addLight(moving[i]);
+        }
+        lights.update();
+    }
+
+    @Benchmark
+    public int moveLights()
+    {
+        for(Light light : moving)
+        {
+            int x = light.x() + dice.nextInt(-1, 1);
+            int y = light.y() + dice.nextInt(-1, 1);
+            if(world.passableAt(x, y))
+                light.setPos(x, y);
+        }
+        return lights.update();
+    }
+
+    @Benchmark
+    public int flipTile()
+    {
+        int x = world.width() / 2 + 1;
+        int y = world.height() / 2;
+        world.setTile(world.tileAt(x, y), !world.passableAt(x, y), x, y);
+        return lights.update();
+    }
+
+    @Benchmark
+    public int rebuild()
+    {
+        LightMap fresh = new LightMap(world);
+        for(Light light : lights.getLights())
+            fresh.addLight(new Light(light.x(), light.y(), light.radius(), light.color()));
+        return fresh.update();
+    }
+}
@@ -0,0 +1,90 @@
+package bench.fov;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.fov.CircleClip;
+import jade.fov.FieldOfView;
+import jade.fov.LightFalloff;
+import jade.fov.SeenMarker;
+import jade.fov.ShadowCaster;
+import jade.fov.ViewField;
+import jade.fov.ViewFieldPostProcess;
+import jade.fov.WallLighting;
+import jade.util.Dice;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a {@code ShadowCaster} field of view followed by wall lighting, circle clipping, light
+ * falloff and seen marking, either fused into a single pass or run as one pass per post process.
+ * The cast alone is measured too, so the cost of the post processes can be told apart from it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostProcessBench
+{
+    @Param({"0", "20"})
+    public int wallPercent;
+
+    @Param({"8", "20"})
+    public int radius;
+
+    private World world;
+    private ViewField caster;
+    private List<ViewFieldPostProcess> chain;
+    private FieldOfView buffer;
+
+    @Setup
+    public void setup()
+    {
+        world = new BenchWorld(256).scatterWalls(wallPercent, new Dice(BenchWorld.SEED));
+        caster = new ShadowCaster();
+        chain = new ArrayList<ViewFieldPostProcess>();
+        chain.add(new WallLighting());
+        chain.add(new CircleClip());
+        chain.add(new LightFalloff());
+        chain.add(new SeenMarker());
+        buffer = new FieldOfView(0, 0, radius);
+    }
+
+    @Benchmark
+    public FieldOfView castOnly()
+    {
+        caster.getFieldOfView(world, world.width() / 2, world.height() / 2, radius, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public FieldOfView fused()
+    {
+        caster.getFieldOfView(world, world.width() / 2, world.height() / 2, radius, buffer);
+        ViewFieldPostProcess.process(chain, buffer, world);
+        return buffer;
+    }
+
+    @Benchmark
+    public FieldOfView separate()
+    {
+        caster.getFieldOfView(world, world.width() / 2, world.height() / 2, radius, buffer);
+        for(ViewFieldPostProcess process : chain)
+            ViewFieldPostProcess.process(Collections.singletonList(process), buffer, world);
+        return buffer;
+    }
+}
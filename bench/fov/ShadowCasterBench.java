@@ -0,0 +1,78 @@
+package bench.fov;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.fov.FieldOfView;
+import jade.fov.ShadowCaster;
+import jade.fov.ViewField;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code ShadowCaster} side by side with {@code LegacyShadowCaster}, the implementation it
+ * replaced, from the center of a map with randomly scattered walls. {@code getViewField} and
+ * {@code getViewFieldLegacy} both allocate a new result, while {@code getFieldOfView} reuses a
+ * {@code FieldOfView} buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShadowCasterBench
+{
+    @Param({"256"})
+    public int size;
+
+    @Param({"0", "20"})
+    public int wallPercent;
+
+    @Param({"8", "20", "40"})
+    public int radius;
+
+    private World world;
+    private ViewField caster;
+    private ViewField legacy;
+    private FieldOfView buffer;
+
+    @Setup
+    public void setup()
+    {
+        world = new BenchWorld(size).scatterWalls(wallPercent, new Dice(BenchWorld.SEED));
+        caster = new ShadowCaster();
+        legacy = new LegacyShadowCaster();
+        buffer = new FieldOfView(0, 0, radius);
+    }
+
+    @Benchmark
+    public Collection<Coordinate> getViewField()
+    {
+        return caster.getViewField(world, world.width() / 2, world.height() / 2, radius);
+    }
+
+    @Benchmark
+    public FieldOfView getFieldOfView()
+    {
+        return caster.getFieldOfView(world, world.width() / 2, world.height() / 2, radius, buffer);
+    }
+
+    @Benchmark
+    public Collection<Coordinate> getViewFieldLegacy()
+    {
+        return legacy.getViewField(world, world.width() / 2, world.height() / 2, radius);
+    }
+}
@@ -0,0 +1,97 @@
+package bench.fov;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.fov.FieldOfView;
+import jade.fov.ShadowCaster;
+import jade.fov.SymmetricShadowCaster;
+import jade.fov.ViewField;
+import jade.fov.ViewFieldBatch;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code ViewFieldBatch} with many observers scattered over a 256x256 map: calculating
+ * every field of view, and asking which observers can see the center. {@code threads} of 0
+ * calculates serially. Only the symmetric caster answers {@code whoCanSee} with a single cast.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewFieldBatchBench
+{
+    @Param({"ShadowCaster", "SymmetricShadowCaster"})
+    public String caster;
+
+    @Param({"1000", "5000"})
+    public int observerCount;
+
+    @Param({"0", "4"})
+    public int threads;
+
+    @Param({"8"})
+    public int radius;
+
+    private World world;
+    private List<Coordinate> observers;
+    private int[] radii;
+    private List<FieldOfView> results;
+    private ForkJoinPool pool;
+    private ViewFieldBatch batch;
+
+    @Setup
+    public void setup()
+    {
+        Dice dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(256).scatterWalls(20, dice);
+        observers = new ArrayList<Coordinate>();
+        for(int i = 0; i < observerCount; i++)
+            observers.add(world.getOpenTile(dice));
+        radii = new int[observerCount];
+        for(int i = 0; i < observerCount; i++)
+            radii[i] = radius;
+        results = new ArrayList<FieldOfView>();
+        pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        ViewField fov = caster.equals("SymmetricShadowCaster") ? new SymmetricShadowCaster()
+                : new ShadowCaster();
+        batch = new ViewFieldBatch(fov, pool);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if(pool != null)
+            pool.shutdown();
+    }
+
+    @Benchmark
+    public List<FieldOfView> getFieldsOfView()
+    {
+        return batch.getFieldsOfView(world, observers, radii, results);
+    }
+
+    @Benchmark
+    public boolean[] whoCanSee()
+    {
+        return batch.whoCanSee(world, world.width() / 2, world.height() / 2, observers, radius);
+    }
+}
@@ -0,0 +1,91 @@
+package bench.fov;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.fov.CachedViewField;
+import jade.fov.FieldOfView;
+import jade.fov.RayCaster;
+import jade.fov.ShadowCaster;
+import jade.fov.SymmetricShadowCaster;
+import jade.fov.ViewField;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code getViewField} of each {@code ViewField} from the center of a map with randomly
+ * scattered walls, both allocating a new result and reusing a {@code FieldOfView} buffer. {@code
+ * flipTile} toggles a tile just east of the center before each calculation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewFieldBench
+{
+    @Param({"ShadowCaster", "RayCaster", "CachedShadowCaster", "SymmetricShadowCaster"})
+    public String caster;
+
+    @Param({"64", "256"})
+    public int size;
+
+    @Param({"0", "20"})
+    public int wallPercent;
+
+    @Param({"8", "20", "40"})
+    public int radius;
+
+    private World world;
+    private ViewField fov;
+    private FieldOfView buffer;
+
+    @Setup
+    public void setup()
+    {
+        world = new BenchWorld(size).scatterWalls(wallPercent, new Dice(BenchWorld.SEED));
+        if(caster.equals("RayCaster"))
+            fov = new RayCaster();
+        else if(caster.equals("SymmetricShadowCaster"))
+            fov = new SymmetricShadowCaster();
+        else if(caster.equals("CachedShadowCaster"))
+            fov = new CachedViewField(new ShadowCaster());
+        else
+            fov = new ShadowCaster();
+        buffer = new FieldOfView(0, 0, radius);
+    }
+
+    @Benchmark
+    public Collection<Coordinate> getViewField()
+    {
+        return fov.getViewField(world, world.width() / 2, world.height() / 2, radius);
+    }
+
+    @Benchmark
+    public FieldOfView getFieldOfView()
+    {
+        return fov.getFieldOfView(world, world.width() / 2, world.height() / 2, radius, buffer);
+    }
+
+    @Benchmark
+    public FieldOfView flipTile()
+    {
+        int x = world.width() / 2;
+        int y = world.height() / 2;
+        world.setTile(world.tileAt(x + 2, y + 1), !world.passableAt(x + 2, y + 1), x + 2, y + 1);
+        return fov.getFieldOfView(world, x, y, radius, buffer);
+    }
+}
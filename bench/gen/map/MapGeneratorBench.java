@@ -0,0 +1,69 @@
+package bench.gen.map;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.gen.map.Cellular;
+import jade.gen.map.MapGenerator;
+import jade.gen.map.Maze;
+import jade.gen.map.Terrain;
+import jade.gen.map.Traditional;
+import jade.util.Dice;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full {@code generate()} of each {@code MapGenerator}. Every generator overwrites
+ * every tile, so the same {@code World} is reused, and the {@code Dice} is reseeded so that every
+ * invocation builds the same map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapGeneratorBench
+{
+    @Param({"Cellular", "Maze", "Traditional", "Terrain"})
+    public String generator;
+
+    @Param({"64", "256"})
+    public int size;
+
+    private World world;
+    private MapGenerator gen;
+    private Dice dice;
+
+    @Setup
+    public void setup()
+    {
+        world = new BenchWorld(size);
+        dice = new Dice(BenchWorld.SEED);
+        if(generator.equals("Cellular"))
+            gen = new Cellular();
+        else if(generator.equals("Maze"))
+            gen = new Maze();
+        else if(generator.equals("Traditional"))
+            gen = new Traditional();
+        else
+            gen = new Terrain();
+    }
+
+    @Benchmark
+    public World generate()
+    {
+        dice.reseed(BenchWorld.SEED);
+        gen.generate(world, dice);
+        return world;
+    }
+}
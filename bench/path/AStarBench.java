@@ -0,0 +1,98 @@
+package bench.path;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.path.AStar;
+import jade.path.CostGrid;
+import jade.path.Heuristic;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code AStar.getPath} between random open tiles on a map with randomly scattered
+ * walls. The same list of start and end points is cycled through on every run. With {@code
+ * weighted} set, every open tile is given a random cost from 1 to 4. {@code getPathLegacy} runs the
+ * same queries through {@code LegacyAStar}, the implementation {@code AStar} replaced, which always
+ * uses Euclidean distance and ignores the costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AStarBench
+{
+    private static final int QUERIES = 64;
+
+    @Param({"64", "256", "1000"})
+    public int size;
+
+    @Param({"0", "20", "35"})
+    public int wallPercent;
+
+    @Param({"EUCLIDEAN", "OCTILE"})
+    public Heuristic heuristic;
+
+    @Param({"false"})
+    public boolean weighted;
+
+    private World world;
+    private AStar astar;
+    private LegacyAStar legacy;
+    private Coordinate[] starts;
+    private Coordinate[] ends;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        Dice dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size).scatterWalls(wallPercent, dice);
+        if(weighted)
+        {
+            CostGrid costs = new CostGrid(world);
+            for(int y = 0; y < size; y++)
+                for(int x = 0; x < size; x++)
+                    costs.setCost(x, y, dice.nextInt(1, 4));
+            astar = new AStar(heuristic, costs);
+        }
+        else
+            astar = new AStar(heuristic);
+        legacy = new LegacyAStar();
+        starts = new Coordinate[QUERIES];
+        ends = new Coordinate[QUERIES];
+        for(int i = 0; i < QUERIES; i++)
+        {
+            starts[i] = world.getOpenTile(dice);
+            ends[i] = world.getOpenTile(dice);
+        }
+    }
+
+    @Benchmark
+    public List<Coordinate> getPath()
+    {
+        int i = next++ % QUERIES;
+        return astar.getPath(world, starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public List<Coordinate> getPathLegacy()
+    {
+        int i = next++ % QUERIES;
+        return legacy.getPath(world, starts[i], ends[i]);
+    }
+}
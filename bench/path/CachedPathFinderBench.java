@@ -0,0 +1,82 @@
+package bench.path;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.gen.map.Cellular;
+import jade.path.AStar;
+import jade.path.CachedPathFinder;
+import jade.path.PathFinder;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures actors heading for a shared stairway on a cave map made by {@code Cellular}, asking for
+ * a new path every step as monster AI usually does. Each operation moves one actor a step along
+ * the path it is given, and an actor which arrives starts again from a random open tile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachedPathFinderBench
+{
+    @Param({"AStar", "CachedAStar"})
+    public String finder;
+
+    @Param({"128", "256"})
+    public int size;
+
+    @Param({"16"})
+    public int actors;
+
+    private World world;
+    private Dice dice;
+    private PathFinder pathfinder;
+    private Coordinate stairs;
+    private Coordinate[] positions;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size);
+        new Cellular().generate(world, dice);
+        if(finder.equals("CachedAStar"))
+            pathfinder = new CachedPathFinder(new AStar());
+        else
+            pathfinder = new AStar();
+
+        stairs = world.getOpenTile(dice);
+        positions = new Coordinate[actors];
+        for(int i = 0; i < actors; i++)
+            positions[i] = world.getOpenTile(dice);
+    }
+
+    @Benchmark
+    public List<Coordinate> step()
+    {
+        int i = next++ % actors;
+        List<Coordinate> path = pathfinder.getPartialPath(world, positions[i], stairs);
+        if(path.isEmpty() || positions[i].equals(stairs))
+            positions[i] = world.getOpenTile(dice);
+        else
+            positions[i] = path.get(0);
+        return path;
+    }
+}
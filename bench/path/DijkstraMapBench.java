@@ -0,0 +1,116 @@
+package bench.path;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.path.AStar;
+import jade.path.DijkstraMap;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.Direction;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one turn of many monsters chasing the player on a map with randomly scattered walls.
+ * {@code astar} runs a path search for every monster, {@code build} builds a {@code DijkstraMap}
+ * from scratch and steps every monster downhill, and {@code moveGoal} moves the goal of an existing
+ * map one step, as the player would, before stepping every monster downhill. {@code flipTile}
+ * toggles a tile a few steps from the player and updates the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DijkstraMapBench
+{
+    @Param({"256"})
+    public int size;
+
+    @Param({"100"})
+    public int monsters;
+
+    private World world;
+    private AStar astar;
+    private DijkstraMap map;
+    private Coordinate player;
+    private Coordinate[] chasers;
+    private Dice dice;
+
+    @Setup
+    public void setup()
+    {
+        dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size).scatterWalls(20, dice);
+        astar = new AStar();
+        player = new Coordinate(size / 2, size / 2);
+        chasers = new Coordinate[monsters];
+        for(int i = 0; i < monsters; i++)
+            chasers[i] = world.getOpenTile(dice);
+        map = new DijkstraMap(world);
+        map.addGoal(player);
+        map.build();
+    }
+
+    @Benchmark
+    public int astar()
+    {
+        int steps = 0;
+        for(Coordinate chaser : chasers)
+            if(astar.getPath(world, chaser, player) != null)
+                steps++;
+        return steps;
+    }
+
+    @Benchmark
+    public int build()
+    {
+        DijkstraMap fresh = new DijkstraMap(world);
+        fresh.addGoal(player);
+        fresh.build();
+        return stepAll(fresh);
+    }
+
+    @Benchmark
+    public int moveGoal()
+    {
+        Direction dir = Direction.values()[dice.nextInt(0, 7)];
+        Coordinate next = player.getTranslated(dir);
+        if(world.passableAt(next))
+        {
+            map.moveGoal(player, next);
+            player = next;
+        }
+        return stepAll(map);
+    }
+
+    @Benchmark
+    public int flipTile()
+    {
+        int x = size / 2 + 5;
+        int y = size / 2;
+        world.setTile(world.tileAt(x, y), !world.passableAt(x, y), x, y);
+        map.update();
+        return map.distance(x, y);
+    }
+
+    private int stepAll(DijkstraMap map)
+    {
+        int steps = 0;
+        for(Coordinate chaser : chasers)
+            if(map.downhill(chaser) != Direction.ORIGIN)
+                steps++;
+        return steps;
+    }
+}
@@ -0,0 +1,133 @@
+package bench.path;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.gen.map.Cellular;
+import jade.gen.map.Traditional;
+import jade.path.AStar;
+import jade.path.HierarchicalPathFinder;
+import jade.path.JumpPointSearch;
+import jade.path.PathFinder;
+import jade.util.Dice;
+import jade.util.datatype.Coordinate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code getPath} of each {@code PathFinder} across either a cave map made by {@code
+ * Cellular}, a dungeon made by {@code Traditional}, or an open map with only a wall around the
+ * edge. Every query starts in the left quarter of the map and ends in the right quarter, so paths
+ * cross most of the map. {@code flipTile} toggles a wall tile in the middle of the map before each
+ * query, which shows what keeping precomputed data up to date costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFinderBench
+{
+    private static final int QUERIES = 32;
+
+    @Param({"AStar", "BidirectionalAStar", "JumpPointSearch", "HierarchicalPathFinder"})
+    public String finder;
+
+    @Param({"cave", "dungeon", "open"})
+    public String map;
+
+    @Param({"256", "1000"})
+    public int size;
+
+    private World world;
+    private PathFinder pathfinder;
+    private Coordinate[] starts;
+    private Coordinate[] ends;
+    private int next;
+    private int flipX;
+    private int flipY;
+
+    @Setup
+    public void setup()
+    {
+        Dice dice = new Dice(BenchWorld.SEED);
+        if(map.equals("cave"))
+        {
+            world = new BenchWorld(size);
+            new Cellular().generate(world, dice);
+        }
+        else if(map.equals("dungeon"))
+        {
+            world = new BenchWorld(size);
+            new Traditional().generate(world, dice);
+        }
+        else
+            world = new BenchWorld(size).scatterWalls(0, dice);
+        if(finder.equals("JumpPointSearch"))
+            pathfinder = new JumpPointSearch();
+        else if(finder.equals("HierarchicalPathFinder"))
+            pathfinder = new HierarchicalPathFinder();
+        else if(finder.equals("BidirectionalAStar"))
+        {
+            AStar astar = new AStar();
+            astar.setBidirectional(true);
+            pathfinder = astar;
+        }
+        else
+            pathfinder = new AStar();
+
+        int quarter = size / 4;
+        starts = new Coordinate[QUERIES];
+        ends = new Coordinate[QUERIES];
+        for(int i = 0; i < QUERIES; i++)
+        {
+            starts[i] = world.getOpenTile(dice, 0, 0, quarter, size - 1);
+            ends[i] = world.getOpenTile(dice, size - 1 - quarter, 0, size - 1, size - 1);
+        }
+
+        // a wall in the middle which can be opened and closed without cutting any path, or the
+        // center itself on open ground
+        flipX = size / 2;
+        flipY = size / 2;
+        for(int x = size / 2; x < size - 1; x++)
+            if(walledIn(x, flipY))
+            {
+                flipX = x;
+                break;
+            }
+    }
+
+    private boolean walledIn(int x, int y)
+    {
+        for(int dx = -1; dx <= 1; dx++)
+            for(int dy = -1; dy <= 1; dy++)
+                if(world.passableAt(x + dx, y + dy))
+                    return false;
+        return true;
+    }
+
+    @Benchmark
+    public List<Coordinate> getPath()
+    {
+        int i = next++ % QUERIES;
+        return pathfinder.getPath(world, starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public List<Coordinate> flipTile()
+    {
+        world.setTile(world.tileAt(flipX, flipY), !world.passableAt(flipX, flipY), flipX, flipY);
+        return getPath();
+    }
+}
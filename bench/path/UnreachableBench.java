@@ -0,0 +1,86 @@
+package bench.path;
+
+import bench.BenchWorld;
+import jade.core.World;
+import jade.gen.map.Cellular;
+import jade.path.AStar;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code AStar.getPartialPath} on a cave map made by {@code Cellular} towards ends which
+ * have been walled in, the worst case of a plain search, in each of the modes which bound it. The
+ * budget mode limits each search to 10000 expansions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnreachableBench
+{
+    private static final int QUERIES = 32;
+
+    @Param({"plain", "bidirectional", "componentCheck", "budget"})
+    public String mode;
+
+    @Param({"256", "1000"})
+    public int size;
+
+    private World world;
+    private AStar astar;
+    private Coordinate[] starts;
+    private Coordinate[] ends;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        Dice dice = new Dice(BenchWorld.SEED);
+        world = new BenchWorld(size);
+        new Cellular().generate(world, dice);
+        astar = new AStar();
+        if(mode.equals("bidirectional"))
+            astar.setBidirectional(true);
+        else if(mode.equals("componentCheck"))
+            astar.setComponentCheck(true);
+        else if(mode.equals("budget"))
+            astar.setExpansionLimit(10000);
+
+        ends = new Coordinate[QUERIES];
+        for(int i = 0; i < QUERIES; i++)
+        {
+            ends[i] = world.getOpenTile(dice, 1, 1, size - 2, size - 2);
+            for(int dx = -1; dx <= 1; dx++)
+                for(int dy = -1; dy <= 1; dy++)
+                    if(dx != 0 || dy != 0)
+                        world.setTile(ColoredChar.create('#'), false, ends[i].x() + dx, ends[i]
+                                .y() + dy);
+        }
+        starts = new Coordinate[QUERIES];
+        for(int i = 0; i < QUERIES; i++)
+            starts[i] = world.getOpenTile(dice);
+    }
+
+    @Benchmark
+    public List<Coordinate> getPartialPath()
+    {
+        int i = next++ % QUERIES;
+        return astar.getPartialPath(world, starts[i], ends[i]);
+    }
+}
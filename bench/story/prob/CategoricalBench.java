@@ -0,0 +1,50 @@
+package bench.story.prob;
+
+import bench.BenchWorld;
+import jade.story.prob.Categorical;
+import jade.util.Dice;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code Categorical.sample} over supports of different sizes, with uneven counts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoricalBench
+{
+    @Param({"4", "64", "1024"})
+    public int support;
+
+    private Categorical<Integer> categorical;
+    private Dice dice;
+
+    @Setup
+    public void setup()
+    {
+        categorical = new Categorical<Integer>();
+        for(int i = 0; i < support; i++)
+            categorical.setCount(i, i % 7 + 1);
+        dice = new Dice(BenchWorld.SEED);
+    }
+
+    @Benchmark
+    public Integer sample()
+    {
+        return categorical.sample(dice);
+    }
+}
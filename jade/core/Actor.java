@@ -66,6 +66,12 @@ public abstract class Actor extends Messenger
         return world;
     }
 
+    @Override
+    World messageWorld()
+    {
+        return world;
+    }
+
     /**
      * Returns true if the {@code Actor} bound to a {@code World}. This is equivalent to calling
      * {@code actor.world() != null}.
@@ -89,7 +95,9 @@ public abstract class Actor extends Messenger
 
     /**
      * Sets the position of the {@code Actor} on its current {@code World}. The {@code Actor} must
-     * be bound and not held when this method is called.
+     * be bound and not held when this method is called. During a parallel tick of the {@code
+     * World}, the move is deferred until every region has acted, and may then be dropped if it
+     * conflicts with another (see {@code World.setTickPool()}).
      * @param x the new x position of the {@code Actor}
      * @param y the new y position of the {@code Actor}
      */
@@ -99,6 +107,9 @@ public abstract class Actor extends Messenger
         Guard.verifyState(!held());
         Guard.argumentsInsideBounds(x, y, world.width(), world.height());
 
+        if(world.deferMove(this, pos.x(), pos.y(), x, y))
+            return;
+
         world.removeFromGrid(this);
         setXY(x, y);
         world.addToGrid(this);
@@ -149,34 +160,54 @@ public abstract class Actor extends Messenger
     }
 
     /**
-     * Returns the x location of the {@code Actor}.
+     * Returns the x location of the {@code Actor}. During a parallel tick, this includes any move
+     * the calling region has made but not yet committed.
      * @return the x location of the {@code Actor}
      */
     public int x()
     {
         Guard.verifyState(bound());
 
-        return pos.x();
+        Coordinate pending = world.pendingPos(this);
+        return pending == null ? pos.x() : pending.x();
     }
 
     /**
-     * Returns the y location of the {@code Actor}.
+     * Returns the y location of the {@code Actor}. During a parallel tick, this includes any move
+     * the calling region has made but not yet committed.
      * @return the y location of the {@code Actor}
      */
     public int y()
     {
         Guard.verifyState(bound());
 
+        Coordinate pending = world.pendingPos(this);
+        return pending == null ? pos.y() : pending.y();
+    }
+
+    /*
+     * The position at which the World holds the Actor, which lags behind x() and y() while a
+     * parallel tick has moves pending.
+     */
+    int gridX()
+    {
+        return pos.x();
+    }
+
+    int gridY()
+    {
         return pos.y();
     }
 
     /**
-     * Returns a copy of the current position of the {@code Actor}.
+     * Returns a copy of the current position of the {@code Actor}. During a parallel tick, this
+     * includes any move the calling region has made but not yet committed.
      * @return a copy of the current position of the {@code Actor}.
      */
     public final Coordinate pos()
     {
-        return pos.copy();
+        Coordinate pending = bound() ? world.pendingPos(this) : null;
+        return pending == null ? pos.copy() : pending.copy();
     }
 
     /**
@@ -189,11 +220,18 @@ public abstract class Actor extends Messenger
     }
 
     /**
-     * Expires the {@code Actor}, or in other words, marks it for removal.
+     * Expires the {@code Actor}, or in other words, marks it for removal. Any {@code Actor} held by
+     * this one are expired as well. A bound {@code Actor} is queued for removal by its {@code World}
+     * the first time it expires.
      */
     public void expire()
     {
-        expired = true;
+        if(!expired)
+        {
+            expired = true;
+            if(bound())
+                world.expired(this);
+        }
         for(Actor held : holds)
             held.expire();
     }
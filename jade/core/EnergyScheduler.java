@@ -0,0 +1,276 @@
+package jade.core;
+
+import jade.util.Guard;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@code Scheduler} which lets each {@code Actor} act according to its own speed. Every scheduled
+ * {@code Actor} has a delay, which is the amount of time between its actions, and a tick advances
+ * time by {@code TURN}. An {@code Actor} with a delay of {@code TURN} acts once per tick, one with
+ * half that delay acts twice per tick, and so on. Actions are kept in a priority queue ordered by
+ * the time they are due, with ties going to whichever {@code Actor} was scheduled first, so only
+ * the {@code Actor} which actually act during a tick are visited. {@code Actor} which are asleep
+ * are not in the queue at all, and cost nothing per tick.
+ * <p>
+ * When an {@code Actor} is registered, it is scheduled with the default delay if it is an instance
+ * of one of the classes in the act order of the {@code World}, and otherwise starts asleep. This
+ * way, items and other passive {@code Actor} left out of the act order never enter the queue.
+ */
+public class EnergyScheduler extends Scheduler
+{
+    /**
+     * The amount of time that passes during one tick.
+     */
+    public static final int TURN = 100;
+
+    private int defaultDelay;
+    private long now;
+    private long sequence;
+    private Map<Actor, Entry> entries;
+    // not jade.path.IndexedHeap, which only lowers keys and never removes an id from the middle,
+    // while actions here are pushed later after each act and removed when an Actor sleeps
+    private Entry[] heap;
+    private int size;
+
+    /**
+     * Constructs a new {@code EnergyScheduler} in which newly scheduled {@code Actor} act once per
+     * tick.
+     */
+    public EnergyScheduler()
+    {
+        this(TURN);
+    }
+
+    /**
+     * Constructs a new {@code EnergyScheduler} with the given default delay for newly scheduled
+     * {@code Actor}. The delay must be positive.
+     * @param defaultDelay the delay given to newly registered {@code Actor}
+     */
+    public EnergyScheduler(int defaultDelay)
+    {
+        Guard.argumentIsPositive(defaultDelay);
+
+        this.defaultDelay = defaultDelay;
+        entries = new HashMap<Actor, Entry>();
+        heap = new Entry[16];
+    }
+
+    /**
+     * Returns the current time of the {@code EnergyScheduler}, which increases by {@code TURN}
+     * every tick.
+     * @return the current time of the {@code EnergyScheduler}
+     */
+    public long time()
+    {
+        return now;
+    }
+
+    /**
+     * Returns the delay of the given {@code Actor}, or zero if it is not scheduled.
+     * @param actor the {@code Actor} being queried
+     * @return the delay of the {@code Actor}
+     */
+    public int getDelay(Actor actor)
+    {
+        Entry entry = entries.get(actor);
+        return entry == null ? 0 : entry.delay;
+    }
+
+    /**
+     * Sets the delay of a scheduled {@code Actor}. The change applies from the next action of the
+     * {@code Actor} onward, and the already scheduled action is moved by the difference between
+     * the old and the new delay, but never into the past.
+     * @param actor the {@code Actor} whose delay is being set
+     * @param delay the new delay of the {@code Actor}
+     */
+    public void setDelay(Actor actor, int delay)
+    {
+        Guard.argumentIsPositive(delay);
+        Guard.verifyState(scheduled(actor));
+
+        Entry entry = entries.get(actor);
+        entry.time = Math.max(now, entry.time + delay - entry.delay);
+        entry.delay = delay;
+        siftUp(entry.index);
+        siftDown(entry.index);
+    }
+
+    /**
+     * Returns true if the given {@code Actor} is scheduled to act (in other words, not asleep).
+     * @param actor the {@code Actor} being queried
+     * @return true if the {@code Actor} is scheduled to act
+     */
+    public boolean scheduled(Actor actor)
+    {
+        return entries.containsKey(actor);
+    }
+
+    /**
+     * Removes an {@code Actor} from the schedule, so that it will not act until woken.
+     * @param actor the {@code Actor} being put to sleep
+     */
+    public void sleep(Actor actor)
+    {
+        Entry entry = entries.remove(actor);
+        if(entry != null)
+            removeAt(entry.index);
+    }
+
+    /**
+     * Schedules a sleeping {@code Actor} to act after the given delay, which also becomes its delay
+     * between later actions. The {@code Actor} must be registered with the {@code World} of the
+     * {@code EnergyScheduler}.
+     * @param actor the {@code Actor} being woken
+     * @param delay the delay of the {@code Actor}
+     */
+    public void wake(Actor actor, int delay)
+    {
+        Guard.argumentIsNotNull(actor);
+        Guard.argumentIsPositive(delay);
+        Guard.verifyState(world() != null && actor.bound(world()));
+
+        if(scheduled(actor))
+            setDelay(actor, delay);
+        else
+            push(new Entry(actor, now + delay, delay, sequence++));
+    }
+
+    /**
+     * Schedules a sleeping {@code Actor} to act after the default delay.
+     * @param actor the {@code Actor} being woken
+     */
+    public final void wake(Actor actor)
+    {
+        wake(actor, defaultDelay);
+    }
+
+    @Override
+    protected void tick()
+    {
+        long end = now + TURN;
+        while(size > 0 && heap[0].time <= end)
+        {
+            Entry entry = heap[0];
+            now = entry.time;
+            if(entry.actor.expired())
+            {
+                sleep(entry.actor);
+                continue;
+            }
+
+            // reschedule before acting, so the Actor may change its own delay or go to sleep
+            entry.time += entry.delay;
+            entry.sequence = sequence++;
+            siftDown(0);
+            entry.actor.act();
+        }
+        now = end;
+    }
+
+    @Override
+    protected void registered(Actor actor)
+    {
+        for(Class<? extends Actor> cls : world().getActOrder())
+            if(cls.isInstance(actor))
+            {
+                wake(actor);
+                return;
+            }
+    }
+
+    @Override
+    protected void unregistered(Actor actor)
+    {
+        sleep(actor);
+    }
+
+    private void push(Entry entry)
+    {
+        if(size == heap.length)
+        {
+            Entry[] grown = new Entry[size * 2];
+            System.arraycopy(heap, 0, grown, 0, size);
+            heap = grown;
+        }
+        entries.put(entry.actor, entry);
+        heap[size] = entry;
+        entry.index = size++;
+        siftUp(entry.index);
+    }
+
+    private void removeAt(int index)
+    {
+        size--;
+        if(index == size)
+        {
+            heap[size] = null;
+            return;
+        }
+        Entry moved = heap[size];
+        heap[size] = null;
+        place(moved, index);
+        siftUp(index);
+        siftDown(moved.index);
+    }
+
+    private void siftUp(int index)
+    {
+        Entry entry = heap[index];
+        while(index > 0)
+        {
+            int parent = (index - 1) >> 1;
+            if(!entry.before(heap[parent]))
+                break;
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(entry, index);
+    }
+
+    private void siftDown(int index)
+    {
+        Entry entry = heap[index];
+        while(true)
+        {
+            int child = 2 * index + 1;
+            if(child >= size)
+                break;
+            if(child + 1 < size && heap[child + 1].before(heap[child]))
+                child++;
+            if(!heap[child].before(entry))
+                break;
+            place(heap[child], index);
+            index = child;
+        }
+        place(entry, index);
+    }
+
+    private void place(Entry entry, int index)
+    {
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    private static class Entry
+    {
+        public final Actor actor;
+        public long time;
+        public int delay;
+        public long sequence;
+        public int index;
+
+        public Entry(Actor actor, long time, int delay, long sequence)
+        {
+            this.actor = actor;
+            this.time = time;
+            this.delay = delay;
+            this.sequence = sequence;
+        }
+
+        public boolean before(Entry other)
+        {
+            return time < other.time || (time == other.time && sequence < other.sequence);
+        }
+    }
+}
@@ -25,7 +25,8 @@ public abstract class Messenger
     }
 
     /**
-     * Appends a message, which will have this {@code Messenger} as a source.
+     * Appends a message, which will have this {@code Messenger} as a source. During the parallel
+     * phase of a {@code World} tick, the message is only appended once the phase has ended.
      * 
      * @param message the message to append
      */
@@ -33,7 +34,9 @@ public abstract class Messenger
     {
         Guard.argumentIsNotNull(message);
 
-        cache.add(new Message(message, this));
+        World world = messageWorld();
+        if(world == null || !world.deferMessage(this, message))
+            cache.add(new Message(message, this));
     }
 
     /**
@@ -85,6 +88,15 @@ public abstract class Messenger
         cache.clear();
     }
 
+    /*
+     * Returns the World whose parallel tick may have to hold back messages to this Messenger, if
+     * any.
+     */
+    World messageWorld()
+    {
+        return null;
+    }
+
     private class Message
     {
         public final String text;
@@ -0,0 +1,91 @@
+package jade.core;
+
+/**
+ * An immutable snapshot of which tiles of a {@code World} are passable, packed one bit per tile.
+ * Reading a {@code PassableGrid} involves no bounds checks which throw, and no object references,
+ * which makes it suited to inner loops such as field of view and path finding. Since it never
+ * changes, a {@code PassableGrid} may be shared freely between threads. Snapshots are obtained
+ * from {@code World.passableGrid()}, which only takes a new one after a tile has changed.
+ */
+public final class PassableGrid
+{
+    private World world;
+    private int width;
+    private int height;
+    private int version;
+    private long[] bits;
+
+    PassableGrid(World world, int width, int height, int version, long[] bits)
+    {
+        this.world = world;
+        this.width = width;
+        this.height = height;
+        this.version = version;
+        this.bits = bits;
+    }
+
+    long[] bits()
+    {
+        return bits;
+    }
+
+    /**
+     * Returns the {@code World} this is a snapshot of.
+     * @return the {@code World} this is a snapshot of
+     */
+    public World world()
+    {
+        return world;
+    }
+
+    /**
+     * Returns the width of the {@code World}.
+     * @return the width of the {@code World}
+     */
+    public int width()
+    {
+        return width;
+    }
+
+    /**
+     * Returns the height of the {@code World}.
+     * @return the height of the {@code World}
+     */
+    public int height()
+    {
+        return height;
+    }
+
+    /**
+     * Returns the {@code passableVersion()} of the {@code World} when the snapshot was taken.
+     * @return the passable version of the snapshot
+     */
+    public int version()
+    {
+        return version;
+    }
+
+    /**
+     * Returns true if the {@code World} has changed since the snapshot was taken.
+     * @return true if the snapshot is out of date
+     */
+    public boolean stale()
+    {
+        return world.passableVersion() != version;
+    }
+
+    /**
+     * Returns true if the tile at (x, y) was passable. Locations outside the {@code World} are
+     * treated as impassable.
+     * @param x the x value of the tile
+     * @param y the y value of the tile
+     * @return true if the tile at (x, y) was passable
+     */
+    public boolean passable(int x, int y)
+    {
+        if(x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+        int index = y * width + x;
+        return (bits[index >> 6] & (1L << index)) != 0;
+    }
+}
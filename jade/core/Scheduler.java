@@ -0,0 +1,54 @@
+package jade.core;
+
+import jade.util.Guard;
+
+/**
+ * Determines which {@code Actor} act during a {@code tick()} of a {@code World}, and in what order.
+ * Without a {@code Scheduler}, a {@code World} simply lets every {@code Actor} act once per tick in
+ * act order. A {@code Scheduler} can replace that policy, for example to let fast {@code Actor} act
+ * more often than slow ones. A {@code Scheduler} may only be set on one {@code World} at a time,
+ * and is told whenever an {@code Actor} is registered or unregistered with that {@code World}.
+ */
+public abstract class Scheduler
+{
+    private World world;
+
+    /**
+     * Returns the {@code World} this {@code Scheduler} is set on, or null if there is none.
+     * @return the {@code World} this {@code Scheduler} is set on
+     */
+    public World world()
+    {
+        return world;
+    }
+
+    /**
+     * Performs one tick of the {@code World}, calling {@code act()} on whichever {@code Actor} are
+     * due to act. Expired {@code Actor} are removed by the {@code World} after this returns.
+     */
+    protected abstract void tick();
+
+    /**
+     * Called when an {@code Actor} is registered with the {@code World} of this {@code Scheduler},
+     * including every {@code Actor} already registered when the {@code Scheduler} is set.
+     * @param actor the {@code Actor} being registered
+     */
+    protected void registered(Actor actor)
+    {}
+
+    /**
+     * Called when an {@code Actor} is unregistered from the {@code World} of this {@code
+     * Scheduler}, as well as for every registered {@code Actor} when the {@code Scheduler} is
+     * replaced.
+     * @param actor the {@code Actor} being unregistered
+     */
+    protected void unregistered(Actor actor)
+    {}
+
+    void bind(World world)
+    {
+        Guard.verifyState(this.world == null || world == null);
+
+        this.world = world;
+    }
+}
@@ -3,24 +3,57 @@ package jade.core;
 import jade.util.Dice;
 import jade.util.Guard;
 import jade.util.Lambda;
-import jade.util.Lambda.FilterFunc;
 import jade.util.datatype.ColoredChar;
 import jade.util.datatype.Coordinate;
+import jade.util.datatype.LongSet;
+import jade.util.datatype.PackedCoordinate;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Represents a game world on which {@code Actor} can interact.
  */
 public abstract class World extends Messenger
 {
+    /**
+     * The number of recent passability changes remembered by {@code passableChange()}.
+     */
+    public static final int PASSABLE_HISTORY = 64;
+
     private int width;
     private int height;
-    private Tile[][] grid;
-    private Set<Actor> register;
+    private long[] passable;
+    private int passableVersion;
+    private long[] passableChanges;
+    private volatile PassableGrid passableGrid;
+    private int[] faces;
+    private List<ColoredChar> palette;
+    private Map<ColoredChar, Integer> paletteIndex;
+    private List<Actor>[] occupants;
+    private Buckets buckets;
+    private Map<Class<?>, Set<Actor>> register;
+    private List<Actor> acting;
+    private List<Actor> expiring;
+    private Dice dice;
+    private ForkJoinPool tickPool;
+    private Scheduler scheduler;
+    private volatile boolean parallelPhase;
+    private ThreadLocal<Region> currentRegion;
     private List<Class<? extends Actor>> drawOrder;
     private List<Class<? extends Actor>> actOrder;
 
@@ -36,15 +69,16 @@ public abstract class World extends Messenger
 
         this.width = width;
         this.height = height;
-        grid = new Tile[width][height];
-        for(int x = 0; x < width; x++)
-            for(int y = 0; y < height; y++)
-                grid[x][y] = new Tile();
-        register = new HashSet<Actor>();
+        initTiles();
+        register = new HashMap<Class<?>, Set<Actor>>();
+        acting = new ArrayList<Actor>();
+        dice = Dice.global;
+        currentRegion = new ThreadLocal<Region>();
 
         drawOrder = new ArrayList<Class<? extends Actor>>();
         drawOrder.add(Actor.class);
 
+        expiring = new ArrayList<Actor>();
         actOrder = new ArrayList<Class<? extends Actor>>();
         actOrder.add(Actor.class);
     }
@@ -52,17 +86,142 @@ public abstract class World extends Messenger
     /**
      * Performs one tick. This will call {@code act()} on all {@code Actor} in the order specified
      * by the act order of the {@code World}. Any {@code Actor} whose type does not appear in the
-     * act order does not act. Any expired {@code Actor} are removed from the {@code World}.
+     * act order does not act. Any expired {@code Actor} are removed from the {@code World}. If a
+     * tick pool has been set, the {@code Actor} of each class in the act order act in parallel (see
+     * {@code setTickPool()}). If a {@code Scheduler} has been set, it decides which {@code Actor}
+     * act instead (see {@code setScheduler()}).
      */
     public void tick()
     {
-        for(Class<? extends Actor> cls : actOrder)
-            for(Actor actor : getActors(cls))
-                actor.act();
+        if(scheduler != null)
+            scheduler.tick();
+        else
+            tickActOrder();
 
         removeExpired();
     }
 
+    private void tickActOrder()
+    {
+        for(Class<? extends Actor> cls : actOrder)
+        {
+            // act on a copy, since acting may add or remove Actor of the same class
+            acting.addAll(registered(cls));
+            if(tickPool == null)
+                for(Actor actor : acting)
+                    actor.act();
+            else
+                actParallel(acting);
+            acting.clear();
+        }
+    }
+
+    /**
+     * Sets the {@code Scheduler} which decides which {@code Actor} act during {@code tick()}, or
+     * null to restore the default behavior of acting once per tick in act order. Every {@code
+     * Actor} currently registered is passed to the new {@code Scheduler}. While a {@code
+     * Scheduler} is set, any tick pool is ignored. A {@code Scheduler} may only be set on one
+     * {@code World} at a time.
+     * @param scheduler the new {@code Scheduler}, or null for the default act order
+     */
+    public void setScheduler(Scheduler scheduler)
+    {
+        if(scheduler != null)
+            scheduler.bind(this);
+        if(this.scheduler != null)
+        {
+            for(Actor actor : registered(Actor.class))
+                this.scheduler.unregistered(actor);
+            this.scheduler.bind(null);
+        }
+        this.scheduler = scheduler;
+        if(scheduler != null)
+            for(Actor actor : registered(Actor.class))
+                scheduler.registered(actor);
+    }
+
+    /**
+     * Returns the {@code Scheduler} of the {@code World}, or null if the default act order is used.
+     * @return the {@code Scheduler} of the {@code World}
+     */
+    public Scheduler getScheduler()
+    {
+        return scheduler;
+    }
+
+    /**
+     * Sets the {@code ForkJoinPool} used to perform {@code tick()} in parallel, or null to act
+     * serially (the default). In parallel mode, the {@code Actor} of each class in the act order
+     * are partitioned into square regions of the {@code World} by position, and each region acts on
+     * the pool while the others act concurrently. During this parallel phase, the {@code World} is
+     * effectively read-only: calls to {@code setPos()} are recorded as move intents, which are
+     * committed region by region once every region has acted. A region sees the intents it has
+     * recorded, so an {@code Actor} which moves twice in one {@code act()} ends two steps away, but
+     * every other position, and the contents of every cell, stay as they were when the tick began.
+     * Since nothing is written until the phase has ended, an {@code Actor} may read the position of
+     * any other {@code Actor} without synchronization; any other state shared between regions is
+     * the responsibility of the {@code Actor} which shares it.
+     * <p>
+     * Intents are committed in region order, then in the order they were first made, and each
+     * {@code Actor} has at most one per region, holding its last position in that region. An intent
+     * is dropped if its {@code Actor} has since been moved by an earlier intent (from another
+     * region), or if an earlier intent has already moved an {@code Actor} into the same cell, so
+     * that two regions contending for a cell never both get it. An {@code Actor} whose intent is
+     * dropped stays where it was.
+     * <p>
+     * Messages appended to the {@code World} or its {@code Actor} are likewise held back and
+     * delivered in region order once the phase has ended. Adding, removing, attaching or detaching
+     * {@code Actor}, or setting tiles, during the parallel phase throws an {@code
+     * IllegalStateException}. Each region receives its own {@code Dice}, seeded from {@code dice()}
+     * in region order, so an {@code Actor} which draws its random numbers from {@code
+     * world().dice()} behaves identically regardless of the number of threads in the pool.
+     * @param pool the {@code ForkJoinPool} used to perform ticks, or null to tick serially
+     */
+    public void setTickPool(ForkJoinPool pool)
+    {
+        tickPool = pool;
+    }
+
+    /**
+     * Returns the {@code ForkJoinPool} used to perform ticks in parallel, or null if ticks are
+     * serial.
+     * @return the {@code ForkJoinPool} used to perform ticks in parallel
+     */
+    public ForkJoinPool getTickPool()
+    {
+        return tickPool;
+    }
+
+    /**
+     * Returns the {@code Dice} which {@code Actor} on this {@code World} should use for random
+     * number generation. During a parallel tick, this is the {@code Dice} of the region of the
+     * calling {@code Actor}. Otherwise, it is the {@code Dice} set with {@code setDice()}, which
+     * defaults to the global instance of {@code Dice}.
+     * @return the {@code Dice} which {@code Actor} on this {@code World} should use
+     */
+    public Dice dice()
+    {
+        if(parallelPhase)
+        {
+            Region region = currentRegion.get();
+            if(region != null)
+                return region.dice;
+        }
+        return dice;
+    }
+
+    /**
+     * Sets the {@code Dice} returned by {@code dice()}. Parallel ticks are deterministic for a given
+     * seed of this {@code Dice}.
+     * @param dice the new {@code Dice} of the {@code World}
+     */
+    public void setDice(Dice dice)
+    {
+        Guard.argumentIsNotNull(dice);
+
+        this.dice = dice;
+    }
+
     /**
      * Returns the width of the {@code World}.
      * @return the width of the {@code World}
@@ -175,21 +334,21 @@ public abstract class World extends Messenger
     }
 
     /**
-     * Removes all expired {@code Actor} from the {@code World}.
+     * Removes all expired {@code Actor} from the {@code World}. Only the {@code Actor} which have
+     * expired since the last call are visited, so this is cheap when nothing has expired.
      */
     public void removeExpired()
     {
-        Iterable<Actor> expired = Lambda.filter(register, new FilterFunc<Actor>()
-        {
-            @Override
-            public boolean filter(Actor element)
-            {
-                return element.expired();
-            }
-        });
+        if(expiring.isEmpty())
+            return;
 
-        for(Actor actor : expired)
-            removeActor(actor);
+        for(int i = 0; i < expiring.size(); i++)
+        {
+            Actor actor = expiring.get(i);
+            if(actor.bound(this))
+                removeActor(actor);
+        }
+        expiring.clear();
     }
 
     /**
@@ -204,7 +363,12 @@ public abstract class World extends Messenger
      */
     public <T extends Actor> T getActorAt(Class<T> cls, int x, int y)
     {
-        return Lambda.first(Lambda.filterType(grid[x][y].actors, cls));
+        Guard.argumentsInsideBounds(x, y, width, height);
+
+        List<Actor> actors = occupants[index(x, y)];
+        if(actors == null)
+            return null;
+        return Lambda.first(Lambda.filterType(actors, cls));
     }
 
     /**
@@ -235,7 +399,12 @@ public abstract class World extends Messenger
      */
     public <T extends Actor> Collection<T> getActorsAt(Class<T> cls, int x, int y)
     {
-        return Lambda.toSet(Lambda.filterType(grid[x][y].actors, cls));
+        Guard.argumentsInsideBounds(x, y, width, height);
+
+        List<Actor> actors = occupants[index(x, y)];
+        if(actors == null)
+            return new HashSet<T>();
+        return Lambda.toSet(Lambda.filterType(actors, cls));
     }
 
     /**
@@ -262,21 +431,154 @@ public abstract class World extends Messenger
      * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
      * @return an {@code Actor} of the given class
      */
+    @SuppressWarnings("unchecked")
     public <T extends Actor> T getActor(Class<T> cls)
     {
-        return Lambda.first(Lambda.filterType(register, cls));
+        Guard.argumentIsNotNull(cls);
+
+        return (T)Lambda.first(registered(cls));
     }
 
     /**
      * Returns a {@code Collection<T extends Actor>} of all {@code Actor} of the given class,
-     * Regardless of their location on the {@code World}.
+     * Regardless of their location on the {@code World}. The returned {@code Collection} is a
+     * read-only view which reflects any later changes to the {@code World}, so it should be copied
+     * if it is iterated while {@code Actor} are being added or removed.
      * @param <T> the generic type of the class to be returned
      * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
      * @return a {@code Collection<T extends Actor>} of all {@code Actor} of the given class
      */
+    @SuppressWarnings("unchecked")
     public <T extends Actor> Collection<T> getActors(Class<T> cls)
     {
-        return Lambda.toSet(Lambda.filterType(register, cls));
+        Guard.argumentIsNotNull(cls);
+
+        Set<Actor> actors = register.get(cls);
+        if(actors == null)
+            return Collections.unmodifiableSet(new RegisterView<T>(cls));
+        return Collections.unmodifiableSet((Set<T>)actors);
+    }
+
+    /**
+     * Returns a {@code Collection<T extends Actor>} of all {@code Actor} of the given class located
+     * inside the rectangle with corners (x1, y1) and (x2, y2), inclusive. Any part of the rectangle
+     * outside the bounds of the {@code World} is ignored. As with {@code getActorsAt()}, held
+     * {@code Actor} are not placed on the {@code World} and are not included.
+     * @param <T> the generic type of the class to be returned
+     * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
+     * @param x1 the left most value of the rectangle
+     * @param y1 the upper most value of the rectangle
+     * @param x2 the right most value of the rectangle
+     * @param y2 the bottom most value of the rectangle
+     * @return all {@code Actor} of the given class inside the rectangle
+     */
+    public <T extends Actor> Collection<T> getActorsIn(Class<T> cls, int x1, int y1, int x2,
+            int y2)
+    {
+        Guard.argumentIsNotNull(cls);
+
+        List<T> found = new ArrayList<T>();
+        buckets.collect(cls, Math.max(x1, 0), Math.max(y1, 0), Math.min(x2, width - 1), Math.min(
+                y2, height - 1), found);
+        return found;
+    }
+
+    /**
+     * Returns a {@code Collection<T extends Actor>} of all {@code Actor} of the given class located
+     * inside the rectangle with the given corners, inclusive. Any part of the rectangle outside the
+     * bounds of the {@code World} is ignored.
+     * @param <T> the generic type of the class to be returned
+     * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
+     * @param topLeft the upper-left corner of the rectangle
+     * @param bottomRight the bottom-right corner of the rectangle
+     * @return all {@code Actor} of the given class inside the rectangle
+     */
+    public final <T extends Actor> Collection<T> getActorsIn(Class<T> cls, Coordinate topLeft,
+            Coordinate bottomRight)
+    {
+        Guard.argumentsAreNotNull(topLeft, bottomRight);
+
+        return getActorsIn(cls, topLeft.x(), topLeft.y(), bottomRight.x(), bottomRight.y());
+    }
+
+    /**
+     * Returns a {@code Collection<T extends Actor>} of all {@code Actor} of the given class whose
+     * Cartesian distance from (x, y) is at most the given radius.
+     * @param <T> the generic type of the class to be returned
+     * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
+     * @param x the x value of the center of the query
+     * @param y the y value of the center of the query
+     * @param radius the maximum distance from (x, y)
+     * @return all {@code Actor} of the given class within radius of (x, y)
+     */
+    public <T extends Actor> Collection<T> getActorsWithin(Class<T> cls, int x, int y, int radius)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+        Guard.argumentIsNonNegative(radius);
+
+        Collection<T> found = getActorsIn(cls, x - radius, y - radius, x + radius, y + radius);
+        Iterator<T> iter = found.iterator();
+        while(iter.hasNext())
+        {
+            T actor = iter.next();
+            int dx = actor.gridX() - x;
+            int dy = actor.gridY() - y;
+            if(dx * dx + dy * dy > radius * radius)
+                iter.remove();
+        }
+        return found;
+    }
+
+    /**
+     * Returns a {@code Collection<T extends Actor>} of all {@code Actor} of the given class whose
+     * Cartesian distance from the given {@code Coordinate} is at most the given radius.
+     * @param <T> the generic type of the class to be returned
+     * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
+     * @param pos the center of the query
+     * @param radius the maximum distance from pos
+     * @return all {@code Actor} of the given class within radius of pos
+     */
+    public final <T extends Actor> Collection<T> getActorsWithin(Class<T> cls, Coordinate pos,
+            int radius)
+    {
+        Guard.argumentIsNotNull(pos);
+
+        return getActorsWithin(cls, pos.x(), pos.y(), radius);
+    }
+
+    /**
+     * Returns the (at most) k {@code Actor} of the given class closest to (x, y), ordered from
+     * nearest to farthest by Cartesian distance. Ties are broken arbitrarily, but consistently.
+     * @param <T> the generic type of the class to be returned
+     * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
+     * @param x the x value of the center of the query
+     * @param y the y value of the center of the query
+     * @param k the maximum number of {@code Actor} to return
+     * @return the k nearest {@code Actor} of the given class
+     */
+    public <T extends Actor> List<T> getNearestActors(Class<T> cls, int x, int y, int k)
+    {
+        Guard.argumentIsNotNull(cls);
+        Guard.argumentsInsideBounds(x, y, width, height);
+        Guard.argumentIsNonNegative(k);
+
+        return buckets.nearest(cls, x, y, k);
+    }
+
+    /**
+     * Returns the (at most) k {@code Actor} of the given class closest to the given {@code
+     * Coordinate}, ordered from nearest to farthest by Cartesian distance.
+     * @param <T> the generic type of the class to be returned
+     * @param cls the {@code Class<T extends Actor>} of the {@code Actor} to be returned
+     * @param pos the center of the query
+     * @param k the maximum number of {@code Actor} to return
+     * @return the k nearest {@code Actor} of the given class
+     */
+    public final <T extends Actor> List<T> getNearestActors(Class<T> cls, Coordinate pos, int k)
+    {
+        Guard.argumentIsNotNull(pos);
+
+        return getNearestActors(cls, pos.x(), pos.y(), k);
     }
 
     /**
@@ -290,21 +592,7 @@ public abstract class World extends Messenger
      */
     public List<ColoredChar> lookAll(int x, int y)
     {
-        Guard.argumentsInsideBounds(x, y, width, height);
-
-        List<ColoredChar> look = new ArrayList<ColoredChar>();
-
-        for(Class<? extends Actor> cls : drawOrder)
-            for(Actor actor : getActorsAt(cls, x, y))
-            {
-                ColoredChar face = actor.face();
-                if(face != null)
-                    look.add(actor.face());
-            }
-
-        look.add(tileAt(x, y));
-
-        return look;
+        return lookAll(x, y, new ArrayList<ColoredChar>());
     }
 
     /**
@@ -323,15 +611,65 @@ public abstract class World extends Messenger
     }
 
     /**
-     * Returns the face that should be drawn for the given location. This should be the same as the
-     * first face returned by lookAll.
+     * Fills the given buffer with every tile that is visible at a given location, in the same order
+     * as {@code lookAll(x, y)}. The buffer is cleared first and then returned, so that a caller
+     * drawing every location can reuse one buffer instead of allocating a new list per location.
+     * @param x the x value of the location being queried
+     * @param y the y value of the location being queried
+     * @param buffer the list which receives the visible tiles
+     * @return the buffer, holding every tile that is visible at a given location
+     */
+    public List<ColoredChar> lookAll(int x, int y, List<ColoredChar> buffer)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+        Guard.argumentIsNotNull(buffer);
+
+        buffer.clear();
+        List<Actor> actors = occupants[index(x, y)];
+        if(actors != null)
+            for(int i = 0; i < drawOrder.size(); i++)
+            {
+                Class<? extends Actor> cls = drawOrder.get(i);
+                for(int j = 0; j < actors.size(); j++)
+                {
+                    Actor actor = actors.get(j);
+                    if(actor.face() != null && cls.isInstance(actor))
+                        buffer.add(actor.face());
+                }
+            }
+        buffer.add(tileAt(x, y));
+
+        return buffer;
+    }
+
+    /**
+     * Returns the face that should be drawn for the given location. This is the same as the first
+     * face returned by lookAll, but is found without allocating, since it is called for every
+     * location whenever the {@code World} is drawn. Like {@code lookAll}, it falls back on {@code
+     * tileAt()} when no {@code Actor} is drawn at the location, so a subclass which changes the
+     * faces of tiles by overriding {@code tileAt()} changes both alike.
      * @param x the x value of the location being queried
      * @param y the y value of the location being queried
      * @return the face that should be drawn for the given location.
      */
     public final ColoredChar look(int x, int y)
     {
-        return lookAll(x, y).get(0);
+        Guard.argumentsInsideBounds(x, y, width, height);
+
+        List<Actor> actors = occupants[index(x, y)];
+        if(actors != null)
+            for(int i = 0; i < drawOrder.size(); i++)
+            {
+                Class<? extends Actor> cls = drawOrder.get(i);
+                for(int j = 0; j < actors.size(); j++)
+                {
+                    Actor actor = actors.get(j);
+                    if(actor.face() != null && cls.isInstance(actor))
+                        return actor.face();
+                }
+            }
+
+        return tileAt(x, y);
     }
 
     /**
@@ -339,7 +677,6 @@ public abstract class World extends Messenger
      * @param pos the location being queried
      * @return the face that should be drawn for the given location.
      */
-
     public final ColoredChar look(Coordinate pos)
     {
         Guard.argumentIsNotNull(pos);
@@ -357,7 +694,7 @@ public abstract class World extends Messenger
     {
         Guard.argumentsInsideBounds(x, y, width, height);
 
-        return grid[x][y].face;
+        return palette.get(faces[index(x, y)]);
     }
 
     /**
@@ -374,6 +711,10 @@ public abstract class World extends Messenger
 
     /**
      * Returns true if the tile at the provided (x, y) coordinates is passable.
+     * <p>
+     * Snapshots from {@code passableGrid()} are built from this method, but are only retaken when
+     * {@code passableVersion()} changes. A subclass overriding it must therefore only change its
+     * answers through {@code setTile()}, or snapshots taken earlier will be stale.
      * @param x the x value of the position being queried
      * @param y the y value of the position being queried
      * @return true if the tile at (x, y)
@@ -382,7 +723,8 @@ public abstract class World extends Messenger
     {
         Guard.argumentsInsideBounds(x, y, width, height);
 
-        return grid[x][y].passable;
+        int index = index(x, y);
+        return (passable[index >> 6] & (1L << index)) != 0;
     }
 
     /**
@@ -408,9 +750,80 @@ public abstract class World extends Messenger
     {
         Guard.argumentIsNotNull(face);
         Guard.argumentsInsideBounds(x, y, width, height);
+        Guard.verifyState(!parallelPhase);
+
+        int index = index(x, y);
+        faces[index] = paletteIndex(face);
+        if(passable == passableAt(x, y))
+            return;
+        if(passable)
+            this.passable[index >> 6] |= 1L << index;
+        else
+            this.passable[index >> 6] &= ~(1L << index);
+        passableVersion++;
+        passableChanges[passableVersion % PASSABLE_HISTORY] = PackedCoordinate.pack(x, y);
+    }
+
+    /**
+     * Returns the number of times a call to {@code setTile()} has changed whether a tile is
+     * passable. Anything computed from the passable values of the {@code World}, such as a field of
+     * view or a path, can remember this version and later tell whether it may be stale.
+     * @return the number of passable changes made to the {@code World}
+     */
+    public int passableVersion()
+    {
+        return passableVersion;
+    }
+
+    /**
+     * Returns a snapshot of which tiles are passable. The snapshot is only retaken after a tile
+     * has changed, so calling this once per tick, or once per field of view, is cheap. The
+     * snapshot is read through {@code passableAt()}, so it follows any override of that method.
+     * The first snapshot reads every tile, and later ones copy the previous snapshot and read again
+     * only the tiles changed since, unless more changed than the {@code World} remembers.
+     * @return a snapshot of the passable values of the {@code World}
+     */
+    public PassableGrid passableGrid()
+    {
+        PassableGrid grid = passableGrid;
+        if(grid == null || grid.version() != passableVersion)
+        {
+            long[] bits;
+            if(grid != null && passableVersion - grid.version() <= PASSABLE_HISTORY)
+            {
+                bits = grid.bits().clone();
+                for(int v = grid.version() + 1; v <= passableVersion; v++)
+                {
+                    long change = passableChanges[v % PASSABLE_HISTORY];
+                    readPassable(bits, PackedCoordinate.x(change), PackedCoordinate.y(change));
+                }
+            }
+            else
+            {
+                bits = new long[passable.length];
+                for(int y = 0; y < height; y++)
+                    for(int x = 0; x < width; x++)
+                        readPassable(bits, x, y);
+            }
+            grid = new PassableGrid(this, width, height, passableVersion, bits);
+            passableGrid = grid;
+        }
+        return grid;
+    }
+
+    /**
+     * Returns the location of the tile whose change advanced {@code passableVersion()} to the given
+     * version, packed with {@code PackedCoordinate}. Only the last {@code PASSABLE_HISTORY} changes
+     * are remembered.
+     * @param version the version being queried
+     * @return the packed location of the tile changed at version
+     */
+    public long passableChange(int version)
+    {
+        Guard.validateArgument(version > 0 && version <= passableVersion);
+        Guard.validateArgument(version > passableVersion - PASSABLE_HISTORY);
 
-        grid[x][y].face = face;
-        grid[x][y].passable = passable;
+        return passableChanges[version % PASSABLE_HISTORY];
     }
 
     /**
@@ -553,37 +966,503 @@ public abstract class World extends Messenger
 
     void addToGrid(Actor actor)
     {
-        grid[actor.x()][actor.y()].actors.add(actor);
+        Guard.verifyState(!parallelPhase);
+
+        int index = index(actor.gridX(), actor.gridY());
+        if(occupants[index] == null)
+            occupants[index] = new ArrayList<Actor>(2);
+        occupants[index].add(actor);
+        buckets.add(actor);
     }
 
     void removeFromGrid(Actor actor)
     {
-        grid[actor.x()][actor.y()].actors.remove(actor);
+        Guard.verifyState(!parallelPhase);
+
+        int index = index(actor.gridX(), actor.gridY());
+        List<Actor> actors = occupants[index];
+        if(actors != null && actors.remove(actor))
+        {
+            if(actors.isEmpty())
+                occupants[index] = null;
+            buckets.remove(actor);
+        }
     }
 
     void registerActor(Actor actor)
     {
-        register.add(actor);
+        Guard.verifyState(!parallelPhase);
+
+        for(Class<?> cls = actor.getClass(); cls != Messenger.class; cls = cls.getSuperclass())
+            registerEntry(cls).add(actor);
+        if(scheduler != null)
+            scheduler.registered(actor);
+        if(actor.expired())
+            expired(actor);
         for(Actor held : actor.holds(Actor.class))
             registerActor(held);
     }
 
     void unregisterActor(Actor actor)
     {
-        register.remove(actor);
+        Guard.verifyState(!parallelPhase);
+
+        for(Class<?> cls = actor.getClass(); cls != Messenger.class; cls = cls.getSuperclass())
+            registerEntry(cls).remove(actor);
+        if(scheduler != null)
+            scheduler.unregistered(actor);
+        for(Actor held : actor.holds(Actor.class))
+            unregisterActor(held);
+    }
+
+    void expired(Actor actor)
+    {
+        synchronized(expiring)
+        {
+            expiring.add(actor);
+        }
+    }
+
+    boolean deferMove(Actor actor, int fromX, int fromY, int x, int y)
+    {
+        if(!parallelPhase)
+            return false;
+
+        Region region = currentRegion.get();
+        Guard.verifyState(region != null);
+        Move move = region.moves.get(actor);
+        if(move == null)
+            region.moves.put(actor, new Move(actor, fromX, fromY, x, y));
+        else
+            move.to = new Coordinate(x, y);
+        return true;
+    }
+
+    /*
+     * Returns the position the calling region has recorded for the Actor (or whatever holds it)
+     * during a parallel tick, or null if there is none.
+     */
+    Coordinate pendingPos(Actor actor)
+    {
+        if(!parallelPhase)
+            return null;
+
+        Region region = currentRegion.get();
+        if(region == null)
+            return null;
+        while(actor.holder() != null)
+            actor = actor.holder();
+        Move move = region.moves.get(actor);
+        return move == null ? null : move.to;
+    }
+
+    boolean deferMessage(Messenger target, String message)
+    {
+        if(!parallelPhase)
+            return false;
+
+        Region region = currentRegion.get();
+        Guard.verifyState(region != null);
+        region.messages.add(new Delivery(target, message));
+        return true;
+    }
+
+    @Override
+    World messageWorld()
+    {
+        return this;
+    }
+
+    private void actParallel(List<Actor> actors)
+    {
+        List<Region> regions = new ArrayList<Region>(partition(actors).values());
+        for(Region region : regions)
+            region.dice = new Dice(dice.nextInt());
+
+        parallelPhase = true;
+        try
+        {
+            tickPool.invoke(new RegionTask(regions, 0, regions.size()));
+        }
+        finally
+        {
+            parallelPhase = false;
+        }
+
+        LongSet claimed = new LongSet();
+        for(Region region : regions)
+            region.commit(claimed);
+    }
+
+    private SortedMap<Integer, Region> partition(List<Actor> actors)
+    {
+        SortedMap<Integer, Region> regions = new TreeMap<Integer, Region>();
+        int columns = (width + Region.SIZE - 1) >> Region.SHIFT;
+        for(Actor actor : actors)
+        {
+            int key = (actor.gridY() >> Region.SHIFT) * columns
+                    + (actor.gridX() >> Region.SHIFT);
+            Region region = regions.get(key);
+            if(region == null)
+            {
+                region = new Region();
+                regions.put(key, region);
+            }
+            region.actors.add(actor);
+        }
+        return regions;
+    }
+
+    /*
+     * The register indexes every Actor under its concrete class and each of its superclasses up to
+     * Actor, so that a query for any class is a single lookup instead of a scan of every Actor.
+     * Insertion order is kept so that iteration order does not depend on identity hash codes.
+     * Queries only read the register, since they may run concurrently during a parallel tick, and
+     * entries are only created when an Actor is registered.
+     */
+    private Set<Actor> registered(Class<?> cls)
+    {
+        Set<Actor> actors = register.get(cls);
+        return actors == null ? Collections.<Actor> emptySet() : actors;
+    }
+
+    private Set<Actor> registerEntry(Class<?> cls)
+    {
+        Set<Actor> actors = register.get(cls);
+        if(actors == null)
+        {
+            actors = new LinkedHashSet<Actor>();
+            register.put(cls, actors);
+        }
+        return actors;
+    }
+
+    private void readPassable(long[] bits, int x, int y)
+    {
+        int index = index(x, y);
+        if(passableAt(x, y))
+            bits[index >> 6] |= 1L << index;
+        else
+            bits[index >> 6] &= ~(1L << index);
+    }
+
+    private int index(int x, int y)
+    {
+        return y * width + x;
+    }
+
+    private int paletteIndex(ColoredChar face)
+    {
+        Integer index = paletteIndex.get(face);
+        if(index == null)
+        {
+            index = palette.size();
+            palette.add(face);
+            paletteIndex.put(face, index);
+        }
+        return index;
+    }
+
+    /*
+     * Tiles are stored as parallel flat arrays indexed by y * width + x rather than one object per
+     * cell: passability is a packed bitset, faces are indices into a palette of the distinct
+     * ColoredChar in use, and the list of occupants is only allocated while a cell holds an Actor.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void initTiles()
+    {
+        int size = width * height;
+        passable = new long[(size + 63) >> 6];
+        Arrays.fill(passable, -1L);
+        passableChanges = new long[PASSABLE_HISTORY];
+        faces = new int[size];
+        palette = new ArrayList<ColoredChar>();
+        paletteIndex = new HashMap<ColoredChar, Integer>();
+        paletteIndex(ColoredChar.create('.'));
+        occupants = new List[size];
+        buckets = new Buckets();
     }
 
-    private class Tile
+    /*
+     * A uniform grid of buckets, each covering a square of cells, which holds every Actor placed
+     * on the World. Range queries only visit the buckets overlapping the query, rather than each
+     * cell in the range.
+     */
+    private class Buckets
     {
-        public boolean passable;
-        public ColoredChar face;
-        public Set<Actor> actors;
+        private static final int SHIFT = 3;
+        private static final int SIZE = 1 << SHIFT;
+
+        private int columns;
+        private int rows;
+        private List<Actor>[] buckets;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Buckets()
+        {
+            columns = (width + SIZE - 1) >> SHIFT;
+            rows = (height + SIZE - 1) >> SHIFT;
+            buckets = new List[columns * rows];
+        }
+
+        public void add(Actor actor)
+        {
+            int index = bucket(actor.gridX(), actor.gridY());
+            if(buckets[index] == null)
+                buckets[index] = new ArrayList<Actor>();
+            buckets[index].add(actor);
+        }
+
+        public void remove(Actor actor)
+        {
+            int index = bucket(actor.gridX(), actor.gridY());
+            buckets[index].remove(actor);
+            if(buckets[index].isEmpty())
+                buckets[index] = null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T extends Actor> void collect(Class<T> cls, int x1, int y1, int x2, int y2,
+                Collection<T> found)
+        {
+            for(int by = y1 >> SHIFT; by <= y2 >> SHIFT; by++)
+                for(int bx = x1 >> SHIFT; bx <= x2 >> SHIFT; bx++)
+                {
+                    List<Actor> bucket = buckets[by * columns + bx];
+                    if(bucket == null)
+                        continue;
+                    for(int i = 0; i < bucket.size(); i++)
+                    {
+                        Actor actor = bucket.get(i);
+                        int x = actor.gridX();
+                        int y = actor.gridY();
+                        if(x >= x1 && x <= x2 && y >= y1 && y <= y2 && cls.isInstance(actor))
+                            found.add((T)actor);
+                    }
+                }
+        }
 
-        public Tile()
+        @SuppressWarnings("unchecked")
+        public <T extends Actor> List<T> nearest(Class<T> cls, int x, int y, int k)
         {
-            passable = true;
-            face = ColoredChar.create('.');
-            actors = new HashSet<Actor>();
+            List<Candidate> candidates = new ArrayList<Candidate>();
+            int cx = x >> SHIFT;
+            int cy = y >> SHIFT;
+            int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+            for(int ring = 0; ring <= maxRing; ring++)
+            {
+                for(int by = cy - ring; by <= cy + ring; by++)
+                    for(int bx = cx - ring; bx <= cx + ring; bx++)
+                    {
+                        boolean edge = by == cy - ring || by == cy + ring || bx == cx - ring
+                                || bx == cx + ring;
+                        if(edge && bx >= 0 && by >= 0 && bx < columns && by < rows)
+                            addCandidates(cls, buckets[by * columns + bx], x, y, candidates);
+                    }
+
+                // every cell in a later ring is at least this far away along one axis
+                int bound = ring * SIZE + 1;
+                if(candidates.size() >= k)
+                {
+                    Collections.sort(candidates);
+                    if(k == 0 || candidates.get(k - 1).distance <= bound * bound)
+                        break;
+                }
+            }
+            Collections.sort(candidates);
+
+            List<T> nearest = new ArrayList<T>(Math.min(k, candidates.size()));
+            for(int i = 0; i < k && i < candidates.size(); i++)
+                nearest.add((T)candidates.get(i).actor);
+            return nearest;
+        }
+
+        private void addCandidates(Class<?> cls, List<Actor> bucket, int x, int y,
+                List<Candidate> candidates)
+        {
+            if(bucket == null)
+                return;
+            for(int i = 0; i < bucket.size(); i++)
+            {
+                Actor actor = bucket.get(i);
+                if(cls.isInstance(actor))
+                {
+                    int dx = actor.gridX() - x;
+                    int dy = actor.gridY() - y;
+                    candidates.add(new Candidate(actor, dx * dx + dy * dy));
+                }
+            }
+        }
+
+        private int bucket(int x, int y)
+        {
+            return (y >> SHIFT) * columns + (x >> SHIFT);
+        }
+    }
+
+    private static class Candidate implements Comparable<Candidate>
+    {
+        public final Actor actor;
+        public final int distance;
+
+        public Candidate(Actor actor, int distance)
+        {
+            this.actor = actor;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate other)
+        {
+            return distance - other.distance;
+        }
+    }
+
+    private class Region
+    {
+        public static final int SHIFT = 4;
+        public static final int SIZE = 1 << SHIFT;
+
+        public List<Actor> actors;
+        public Map<Actor, Move> moves;
+        public List<Delivery> messages;
+        public Dice dice;
+
+        public Region()
+        {
+            actors = new ArrayList<Actor>();
+            moves = new LinkedHashMap<Actor, Move>();
+            messages = new ArrayList<Delivery>();
+        }
+
+        public void act()
+        {
+            currentRegion.set(this);
+            try
+            {
+                for(Actor actor : actors)
+                    actor.act();
+            }
+            finally
+            {
+                currentRegion.remove();
+            }
+        }
+
+        /*
+         * Moves are applied in region order, then in the order they were first made, so the
+         * outcome of conflicting moves does not depend on thread scheduling. A move is dropped if
+         * its Actor is no longer where the move was recorded, or if its cell has been claimed by
+         * an earlier move.
+         */
+        public void commit(LongSet claimed)
+        {
+            for(Move move : moves.values())
+            {
+                Actor actor = move.actor;
+                if(!actor.bound(World.this) || actor.held())
+                    continue;
+                if(actor.gridX() != move.fromX || actor.gridY() != move.fromY)
+                    continue;
+                if(move.to.x() == move.fromX && move.to.y() == move.fromY)
+                    continue;
+                if(!claimed.add(PackedCoordinate.pack(move.to)))
+                    continue;
+                removeFromGrid(actor);
+                actor.setXY(move.to.x(), move.to.y());
+                addToGrid(actor);
+            }
+            for(Delivery delivery : messages)
+                delivery.target.appendMessage(delivery.message);
+        }
+    }
+
+    private static class Move
+    {
+        public final Actor actor;
+        public final int fromX;
+        public final int fromY;
+        public Coordinate to;
+
+        public Move(Actor actor, int fromX, int fromY, int x, int y)
+        {
+            this.actor = actor;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            to = new Coordinate(x, y);
+        }
+    }
+
+    private static class Delivery
+    {
+        public final Messenger target;
+        public final String message;
+
+        public Delivery(Messenger target, String message)
+        {
+            this.target = target;
+            this.message = message;
+        }
+    }
+
+    /*
+     * A read-only view of the register entry of a class which had none when it was queried. The
+     * entry is looked up on every use, so the view still reflects Actor registered later.
+     */
+    private class RegisterView<T extends Actor> extends AbstractSet<T>
+    {
+        private Class<?> cls;
+
+        public RegisterView(Class<?> cls)
+        {
+            this.cls = cls;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Iterator<T> iterator()
+        {
+            return ((Set<T>)registered(cls)).iterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return registered(cls).size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return registered(cls).contains(o);
+        }
+    }
+
+    private static class RegionTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = -3425851286735419540L;
+
+        private List<Region> regions;
+        private int lo;
+        private int hi;
+
+        public RegionTask(List<Region> regions, int lo, int hi)
+        {
+            this.regions = regions;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if(hi - lo == 1)
+                regions.get(lo).act();
+            else if(hi - lo > 1)
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RegionTask(regions, lo, mid), new RegionTask(regions, mid, hi));
+            }
         }
     }
 }
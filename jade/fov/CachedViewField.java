@@ -0,0 +1,224 @@
+package jade.fov;
+
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.PackedCoordinate;
+import java.util.Collection;
+
+/**
+ * Decorates another {@code ViewField}, remembering the fields of view it has calculated for the
+ * most recently used (world, origin, radius) queries. A remembered field of view is returned as is
+ * until {@code World.passableVersion()} reports a change within one cell of its radius. Changes
+ * further away are ignored, and if the decorated {@code ViewField} calculates its octants
+ * independently, only the octants which read a changed tile are recalculated. When an origin moves,
+ * the storage of the least recently used query is reused, so moving observers do not allocate
+ * either.
+ * <p>
+ * The decorated {@code ViewField} must not look further than one cell past its radius. Unless post
+ * processes are chained on the {@code CachedViewField}, the collections returned by {@code
+ * getViewField()} belong to the cache, and are updated in place by later queries, so they should
+ * not be modified. Post processes chained on the decorated {@code ViewField} are not applied. A
+ * {@code CachedViewField} is not thread-safe.
+ */
+public class CachedViewField extends ViewField
+{
+    private ViewField viewField;
+    private Entry[] entries;
+    private long clock;
+
+    /**
+     * Constructs a new {@code CachedViewField} remembering up to 8 queries.
+     * @param viewField the {@code ViewField} whose results are being cached
+     */
+    public CachedViewField(ViewField viewField)
+    {
+        this(viewField, 8);
+    }
+
+    /**
+     * Constructs a new {@code CachedViewField} remembering up to the given number of queries.
+     * @param viewField the {@code ViewField} whose results are being cached
+     * @param capacity the number of queries to remember
+     */
+    public CachedViewField(ViewField viewField, int capacity)
+    {
+        Guard.argumentIsNotNull(viewField);
+        Guard.argumentIsPositive(capacity);
+
+        this.viewField = viewField;
+        entries = new Entry[capacity];
+    }
+
+    @Override
+    protected Collection<Coordinate> calcViewField(World world, int x, int y, int r)
+    {
+        FieldOfView cached = lookup(world, x, y, r);
+        if(getPostProcesses().isEmpty())
+            return cached;
+
+        // post processing happens in place, so it must not touch the cache
+        FieldOfView fov = new FieldOfView(x, y, r);
+        fov.copy(cached);
+        return fov;
+    }
+
+    @Override
+    protected void calcFieldOfView(World world, int x, int y, int r, FieldOfView fov)
+    {
+        fov.copy(lookup(world, x, y, r));
+    }
+
+    @Override
+    public boolean symmetric()
+    {
+        return viewField.symmetric();
+    }
+
+    /**
+     * Forgets every remembered query.
+     */
+    public void clear()
+    {
+        for(int i = 0; i < entries.length; i++)
+            entries[i] = null;
+    }
+
+    private FieldOfView lookup(World world, int x, int y, int r)
+    {
+        clock++;
+        Entry victim = null;
+        int victimIndex = 0;
+        for(int i = 0; i < entries.length; i++)
+        {
+            Entry entry = entries[i];
+            if(entry == null)
+            {
+                victimIndex = i;
+                victim = null;
+                break;
+            }
+            if(entry.matches(world, x, y, r))
+            {
+                entry.used = clock;
+                refresh(entry);
+                return entry.fov;
+            }
+            if(victim == null || entry.used < victim.used)
+            {
+                victim = entry;
+                victimIndex = i;
+            }
+        }
+
+        if(victim == null)
+        {
+            victim = new Entry(viewField.calcsOctants());
+            entries[victimIndex] = victim;
+        }
+        victim.used = clock;
+        recalculate(victim, world, x, y, r);
+        return victim.fov;
+    }
+
+    private void refresh(Entry entry)
+    {
+        World world = entry.world;
+        int version = world.passableVersion();
+        if(entry.version == version)
+            return;
+        if(version - entry.version >= World.PASSABLE_HISTORY)
+        {
+            recalculate(entry, world, entry.x, entry.y, entry.r);
+            return;
+        }
+
+        int octants = 0;
+        for(int v = entry.version + 1; v <= version; v++)
+        {
+            long change = world.passableChange(v);
+            int dx = PackedCoordinate.x(change) - entry.x;
+            int dy = PackedCoordinate.y(change) - entry.y;
+            if(Math.max(Math.abs(dx), Math.abs(dy)) <= entry.r + 1)
+                octants |= viewField.octantsReading(dx, dy, entry.r);
+        }
+        entry.version = version;
+        if(octants == 0)
+            return;
+
+        if(entry.octants == null)
+            viewField.calcFieldOfView(world, entry.x, entry.y, entry.r, entry.reset());
+        else
+        {
+            for(int octant = 0; octant < 8; octant++)
+                if((octants & (1 << octant)) != 0)
+                    recalculateOctant(entry, octant);
+            entry.merge();
+        }
+    }
+
+    private void recalculate(Entry entry, World world, int x, int y, int r)
+    {
+        entry.world = world;
+        entry.x = x;
+        entry.y = y;
+        entry.r = r;
+        entry.version = world.passableVersion();
+        if(entry.octants == null)
+            viewField.calcFieldOfView(world, x, y, r, entry.reset());
+        else
+        {
+            for(int octant = 0; octant < 8; octant++)
+                recalculateOctant(entry, octant);
+            entry.merge();
+        }
+    }
+
+    private void recalculateOctant(Entry entry, int octant)
+    {
+        FieldOfView part = entry.octants[octant];
+        part.reset(entry.x, entry.y, entry.r);
+        viewField.calcOctant(entry.world, entry.x, entry.y, entry.r, part, octant);
+    }
+
+    private static class Entry
+    {
+        public World world;
+        public int x;
+        public int y;
+        public int r;
+        public int version;
+        public long used;
+        public FieldOfView fov;
+        public FieldOfView[] octants;
+
+        public Entry(boolean octantwise)
+        {
+            fov = new FieldOfView(0, 0, 0);
+            if(octantwise)
+            {
+                octants = new FieldOfView[8];
+                for(int i = 0; i < 8; i++)
+                    octants[i] = new FieldOfView(0, 0, 0);
+            }
+        }
+
+        public boolean matches(World world, int x, int y, int r)
+        {
+            return this.world == world && this.x == x && this.y == y && this.r == r;
+        }
+
+        public FieldOfView reset()
+        {
+            fov.reset(x, y, r);
+            return fov;
+        }
+
+        public void merge()
+        {
+            reset().add(x, y);
+            for(FieldOfView part : octants)
+                fov.merge(part);
+        }
+    }
+}
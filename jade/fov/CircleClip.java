@@ -0,0 +1,36 @@
+package jade.fov;
+
+import jade.core.World;
+import jade.util.datatype.Coordinate;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A {@code ViewFieldPostProcess} which clips the square view field calculated by most {@code
+ * ViewField} to a circle. A cell at offset (dx, dy) from the origin is kept if dx * dx + dy * dy
+ * is at most r * (r + 1), which gives rounder circles than r * r for small radii. A {@code
+ * CircleClip} holds no state, so it may be shared by threads calculating fields of view at once.
+ */
+public class CircleClip extends ViewFieldPostProcess
+{
+    @Override
+    public void process(Collection<Coordinate> field, World world, int x, int y, int r)
+    {
+        process(Collections.singletonList(this), field, world, x, y, r);
+    }
+
+    @Override
+    protected boolean fusable()
+    {
+        return true;
+    }
+
+    @Override
+    protected boolean processCell(FieldOfView field, World world, int x, int y)
+    {
+        int r = field.radius();
+        int dx = x - field.originX();
+        int dy = y - field.originY();
+        return dx * dx + dy * dy <= r * (r + 1);
+    }
+}
@@ -0,0 +1,420 @@
+package jade.fov;
+
+import jade.util.Guard;
+import jade.util.datatype.Coordinate;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of a {@code ViewField}, stored as a bitset over the square of cells within radius r
+ * of the origin. Each row of the square starts on a fresh {@code long}, so whole rows can be
+ * combined a word at a time. Membership is tested in constant time with {@code contains(x, y)},
+ * and the visible cells can be walked without allocating by using {@code nextCell()}, {@code
+ * cellX()} and {@code cellY()}:
+ * 
+ * <pre>
+ * for(int cell = fov.nextCell(0); cell &gt;= 0; cell = fov.nextCell(cell + 1))
+ *     draw(fov.cellX(cell), fov.cellY(cell));
+ * </pre>
+ * 
+ * A {@code FieldOfView} is also a {@code Set<Coordinate>}, so existing code written against
+ * {@code Collection<Coordinate>} keeps working. A {@code FieldOfView} can be reused for another
+ * calculation with {@code reset()}, which keeps its storage.
+ */
+public class FieldOfView extends AbstractSet<Coordinate>
+{
+    private int originX;
+    private int originY;
+    private int radius;
+    private int side;
+    private int stride;
+    private long[] bits;
+    private int size;
+
+    /**
+     * Constructs a new, empty {@code FieldOfView} centered at (x, y) with the given radius.
+     * @param x the x value of the origin
+     * @param y the y value of the origin
+     * @param r the radius
+     */
+    public FieldOfView(int x, int y, int r)
+    {
+        bits = new long[0];
+        reset(x, y, r);
+    }
+
+    /**
+     * Empties the {@code FieldOfView} and moves it to a new origin and radius, reusing the existing
+     * storage whenever it is large enough.
+     * @param x the x value of the new origin
+     * @param y the y value of the new origin
+     * @param r the new radius
+     */
+    public void reset(int x, int y, int r)
+    {
+        Guard.argumentIsNonNegative(r);
+
+        originX = x;
+        originY = y;
+        radius = r;
+        side = 2 * r + 1;
+        stride = (side + 63) >>> 6;
+        int words = stride * side;
+        if(bits.length < words)
+            bits = new long[words];
+        else
+            Arrays.fill(bits, 0, words, 0L);
+        size = 0;
+    }
+
+    /**
+     * Returns the x value of the origin.
+     * @return the x value of the origin
+     */
+    public int originX()
+    {
+        return originX;
+    }
+
+    /**
+     * Returns the y value of the origin.
+     * @return the y value of the origin
+     */
+    public int originY()
+    {
+        return originY;
+    }
+
+    /**
+     * Returns the radius, which is the distance from the origin to the edge of the square the
+     * {@code FieldOfView} can hold.
+     * @return the radius
+     */
+    public int radius()
+    {
+        return radius;
+    }
+
+    /**
+     * Returns true if (x, y) lies within the square the {@code FieldOfView} can hold.
+     * @param x the x value being tested
+     * @param y the y value being tested
+     * @return true if (x, y) lies within the square of the {@code FieldOfView}
+     */
+    public boolean covers(int x, int y)
+    {
+        int col = x - originX + radius;
+        int row = y - originY + radius;
+        return col >= 0 && row >= 0 && col < side && row < side;
+    }
+
+    /**
+     * Returns true if the cell at (x, y) is visible. Cells outside the square of the {@code
+     * FieldOfView} are never visible.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return true if the cell at (x, y) is visible
+     */
+    public boolean contains(int x, int y)
+    {
+        int col = x - originX + radius;
+        int row = y - originY + radius;
+        if(col < 0 || row < 0 || col >= side || row >= side)
+            return false;
+        return (bits[row * stride + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Marks the cell at (x, y) as visible. The cell must lie within the square of the {@code
+     * FieldOfView}.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return true if the cell was not already visible
+     */
+    public boolean add(int x, int y)
+    {
+        int col = x - originX + radius;
+        int row = y - originY + radius;
+        Guard.argumentsInsideBounds(col, row, side, side);
+
+        int word = row * stride + (col >>> 6);
+        long mask = 1L << col;
+        if((bits[word] & mask) != 0)
+            return false;
+        bits[word] |= mask;
+        size++;
+        return true;
+    }
+
+    /**
+     * Marks the cell at (x, y) as not visible.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return true if the cell was visible
+     */
+    public boolean remove(int x, int y)
+    {
+        if(!contains(x, y))
+            return false;
+        int col = x - originX + radius;
+        int row = y - originY + radius;
+        bits[row * stride + (col >>> 6)] &= ~(1L << col);
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the first visible cell at or after the given cell, or -1 if there is none. Cells are
+     * visited row by row, and 0 is always the first possible cell.
+     * @param cell the cell to start searching from
+     * @return the next visible cell, or -1 if there is none
+     */
+    public int nextCell(int cell)
+    {
+        int words = stride * side;
+        int word = cell >>> 6;
+        if(word >= words)
+            return -1;
+        long current = bits[word] & (-1L << cell);
+        while(current == 0)
+        {
+            if(++word >= words)
+                return -1;
+            current = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(current);
+    }
+
+    /**
+     * Returns the x value of a cell returned by {@code nextCell()}.
+     * @param cell the cell being queried
+     * @return the x value of the cell
+     */
+    public int cellX(int cell)
+    {
+        return (cell % (stride << 6)) + originX - radius;
+    }
+
+    /**
+     * Returns the y value of a cell returned by {@code nextCell()}.
+     * @param cell the cell being queried
+     * @return the y value of the cell
+     */
+    public int cellY(int cell)
+    {
+        return (cell / (stride << 6)) + originY - radius;
+    }
+
+    /**
+     * Returns a new {@code FieldOfView} with the origin of this one, containing every cell visible
+     * in either this or the other {@code FieldOfView}. The radius is grown as needed to hold both.
+     * @param other the {@code FieldOfView} being merged with this one
+     * @return the union of the two {@code FieldOfView}
+     */
+    public FieldOfView union(FieldOfView other)
+    {
+        Guard.argumentIsNotNull(other);
+
+        int r = radius;
+        r = Math.max(r, Math.abs(other.originX - other.radius - originX));
+        r = Math.max(r, Math.abs(other.originX + other.radius - originX));
+        r = Math.max(r, Math.abs(other.originY - other.radius - originY));
+        r = Math.max(r, Math.abs(other.originY + other.radius - originY));
+        if(other.isEmpty())
+            r = radius;
+
+        FieldOfView result = new FieldOfView(originX, originY, r);
+        for(int row = 0; row < result.side; row++)
+        {
+            int y = result.originY - r + row;
+            for(int k = 0; k < result.stride; k++)
+            {
+                int x = result.originX - r + (k << 6);
+                result.bits[row * result.stride + k] = window(x, y) | other.window(x, y);
+            }
+        }
+        result.recount();
+        return result;
+    }
+
+    /**
+     * Returns a new {@code FieldOfView} with the origin and radius of this one, containing every
+     * cell visible in both this and the other {@code FieldOfView}.
+     * @param other the {@code FieldOfView} being intersected with this one
+     * @return the intersection of the two {@code FieldOfView}
+     */
+    public FieldOfView intersection(FieldOfView other)
+    {
+        Guard.argumentIsNotNull(other);
+
+        FieldOfView result = new FieldOfView(originX, originY, radius);
+        for(int row = 0; row < side; row++)
+        {
+            int y = originY - radius + row;
+            for(int k = 0; k < stride; k++)
+            {
+                int word = row * stride + k;
+                result.bits[word] = bits[word] & other.window(originX - radius + (k << 6), y);
+            }
+        }
+        result.recount();
+        return result;
+    }
+
+    @Override
+    public boolean contains(Object obj)
+    {
+        if(!(obj instanceof Coordinate))
+            return false;
+        Coordinate coord = (Coordinate)obj;
+        return contains(coord.x(), coord.y());
+    }
+
+    @Override
+    public boolean add(Coordinate coord)
+    {
+        Guard.argumentIsNotNull(coord);
+
+        return add(coord.x(), coord.y());
+    }
+
+    @Override
+    public boolean remove(Object obj)
+    {
+        if(!(obj instanceof Coordinate))
+            return false;
+        Coordinate coord = (Coordinate)obj;
+        return remove(coord.x(), coord.y());
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(bits, 0, stride * side, 0L);
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Coordinate> iterator()
+    {
+        return new Iterator<Coordinate>()
+        {
+            private int next = nextCell(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next >= 0;
+            }
+
+            @Override
+            public Coordinate next()
+            {
+                if(next < 0)
+                    throw new NoSuchElementException();
+                last = next;
+                next = nextCell(next + 1);
+                return new Coordinate(cellX(last), cellY(last));
+            }
+
+            @Override
+            public void remove()
+            {
+                Guard.verifyState(last >= 0);
+
+                FieldOfView.this.remove(cellX(last), cellY(last));
+                last = -1;
+            }
+        };
+    }
+
+    /*
+     * Row-major access to the bitset for passes which walk it a word at a time: the bit for the
+     * cell at column c of row r is bit (c & 63) of word(r * stride() + (c >>> 6)).
+     */
+    int side()
+    {
+        return side;
+    }
+
+    int stride()
+    {
+        return stride;
+    }
+
+    long word(int index)
+    {
+        return bits[index];
+    }
+
+    void clearWord(int index, long mask)
+    {
+        size -= Long.bitCount(bits[index] & mask);
+        bits[index] &= ~mask;
+    }
+
+    /*
+     * Marks every cell visible in other as visible here. Both must have the same origin and radius.
+     */
+    void merge(FieldOfView other)
+    {
+        Guard.validateArgument(sameSquare(other));
+
+        for(int i = stride * side - 1; i >= 0; i--)
+            bits[i] |= other.bits[i];
+        recount();
+    }
+
+    /*
+     * Replaces the contents with a copy of other. Both must have the same origin and radius.
+     */
+    void copy(FieldOfView other)
+    {
+        Guard.validateArgument(sameSquare(other));
+
+        System.arraycopy(other.bits, 0, bits, 0, stride * side);
+        size = other.size;
+    }
+
+    private boolean sameSquare(FieldOfView other)
+    {
+        return originX == other.originX && originY == other.originY && radius == other.radius;
+    }
+
+    /*
+     * Returns the visibility of the 64 cells starting at (x, y) and going right, as a word whose
+     * lowest bit is (x, y). Cells outside the square read as not visible.
+     */
+    private long window(int x, int y)
+    {
+        int row = y - originY + radius;
+        int col = x - originX + radius;
+        if(row < 0 || row >= side || col >= side || col <= -64)
+            return 0;
+        int base = row * stride;
+        if(col < 0)
+            return bits[base] << -col;
+        int k = col >>> 6;
+        int shift = col & 63;
+        long word = bits[base + k] >>> shift;
+        if(shift != 0 && k + 1 < stride)
+            word |= bits[base + k + 1] << (64 - shift);
+        return word;
+    }
+
+    private void recount()
+    {
+        size = 0;
+        for(int i = stride * side - 1; i >= 0; i--)
+            size += Long.bitCount(bits[i]);
+    }
+}
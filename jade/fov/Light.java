@@ -0,0 +1,107 @@
+package jade.fov;
+
+import jade.util.Guard;
+import java.awt.Color;
+
+/**
+ * A light source on a {@code LightMap}. A {@code Light} shines its color onto every cell in its
+ * field of view, falling off linearly to nothing one cell beyond its radius. Moving a {@code Light}
+ * or changing its radius or color only changes the {@code Light}; each {@code LightMap} holding it
+ * notices the change and recalculates it on its next call to {@code update()}. A {@code Light}
+ * holds no state of its own besides these values, so it may be added to several {@code LightMap}
+ * at once.
+ */
+public class Light
+{
+    private int x;
+    private int y;
+    private int radius;
+    private Color color;
+
+    /**
+     * Constructs a new {@code Light} at (x, y) with the given radius and color.
+     * @param x the x value of the location of the {@code Light}
+     * @param y the y value of the location of the {@code Light}
+     * @param radius the radius of the {@code Light}
+     * @param color the color of the {@code Light}
+     */
+    public Light(int x, int y, int radius, Color color)
+    {
+        Guard.argumentIsNonNegative(radius);
+        Guard.argumentIsNotNull(color);
+
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+        this.color = color;
+    }
+
+    /**
+     * Returns the x value of the location of the {@code Light}.
+     * @return the x value of the location of the {@code Light}
+     */
+    public int x()
+    {
+        return x;
+    }
+
+    /**
+     * Returns the y value of the location of the {@code Light}.
+     * @return the y value of the location of the {@code Light}
+     */
+    public int y()
+    {
+        return y;
+    }
+
+    /**
+     * Returns the radius of the {@code Light}.
+     * @return the radius of the {@code Light}
+     */
+    public int radius()
+    {
+        return radius;
+    }
+
+    /**
+     * Returns the color of the {@code Light}.
+     * @return the color of the {@code Light}
+     */
+    public Color color()
+    {
+        return color;
+    }
+
+    /**
+     * Moves the {@code Light} to (x, y).
+     * @param x the x value of the new location
+     * @param y the y value of the new location
+     */
+    public void setPos(int x, int y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Sets the radius of the {@code Light}.
+     * @param radius the new radius
+     */
+    public void setRadius(int radius)
+    {
+        Guard.argumentIsNonNegative(radius);
+
+        this.radius = radius;
+    }
+
+    /**
+     * Sets the color of the {@code Light}.
+     * @param color the new color
+     */
+    public void setColor(Color color)
+    {
+        Guard.argumentIsNotNull(color);
+
+        this.color = color;
+    }
+}
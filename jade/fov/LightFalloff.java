@@ -0,0 +1,116 @@
+package jade.fov;
+
+import jade.core.World;
+import jade.util.datatype.Coordinate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A {@code ViewFieldPostProcess} which assigns each visible cell a light level, falling off
+ * linearly with distance from the origin. The origin has the maximum level, and the level reaches
+ * zero one cell beyond the radius. Levels are kept until the next view field is processed, and
+ * cells which are not visible have a level of 0. The levels of each radius are computed once.
+ * Since the levels belong to the {@code LightFalloff}, it must not be shared by threads calculating
+ * fields of view at once.
+ */
+public class LightFalloff extends ViewFieldPostProcess
+{
+    private int maxLevel;
+    private int originX;
+    private int originY;
+    private int radius;
+    private int side;
+    private int[] table;
+    private int[] levels;
+
+    /**
+     * Constructs a new {@code LightFalloff} with a maximum level of 255.
+     */
+    public LightFalloff()
+    {
+        this(255);
+    }
+
+    /**
+     * Constructs a new {@code LightFalloff} with the given maximum level.
+     * @param maxLevel the level of the origin
+     */
+    public LightFalloff(int maxLevel)
+    {
+        this.maxLevel = maxLevel;
+        radius = -1;
+        levels = new int[0];
+    }
+
+    /**
+     * Returns the light level of the cell at (x, y) in the last processed view field, or 0 if it
+     * was not visible.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return the light level of the cell
+     */
+    public int level(int x, int y)
+    {
+        int col = x - originX + radius;
+        int row = y - originY + radius;
+        if(radius < 0 || col < 0 || row < 0 || col >= side || row >= side)
+            return 0;
+        return levels[row * side + col];
+    }
+
+    @Override
+    public void process(Collection<Coordinate> field, World world, int x, int y, int r)
+    {
+        process(Collections.singletonList(this), field, world, x, y, r);
+    }
+
+    @Override
+    protected void begin(FieldOfView field, World world)
+    {
+        originX = field.originX();
+        originY = field.originY();
+        if(field.radius() != radius)
+        {
+            radius = field.radius();
+            side = 2 * radius + 1;
+            table = table(radius, maxLevel);
+            levels = new int[side * side];
+        }
+        else
+            Arrays.fill(levels, 0);
+    }
+
+    /*
+     * Returns the level of each offset within the square of the given radius, row by row, falling
+     * off linearly from maxLevel at the origin to 0 one cell past the radius. LightMap weighs its
+     * lights with the same table.
+     */
+    static int[] table(int radius, int maxLevel)
+    {
+        int side = 2 * radius + 1;
+        int[] table = new int[side * side];
+        for(int row = 0; row < side; row++)
+            for(int col = 0; col < side; col++)
+            {
+                double distance = Math.hypot(col - radius, row - radius);
+                double level = maxLevel * (1 - distance / (radius + 1));
+                table[row * side + col] = Math.max(0, (int)Math.round(level));
+            }
+        return table;
+    }
+
+    @Override
+    protected boolean fusable()
+    {
+        return true;
+    }
+
+    @Override
+    protected boolean processCell(FieldOfView field, World world, int x, int y)
+    {
+        int index = (y - originY + radius) * side + (x - originX + radius);
+        levels[index] = table[index];
+        return true;
+    }
+}
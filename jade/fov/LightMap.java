@@ -0,0 +1,312 @@
+package jade.fov;
+
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.PackedCoordinate;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the light falling on every cell of a {@code World} from any number of {@code Light}. For
+ * each {@code Light}, the map remembers the field of view and the values it was last calculated
+ * with, so {@code update()} only recalculates a {@code Light} which has changed, or whose field of
+ * view may contain a tile which changed passability since the last update. Since this is kept by
+ * the map, a {@code Light} may be on several maps at once. Recalculating a
+ * {@code Light} subtracts its old contribution and adds the new one, so the cost of an update
+ * depends on what changed rather than on the number of {@code Light}.
+ * <p>
+ * The light on a cell is the sum of the contributions of every {@code Light}, clamped to 255 per
+ * channel when read.
+ */
+public class LightMap
+{
+    private World world;
+    private ViewField viewField;
+    private List<Entry> entries;
+    private Map<Light, Entry> index;
+    private int version;
+    private int[] red;
+    private int[] green;
+    private int[] blue;
+    private Map<Integer, int[]> falloffs;
+
+    /**
+     * Constructs a new {@code LightMap} on the given {@code World}, using a {@code ShadowCaster}
+     * to calculate the field of view of each {@code Light}.
+     * @param world the {@code World} being lit
+     */
+    public LightMap(World world)
+    {
+        this(world, new ShadowCaster());
+    }
+
+    /**
+     * Constructs a new {@code LightMap} on the given {@code World}, using the given {@code
+     * ViewField} to calculate the field of view of each {@code Light}. Like {@code
+     * CachedViewField}, this assumes the {@code ViewField} looks no further than one cell past its
+     * radius.
+     * @param world the {@code World} being lit
+     * @param viewField the {@code ViewField} used to calculate what each {@code Light} reaches
+     */
+    public LightMap(World world, ViewField viewField)
+    {
+        Guard.argumentsAreNotNull(world, viewField);
+
+        this.world = world;
+        this.viewField = viewField;
+        entries = new ArrayList<Entry>();
+        index = new HashMap<Light, Entry>();
+        version = world.passableVersion();
+        int size = world.width() * world.height();
+        red = new int[size];
+        green = new int[size];
+        blue = new int[size];
+        falloffs = new HashMap<Integer, int[]>();
+    }
+
+    /**
+     * Returns the {@code World} being lit.
+     * @return the {@code World} being lit
+     */
+    public World world()
+    {
+        return world;
+    }
+
+    /**
+     * Adds a {@code Light} to the map. It will shine after the next {@code update()}.
+     * @param light the {@code Light} being added
+     */
+    public void addLight(Light light)
+    {
+        Guard.argumentIsNotNull(light);
+        Guard.validateArgument(!index.containsKey(light));
+
+        Entry entry = new Entry(light);
+        entries.add(entry);
+        index.put(light, entry);
+    }
+
+    /**
+     * Removes a {@code Light} from the map, immediately removing its contribution.
+     * @param light the {@code Light} being removed
+     */
+    public void removeLight(Light light)
+    {
+        Entry entry = index.remove(light);
+        if(entry == null)
+            return;
+        entries.remove(entry);
+        retract(entry);
+    }
+
+    /**
+     * Returns the {@code Light} on the map.
+     * @return the {@code Light} on the map
+     */
+    public List<Light> getLights()
+    {
+        List<Light> lights = new ArrayList<Light>(entries.size());
+        for(Entry entry : entries)
+            lights.add(entry.light);
+        return lights;
+    }
+
+    /**
+     * Brings the map up to date, recalculating every {@code Light} which has changed, and every
+     * {@code Light} which may reach a tile whose passability changed since the last update.
+     * @return the number of {@code Light} recalculated
+     */
+    public int update()
+    {
+        int current = world.passableVersion();
+        if(current != version)
+        {
+            if(current - version >= World.PASSABLE_HISTORY)
+                for(Entry entry : entries)
+                    entry.stale = true;
+            else
+                for(int v = version + 1; v <= current; v++)
+                    markReaching(world.passableChange(v));
+            version = current;
+        }
+
+        int count = 0;
+        for(Entry entry : entries)
+            if(entry.stale || entry.changed())
+            {
+                retract(entry);
+                apply(entry);
+                entry.stale = false;
+                count++;
+            }
+        return count;
+    }
+
+    /**
+     * Returns the red light on the cell at (x, y), from 0 to 255.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return the red light on the cell
+     */
+    public int red(int x, int y)
+    {
+        return Math.min(255, red[index(x, y)]);
+    }
+
+    /**
+     * Returns the green light on the cell at (x, y), from 0 to 255.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return the green light on the cell
+     */
+    public int green(int x, int y)
+    {
+        return Math.min(255, green[index(x, y)]);
+    }
+
+    /**
+     * Returns the blue light on the cell at (x, y), from 0 to 255.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return the blue light on the cell
+     */
+    public int blue(int x, int y)
+    {
+        return Math.min(255, blue[index(x, y)]);
+    }
+
+    /**
+     * Returns the light on the cell at (x, y) packed as 0xRRGGBB.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return the packed light on the cell
+     */
+    public int rgb(int x, int y)
+    {
+        int index = index(x, y);
+        return Math.min(255, red[index]) << 16 | Math.min(255, green[index]) << 8
+                | Math.min(255, blue[index]);
+    }
+
+    private int index(int x, int y)
+    {
+        Guard.argumentsInsideBounds(x, y, world.width(), world.height());
+
+        return y * world.width() + x;
+    }
+
+    private void markReaching(long change)
+    {
+        int x = PackedCoordinate.x(change);
+        int y = PackedCoordinate.y(change);
+        for(Entry entry : entries)
+        {
+            if(!entry.applied)
+                continue;
+            FieldOfView fov = entry.fov;
+            int reach = fov.radius() + 1;
+            if(Math.abs(x - fov.originX()) <= reach && Math.abs(y - fov.originY()) <= reach)
+                entry.stale = true;
+        }
+    }
+
+    private void apply(Entry entry)
+    {
+        Light light = entry.light;
+        entry.x = light.x();
+        entry.y = light.y();
+        entry.radius = light.radius();
+        entry.color = light.color();
+        viewField.getFieldOfView(world, entry.x, entry.y, entry.radius, entry.fov);
+        entry.applied = true;
+        accumulate(entry, 1);
+    }
+
+    private void retract(Entry entry)
+    {
+        if(!entry.applied)
+            return;
+        accumulate(entry, -1);
+        entry.applied = false;
+    }
+
+    private void accumulate(Entry entry, int sign)
+    {
+        FieldOfView fov = entry.fov;
+        int radius = fov.radius();
+        int side = fov.side();
+        int stride = fov.stride();
+        int[] falloff = falloff(radius);
+        int r = entry.color.getRed();
+        int g = entry.color.getGreen();
+        int b = entry.color.getBlue();
+        int minX = fov.originX() - radius;
+        int minY = fov.originY() - radius;
+        int width = world.width();
+        for(int row = 0; row < side; row++)
+            for(int k = 0; k < stride; k++)
+            {
+                long word = fov.word(row * stride + k);
+                while(word != 0)
+                {
+                    int col = (k << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    int weight = falloff[row * side + col];
+                    int index = (minY + row) * width + minX + col;
+                    // round before applying the sign, so retracting undoes adding exactly
+                    red[index] += sign * ((r * weight) >> 8);
+                    green[index] += sign * ((g * weight) >> 8);
+                    blue[index] += sign * ((b * weight) >> 8);
+                }
+            }
+    }
+
+    /*
+     * Returns the weight out of 256 of each offset within the square of the given radius, falling
+     * off linearly with distance to 0 one cell past the radius, as in LightFalloff.
+     */
+    private int[] falloff(int radius)
+    {
+        int[] falloff = falloffs.get(radius);
+        if(falloff == null)
+        {
+            falloff = LightFalloff.table(radius, 256);
+            falloffs.put(radius, falloff);
+        }
+        return falloff;
+    }
+
+    /*
+     * A Light on this map, with the values its contribution was last calculated with and the field
+     * of view it was calculated on.
+     */
+    private static class Entry
+    {
+        public Light light;
+        public boolean stale;
+        public boolean applied;
+        public int x;
+        public int y;
+        public int radius;
+        public Color color;
+        public FieldOfView fov;
+
+        public Entry(Light light)
+        {
+            this.light = light;
+            stale = true;
+            fov = new FieldOfView(light.x(), light.y(), light.radius());
+        }
+
+        // true if the Light no longer has the values its contribution was calculated with
+        public boolean changed()
+        {
+            return x != light.x() || y != light.y() || radius != light.radius()
+                    || !color.equals(light.color());
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package jade.fov;
 
 import jade.core.World;
-import jade.path.Bresenham;
 import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 
 /**
  * Uses a simple raycasting algorithm to compute field of view. This algorithm works by sending
@@ -12,36 +13,179 @@ import java.util.HashSet;
  * and therefore can often be very fast, especially if the radius is small, or the map is very
  * closed. However, on large and open maps the algorithm results in inefficiencies as tiles close
  * the origin of the view field are rechecked many times over.
+ * <p>
+ * To limit this, the rays for each radius are computed once and merged into a tree of offsets from
+ * the origin, where rays sharing their first steps share nodes. Casting walks the tree once,
+ * skipping everything beyond the first opaque cell of each branch, and does not allocate. Each node
+ * is visited at most once per cast, but not each cell: rays which reach the same cell through
+ * different earlier cells keep separate nodes for it, since whether it is reached depends on those
+ * earlier cells. At radius 40, the tree has about 1.6 nodes per cell.
  */
 public class RayCaster extends ViewField
 {
-    private Bresenham raycaster;
+    private volatile RayTable[] tables;
 
     /**
      * Constructs a new {@code RayCaster}.
      */
     public RayCaster()
     {
-        raycaster = new Bresenham();
+        tables = new RayTable[0];
     }
 
     @Override
     protected Collection<Coordinate> calcViewField(World world, int x, int y, int r)
     {
-        Collection<Coordinate> fov = new HashSet<Coordinate>();
-        fov.add(new Coordinate(x, y));
+        FieldOfView fov = new FieldOfView(x, y, r);
+        calcFieldOfView(world, x, y, r, fov);
+        return fov;
+    }
+
+    @Override
+    protected void calcFieldOfView(World world, int x, int y, int r, FieldOfView fov)
+    {
+        fov.add(x, y);
 
-        for(int dx = -r; dx <= r; dx++)
+        RayTable table = getTable(r);
+        int width = world.width();
+        int height = world.height();
+        int node = 0;
+        while(node < table.size)
         {
-            fov.addAll(raycaster.getPartialPath(world, x, y, x + dx, y - r));
-            fov.addAll(raycaster.getPartialPath(world, x, y, x + dx, y + r));
+            int currX = x + table.dx[node];
+            int currY = y + table.dy[node];
+            if(currX < 0 || currY < 0 || currX >= width || currY >= height)
+                node = table.skip[node];
+            else
+            {
+                fov.add(currX, currY);
+                node = world.passableAt(currX, currY) ? node + 1 : table.skip[node];
+            }
         }
-        for(int dy = -r; dy <= r; dy++)
+    }
+
+    /*
+     * Returns the table for the radius, computing it the first time. Published arrays are never
+     * written again, so reading needs no lock. Threads racing to add tables may overwrite each
+     * other's array, in which case a dropped table is computed again the next time it is needed.
+     */
+    private RayTable getTable(int r)
+    {
+        RayTable[] current = tables;
+        if(r < current.length && current[r] != null)
+            return current[r];
+
+        RayTable table = new RayTable(r);
+        RayTable[] grown = Arrays.copyOf(current, Math.max(current.length, r + 1));
+        grown[r] = table;
+        tables = grown;
+        return table;
+    }
+
+    /*
+     * The rays of a single radius, stored as a tree in depth first order. Node i is the offset
+     * (dx[i], dy[i]) from the origin, its children follow it directly, and skip[i] is the first
+     * node after all of its descendants.
+     */
+    private static class RayTable
+    {
+        public int size;
+        public int[] dx;
+        public int[] dy;
+        public int[] skip;
+
+        public RayTable(int r)
         {
-            fov.addAll(raycaster.getPartialPath(world, x, y, x - r, y + dy));
-            fov.addAll(raycaster.getPartialPath(world, x, y, x + r, y + dy));
+            RayNode root = new RayNode(0, 0);
+            for(int d = -r; d <= r; d++)
+            {
+                root.insert(d, -r);
+                root.insert(d, r);
+                root.insert(-r, d);
+                root.insert(r, d);
+            }
+
+            size = root.count() - 1;
+            dx = new int[size];
+            dy = new int[size];
+            skip = new int[size];
+            int next = 0;
+            for(RayNode child : root.children)
+                next = flatten(child, next);
         }
 
-        return fov;
+        private int flatten(RayNode node, int index)
+        {
+            dx[index] = node.dx;
+            dy[index] = node.dy;
+            int next = index + 1;
+            for(RayNode child : node.children)
+                next = flatten(child, next);
+            skip[index] = next;
+            return next;
+        }
+    }
+
+    private static class RayNode
+    {
+        public int dx;
+        public int dy;
+        public List<RayNode> children;
+
+        public RayNode(int dx, int dy)
+        {
+            this.dx = dx;
+            this.dy = dy;
+            children = new ArrayList<RayNode>(2);
+        }
+
+        // adds the digital line from the origin to (endX, endY), stepping along the longer axis
+        public void insert(int endX, int endY)
+        {
+            int steps = Math.max(Math.abs(endX), Math.abs(endY));
+            RayNode node = this;
+            for(int t = 1; t <= steps; t++)
+            {
+                int x;
+                int y;
+                if(Math.abs(endX) > Math.abs(endY))
+                {
+                    x = Integer.signum(endX) * t;
+                    y = round(endY * t, steps);
+                }
+                else
+                {
+                    x = round(endX * t, steps);
+                    y = Integer.signum(endY) * t;
+                }
+                node = node.child(x, y);
+            }
+        }
+
+        public int count()
+        {
+            int count = 1;
+            for(RayNode child : children)
+                count += child.count();
+            return count;
+        }
+
+        private RayNode child(int x, int y)
+        {
+            for(RayNode child : children)
+                if(child.dx == x && child.dy == y)
+                    return child;
+            RayNode child = new RayNode(x, y);
+            children.add(child);
+            return child;
+        }
+
+        // num / den rounded half up, with den positive
+        private static int round(int num, int den)
+        {
+            int twice = 2 * num + den;
+            int div = twice / (2 * den);
+            return twice < 0 && div * 2 * den != twice ? div - 1 : div;
+        }
     }
 }
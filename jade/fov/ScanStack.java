@@ -0,0 +1,44 @@
+package jade.fov;
+
+/**
+ * The stack of rows still to be scanned by a shadow casting {@code ViewField}. Each thread casting
+ * with a given {@code ViewField} gets its own from {@code perThread()}, and the stack only grows,
+ * so casting does not allocate once the stack is large enough.
+ */
+class ScanStack
+{
+    public int[] entries;
+
+    public ScanStack()
+    {
+        entries = new int[64];
+    }
+
+    /**
+     * Doubles the size of the stack, keeping its entries.
+     * @return the grown entries
+     */
+    public int[] grow()
+    {
+        int[] grown = new int[entries.length * 2];
+        System.arraycopy(entries, 0, grown, 0, entries.length);
+        entries = grown;
+        return grown;
+    }
+
+    /**
+     * Creates a {@code ThreadLocal} which gives each thread its own {@code ScanStack}.
+     * @return a {@code ThreadLocal} of {@code ScanStack}
+     */
+    public static ThreadLocal<ScanStack> perThread()
+    {
+        return new ThreadLocal<ScanStack>()
+        {
+            @Override
+            protected ScanStack initialValue()
+            {
+                return new ScanStack();
+            }
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package jade.fov;
+
+import jade.core.World;
+import jade.util.datatype.Coordinate;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A {@code ViewFieldPostProcess} which remembers every cell which has been visible in a processed
+ * view field, such as for drawing the parts of a map the player has explored. The memory is kept
+ * per {@code World}, and is cleared whenever a view field on a different {@code World} is
+ * processed. Since the memory belongs to the {@code SeenMarker}, it must not be shared by threads
+ * calculating fields of view at once.
+ */
+public class SeenMarker extends ViewFieldPostProcess
+{
+    private World world;
+    private int width;
+    private long[] seen;
+
+    /**
+     * Returns true if the cell at (x, y) has been visible in a processed view field.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return true if the cell has been seen
+     */
+    public boolean seen(int x, int y)
+    {
+        if(world == null || x < 0 || y < 0 || x >= width || y >= world.height())
+            return false;
+        int index = y * width + x;
+        return (seen[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Forgets every cell which has been seen.
+     */
+    public void clear()
+    {
+        world = null;
+    }
+
+    @Override
+    public void process(Collection<Coordinate> field, World world, int x, int y, int r)
+    {
+        process(Collections.singletonList(this), field, world, x, y, r);
+    }
+
+    @Override
+    protected void begin(FieldOfView field, World world)
+    {
+        if(this.world != world)
+        {
+            this.world = world;
+            width = world.width();
+            seen = new long[(width * world.height() + 63) >> 6];
+        }
+    }
+
+    @Override
+    protected boolean fusable()
+    {
+        return true;
+    }
+
+    @Override
+    protected boolean processCell(FieldOfView field, World world, int x, int y)
+    {
+        if(x >= 0 && y >= 0 && x < width && y < world.height())
+        {
+            int index = y * width + x;
+            seen[index >> 6] |= 1L << index;
+        }
+        return true;
+    }
+}
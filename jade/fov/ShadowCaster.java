@@ -2,135 +2,158 @@ package jade.fov;
 
 import jade.core.World;
 import jade.util.datatype.Coordinate;
-import jade.util.datatype.MutableCoordinate;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Uses shadow casting to quickly calculate a view field. Shadow casting is more complicated than
  * ray casting, but will only visit each tile once. This gives it a significant advantage over ray
  * casting which revisits cells multiple times when the view field is large. For this reason, shadow
  * casting is much more popular than the simpler ray casting.
+ * <p>
+ * The scan is iterative: rows still to be scanned are kept on an explicit stack, and the slopes
+ * bounding each row are exact fractions of integers. Each thread keeps its own stack, so reusing a
+ * {@code FieldOfView} with {@code getFieldOfView} calculates without allocating.
  */
 public class ShadowCaster extends ViewField
 {
+    // octant transforms: a cell at (depth, y) in octant i is at
+    // (x + XX[i] * depth + XY[i] * y, y + YX[i] * depth + YY[i] * y)
+    private static final int[] XX = {1, 1, 0, 0, -1, -1, 0, 0};
+    private static final int[] XY = {0, 0, 1, -1, 0, 0, 1, -1};
+    private static final int[] YX = {0, 0, 1, 1, 0, 0, -1, -1};
+    private static final int[] YY = {1, -1, 0, 0, 1, -1, 0, 0};
+
+    // a stack entry is a depth followed by the start and end slopes as numerator, denominator
+    private static final int ENTRY = 5;
+
+    private ThreadLocal<ScanStack> stacks;
+
+    /**
+     * Constructs a new {@code ShadowCaster}.
+     */
+    public ShadowCaster()
+    {
+        stacks = ScanStack.perThread();
+    }
+
     @Override
     protected Collection<Coordinate> calcViewField(World world, int x, int y, int r)
     {
-        Set<Coordinate> fov = new HashSet<Coordinate>();
-        Coordinate orig = new Coordinate(x, y);
-        fov.add(orig);
-        for(int octant = 1; octant <= 8; octant++)
-            scan(1, 1f, 0, orig, fov, world, r, octant);
+        FieldOfView fov = new FieldOfView(x, y, r);
+        calcFieldOfView(world, x, y, r, fov);
         return fov;
     }
 
-    private void scan(int depth, float startslope, float endslope, Coordinate orig,
-            Collection<Coordinate> fov, World world, int range, int octant)
+    @Override
+    protected void calcFieldOfView(World world, int x, int y, int r, FieldOfView fov)
     {
-        if(depth > range)
-            return;
-        int y = Math.round(startslope * depth);
-        while(slope(depth, y) >= endslope)
-        {
-            Coordinate curr = getCurr(orig, depth, y, octant);
-            Coordinate prev = getPrev(orig, curr, octant, world);
-            // we were scanning open tiles and hit a wall
-            if(world.passableAt(curr) && !world.passableAt(prev))
-                startslope = newStartslope(depth, endslope, y);
-            // we were scanning wall tiles and hit an open tile
-            if(!world.passableAt(curr) && world.passableAt(prev))
-                scan(depth + 1, startslope, newEndslope(depth, y), orig, fov, world, range, octant);
-            fov.add(curr);
-            y--;
-        }
-        y++;
-        if(world.passableAt(getCurr(orig, depth, y, octant)))
-            scan(depth + 1, startslope, endslope, orig, fov, world, range, octant);
+        fov.add(x, y);
+        for(int octant = 0; octant < 8; octant++)
+            calcOctant(world, x, y, r, fov, octant);
     }
 
-    private float newEndslope(int depth, int y)
+    @Override
+    protected boolean calcsOctants()
     {
-        return slope(depth - .5f, y + .5f);
+        return true;
     }
 
-    private float newStartslope(int depth, float endslope, int y)
+    @Override
+    protected int octantsReading(int dx, int dy, int r)
     {
-        return Math.max(slope(depth + .5f, y - .5f), endslope);
+        // besides its own cells, the scan of an octant looks one cell past its outer edge
+        int mask = 0;
+        for(int octant = 0; octant < 8; octant++)
+        {
+            int depth = XX[octant] * dx + YX[octant] * dy;
+            int y = XY[octant] * dx + YY[octant] * dy;
+            if(depth >= 1 && depth <= r && y >= 0 && y <= depth + 1)
+                mask |= 1 << octant;
+        }
+        return mask;
     }
 
-    private float slope(float x, float y)
+    @Override
+    protected void calcOctant(World world, int origX, int origY, int range, FieldOfView fov,
+            int octant)
     {
-        return y / x;
-    }
+        int xx = XX[octant];
+        int xy = XY[octant];
+        int yx = YX[octant];
+        int yy = YY[octant];
+        int maxX = world.width() - 1;
+        int maxY = world.height() - 1;
 
-    private Coordinate getCurr(Coordinate orig, int x, int y, int octant)
-    {
-        MutableCoordinate curr = orig.mutableCopy();
-        switch(octant)
+        ScanStack scan = stacks.get();
+        int[] stack = scan.entries;
+        int top = push(stack, 0, 1, 1, 1, 0, 1);
+        while(top > 0)
         {
-            case 1:
-                curr.translate(x, y);
-                break;
-            case 2:
-                curr.translate(x, -y);
-                break;
-            case 3:
-                curr.translate(y, x);
-                break;
-            case 4:
-                curr.translate(-y, x);
-                break;
-            case 5:
-                curr.translate(-x, y);
-                break;
-            case 6:
-                curr.translate(-x, -y);
-                break;
-            case 7:
-                curr.translate(y, -x);
-                break;
-            case 8:
-                curr.translate(-y, -x);
-                break;
+            top -= ENTRY;
+            int depth = stack[top];
+            int startNum = stack[top + 1];
+            int startDen = stack[top + 2];
+            int endNum = stack[top + 3];
+            int endDen = stack[top + 4];
+            if(depth > range)
+                continue;
+
+            // y = round(start * depth), and the scan continues while y / depth >= end
+            int y = (2 * startNum * depth + startDen) / (2 * startDen);
+            int currX = origX + xx * depth + xy * y;
+            int currY = origY + yx * depth + yy * y;
+            while(y * endDen >= endNum * depth)
+            {
+                boolean currOpen = world.passableAt(currX, currY);
+                // the previous cell is one step back along the scan line, unless we are on the edge
+                boolean prevOpen = currOpen;
+                if(currX != 0 && currY != 0 && currX != maxX && currY != maxY)
+                    prevOpen = world.passableAt(currX + xy, currY + yy);
+                // we were scanning open tiles and hit a wall
+                if(currOpen && !prevOpen)
+                {
+                    // start = max((y - 1/2) / (depth + 1/2), end)
+                    if((2 * y - 1) * endDen >= endNum * (2 * depth + 1))
+                    {
+                        startNum = 2 * y - 1;
+                        startDen = 2 * depth + 1;
+                    }
+                    else
+                    {
+                        startNum = endNum;
+                        startDen = endDen;
+                    }
+                }
+                // we were scanning wall tiles and hit an open tile
+                if(!currOpen && prevOpen)
+                {
+                    if(top + ENTRY > stack.length)
+                        stack = scan.grow();
+                    // end = (y + 1/2) / (depth - 1/2)
+                    top = push(stack, top, depth + 1, startNum, startDen, 2 * y + 1, 2 * depth - 1);
+                }
+                fov.add(currX, currY);
+                y--;
+                currX -= xy;
+                currY -= yy;
+            }
+            if(world.passableAt(currX + xy, currY + yy))
+            {
+                if(top + ENTRY > stack.length)
+                    stack = scan.grow();
+                top = push(stack, top, depth + 1, startNum, startDen, endNum, endDen);
+            }
         }
-        return curr;
     }
 
-    private Coordinate getPrev(Coordinate orig, Coordinate curr, int octant, World world)
+    private int push(int[] stack, int top, int depth, int startNum, int startDen, int endNum,
+            int endDen)
     {
-        MutableCoordinate prev = curr.mutableCopy();
-        if(prev.x() == 0 || prev.y() == 0 || prev.x() == world.width() - 1
-                || prev.y() == world.height() - 1)
-            return prev;
-        switch(octant)
-        {
-            case 1:
-                prev.translate(0, 1);
-                break;
-            case 2:
-                prev.translate(0, -1);
-                break;
-            case 3:
-                prev.translate(1, 0);
-                break;
-            case 4:
-                prev.translate(-1, 0);
-                break;
-            case 5:
-                prev.translate(0, 1);
-                break;
-            case 6:
-                prev.translate(0, -1);
-                break;
-            case 7:
-                prev.translate(1, 0);
-                break;
-            case 8:
-                prev.translate(-1, 0);
-                break;
-        }
-        return prev;
+        stack[top] = depth;
+        stack[top + 1] = startNum;
+        stack[top + 2] = startDen;
+        stack[top + 3] = endNum;
+        stack[top + 4] = endDen;
+        return top + ENTRY;
     }
 }
@@ -0,0 +1,145 @@
+package jade.fov;
+
+import jade.core.PassableGrid;
+import jade.core.World;
+import jade.util.datatype.Coordinate;
+import java.util.Collection;
+
+/**
+ * Uses symmetric shadow casting to calculate a view field. Like {@code ShadowCaster}, each tile is
+ * only visited once, but a passable tile is only visible if the line from the center of the origin
+ * to its center is unobstructed, which makes the result symmetric: one passable tile is visible
+ * from another exactly when the reverse is true. This means that an {@code Actor} which sees the
+ * player is always seen by the player. Impassable tiles are visible whenever any part of them is.
+ * <p>
+ * The scan reads the {@code PassableGrid} of the {@code World}, which is only retaken after a tile
+ * changes, and each thread keeps its own stack, so reusing a {@code FieldOfView} calculates
+ * without allocating.
+ */
+public class SymmetricShadowCaster extends ViewField
+{
+    // quadrant transforms: a cell at (depth, col) in quadrant i is at
+    // (x + DX[i] * depth + CX[i] * col, y + DY[i] * depth + CY[i] * col)
+    private static final int[] DX = {0, 0, 1, -1};
+    private static final int[] CX = {1, 1, 0, 0};
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final int[] CY = {0, 0, 1, 1};
+
+    // a stack entry is a depth followed by the start and end slopes as numerator, denominator
+    private static final int ENTRY = 5;
+
+    private ThreadLocal<ScanStack> stacks;
+
+    /**
+     * Constructs a new {@code SymmetricShadowCaster}.
+     */
+    public SymmetricShadowCaster()
+    {
+        stacks = ScanStack.perThread();
+    }
+
+    @Override
+    protected Collection<Coordinate> calcViewField(World world, int x, int y, int r)
+    {
+        FieldOfView fov = new FieldOfView(x, y, r);
+        calcFieldOfView(world, x, y, r, fov);
+        return fov;
+    }
+
+    @Override
+    protected void calcFieldOfView(World world, int x, int y, int r, FieldOfView fov)
+    {
+        PassableGrid grid = world.passableGrid();
+        fov.add(x, y);
+        for(int quadrant = 0; quadrant < 4; quadrant++)
+            scan(grid, x, y, r, fov, quadrant);
+    }
+
+    @Override
+    public boolean symmetric()
+    {
+        return true;
+    }
+
+    private void scan(PassableGrid grid, int origX, int origY, int range, FieldOfView fov,
+            int quadrant)
+    {
+        int dx = DX[quadrant];
+        int cx = CX[quadrant];
+        int dy = DY[quadrant];
+        int cy = CY[quadrant];
+        int width = grid.width();
+        int height = grid.height();
+
+        ScanStack scan = stacks.get();
+        int[] stack = scan.entries;
+        int top = push(stack, 0, 1, -1, 1, 1, 1);
+        while(top > 0)
+        {
+            top -= ENTRY;
+            int depth = stack[top];
+            int startNum = stack[top + 1];
+            int startDen = stack[top + 2];
+            int endNum = stack[top + 3];
+            int endDen = stack[top + 4];
+            if(depth > range)
+                continue;
+
+            // the row spans depth * start rounded half up to depth * end rounded half down
+            int min = floorDiv(2 * depth * startNum + startDen, 2 * startDen);
+            int max = -floorDiv(endDen - 2 * depth * endNum, 2 * endDen);
+            int currX = origX + dx * depth + cx * min;
+            int currY = origY + dy * depth + cy * min;
+            boolean first = true;
+            boolean prevWall = false;
+            for(int col = min; col <= max; col++)
+            {
+                boolean wall = !grid.passable(currX, currY);
+                // walls are visible if any part is, floors only if their center is
+                boolean symmetric = col * startDen >= depth * startNum
+                        && col * endDen <= depth * endNum;
+                if((wall || symmetric) && currX >= 0 && currY >= 0 && currX < width
+                        && currY < height)
+                    fov.add(currX, currY);
+                if(!first && prevWall && !wall)
+                {
+                    startNum = 2 * col - 1;
+                    startDen = 2 * depth;
+                }
+                if(!first && !prevWall && wall)
+                {
+                    if(top + ENTRY > stack.length)
+                        stack = scan.grow();
+                    top = push(stack, top, depth + 1, startNum, startDen, 2 * col - 1, 2 * depth);
+                }
+                first = false;
+                prevWall = wall;
+                currX += cx;
+                currY += cy;
+            }
+            if(!first && !prevWall)
+            {
+                if(top + ENTRY > stack.length)
+                    stack = scan.grow();
+                top = push(stack, top, depth + 1, startNum, startDen, endNum, endDen);
+            }
+        }
+    }
+
+    private static int floorDiv(int num, int den)
+    {
+        int quotient = num / den;
+        return num % den != 0 && num < 0 ? quotient - 1 : quotient;
+    }
+
+    private int push(int[] stack, int top, int depth, int startNum, int startDen, int endNum,
+            int endDen)
+    {
+        stack[top] = depth;
+        stack[top + 1] = startNum;
+        stack[top + 2] = startDen;
+        stack[top + 3] = endNum;
+        stack[top + 4] = endDen;
+        return top + ENTRY;
+    }
+}
@@ -3,13 +3,17 @@ package jade.fov;
 import jade.core.World;
 import jade.util.Guard;
 import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents an algorithm for determining field of view on a {@code World}.
  */
 public abstract class ViewField
 {
+    private List<ViewFieldPostProcess> postProcesses = new ArrayList<ViewFieldPostProcess>();
+
     /**
      * Calculates the field of view on the given {@code World} from the given (x, y) coordinates
      * with the specified radius.
@@ -21,6 +25,75 @@ public abstract class ViewField
      */
     protected abstract Collection<Coordinate> calcViewField(World world, int x, int y, int r);
 
+    /**
+     * Calculates the field of view on the given {@code World} from the given (x, y) coordinates
+     * with the specified radius, marking each visible cell in the provided {@code FieldOfView}. The
+     * {@code FieldOfView} has already been reset to (x, y) and r. The default implementation copies
+     * the result of {@code calcViewField}; implementations which can write the cells directly
+     * should override it.
+     * @param world the {@code World} on which field of view is being calculated
+     * @param x the x value of the coordinate being queried
+     * @param y the y value of the coordinate being queried
+     * @param r the radius of the field of view
+     * @param fov the {@code FieldOfView} receiving the visible cells
+     */
+    protected void calcFieldOfView(World world, int x, int y, int r, FieldOfView fov)
+    {
+        for(Coordinate coord : calcViewField(world, x, y, r))
+            if(fov.covers(coord.x(), coord.y()))
+                fov.add(coord.x(), coord.y());
+    }
+
+    /**
+     * Returns true if the {@code ViewField} is symmetric: a passable cell b is visible from a
+     * passable cell a exactly when a is visible from b, and whether a cell is visible does not
+     * depend on the radius, as long as the cell is within it. By default this is false.
+     * @return true if the {@code ViewField} is symmetric
+     */
+    public boolean symmetric()
+    {
+        return false;
+    }
+
+    /**
+     * Returns true if the {@code ViewField} calculates each of the eight octants around the origin
+     * independently, so that {@code calcOctant()} and {@code octantsReading()} are supported. By
+     * default this is false.
+     * @return true if the octants are calculated independently
+     */
+    protected boolean calcsOctants()
+    {
+        return false;
+    }
+
+    /**
+     * Marks the cells visible in a single octant around the origin in the provided {@code
+     * FieldOfView}, not including the origin itself. Only called if {@code calcsOctants()} is true.
+     * @param world the {@code World} on which field of view is being calculated
+     * @param x the x value of the coordinate being queried
+     * @param y the y value of the coordinate being queried
+     * @param r the radius of the field of view
+     * @param fov the {@code FieldOfView} receiving the visible cells
+     * @param octant the octant being calculated, from 0 to 7
+     */
+    protected void calcOctant(World world, int x, int y, int r, FieldOfView fov, int octant)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a bit mask of the octants whose result may depend on the tile at offset (dx, dy)
+     * from the origin, with bit i set for octant i. By default every octant may depend on it.
+     * @param dx the x offset of the tile from the origin
+     * @param dy the y offset of the tile from the origin
+     * @param r the radius of the field of view
+     * @return the mask of octants which read the tile
+     */
+    protected int octantsReading(int dx, int dy, int r)
+    {
+        return 0xFF;
+    }
+
     /**
      * Calculates the field of view on the given {@code World} from the given (x, y) coordinates
      * with the specified radius.
@@ -36,7 +109,10 @@ public abstract class ViewField
         Guard.argumentsInsideBounds(x, y, world.width(), world.height());
         Guard.argumentIsNonNegative(r);
 
-        return calcViewField(world, x, y, r);
+        Collection<Coordinate> field = calcViewField(world, x, y, r);
+        if(!postProcesses.isEmpty())
+            ViewFieldPostProcess.process(postProcesses, field, world, x, y, r);
+        return field;
     }
 
     /**
@@ -53,4 +129,55 @@ public abstract class ViewField
 
         return getViewField(world, coord.x(), coord.y(), r);
     }
+
+    /**
+     * Calculates the field of view on the given {@code World} from the given (x, y) coordinates
+     * with the specified radius, returning it as a new {@code FieldOfView}.
+     * @param world the {@code World} on which field of view is being calculated
+     * @param x the x value of the coordinate being queried
+     * @param y the y value of the coordinate being queried
+     * @param r the radius of the field of view
+     * @return the field of view on world from (x, y)
+     */
+    public final FieldOfView getFieldOfView(World world, int x, int y, int r)
+    {
+        Guard.argumentIsNonNegative(r);
+
+        return getFieldOfView(world, x, y, r, new FieldOfView(x, y, r));
+    }
+
+    /**
+     * Calculates the field of view on the given {@code World} from the given (x, y) coordinates
+     * with the specified radius, reusing the provided {@code FieldOfView}. Any previous contents of
+     * the {@code FieldOfView} are discarded.
+     * @param world the {@code World} on which field of view is being calculated
+     * @param x the x value of the coordinate being queried
+     * @param y the y value of the coordinate being queried
+     * @param r the radius of the field of view
+     * @param fov the {@code FieldOfView} which will hold the result
+     * @return fov, now holding the field of view on world from (x, y)
+     */
+    public final FieldOfView getFieldOfView(World world, int x, int y, int r, FieldOfView fov)
+    {
+        Guard.argumentsAreNotNull(world, fov);
+        Guard.argumentsInsideBounds(x, y, world.width(), world.height());
+        Guard.argumentIsNonNegative(r);
+
+        fov.reset(x, y, r);
+        calcFieldOfView(world, x, y, r, fov);
+        if(!postProcesses.isEmpty())
+            ViewFieldPostProcess.process(postProcesses, fov, world);
+        return fov;
+    }
+
+    /**
+     * Returns the chain of {@code ViewFieldPostProcess} applied, in order, to every view field
+     * calculated by this {@code ViewField}. Post processes are added to or removed from the chain by
+     * modifying the returned list. The chain is empty by default.
+     * @return the chain of post processes
+     */
+    public List<ViewFieldPostProcess> getPostProcesses()
+    {
+        return postProcesses;
+    }
 }
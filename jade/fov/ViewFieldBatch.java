@@ -0,0 +1,299 @@
+package jade.fov;
+
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calculates the fields of view of many observers at once, optionally in parallel on a {@code
+ * ForkJoinPool}. Besides the fields of view themselves, {@code whoCanSee()} answers which of the
+ * observers can see a given cell. If the {@code ViewField} is symmetric and has no post processes,
+ * and the cell is passable, this is done with a single field of view calculated from the cell,
+ * rather than one for each observer.
+ * <p>
+ * When a pool is used, the {@code ViewField} is shared by the threads of the pool, so it must be
+ * safe for concurrent use ({@code ShadowCaster} and {@code RayCaster} are; {@code
+ * CachedViewField} is not). This includes its chain of post processes: {@code CircleClip} and
+ * {@code WallLighting} hold no state and are safe, while {@code LightFalloff} and {@code
+ * SeenMarker} keep their results in themselves and are not. The {@code World} must not be modified
+ * during a batch.
+ */
+public class ViewFieldBatch
+{
+    // the number of observers handled by a single task of the pool
+    private static final int GRAIN = 16;
+
+    private ViewField viewField;
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs a new {@code ViewFieldBatch} which calculates serially on the calling thread.
+     * @param viewField the {@code ViewField} used to calculate each field of view
+     */
+    public ViewFieldBatch(ViewField viewField)
+    {
+        this(viewField, null);
+    }
+
+    /**
+     * Constructs a new {@code ViewFieldBatch} which calculates in parallel on the given pool, or
+     * serially if the pool is null.
+     * @param viewField the {@code ViewField} used to calculate each field of view
+     * @param pool the {@code ForkJoinPool} used to calculate, or null to calculate serially
+     */
+    public ViewFieldBatch(ViewField viewField, ForkJoinPool pool)
+    {
+        Guard.argumentIsNotNull(viewField);
+
+        this.viewField = viewField;
+        this.pool = pool;
+    }
+
+    /**
+     * Calculates the field of view of each observer, all with the same radius. The result at index
+     * i belongs to the observer at index i.
+     * @param world the {@code World} on which fields of view are being calculated
+     * @param observers the locations of the observers
+     * @param r the radius of every field of view
+     * @return the field of view of each observer
+     */
+    public List<FieldOfView> getFieldsOfView(World world, List<? extends Coordinate> observers,
+            int r)
+    {
+        Guard.argumentIsNotNull(observers);
+
+        return getFieldsOfView(world, observers, uniform(observers.size(), r));
+    }
+
+    /**
+     * Calculates the field of view of each observer with its own radius. The result at index i
+     * belongs to the observer at index i.
+     * @param world the {@code World} on which fields of view are being calculated
+     * @param observers the locations of the observers
+     * @param radii the radius of each observer
+     * @return the field of view of each observer
+     */
+    public List<FieldOfView> getFieldsOfView(World world, List<? extends Coordinate> observers,
+            int[] radii)
+    {
+        return getFieldsOfView(world, observers, radii, new ArrayList<FieldOfView>());
+    }
+
+    /**
+     * Calculates the field of view of each observer with its own radius, reusing the {@code
+     * FieldOfView} already in results. The results are grown or shrunk to the number of observers,
+     * and the result at index i belongs to the observer at index i.
+     * @param world the {@code World} on which fields of view are being calculated
+     * @param observers the locations of the observers
+     * @param radii the radius of each observer
+     * @param results the {@code FieldOfView} to reuse, which will hold the results
+     * @return results, now holding the field of view of each observer
+     */
+    public List<FieldOfView> getFieldsOfView(World world, List<? extends Coordinate> observers,
+            int[] radii, List<FieldOfView> results)
+    {
+        Guard.argumentsAreNotNull(world, observers, radii, results);
+        Guard.validateArgument(radii.length == observers.size());
+
+        int count = observers.size();
+        if(results.size() > count)
+            results.subList(count, results.size()).clear();
+        while(results.size() < count)
+            results.add(new FieldOfView(0, 0, 0));
+
+        run(new FieldTask(world, observers, radii, results, 0, count));
+        return results;
+    }
+
+    /**
+     * Returns which observers can see the cell at (x, y), all with the same radius. Element i of
+     * the result is true if the observer at index i can see the cell.
+     * @param world the {@code World} on which visibility is being tested
+     * @param x the x value of the cell being tested
+     * @param y the y value of the cell being tested
+     * @param observers the locations of the observers
+     * @param r the radius of every observer
+     * @return whether each observer can see (x, y)
+     */
+    public boolean[] whoCanSee(World world, int x, int y, List<? extends Coordinate> observers,
+            int r)
+    {
+        Guard.argumentIsNotNull(observers);
+
+        return whoCanSee(world, x, y, observers, uniform(observers.size(), r));
+    }
+
+    /**
+     * Returns which observers can see the cell at (x, y), each with its own radius. Element i of
+     * the result is true if the observer at index i can see the cell. Observers further than their
+     * radius from the cell are never tested. If the {@code ViewField} is symmetric, its chain of
+     * post processes is empty and (x, y) is passable, the remaining observers which stand on
+     * passable cells are tested with a single field of view from (x, y). Symmetry only holds between
+     * passable cells, and post processes depend on the origin and radius, so otherwise the field of
+     * view of each remaining observer is calculated.
+     * @param world the {@code World} on which visibility is being tested
+     * @param x the x value of the cell being tested
+     * @param y the y value of the cell being tested
+     * @param observers the locations of the observers
+     * @param radii the radius of each observer
+     * @return whether each observer can see (x, y)
+     */
+    public boolean[] whoCanSee(World world, int x, int y, List<? extends Coordinate> observers,
+            int[] radii)
+    {
+        Guard.argumentsAreNotNull(world, observers, radii);
+        Guard.validateArgument(radii.length == observers.size());
+        Guard.argumentsInsideBounds(x, y, world.width(), world.height());
+
+        boolean[] seen = new boolean[observers.size()];
+        if(viewField.symmetric() && viewField.getPostProcesses().isEmpty()
+                && world.passableAt(x, y))
+        {
+            int range = -1;
+            for(int i = 0; i < seen.length; i++)
+                if(inRange(observers.get(i), radii[i], x, y))
+                    range = Math.max(range, radii[i]);
+            if(range < 0)
+                return seen;
+
+            FieldOfView fov = viewField.getFieldOfView(world, x, y, range);
+            FieldOfView own = null;
+            for(int i = 0; i < seen.length; i++)
+            {
+                Coordinate observer = observers.get(i);
+                if(!inRange(observer, radii[i], x, y))
+                    continue;
+                if(world.passableAt(observer.x(), observer.y()))
+                    seen[i] = fov.contains(observer.x(), observer.y());
+                else
+                {
+                    if(own == null)
+                        own = new FieldOfView(0, 0, 0);
+                    viewField.getFieldOfView(world, observer.x(), observer.y(), radii[i], own);
+                    seen[i] = own.contains(x, y);
+                }
+            }
+        }
+        else
+            run(new SeeTask(world, x, y, observers, radii, seen, 0, seen.length));
+        return seen;
+    }
+
+    private void run(RecursiveAction task)
+    {
+        if(pool == null)
+            task.invoke();
+        else
+            pool.invoke(task);
+    }
+
+    private static int[] uniform(int count, int r)
+    {
+        int[] radii = new int[count];
+        for(int i = 0; i < count; i++)
+            radii[i] = r;
+        return radii;
+    }
+
+    private static boolean inRange(Coordinate observer, int r, int x, int y)
+    {
+        return Math.abs(observer.x() - x) <= r && Math.abs(observer.y() - y) <= r;
+    }
+
+    private class FieldTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 6092458725541328470L;
+
+        private World world;
+        private List<? extends Coordinate> observers;
+        private int[] radii;
+        private List<FieldOfView> results;
+        private int lo;
+        private int hi;
+
+        public FieldTask(World world, List<? extends Coordinate> observers, int[] radii,
+                List<FieldOfView> results, int lo, int hi)
+        {
+            this.world = world;
+            this.observers = observers;
+            this.radii = radii;
+            this.results = results;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if(hi - lo <= GRAIN)
+                for(int i = lo; i < hi; i++)
+                {
+                    Coordinate observer = observers.get(i);
+                    viewField.getFieldOfView(world, observer.x(), observer.y(), radii[i],
+                            results.get(i));
+                }
+            else
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new FieldTask(world, observers, radii, results, lo, mid),
+                        new FieldTask(world, observers, radii, results, mid, hi));
+            }
+        }
+    }
+
+    private class SeeTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = -1736514930402718553L;
+
+        private World world;
+        private int x;
+        private int y;
+        private List<? extends Coordinate> observers;
+        private int[] radii;
+        private boolean[] seen;
+        private int lo;
+        private int hi;
+
+        public SeeTask(World world, int x, int y, List<? extends Coordinate> observers,
+                int[] radii, boolean[] seen, int lo, int hi)
+        {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.observers = observers;
+            this.radii = radii;
+            this.seen = seen;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if(hi - lo <= GRAIN)
+            {
+                FieldOfView fov = null;
+                for(int i = lo; i < hi; i++)
+                {
+                    Coordinate observer = observers.get(i);
+                    if(!inRange(observer, radii[i], x, y))
+                        continue;
+                    if(fov == null)
+                        fov = new FieldOfView(0, 0, 0);
+                    viewField.getFieldOfView(world, observer.x(), observer.y(), radii[i], fov);
+                    seen[i] = fov.contains(x, y);
+                }
+            }
+            else
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SeeTask(world, x, y, observers, radii, seen, lo, mid), new SeeTask(
+                        world, x, y, observers, radii, seen, mid, hi));
+            }
+        }
+    }
+}
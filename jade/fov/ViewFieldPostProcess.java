@@ -1,20 +1,49 @@
 package jade.fov;
 
 import jade.core.World;
+import jade.util.Guard;
 import jade.util.datatype.Coordinate;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents a post processing of a view field. This can be used to add or remove artifacts from
- * the view field, or filter the view field into a specific shape.
+ * the view field, or filter the view field into a specific shape. Post processes are chained on a
+ * {@code ViewField} with {@code getPostProcesses()}, and are applied in order, each to the view
+ * field left by the ones before it.
+ * <p>
+ * A post process may opt in to fusion by overriding {@code processCell()} and returning true from
+ * {@code fusable()}. Consecutive post processes which do are then run in a single pass over the
+ * cells of a {@code FieldOfView}, each cell being passed to each of them in turn until one of them
+ * removes it. Removals are applied once the pass has visited every cell, so during a pass every
+ * post process sees the view field as it was when the pass began. A post process whose {@code
+ * processCell()} reads any cell besides the one it is given must say so with {@code
+ * readsNeighbors()}, and then begins a pass of its own, so that the cells it reads have already
+ * been processed by the post processes before it. The result is the same as running the chain one
+ * post process at a time.
  */
 public abstract class ViewFieldPostProcess
 {
+    // the cells a fused pass will remove once it has visited every cell, one buffer per thread,
+    // which a pass holds on to so that a pass started from within it gets a buffer of its own
+    private static final long[] NO_REMOVALS = new long[0];
+    private static final ThreadLocal<long[][]> REMOVALS = new ThreadLocal<long[][]>()
+    {
+        @Override
+        protected long[][] initialValue()
+        {
+            return new long[][] {NO_REMOVALS};
+        }
+    };
+
     /**
      * Performs the post processing on the calculated view field. The provided {@code
      * Collection<Coordinate>} will be modified in place. The post processing should be done with
      * respect to the parameters with which the view field was generated. In other words, the
-     * processed view field should have a radius of r and be centered at (x, y).
+     * processed view field should have a radius of r and be centered at (x, y). A post process
+     * which is {@code fusable()} can implement this by passing a chain of itself alone to the
+     * static {@code process()}.
      * @param field the view field being processed
      * @param world the {@code World} on which the view field was generated
      * @param x the x value of the location from which the view field was generated
@@ -22,4 +51,189 @@ public abstract class ViewFieldPostProcess
      * @param r the radius with which the view field was generated
      */
     public abstract void process(Collection<Coordinate> field, World world, int x, int y, int r);
+
+    /**
+     * Called once before the cells of a view field are processed by a fused pass.
+     * @param field the view field being processed
+     * @param world the {@code World} on which the view field was generated
+     */
+    protected void begin(FieldOfView field, World world)
+    {
+    }
+
+    /**
+     * Processes a single visible cell of the view field in a fused pass, returning false if the cell
+     * should be removed. This is only called on post processes which are {@code fusable()}; the
+     * rest are run with {@code process()}.
+     * @param field the view field being processed
+     * @param world the {@code World} on which the view field was generated
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return true if the cell remains visible
+     */
+    protected boolean processCell(FieldOfView field, World world, int x, int y)
+    {
+        return true;
+    }
+
+    /**
+     * Returns true if the post process implements {@code processCell()} and may be fused with the
+     * post processes next to it. The default is false.
+     * @return true if the post process may be fused
+     */
+    protected boolean fusable()
+    {
+        return false;
+    }
+
+    /**
+     * Returns true if {@code processCell()} reads the view field at cells other than the one it is
+     * given, in which case the post process begins a fused pass of its own. The default is false.
+     * @return true if {@code processCell()} reads neighboring cells
+     */
+    protected boolean readsNeighbors()
+    {
+        return false;
+    }
+
+    /**
+     * Called once after every cell of a view field has been processed by a fused pass.
+     * @param field the processed view field
+     * @param world the {@code World} on which the view field was generated
+     */
+    protected void end(FieldOfView field, World world)
+    {
+    }
+
+    /**
+     * Performs a chain of post processes on a view field, fusing those which are {@code
+     * fusable()}. A {@code FieldOfView} is processed in place. For any other {@code
+     * Collection<Coordinate>}, a fused pass works on a copy of the view field in a {@code
+     * FieldOfView} of radius r around (x, y), and afterwards the removed cells are removed, while
+     * the other post processes are given the {@code Collection<Coordinate>} itself.
+     * @param chain the post processes, in the order they are applied
+     * @param field the view field being processed
+     * @param world the {@code World} on which the view field was generated
+     * @param x the x value of the location from which the view field was generated
+     * @param y the y value of the location from which the view field was generated
+     * @param r the radius with which the view field was generated
+     */
+    public static void process(List<? extends ViewFieldPostProcess> chain,
+            Collection<Coordinate> field, World world, int x, int y, int r)
+    {
+        Guard.argumentsAreNotNull(chain, field, world);
+
+        if(field instanceof FieldOfView)
+        {
+            process(chain, (FieldOfView)field, world);
+            return;
+        }
+
+        FieldOfView fov = null;
+        int start = 0;
+        while(start < chain.size())
+        {
+            int stop = fusedStop(chain, start);
+            if(stop == start)
+            {
+                chain.get(start++).process(field, world, x, y, r);
+                continue;
+            }
+
+            if(fov == null)
+                fov = new FieldOfView(x, y, r);
+            else
+                fov.clear();
+            for(Coordinate coord : field)
+                if(fov.covers(coord.x(), coord.y()))
+                    fov.add(coord.x(), coord.y());
+            fuse(chain, start, stop, fov, world);
+            field.retainAll(fov);
+            start = stop;
+        }
+    }
+
+    /**
+     * Performs a chain of post processes on a {@code FieldOfView} in place, fusing those which
+     * are {@code fusable()}.
+     * @param chain the post processes, in the order they are applied
+     * @param field the view field being processed
+     * @param world the {@code World} on which the view field was generated
+     */
+    public static void process(List<? extends ViewFieldPostProcess> chain, FieldOfView field,
+            World world)
+    {
+        Guard.argumentsAreNotNull(chain, field, world);
+
+        int start = 0;
+        while(start < chain.size())
+        {
+            int stop = fusedStop(chain, start);
+            if(stop == start)
+                chain.get(start++).process(field, world, field.originX(), field.originY(), field
+                        .radius());
+            else
+            {
+                fuse(chain, start, stop, field, world);
+                start = stop;
+            }
+        }
+    }
+
+    /*
+     * Returns the end (exclusive) of the fused pass beginning at start, or start itself if the post
+     * process there is not fusable.
+     */
+    private static int fusedStop(List<? extends ViewFieldPostProcess> chain, int start)
+    {
+        if(!chain.get(start).fusable())
+            return start;
+        int stop = start + 1;
+        while(stop < chain.size() && chain.get(stop).fusable() && !chain.get(stop).readsNeighbors())
+            stop++;
+        return stop;
+    }
+
+    private static void fuse(List<? extends ViewFieldPostProcess> chain, int start, int stop,
+            FieldOfView field, World world)
+    {
+        for(int i = start; i < stop; i++)
+            chain.get(i).begin(field, world);
+        int side = field.side();
+        int stride = field.stride();
+        int words = side * stride;
+        long[][] buffer = REMOVALS.get();
+        long[] removals = buffer[0].length < words ? new long[words] : buffer[0];
+        buffer[0] = NO_REMOVALS;
+        Arrays.fill(removals, 0, words, 0);
+
+        int minX = field.originX() - field.radius();
+        int minY = field.originY() - field.radius();
+        for(int row = 0; row < side; row++)
+            for(int k = 0; k < stride; k++)
+            {
+                int index = row * stride + k;
+                long word = field.word(index);
+                while(word != 0)
+                {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    int x = minX + (k << 6) + bit;
+                    int y = minY + row;
+                    word &= word - 1;
+                    for(int i = start; i < stop; i++)
+                        if(!chain.get(i).processCell(field, world, x, y))
+                        {
+                            removals[index] |= 1L << bit;
+                            break;
+                        }
+                }
+            }
+
+        for(int i = 0; i < words; i++)
+            if(removals[i] != 0)
+                field.clearWord(i, removals[i]);
+        buffer[0] = removals;
+        for(int i = start; i < stop; i++)
+            chain.get(i).end(field, world);
+    }
 }
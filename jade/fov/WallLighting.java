@@ -0,0 +1,55 @@
+package jade.fov;
+
+import jade.core.World;
+import jade.util.datatype.Coordinate;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A {@code ViewFieldPostProcess} which removes walls lit from behind. An impassable cell is only
+ * kept if a passable cell adjacent to it on the side facing the origin is visible, or the origin
+ * itself is adjacent. This removes walls which are seen through gaps but whose facing side is
+ * hidden, such as the far side of a pillar. Since it reads the neighbors of each cell, it begins a
+ * fused pass of its own. A {@code WallLighting} holds no state, so it may be shared by threads
+ * calculating fields of view at once.
+ */
+public class WallLighting extends ViewFieldPostProcess
+{
+    @Override
+    public void process(Collection<Coordinate> field, World world, int x, int y, int r)
+    {
+        process(Collections.singletonList(this), field, world, x, y, r);
+    }
+
+    @Override
+    protected boolean readsNeighbors()
+    {
+        return true;
+    }
+
+    @Override
+    protected boolean fusable()
+    {
+        return true;
+    }
+
+    @Override
+    protected boolean processCell(FieldOfView field, World world, int x, int y)
+    {
+        if(world.passableAt(x, y))
+            return true;
+
+        int stepX = Integer.signum(field.originX() - x);
+        int stepY = Integer.signum(field.originY() - y);
+        return lit(field, world, x + stepX, y, stepX != 0)
+                || lit(field, world, x, y + stepY, stepY != 0)
+                || lit(field, world, x + stepX, y + stepY, stepX != 0 && stepY != 0);
+    }
+
+    private boolean lit(FieldOfView field, World world, int x, int y, boolean facing)
+    {
+        if(!facing || !field.contains(x, y))
+            return false;
+        return (x == field.originX() && y == field.originY()) || world.passableAt(x, y);
+    }
+}
@@ -3,9 +3,8 @@ package jade.gen.map;
 import jade.core.World;
 import jade.util.Dice;
 import jade.util.datatype.ColoredChar;
-import jade.util.datatype.Coordinate;
-import java.util.HashSet;
-import java.util.Stack;
+import jade.util.datatype.LongSet;
+import jade.util.datatype.PackedCoordinate;
 
 /**
  * Uses cellular automaton to generate interesting cave-like maps. This implementation always tries
@@ -78,7 +77,7 @@ public class Cellular extends MapGenerator
 
     private boolean connected(World world, Dice dice)
     {
-        HashSet<Coordinate> fill = getFill(world, dice);
+        LongSet fill = getFill(world, dice);
         if(fill.size() * 100 / (world.width() * world.height()) < wallChance)
             return false;
         else
@@ -88,33 +87,42 @@ public class Cellular extends MapGenerator
         }
     }
 
-    private HashSet<Coordinate> getFill(World world, Dice dice)
+    private LongSet getFill(World world, Dice dice)
     {
-        HashSet<Coordinate> fill = new HashSet<Coordinate>();
-        Stack<Coordinate> stack = new Stack<Coordinate>();
-        stack.push(world.getOpenTile(dice));
+        LongSet fill = new LongSet(world.width() * world.height() / 2);
+        long[] stack = new long[64];
+        int top = 0;
+        stack[top++] = PackedCoordinate.pack(world.getOpenTile(dice));
 
-        while(!stack.isEmpty())
+        while(top > 0)
         {
-            Coordinate coord = stack.pop();
-            if(fill.contains(coord) || !world.passableAt(coord))
+            long coord = stack[--top];
+            int x = PackedCoordinate.x(coord);
+            int y = PackedCoordinate.y(coord);
+            if(fill.contains(coord) || !world.passableAt(x, y))
                 continue;
 
             fill.add(coord);
 
-            stack.push(coord.getTranslated(1, 0));
-            stack.push(coord.getTranslated(-1, 0));
-            stack.push(coord.getTranslated(0, 1));
-            stack.push(coord.getTranslated(0, -1));
+            if(top + 4 > stack.length)
+            {
+                long[] grown = new long[stack.length * 2];
+                System.arraycopy(stack, 0, grown, 0, top);
+                stack = grown;
+            }
+            stack[top++] = PackedCoordinate.pack(x + 1, y);
+            stack[top++] = PackedCoordinate.pack(x - 1, y);
+            stack[top++] = PackedCoordinate.pack(x, y + 1);
+            stack[top++] = PackedCoordinate.pack(x, y - 1);
         }
         return fill;
     }
 
-    private void deleteExtra(World world, HashSet<Coordinate> fill)
+    private void deleteExtra(World world, LongSet fill)
     {
         for(int x = 0; x < world.width(); x++)
             for(int y = 0; y < world.height(); y++)
-                if(!fill.contains(new Coordinate(x, y)))
+                if(!fill.contains(PackedCoordinate.pack(x, y)))
                     world.setTile(wall, false, x, y);
     }
 
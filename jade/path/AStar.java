@@ -1,157 +1,350 @@
 package jade.path;
 
+import jade.core.PassableGrid;
 import jade.core.World;
+import jade.util.Guard;
 import jade.util.datatype.Coordinate;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.NavigableSet;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * A {@code PathFinder} which uses the A* path finding algorithm to quickly calculate optimal paths.
- * The implementation uses Cartesian distance as both traversal cost and heuristic estimates. If a
- * path exists it is guaranteed to be found, and an optimal path will always be returned. If no path
- * exists, a partial path from the accessible location closest to the goal will be returned.
+ * By default the implementation uses Cartesian distance as both traversal cost and heuristic
+ * estimates. If a path exists it is guaranteed to be found, and an optimal path will always be
+ * returned. If no path exists, a partial path from the accessible location closest to the goal will
+ * be returned.
+ * <p>
+ * A {@code CostGrid} may be given to weight the terrain, so that a step costs the cost of the tile
+ * entered, times the square root of two for a diagonal step, and tiles with no cost are avoided.
+ * The {@code Heuristic} is scaled by the lowest cost on the grid, so it stays admissible however
+ * the grid is weighted, and the paths found stay optimal with every {@code Heuristic} except
+ * {@code MANHATTAN}, which trades that for speed. Step costs are looked up in tables indexed by the
+ * cost byte, so weighting the terrain adds no arithmetic to the search.
+ * <p>
+ * Two modes bound the cost of a query whose end is far away or out of reach. A bidirectional
+ * search grows a second search back from the end, and stops once neither can improve on the
+ * shortest path where they have met, so an end walled into a small region is found unreachable as
+ * soon as that region is exhausted; the partial path then leads to the node nearest the end found
+ * so far, rather than the nearest of the whole region. A reachable end usually costs more nodes
+ * than a plain search, so it suits maps where ends are often closed off. A component check looks
+ * the start and end up in a {@code ConnectedComponents} of the {@code World} before searching, and
+ * answers a query between regions with an empty path at once. Both modes are off by default, and
+ * combine with the budget of {@code PathFinder}, which is counted across both directions.
+ * <p>
+ * Nodes are identified by their index {@code y * width + x}, and the open list is an {@code
+ * IndexedHeap} of those indices, ordered by estimated cost, then x, then y. The search state lives
+ * in a {@code SearchState} of flat arrays which are reused between queries, one for each thread
+ * using the {@code AStar}, so repeated queries do not allocate beyond the returned path.
  */
 public class AStar extends PathFinder
 {
-    @Override
-    protected List<Coordinate> calcPath(World world, Coordinate start, Coordinate end)
+    // the cost of a straight and a diagonal step onto a tile, indexed by the cost of the tile
+    private static final double[] STRAIGHT = new double[256];
+    private static final double[] DIAGONAL = new double[256];
+
+    static
     {
-        NodeSet nodes = new NodeSet(world, end);
-        nodes.get(start).gCost = 0;
+        for(int cost = 0; cost < 256; cost++)
+        {
+            STRAIGHT[cost] = cost;
+            DIAGONAL[cost] = cost * Math.sqrt(2);
+        }
+    }
 
-        Set<Node> closed = new HashSet<Node>();
-        NavigableSet<Node> open = new TreeSet<Node>();
-        open.add(nodes.get(start));
+    private Heuristic heuristic;
+    private CostGrid costs;
+    private ThreadLocal<SearchState> searches;
+    private ThreadLocal<SearchState> backwardSearches;
+    private boolean bidirectional;
+    private boolean componentCheck;
+    private ConnectedComponents components;
 
-        while(!open.isEmpty())
-        {
-            Node node = open.pollFirst();
-            closed.add(node);
+    /**
+     * Constructs a new {@code AStar}, using the {@code EUCLIDEAN} heuristic on unweighted terrain.
+     */
+    public AStar()
+    {
+        this(Heuristic.EUCLIDEAN);
+    }
 
-            if(node.equals(end))
-                return reconstructPath(node);
+    /**
+     * Constructs a new {@code AStar}, using the given heuristic on unweighted terrain.
+     * @param heuristic the estimate of the cost between two tiles
+     */
+    public AStar(Heuristic heuristic)
+    {
+        Guard.argumentIsNotNull(heuristic);
 
-            for(Node neighbor : expandNode(node, world, nodes))
-            {
-                if(closed.contains(neighbor))
-                    continue;
+        this.heuristic = heuristic;
+        searches = SearchState.perThread();
+        backwardSearches = SearchState.perThread();
+    }
 
-                double gCost = node.gCost + gCost(node, neighbor);
-                if(gCost < neighbor.gCost)
-                {
-                    open.remove(neighbor);
-                    neighbor.updateGCost(gCost);
-                    neighbor.prev = node;
-                    open.add(neighbor);
-                }
-            }
-        }
+    /**
+     * Constructs a new {@code AStar}, using the given heuristic on terrain weighted by the given
+     * {@code CostGrid}. The {@code CostGrid} is read as paths are calculated, so changes made to it
+     * apply to later queries, and it must be the size of every {@code World} searched.
+     * @param heuristic the estimate of the cost between two tiles
+     * @param costs the cost of entering each tile
+     */
+    public AStar(Heuristic heuristic, CostGrid costs)
+    {
+        this(heuristic);
+        Guard.argumentIsNotNull(costs);
 
-        return partialPath(closed);
+        this.costs = costs;
     }
 
-    private static double gCost(Coordinate start, Coordinate end)
+    /**
+     * Sets whether paths are searched for from both ends at once.
+     * @param bidirectional true if paths are searched for from both ends
+     */
+    public void setBidirectional(boolean bidirectional)
     {
-        return start.distance(end);
+        this.bidirectional = bidirectional;
     }
 
-    private static double hEstimate(Coordinate start, Coordinate end)
+    /**
+     * Returns true if paths are searched for from both ends at once.
+     * @return true if paths are searched for from both ends
+     */
+    public boolean bidirectional()
     {
-        return start.distance(end);
+        return bidirectional;
     }
 
-    private List<Coordinate> reconstructPath(Node node)
+    /**
+     * Sets whether a query is first checked against the connected regions of the {@code World},
+     * returning an empty path at once if the end is impassable or in another region. The regions
+     * of the last {@code World} searched are kept, and updated as it changes.
+     * @param componentCheck true if queries are checked against the connected regions
+     */
+    public void setComponentCheck(boolean componentCheck)
     {
-        LinkedList<Coordinate> path = new LinkedList<Coordinate>();
-        while(node.prev != null)
+        this.componentCheck = componentCheck;
+    }
+
+    /**
+     * Returns true if queries are first checked against the connected regions of the {@code
+     * World}.
+     * @return true if queries are checked against the connected regions
+     */
+    public boolean componentCheck()
+    {
+        return componentCheck;
+    }
+
+    @Override
+    protected List<Coordinate> calcPath(World world, Coordinate start, Coordinate end)
+    {
+        PassableGrid grid = world.passableGrid();
+        int width = grid.width();
+        int height = grid.height();
+        int endX = end.x();
+        int endY = end.y();
+        byte[] weights = null;
+        double scale = 1;
+        if(costs != null)
         {
-            path.addFirst(node.copy());
-            node = node.prev;
+            Guard.validateArgument(costs.width() == width && costs.height() == height);
+            weights = costs.costs();
+            scale = costs.lowestCost();
         }
-        return path;
+
+        if(componentCheck && grid.passable(start.x(), start.y()) && !reachable(world, start, end))
+            return new ArrayList<Coordinate>();
+        long started = System.nanoTime();
+        if(bidirectional && enterable(grid, weights, endX, endY))
+            return searchBoth(grid, weights, scale, start, end, started);
+        return searchForward(grid, weights, scale, start, end, started);
     }
 
-    private List<Coordinate> partialPath(Set<Node> closed)
+    private List<Coordinate> searchForward(PassableGrid grid, byte[] weights, double scale,
+            Coordinate start, Coordinate end, long started)
     {
-        Node best = null;
-        for(Node node : closed)
+        int width = grid.width();
+        int height = grid.height();
+        int endX = end.x();
+        int endY = end.y();
+
+        SearchState search = searches.get();
+        search.prepare(width * height);
+        double[] gCost = search.gCost;
+        double[] hScore = search.hScore;
+        int[] prev = search.prev;
+        int[] visited = search.visited;
+        int[] closed = search.closed;
+        int generation = search.generation;
+        IndexedHeap open = search.open;
+
+        int first = start.y() * width + start.x();
+        search.visit(first, hEstimate(start.x(), start.y(), endX, endY, scale));
+        gCost[first] = 0;
+        prev[first] = -1;
+        open.push(first, Double.MAX_VALUE, start.x() * height + start.y());
+
+        int best = -1;
+        int expansions = 0;
+        while(!open.isEmpty() && !overBudget(expansions++, started))
         {
-            if(best == null || node.hScore < best.hScore)
+            int node = open.pop();
+            closed[node] = generation;
+            if(best < 0 || hScore[node] < hScore[best])
                 best = node;
+
+            int nodeX = node % width;
+            int nodeY = node / width;
+            if(nodeX == endX && nodeY == endY)
+                return reconstructPath(search, node, width);
+
+            for(int x = nodeX - 1; x <= nodeX + 1; x++)
+                for(int y = nodeY - 1; y <= nodeY + 1; y++)
+                {
+                    if(!grid.passable(x, y))
+                        continue;
+                    int neighbor = y * width + x;
+                    if(closed[neighbor] == generation)
+                        continue;
+                    int cost = weights == null ? 1 : weights[neighbor] & 0xFF;
+                    if(cost == 0)
+                        continue;
+                    if(visited[neighbor] != generation)
+                        search.visit(neighbor, hEstimate(x, y, endX, endY, scale));
+
+                    double g = gCost[node] + (x == nodeX || y == nodeY ? STRAIGHT[cost]
+                            : DIAGONAL[cost]);
+                    if(g < gCost[neighbor])
+                    {
+                        gCost[neighbor] = g;
+                        prev[neighbor] = node;
+                        open.push(neighbor, g + hScore[neighbor], x * height + y);
+                    }
+                }
         }
-        return reconstructPath(best);
-    }
 
-    private Iterable<Node> expandNode(Node next, World world, NodeSet nodes)
-    {
-        List<Node> neighbors = new ArrayList<Node>();
-        for(int x = next.x() - 1; x <= next.x() + 1; x++)
-            for(int y = next.y() - 1; y <= next.y() + 1; y++)
-                if(world.passableAt(x, y))
-                    neighbors.add(nodes.get(x, y));
-        return neighbors;
+        return reconstructPath(search, best, width);
     }
 
-    private class NodeSet
+    private List<Coordinate> searchBoth(PassableGrid grid, byte[] weights, double scale,
+            Coordinate start, Coordinate end, long started)
     {
-        private Node[][] nodes;
-        private Coordinate end;
+        int width = grid.width();
+        int height = grid.height();
+        int source = start.y() * width + start.x();
+        int target = end.y() * width + end.x();
 
-        public NodeSet(World world, Coordinate end)
-        {
-            nodes = new Node[world.width()][world.height()];
-            this.end = end;
-        }
+        SearchState forward = searches.get();
+        SearchState backward = backwardSearches.get();
+        forward.prepare(width * height);
+        backward.prepare(width * height);
+        begin(forward, source, start, end, scale, height);
+        begin(backward, target, end, start, scale, height);
 
-        public Node get(Coordinate pos)
+        // the node where the searches meet on the shortest path found so far
+        int meeting = source == target ? source : -1;
+        double shortest = source == target ? 0 : Double.MAX_VALUE;
+        int best = source;
+        int expansions = 0;
+        while(!forward.open.isEmpty() && !backward.open.isEmpty())
         {
-            return get(pos.x(), pos.y());
-        }
+            if(Math.max(forward.open.peekKey(), backward.open.peekKey()) >= shortest
+                    || overBudget(expansions++, started))
+                break;
 
-        public Node get(int x, int y)
-        {
-            if(nodes[x][y] == null)
-                nodes[x][y] = new Node(x, y, end);
-            return nodes[x][y];
+            boolean forwards = forward.open.size() <= backward.open.size();
+            SearchState side = forwards ? forward : backward;
+            SearchState other = forwards ? backward : forward;
+            Coordinate goal = forwards ? end : start;
+            int node = side.open.pop();
+            side.closed[node] = side.generation;
+            if(forwards && forward.hScore[node] < forward.hScore[best])
+                best = node;
+
+            int nodeX = node % width;
+            int nodeY = node / width;
+            // stepping backwards from the node, the step taken forwards enters the node
+            int entered = weights == null ? 1 : weights[node] & 0xFF;
+            for(int x = nodeX - 1; x <= nodeX + 1; x++)
+                for(int y = nodeY - 1; y <= nodeY + 1; y++)
+                {
+                    boolean isSource = x == start.x() && y == start.y();
+                    if(!grid.passable(x, y) && (forwards || !isSource))
+                        continue;
+                    int neighbor = y * width + x;
+                    if(side.closed[neighbor] == side.generation)
+                        continue;
+                    int cost = weights == null ? 1 : weights[neighbor] & 0xFF;
+                    if(!forwards)
+                        cost = cost != 0 || isSource ? entered : 0;
+                    if(cost == 0)
+                        continue;
+                    if(side.visited[neighbor] != side.generation)
+                        side.visit(neighbor, hEstimate(x, y, goal.x(), goal.y(), scale));
+
+                    double g = side.gCost[node] + (x == nodeX || y == nodeY ? STRAIGHT[cost]
+                            : DIAGONAL[cost]);
+                    if(g < side.gCost[neighbor])
+                    {
+                        side.gCost[neighbor] = g;
+                        side.prev[neighbor] = node;
+                        side.open.push(neighbor, g + side.hScore[neighbor], x * height + y);
+                        if(other.visited[neighbor] == other.generation
+                                && g + other.gCost[neighbor] < shortest)
+                        {
+                            shortest = g + other.gCost[neighbor];
+                            meeting = neighbor;
+                        }
+                    }
+                }
         }
+
+        if(meeting < 0)
+            return reconstructPath(forward, best, width);
+        List<Coordinate> path = reconstructPath(forward, meeting, width);
+        for(int step = backward.prev[meeting]; step >= 0; step = backward.prev[step])
+            path.add(new Coordinate(step % width, step / width));
+        return path;
     }
 
-    private class Node extends Coordinate implements Comparable<Node>
+    private void begin(SearchState search, int first, Coordinate from, Coordinate to,
+            double scale, int height)
     {
-        public double gCost;
-        public double hScore;
-        public double fScore;
-        public Node prev;
+        double h = hEstimate(from.x(), from.y(), to.x(), to.y(), scale);
+        search.visit(first, h);
+        search.gCost[first] = 0;
+        search.prev[first] = -1;
+        search.open.push(first, h, from.x() * height + from.y());
+    }
 
-        public Node(int x, int y, Coordinate end)
-        {
-            super(x, y);
-            hScore = hEstimate(this, end);
-            updateGCost(Double.MAX_VALUE);
-        }
+    private static boolean enterable(PassableGrid grid, byte[] weights, int x, int y)
+    {
+        return grid.passable(x, y) && (weights == null || weights[y * grid.width() + x] != 0);
+    }
 
-        public void updateGCost(double gCost)
-        {
-            this.gCost = gCost;
-            fScore = gCost + hScore;
-        }
+    private synchronized boolean reachable(World world, Coordinate start, Coordinate end)
+    {
+        if(!world.insideBounds(end.x(), end.y()))
+            return false;
+        if(components == null || components.world() != world)
+            components = new ConnectedComponents(world);
+        return components.connected(start, end);
+    }
 
-        @Override
-        public int compareTo(Node other)
-        {
-            if(fScore < other.fScore)
-                return -1;
-            else if(fScore > other.fScore)
-                return 1;
-            else if(x() != other.x())
-                return x() - other.x();
-            else
-                return y() - other.y();
-        }
+    private double hEstimate(int x, int y, int endX, int endY, double scale)
+    {
+        return scale * heuristic.estimate(Math.abs(x - endX), Math.abs(y - endY));
+    }
+
+    private List<Coordinate> reconstructPath(SearchState search, int node, int width)
+    {
+        int length = 0;
+        for(int step = node; search.prev[step] >= 0; step = search.prev[step])
+            length++;
+
+        Coordinate[] steps = new Coordinate[length];
+        for(int step = node; search.prev[step] >= 0; step = search.prev[step])
+            steps[--length] = new Coordinate(step % width, step / width);
+        return new ArrayList<Coordinate>(Arrays.asList(steps));
     }
 }
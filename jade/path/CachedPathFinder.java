@@ -0,0 +1,187 @@
+package jade.path;
+
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.LongMap;
+import jade.util.datatype.PackedCoordinate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decorates another {@code PathFinder}, remembering the paths it has calculated for the most
+ * recently used (world, start, end) queries. Besides repeating a remembered query, a query whose
+ * start lies on a remembered complete path to the same end is answered with the rest of that path,
+ * so an actor following a path and asking again each step never searches twice.
+ * <p>
+ * Remembered paths follow {@code World.passableVersion()}. A complete path is kept until one of the
+ * tiles along it changes, so that every path returned can still be walked. Tiles opening elsewhere
+ * might allow a shorter path, which is not looked for; {@code clear()} forgets every path when that
+ * matters. A partial path is forgotten on any change, since it may have made the end reachable.
+ * <p>
+ * The number of queries answered from memory and the number passed on to the decorated {@code
+ * PathFinder} are counted, to help choose a capacity. Paths are copied on the way out, so they may
+ * be modified freely. A {@code CachedPathFinder} is not thread-safe.
+ */
+public class CachedPathFinder extends PathFinder
+{
+    private PathFinder pathFinder;
+    private Entry[] entries;
+    private long clock;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs a new {@code CachedPathFinder} remembering up to 64 paths.
+     * @param pathFinder the {@code PathFinder} whose results are being cached
+     */
+    public CachedPathFinder(PathFinder pathFinder)
+    {
+        this(pathFinder, 64);
+    }
+
+    /**
+     * Constructs a new {@code CachedPathFinder} remembering up to the given number of paths.
+     * @param pathFinder the {@code PathFinder} whose results are being cached
+     * @param capacity the number of paths to remember
+     */
+    public CachedPathFinder(PathFinder pathFinder, int capacity)
+    {
+        Guard.argumentIsNotNull(pathFinder);
+        Guard.argumentIsPositive(capacity);
+
+        this.pathFinder = pathFinder;
+        entries = new Entry[capacity];
+    }
+
+    @Override
+    protected List<Coordinate> calcPath(World world, Coordinate start, Coordinate end)
+    {
+        clock++;
+        int victim = 0;
+        for(int i = 0; i < entries.length; i++)
+        {
+            Entry entry = entries[i];
+            if(entry != null && entry.world == world && entry.end.equals(end))
+            {
+                int step = entry.stepOf(start);
+                if(step != Entry.ABSENT)
+                {
+                    if(refresh(entry))
+                    {
+                        entry.used = clock;
+                        hits++;
+                        return new ArrayList<Coordinate>(entry.path.subList(step + 1, entry.path
+                                .size()));
+                    }
+                    entries[i] = entry = null;
+                }
+            }
+            if(entries[victim] != null && (entry == null || entry.used < entries[victim].used))
+                victim = i;
+        }
+
+        misses++;
+        List<Coordinate> path = pathFinder.calcPath(world, start, end);
+        entries[victim] = new Entry(world, start, end, path, clock);
+        return new ArrayList<Coordinate>(path);
+    }
+
+    /**
+     * Returns the number of queries answered from a remembered path, in full or in part.
+     * @return the number of queries answered from memory
+     */
+    public long hits()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries passed on to the decorated {@code PathFinder}.
+     * @return the number of queries calculated
+     */
+    public long misses()
+    {
+        return misses;
+    }
+
+    /**
+     * Resets the counts of hits and misses to zero.
+     */
+    public void resetCounts()
+    {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Forgets every remembered path.
+     */
+    public void clear()
+    {
+        for(int i = 0; i < entries.length; i++)
+            entries[i] = null;
+    }
+
+    /*
+     * Brings the entry up to date with its world, returning false if a change has made its path
+     * stale.
+     */
+    private boolean refresh(Entry entry)
+    {
+        World world = entry.world;
+        int version = world.passableVersion();
+        if(entry.version == version)
+            return true;
+
+        boolean stale = !entry.complete || version - entry.version >= World.PASSABLE_HISTORY;
+        for(int v = entry.version + 1; v <= version && !stale; v++)
+            stale = entry.steps.containsKey(world.passableChange(v));
+        if(!stale)
+            entry.version = version;
+        return !stale;
+    }
+
+    private static class Entry
+    {
+        public static final int ABSENT = -2;
+
+        public World world;
+        public Coordinate start;
+        public Coordinate end;
+        public List<Coordinate> path;
+        public boolean complete;
+        // the index of each step of a complete path, to find where a start joins it
+        public LongMap<Integer> steps;
+        public int version;
+        public long used;
+
+        public Entry(World world, Coordinate start, Coordinate end, List<Coordinate> path,
+                long used)
+        {
+            this.world = world;
+            this.start = start;
+            this.end = end;
+            this.path = new ArrayList<Coordinate>(path);
+            this.used = used;
+            version = world.passableVersion();
+            complete = !path.isEmpty() && path.get(path.size() - 1).equals(end);
+            steps = new LongMap<Integer>(path.size());
+            if(complete)
+                for(int i = 0; i < path.size(); i++)
+                    steps.put(PackedCoordinate.pack(path.get(i)), i);
+        }
+
+        /*
+         * Returns the index of the step of the path at the given start, -1 if it is the start of
+         * the path itself, or ABSENT if the rest of the path cannot be reused from there.
+         */
+        public int stepOf(Coordinate coord)
+        {
+            if(coord.equals(start))
+                return -1;
+            Integer step = steps.get(PackedCoordinate.pack(coord));
+            return step == null ? ABSENT : step;
+        }
+    }
+}
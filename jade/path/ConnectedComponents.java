@@ -0,0 +1,219 @@
+package jade.path;
+
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.PackedCoordinate;
+import java.util.Arrays;
+
+/**
+ * Labels the connected regions of passable tiles on a {@code World}, with tiles connected to all
+ * eight neighbors as they are for path finding, so that whether one tile can reach another is
+ * answered in constant time. A path finder can check this before searching, rather than exhausting
+ * the whole region around the start to learn that its end is out of reach.
+ * <p>
+ * The labels follow {@code World.passableVersion()}, and are brought up to date by the next query
+ * after a change. Tiles which have become passable only merge the regions they touch, while a tile
+ * which has become impassable might split its region, so every tile is labelled again. Queries are
+ * synchronized, so a {@code ConnectedComponents} may be shared between threads.
+ */
+public class ConnectedComponents
+{
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    private World world;
+    private int width;
+    private int height;
+    private int version;
+    // the label of each tile, with 0 for impassable tiles
+    private int[] labels;
+    // the label each label has been merged into, with each root its own parent
+    private int[] parents;
+    private int count;
+    private int[] stack;
+
+    /**
+     * Constructs a new {@code ConnectedComponents} over the given {@code World}.
+     * @param world the {@code World} whose regions are labelled
+     */
+    public ConnectedComponents(World world)
+    {
+        Guard.argumentIsNotNull(world);
+
+        this.world = world;
+        width = world.width();
+        height = world.height();
+        labels = new int[width * height];
+        parents = new int[16];
+        stack = new int[width * height];
+        label();
+    }
+
+    /**
+     * Returns the {@code World} whose regions are labelled.
+     * @return the {@code World} whose regions are labelled
+     */
+    public World world()
+    {
+        return world;
+    }
+
+    /**
+     * Returns the label of the region containing the tile at (x, y), or 0 if the tile is
+     * impassable. Labels are only comparable until the next change to the {@code World}.
+     * @param x the x value of the tile
+     * @param y the y value of the tile
+     * @return the label of the region containing the tile
+     */
+    public synchronized int component(int x, int y)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+
+        refresh();
+        return find(labels[y * width + x]);
+    }
+
+    /**
+     * Returns true if both tiles are passable and in the same region, so that a path between them
+     * exists.
+     * @param x1 the x value of the first tile
+     * @param y1 the y value of the first tile
+     * @param x2 the x value of the second tile
+     * @param y2 the y value of the second tile
+     * @return true if there is a path between the tiles
+     */
+    public synchronized boolean connected(int x1, int y1, int x2, int y2)
+    {
+        Guard.argumentsInsideBounds(x1, y1, width, height);
+        Guard.argumentsInsideBounds(x2, y2, width, height);
+
+        refresh();
+        int label = find(labels[y1 * width + x1]);
+        return label != 0 && label == find(labels[y2 * width + x2]);
+    }
+
+    /**
+     * Returns true if both tiles are passable and in the same region, so that a path between them
+     * exists.
+     * @param first the first tile
+     * @param second the second tile
+     * @return true if there is a path between the tiles
+     */
+    public final boolean connected(Coordinate first, Coordinate second)
+    {
+        Guard.argumentsAreNotNull(first, second);
+
+        return connected(first.x(), first.y(), second.x(), second.y());
+    }
+
+    private void refresh()
+    {
+        int current = world.passableVersion();
+        if(current == version)
+            return;
+        if(current - version >= World.PASSABLE_HISTORY)
+        {
+            label();
+            return;
+        }
+
+        for(int v = version + 1; v <= current; v++)
+        {
+            long change = world.passableChange(v);
+            if(!world.passableAt(PackedCoordinate.x(change), PackedCoordinate.y(change)))
+            {
+                label();
+                return;
+            }
+        }
+        for(int v = version + 1; v <= current; v++)
+        {
+            long change = world.passableChange(v);
+            open(PackedCoordinate.x(change), PackedCoordinate.y(change));
+        }
+        version = current;
+    }
+
+    /*
+     * Labels every tile from scratch with a flood fill of each region in turn.
+     */
+    private void label()
+    {
+        version = world.passableVersion();
+        Arrays.fill(labels, 0);
+        count = 0;
+        for(int y = 0; y < height; y++)
+            for(int x = 0; x < width; x++)
+                if(labels[y * width + x] == 0 && world.passableAt(x, y))
+                    fill(x, y, newLabel());
+    }
+
+    private void fill(int x, int y, int label)
+    {
+        int size = 0;
+        labels[y * width + x] = label;
+        stack[size++] = y * width + x;
+        while(size > 0)
+        {
+            int node = stack[--size];
+            int nodeX = node % width;
+            int nodeY = node / width;
+            for(int i = 0; i < DX.length; i++)
+            {
+                int nx = nodeX + DX[i];
+                int ny = nodeY + DY[i];
+                if(nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+                int neighbor = ny * width + nx;
+                if(labels[neighbor] == 0 && world.passableAt(nx, ny))
+                {
+                    labels[neighbor] = label;
+                    stack[size++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /*
+     * Gives a tile which has become passable a label, merging the regions of its neighbors.
+     * Neighbors opened by the same batch of changes are still unlabelled, and merge when their own
+     * turn comes.
+     */
+    private void open(int x, int y)
+    {
+        int node = y * width + x;
+        if(labels[node] == 0)
+            labels[node] = newLabel();
+        int root = find(labels[node]);
+        for(int i = 0; i < DX.length; i++)
+        {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if(nx < 0 || ny < 0 || nx >= width || ny >= height)
+                continue;
+            int other = find(labels[ny * width + nx]);
+            if(other != 0 && other != root)
+                parents[other] = root;
+        }
+    }
+
+    private int newLabel()
+    {
+        count++;
+        if(count == parents.length)
+            parents = Arrays.copyOf(parents, parents.length * 2);
+        parents[count] = count;
+        return count;
+    }
+
+    private int find(int label)
+    {
+        while(parents[label] != label)
+        {
+            parents[label] = parents[parents[label]];
+            label = parents[label];
+        }
+        return label;
+    }
+}
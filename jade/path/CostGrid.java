@@ -0,0 +1,135 @@
+package jade.path;
+
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.ColoredChar;
+import java.util.Arrays;
+
+/**
+ * The cost of entering each tile of a {@code World}, for a path finder which supports weighted
+ * terrain. Costs are whole numbers from 1 to 255 stored one byte per tile, where 1 is the cost of
+ * ordinary ground; a road might cost 1 with plain ground costing 2, and a swamp 6. A cost of 0
+ * makes the tile impassable, even if the {@code World} says it is passable, which lets several
+ * {@code CostGrid} over the same {@code World} describe different kinds of movement: deep water
+ * might be impassable to walkers, but cost 1 to swimmers. A step onto a tile costs its cost, times
+ * the square root of two for a diagonal step.
+ */
+public class CostGrid
+{
+    private int width;
+    private int height;
+    private byte[] costs;
+    // the number of tiles with each cost, to keep track of the lowest
+    private int[] counts;
+
+    /**
+     * Constructs a new {@code CostGrid} of the given size, with every tile costing 1.
+     * @param width the width of the {@code World} it describes
+     * @param height the height of the {@code World} it describes
+     */
+    public CostGrid(int width, int height)
+    {
+        Guard.argumentsArePositive(width, height);
+
+        this.width = width;
+        this.height = height;
+        costs = new byte[width * height];
+        Arrays.fill(costs, (byte)1);
+        counts = new int[256];
+        counts[1] = width * height;
+    }
+
+    /**
+     * Constructs a new {@code CostGrid} the size of the given {@code World}, with every tile costing
+     * 1.
+     * @param world the {@code World} it describes
+     */
+    public CostGrid(World world)
+    {
+        this(world.width(), world.height());
+    }
+
+    /**
+     * Returns the width of the {@code World} it describes.
+     * @return the width of the {@code World} it describes
+     */
+    public int width()
+    {
+        return width;
+    }
+
+    /**
+     * Returns the height of the {@code World} it describes.
+     * @return the height of the {@code World} it describes
+     */
+    public int height()
+    {
+        return height;
+    }
+
+    /**
+     * Returns the cost of entering the tile at (x, y), or 0 if it is impassable.
+     * @param x the x value of the tile
+     * @param y the y value of the tile
+     * @return the cost of entering the tile
+     */
+    public int cost(int x, int y)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+
+        return costs[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Sets the cost of entering the tile at (x, y).
+     * @param x the x value of the tile
+     * @param y the y value of the tile
+     * @param cost the cost of entering the tile, from 1 to 255, or 0 to make it impassable
+     */
+    public void setCost(int x, int y, int cost)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+        Guard.argumentInsideBound(cost, 256);
+
+        int index = y * width + x;
+        counts[costs[index] & 0xFF]--;
+        counts[cost]++;
+        costs[index] = (byte)cost;
+    }
+
+    /**
+     * Sets the cost of entering every tile of the {@code World} which currently shows the given
+     * face.
+     * @param world the {@code World} whose tiles are being matched
+     * @param face the face of the tiles being set
+     * @param cost the cost of entering the tiles, from 1 to 255, or 0 to make them impassable
+     */
+    public void setCost(World world, ColoredChar face, int cost)
+    {
+        Guard.argumentsAreNotNull(world, face);
+        Guard.validateArgument(world.width() == width && world.height() == height);
+
+        for(int y = 0; y < height; y++)
+            for(int x = 0; x < width; x++)
+                if(face.equals(world.tileAt(x, y)))
+                    setCost(x, y, cost);
+    }
+
+    /**
+     * Returns the lowest cost of entering a passable tile, which is the factor by which a {@code
+     * Heuristic} is scaled so that it still never exceeds the true cost.
+     * @return the lowest cost of a passable tile
+     */
+    public int lowestCost()
+    {
+        for(int cost = 1; cost < counts.length; cost++)
+            if(counts[cost] > 0)
+                return cost;
+        return 1;
+    }
+
+    byte[] costs()
+    {
+        return costs;
+    }
+}
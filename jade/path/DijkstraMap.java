@@ -0,0 +1,535 @@
+package jade.path;
+
+import jade.core.PassableGrid;
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.Direction;
+import jade.util.datatype.PackedCoordinate;
+import java.util.Arrays;
+
+/**
+ * A distance field over a {@code World}, often called a Dijkstra map. Any number of goals are
+ * given a starting value, usually 0, and every other passable tile holds the number of steps to the
+ * nearest goal, counting diagonal steps the same as straight ones. Any number of actors can then
+ * chase the goals by stepping {@code downhill()}, each in constant time, so a single build per turn
+ * replaces a path search per actor.
+ * <p>
+ * After the first {@code build()}, the map is kept up to date incrementally: adding, removing or
+ * moving a goal, and {@code update()} after tiles change passability, only rescan the tiles whose
+ * value actually changes, unless so much of the map changes that building it again is cheaper.
+ * {@code flee()} derives a map which leads away from the goals without running into dead ends.
+ * <p>
+ * Tiles which are impassable or cannot reach any goal hold {@code UNREACHABLE}. A {@code
+ * DijkstraMap} is not thread-safe, but any number of threads may read it while it is not being
+ * changed.
+ */
+public class DijkstraMap
+{
+    /**
+     * The value of tiles which are impassable or cannot reach any goal.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final Direction[] STEPS = {Direction.NORTH, Direction.NORTHEAST,
+            Direction.EAST, Direction.SOUTHEAST, Direction.SOUTH, Direction.SOUTHWEST,
+            Direction.WEST, Direction.NORTHWEST};
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+    // a raise which clears more than this fraction of the tiles stops and builds the map instead
+    private static final int REBUILD_FRACTION = 8;
+
+    private World world;
+    private PassableGrid grid;
+    private int width;
+    private int height;
+    private int[] field;
+    private int[] goals;
+    private int[] marks;
+    private int mark;
+    private int[] queue;
+    private long[] pending;
+    private boolean built;
+
+    /**
+     * Constructs a new {@code DijkstraMap} over the given {@code World}, with no goals.
+     * @param world the {@code World} the map covers
+     */
+    public DijkstraMap(World world)
+    {
+        Guard.argumentIsNotNull(world);
+
+        this.world = world;
+        width = world.width();
+        height = world.height();
+        field = new int[width * height];
+        goals = new int[width * height];
+        marks = new int[width * height];
+        queue = new int[width * height];
+        pending = new long[64];
+        Arrays.fill(field, UNREACHABLE);
+        Arrays.fill(goals, UNREACHABLE);
+    }
+
+    /**
+     * Returns the {@code World} the map covers.
+     * @return the {@code World} the map covers
+     */
+    public World world()
+    {
+        return world;
+    }
+
+    /**
+     * Makes (x, y) a goal with the value 0.
+     * @param x the x value of the goal
+     * @param y the y value of the goal
+     */
+    public void addGoal(int x, int y)
+    {
+        addGoal(x, y, 0);
+    }
+
+    /**
+     * Makes (x, y) a goal with the given value, or changes the value of an existing goal. Tiles
+     * near goals with lower values are more attractive.
+     * @param x the x value of the goal
+     * @param y the y value of the goal
+     * @param value the value of the goal
+     */
+    public void addGoal(int x, int y, int value)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+        Guard.validateArgument(value != UNREACHABLE);
+
+        int index = y * width + x;
+        int old = goals[index];
+        goals[index] = value;
+        if(built)
+        {
+            if(value < old)
+                lower(index);
+            else if(value > old)
+                raise(index);
+        }
+    }
+
+    /**
+     * Makes (x, y) a goal with the value 0.
+     * @param goal the location of the goal
+     */
+    public final void addGoal(Coordinate goal)
+    {
+        Guard.argumentIsNotNull(goal);
+
+        addGoal(goal.x(), goal.y());
+    }
+
+    /**
+     * Stops (x, y) from being a goal.
+     * @param x the x value of the goal
+     * @param y the y value of the goal
+     */
+    public void removeGoal(int x, int y)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+
+        int index = y * width + x;
+        if(goals[index] == UNREACHABLE)
+            return;
+        goals[index] = UNREACHABLE;
+        if(built)
+            raise(index);
+    }
+
+    /**
+     * Moves a goal from one location to another, keeping its value. This is the usual update when
+     * the actor being chased takes a step. When the goal is the only one nearby, a step changes the
+     * value of much of the map, and the map is built again instead of updated.
+     * @param from the current location of the goal
+     * @param to the new location of the goal
+     */
+    public void moveGoal(Coordinate from, Coordinate to)
+    {
+        Guard.argumentsAreNotNull(from, to);
+        Guard.argumentsInsideBounds(from.x(), from.y(), width, height);
+        Guard.argumentsInsideBounds(to.x(), to.y(), width, height);
+
+        int source = from.y() * width + from.x();
+        int target = to.y() * width + to.x();
+        int value = goals[source];
+        Guard.validateArgument(value != UNREACHABLE);
+
+        if(source == target)
+            return;
+        if(goals[target] != UNREACHABLE)
+        {
+            addGoal(to.x(), to.y(), value);
+            removeGoal(from.x(), from.y());
+            return;
+        }
+
+        // the tiles left by the old goal are raised first, and pick up the new goal while they are
+        // rescanned, so that a move which ends in a rebuild has not spent a lowering beforehand
+        goals[target] = value;
+        goals[source] = UNREACHABLE;
+        if(built)
+        {
+            raise(source);
+            lower(target);
+        }
+    }
+
+    /**
+     * Returns the value of the goal at (x, y), or {@code UNREACHABLE} if (x, y) is not a goal.
+     * @param x the x value of the tile
+     * @param y the y value of the tile
+     * @return the value of the goal at (x, y)
+     */
+    public int goal(int x, int y)
+    {
+        Guard.argumentsInsideBounds(x, y, width, height);
+
+        return goals[y * width + x];
+    }
+
+    /**
+     * Removes every goal, leaving every tile {@code UNREACHABLE}.
+     */
+    public void clearGoals()
+    {
+        Arrays.fill(goals, UNREACHABLE);
+        Arrays.fill(field, UNREACHABLE);
+    }
+
+    /**
+     * Calculates the whole map from scratch.
+     */
+    public void build()
+    {
+        grid = world.passableGrid();
+        Arrays.fill(field, UNREACHABLE);
+        int count = 0;
+        for(int index = 0; index < goals.length; index++)
+            if(goals[index] != UNREACHABLE && grid.passable(index % width, index / width))
+            {
+                field[index] = goals[index];
+                count = addPending(count, index);
+            }
+        propagate(count);
+        built = true;
+    }
+
+    /**
+     * Brings the map up to date with tiles which have changed passability since the last build or
+     * update, rescanning only the tiles affected. If more tiles changed than the {@code World}
+     * remembers, the whole map is built again.
+     */
+    public void update()
+    {
+        if(!built)
+        {
+            build();
+            return;
+        }
+        int version = grid.version();
+        int current = world.passableVersion();
+        if(version == current)
+            return;
+        if(current - version >= World.PASSABLE_HISTORY)
+        {
+            build();
+            return;
+        }
+
+        // tiles which closed are handled first, so that the tiles which opened are lowered from a
+        // map which is otherwise consistent
+        grid = world.passableGrid();
+        for(int v = version + 1; v <= current; v++)
+        {
+            long change = world.passableChange(v);
+            if(!grid.passable(PackedCoordinate.x(change), PackedCoordinate.y(change)))
+                raise(PackedCoordinate.y(change) * width + PackedCoordinate.x(change));
+        }
+        for(int v = version + 1; v <= current; v++)
+        {
+            long change = world.passableChange(v);
+            if(grid.passable(PackedCoordinate.x(change), PackedCoordinate.y(change)))
+                lower(PackedCoordinate.y(change) * width + PackedCoordinate.x(change));
+        }
+    }
+
+    /**
+     * Returns the value of the tile at (x, y), which is the value of the nearest goal plus the
+     * number of steps to it, or {@code UNREACHABLE}.
+     * @param x the x value of the tile
+     * @param y the y value of the tile
+     * @return the value of the tile
+     */
+    public int distance(int x, int y)
+    {
+        if(x < 0 || y < 0 || x >= width || y >= height)
+            return UNREACHABLE;
+        return field[y * width + x];
+    }
+
+    /**
+     * Returns the direction of the neighbor of (x, y) with the lowest value, if it is lower than
+     * the value of (x, y). Otherwise, (x, y) is at the bottom of the map, such as at a goal, and
+     * {@code Direction.ORIGIN} is returned.
+     * @param x the x value of the tile
+     * @param y the y value of the tile
+     * @return the direction downhill from (x, y)
+     */
+    public Direction downhill(int x, int y)
+    {
+        Direction best = Direction.ORIGIN;
+        int lowest = distance(x, y);
+        for(Direction dir : STEPS)
+        {
+            int value = distance(x + dir.dx(), y + dir.dy());
+            if(value < lowest)
+            {
+                lowest = value;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the direction downhill from the given location.
+     * @param pos the location
+     * @return the direction downhill from pos
+     */
+    public final Direction downhill(Coordinate pos)
+    {
+        Guard.argumentIsNotNull(pos);
+
+        return downhill(pos.x(), pos.y());
+    }
+
+    /**
+     * Returns a flee map with the usual coefficient of 1.2.
+     * @return a map leading away from the goals of this one
+     * @see #flee(double)
+     */
+    public DijkstraMap flee()
+    {
+        return flee(1.2);
+    }
+
+    /**
+     * Fills the given map with a flee map with the usual coefficient of 1.2.
+     * @param flee the map being filled
+     * @return flee, now leading away from the goals of this one
+     * @see #flee(double, DijkstraMap)
+     */
+    public DijkstraMap flee(DijkstraMap flee)
+    {
+        return flee(1.2, flee);
+    }
+
+    /**
+     * Returns a map leading away from the goals of this one. Every reachable tile becomes a goal
+     * with its value multiplied by minus the coefficient, and the map is rescanned. Stepping
+     * downhill on the result leads away from the goals, but prefers escape routes over dead ends
+     * which merely happen to be further away. Larger coefficients flee more directly.
+     * @param coefficient how strongly distance from the goals is preferred, greater than 1
+     * @return a map leading away from the goals of this one
+     */
+    public DijkstraMap flee(double coefficient)
+    {
+        Guard.validateArgument(coefficient > 1);
+
+        return flee(coefficient, new DijkstraMap(world));
+    }
+
+    /**
+     * Fills the given map with a map leading away from the goals of this one, as {@code
+     * flee(double)} does, replacing its goals. Reusing the same map every turn avoids allocating a
+     * new one.
+     * @param coefficient how strongly distance from the goals is preferred, greater than 1
+     * @param flee the map being filled, which must cover the same {@code World} and not be this one
+     * @return flee, now leading away from the goals of this one
+     */
+    public DijkstraMap flee(double coefficient, DijkstraMap flee)
+    {
+        Guard.argumentIsNotNull(flee);
+        Guard.validateArgument(coefficient > 1);
+        Guard.validateArgument(flee != this && flee.world == world);
+
+        for(int index = 0; index < field.length; index++)
+            flee.goals[index] = field[index] == UNREACHABLE ? UNREACHABLE : (int)Math.round(
+                    -coefficient * field[index]);
+        flee.build();
+        return flee;
+    }
+
+    /*
+     * Lowers the tiles around index after its value may have dropped: a goal was added or lowered,
+     * or the tile became passable.
+     */
+    private void lower(int index)
+    {
+        int x = index % width;
+        int y = index / width;
+        if(!grid.passable(x, y))
+            return;
+
+        int best = lowest(index, x, y);
+        if(best < field[index])
+        {
+            field[index] = best;
+            propagate(addPending(0, index));
+        }
+    }
+
+    /*
+     * Raises the tiles whose value depended on index after its value may have risen: a goal was
+     * removed or raised, or the tile became impassable. Starting from index, the tiles which lost
+     * the support of a lower neighbor are found in order of value and cleared, and then rescanned
+     * from their remaining neighbors. If the cleared tiles grow past a fraction of the map, the
+     * whole map is built again instead, which is then cheaper.
+     */
+    private void raise(int index)
+    {
+        if(field[index] == UNREACHABLE)
+            return;
+
+        int limit = field.length / REBUILD_FRACTION;
+        nextMark();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = index;
+        marks[index] = mark;
+        while(head < tail)
+        {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            int value = field[cell];
+            if(grid.passable(x, y) && supported(cell, x, y, value))
+                continue;
+
+            field[cell] = UNREACHABLE;
+            for(int dir = 0; dir < 8; dir++)
+            {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if(nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+                int neighbor = ny * width + nx;
+                if(marks[neighbor] != mark && field[neighbor] == value + 1)
+                {
+                    marks[neighbor] = mark;
+                    queue[tail++] = neighbor;
+                }
+            }
+            if(head > limit)
+            {
+                build();
+                return;
+            }
+        }
+
+        int count = 0;
+        for(int i = 0; i < tail; i++)
+        {
+            int cell = queue[i];
+            int x = cell % width;
+            int y = cell / width;
+            if(field[cell] != UNREACHABLE || !grid.passable(x, y))
+                continue;
+            int best = lowest(cell, x, y);
+            if(best != UNREACHABLE)
+            {
+                field[cell] = best;
+                count = addPending(count, cell);
+            }
+        }
+        propagate(count);
+    }
+
+    /*
+     * Returns the lowest value the tile could have given its goal and its neighbors.
+     */
+    private int lowest(int cell, int x, int y)
+    {
+        int best = goals[cell];
+        for(int dir = 0; dir < 8; dir++)
+        {
+            int value = distance(x + DX[dir], y + DY[dir]);
+            if(value != UNREACHABLE && value + 1 < best)
+                best = value + 1;
+        }
+        return best;
+    }
+
+    private boolean supported(int cell, int x, int y, int value)
+    {
+        if(goals[cell] == value)
+            return true;
+        for(int dir = 0; dir < 8; dir++)
+            if(distance(x + DX[dir], y + DY[dir]) == value - 1)
+                return true;
+        return false;
+    }
+
+    private void nextMark()
+    {
+        if(mark == Integer.MAX_VALUE)
+        {
+            Arrays.fill(marks, 0);
+            mark = 0;
+        }
+        mark++;
+    }
+
+    private int addPending(int count, int index)
+    {
+        if(count == pending.length)
+            pending = Arrays.copyOf(pending, count * 2);
+        pending[count] = (long)field[index] << 32 | index;
+        return count + 1;
+    }
+
+    /*
+     * Spreads the values of the pending tiles to their neighbors. Every step costs 1, so this is
+     * Dijkstra without a heap: the pending tiles are sorted by value once, and merged with a FIFO
+     * queue of the tiles reached since, whose values never decrease. A tile only enters the queue
+     * when its value drops, which can happen once, so the queue never holds more than every tile.
+     */
+    private void propagate(int count)
+    {
+        Arrays.sort(pending, 0, count);
+        int next = 0;
+        int head = 0;
+        int tail = 0;
+        while(next < count || head < tail)
+        {
+            int cell;
+            if(head == tail || next < count && (int)(pending[next] >> 32) <= field[queue[head]])
+                cell = (int)pending[next++];
+            else
+                cell = queue[head++];
+
+            int value = field[cell] + 1;
+            int x = cell % width;
+            int y = cell / width;
+            for(int dir = 0; dir < 8; dir++)
+            {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if(!grid.passable(nx, ny))
+                    continue;
+                int neighbor = ny * width + nx;
+                if(value < field[neighbor])
+                {
+                    field[neighbor] = value;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package jade.path;
+
+/**
+ * An estimate of the cost of moving between two cells, used by {@code AStar} to decide which
+ * nodes to expand first. An estimate which never exceeds the true cost keeps the paths found
+ * optimal, while a closer estimate expands fewer nodes. On the 8-connected grid of a {@code World},
+ * where a diagonal step costs the square root of two times a straight step, {@code OCTILE} is the
+ * exact cost across open ground, and so the closest estimate which keeps paths optimal.
+ */
+public enum Heuristic
+{
+    /**
+     * The straight line distance. Never too high, but below the true cost whenever the path is
+     * neither straight nor diagonal, and needs a square root.
+     */
+    EUCLIDEAN
+    {
+        @Override
+        public double estimate(int dx, int dy)
+        {
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    },
+    /**
+     * Diagonal steps until level with the goal, then straight steps. The exact cost across open
+     * ground, without a square root.
+     */
+    OCTILE
+    {
+        @Override
+        public double estimate(int dx, int dy)
+        {
+            return dx > dy ? dx + DIAGONAL_EXTRA * dy : dy + DIAGONAL_EXTRA * dx;
+        }
+    },
+    /**
+     * The number of steps, as if diagonal steps cost the same as straight ones. Never too high,
+     * but further below the true cost than {@code OCTILE}.
+     */
+    CHEBYSHEV
+    {
+        @Override
+        public double estimate(int dx, int dy)
+        {
+            return Math.max(dx, dy);
+        }
+    },
+    /**
+     * The number of straight steps, as if diagonal steps were not allowed. Too high whenever a
+     * diagonal step would help, so paths are found faster, but may not be optimal.
+     */
+    MANHATTAN
+    {
+        @Override
+        public double estimate(int dx, int dy)
+        {
+            return dx + dy;
+        }
+    };
+
+    private static final double DIAGONAL_EXTRA = Math.sqrt(2) - 1;
+
+    /**
+     * Returns the estimated cost of moving the given distances, on ground where every step costs
+     * its length.
+     * @param dx the horizontal distance, which must not be negative
+     * @param dy the vertical distance, which must not be negative
+     * @return the estimated cost of moving the given distances
+     */
+    public abstract double estimate(int dx, int dy);
+}
@@ -0,0 +1,703 @@
+package jade.path;
+
+import jade.core.PassableGrid;
+import jade.core.World;
+import jade.util.Guard;
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.PackedCoordinate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@code PathFinder} which uses hierarchical path finding (HPA*) to answer long queries without
+ * searching the whole map. The {@code World} is divided into square clusters. Wherever two
+ * neighboring clusters share an open stretch of border, an entrance is placed, and the cost of
+ * travelling between every pair of entrances of a cluster is calculated ahead of time. A query
+ * then searches this abstract graph of entrances, which has only a few nodes per cluster, and
+ * refines each leg of the abstract path with a search confined to a single cluster.
+ * <p>
+ * The abstraction is built on the first query, which costs about as much as twenty long {@code
+ * AStar} queries, and is then kept up to date with {@code World.passableChange()}: when a tile
+ * changes, only the cluster holding it is recalculated, along with its neighbor if the tile lies
+ * on their shared border. The extra memory is a few entrances
+ * for each border between clusters, and a table of the costs between the entrances of each
+ * cluster.
+ * <p>
+ * Movement is the same as with {@code AStar}, but the paths found are only near optimal, since they
+ * pass through entrances rather than anywhere along a border. Queries whose start and end are no
+ * further apart than the size of a cluster, queries whose end is impassable, and queries the
+ * abstract graph cannot answer are left to {@code AStar}, so partial paths are exactly the ones
+ * {@code AStar} would return. The budget of the search counts the entrances expanded, and is
+ * passed on to the {@code AStar}; if it runs out during the abstract search, the partial path leads
+ * to the entrance nearest the goal found so far. A {@code HierarchicalPathFinder} may be shared
+ * between threads, but hierarchical queries are answered one at a time.
+ */
+public class HierarchicalPathFinder extends PathFinder
+{
+    private static final double DIAGONAL = Math.sqrt(2);
+    // open stretches of border at least this long get an entrance at each end instead of one
+    private static final int WIDE_ENTRANCE = 6;
+    // a cell lies on at most four borders, and is paired with at most two cells across each
+    private static final int LINKS = 8;
+    private static final int[] NO_CELLS = new int[0];
+
+    private int size;
+    // entrances are numbered consecutively, cluster by cluster, with room for each to grow, and
+    // what the search reads of each is kept in flat arrays indexed by that number
+    private int nodes;
+    private int[] owners;
+    private int[] cells;
+    private int[] links;
+    private double[] costs;
+    private AStar fallback;
+    private PassableGrid grid;
+    private int width;
+    private int clustersX;
+    private int clustersY;
+    private Cluster[] clusters;
+    private SearchState search;
+    private LocalSearch local;
+
+    /**
+     * Constructs a new {@code HierarchicalPathFinder} with clusters of 32 by 32 tiles.
+     */
+    public HierarchicalPathFinder()
+    {
+        this(32);
+    }
+
+    /**
+     * Constructs a new {@code HierarchicalPathFinder} with clusters of the given size. Larger
+     * clusters mean a smaller abstract graph, but more work to refine each leg of a path and to
+     * recalculate a cluster when a tile changes.
+     * @param size the width and height of each cluster
+     */
+    public HierarchicalPathFinder(int size)
+    {
+        Guard.validateArgument(size >= 2);
+
+        this.size = size;
+        fallback = new AStar();
+        search = new SearchState();
+        local = new LocalSearch(size);
+    }
+
+    @Override
+    protected List<Coordinate> calcPath(World world, Coordinate start, Coordinate end)
+    {
+        PassableGrid current = world.passableGrid();
+        copyLimits(fallback);
+        int dx = Math.abs(end.x() - start.x());
+        int dy = Math.abs(end.y() - start.y());
+        if(Math.max(dx, dy) <= size || !current.passable(end.x(), end.y()))
+            return fallback.calcPath(world, start, end);
+
+        List<Coordinate> path = search(current, start.x(), start.y(), end.x(), end.y());
+        return path == null ? fallback.calcPath(world, start, end) : path;
+    }
+
+    private synchronized List<Coordinate> search(PassableGrid current, int startX, int startY,
+            int endX, int endY)
+    {
+        update(current);
+
+        Cluster from = clusterAt(startX, startY);
+        Cluster to = clusterAt(endX, endY);
+        double[] fromCosts = local.costsToEntrances(from, startX, startY);
+        double[] toCosts = local.costsToEntrances(to, endX, endY);
+
+        // the start and goal are numbered after the entrances
+        int first = nodes;
+        int goal = first + 1;
+        search.prepare(goal + 1);
+        double[] gCost = search.gCost;
+        int[] prev = search.prev;
+        int[] closed = search.closed;
+        int generation = search.generation;
+        IndexedHeap open = search.open;
+
+        search.visit(first, octile(startX, startY, endX, endY));
+        gCost[first] = 0;
+        prev[first] = -1;
+        open.push(first, 0, first);
+
+        int best = first;
+        long started = System.nanoTime();
+        int expansions = 0;
+        while(!open.isEmpty())
+        {
+            if(overBudget(expansions++, started))
+                return best == first ? new ArrayList<Coordinate>() : refine(search.prev[best],
+                        startY * width + startX, cells[best]);
+            int node = open.pop();
+            closed[node] = generation;
+            if(node == goal)
+                return refine(prev[node], startY * width + startX, endY * width + endX);
+            if(search.hScore[node] < search.hScore[best])
+                best = node;
+
+            double g = gCost[node];
+            if(node == first)
+            {
+                for(int i = 0; i < fromCosts.length; i++)
+                    relax(node, from.base + i, g, fromCosts[i], endX, endY);
+                continue;
+            }
+
+            Cluster cluster = clusters[owners[node]];
+            int base = cluster.base;
+            int index = node - base;
+            int count = cluster.entrances.length;
+            int row = cluster.costBase + index * cluster.capacity;
+            for(int i = 0; i < count; i++)
+                if(i != index)
+                    relax(node, base + i, g, costs[row + i], endX, endY);
+            for(int i = node * LINKS; i < node * LINKS + LINKS && links[i] >= 0; i++)
+                relax(node, links[i], g, step(cells[node], cells[links[i]]), endX, endY);
+            if(cluster == to)
+                relax(node, goal, g, toCosts[index], endX, endY);
+        }
+
+        return null;
+    }
+
+    private void relax(int node, int next, double g, double cost, int endX, int endY)
+    {
+        if(cost == Double.MAX_VALUE || search.closed[next] == search.generation)
+            return;
+        if(search.visited[next] != search.generation)
+        {
+            int cell = cellOf(next);
+            search.visit(next, cell < 0 ? 0 : octile(cell % width, cell / width, endX, endY));
+        }
+
+        g += cost;
+        if(g < search.gCost[next])
+        {
+            search.gCost[next] = g;
+            search.prev[next] = node;
+            search.open.push(next, g + search.hScore[next], next);
+        }
+    }
+
+    private int cellOf(int node)
+    {
+        return node < nodes ? cells[node] : -1;
+    }
+
+    /*
+     * Refines the abstract path which reaches the given cell from the given entrance into a path
+     * of cells.
+     */
+    private List<Coordinate> refine(int last, int startCell, int lastCell)
+    {
+        List<Integer> waypoints = new ArrayList<Integer>();
+        waypoints.add(lastCell);
+        for(int node = last; search.prev[node] >= 0; node = search.prev[node])
+            waypoints.add(cellOf(node));
+        waypoints.add(startCell);
+        Collections.reverse(waypoints);
+
+        List<Coordinate> path = new ArrayList<Coordinate>();
+        for(int i = 1; i < waypoints.size(); i++)
+        {
+            int from = waypoints.get(i - 1);
+            int to = waypoints.get(i);
+            if(from == to)
+                continue;
+            int toX = to % width;
+            int toY = to / width;
+            Cluster cluster = clusterAt(toX, toY);
+            if(cluster == clusterAt(from % width, from / width))
+                local.appendPath(cluster, from % width, from / width, toX, toY, path);
+            else
+                path.add(new Coordinate(toX, toY));
+        }
+        return path;
+    }
+
+    private double step(int from, int to)
+    {
+        return from % width == to % width || from / width == to / width ? 1 : DIAGONAL;
+    }
+
+    private static double octile(int x, int y, int endX, int endY)
+    {
+        int dx = Math.abs(x - endX);
+        int dy = Math.abs(y - endY);
+        return Math.max(dx, dy) + (DIAGONAL - 1) * Math.min(dx, dy);
+    }
+
+    private Cluster clusterAt(int x, int y)
+    {
+        return clusters[(y / size) * clustersX + x / size];
+    }
+
+    private void update(PassableGrid current)
+    {
+        if(grid == current)
+            return;
+        World world = current.world();
+        if(grid == null || grid.world() != world || grid.width() != current.width()
+                || grid.height() != current.height()
+                || world.passableVersion() - grid.version() >= World.PASSABLE_HISTORY)
+        {
+            build(current);
+            return;
+        }
+
+        int version = grid.version();
+        grid = current;
+        for(int v = version + 1; v <= current.version(); v++)
+        {
+            long change = world.passableChange(v);
+            int x = PackedCoordinate.x(change);
+            int y = PackedCoordinate.y(change);
+            Cluster cluster = clusterAt(x, y);
+            int cx = x / size;
+            int cy = y / size;
+            cluster.dirty = true;
+            if(x == cluster.right && cx + 1 < clustersX)
+                cluster.eastDirty = true;
+            if(x == cluster.left && cx > 0)
+                clusters[cluster.index - 1].eastDirty = true;
+            if(y == cluster.bottom && cy + 1 < clustersY)
+                cluster.southDirty = true;
+            if(y == cluster.top && cy > 0)
+                clusters[cluster.index - clustersX].southDirty = true;
+        }
+
+        for(Cluster cluster : clusters)
+        {
+            if(cluster.eastDirty)
+            {
+                scanEast(cluster);
+                cluster.dirty = true;
+                clusters[cluster.index + 1].dirty = true;
+            }
+            if(cluster.southDirty)
+            {
+                scanSouth(cluster);
+                cluster.dirty = true;
+                clusters[cluster.index + clustersX].dirty = true;
+            }
+        }
+
+        // gathering may reorder the entrances of a cluster, so its neighbors relink to them too,
+        // and if a cluster outgrows its numbers, every cluster is numbered and linked again
+        boolean outgrown = false;
+        for(Cluster cluster : clusters)
+            if(cluster.dirty)
+            {
+                gather(cluster);
+                outgrown |= cluster.entrances.length > cluster.capacity;
+            }
+        if(outgrown)
+            number();
+        for(Cluster cluster : clusters)
+            if(outgrown || cluster.relinked || neighborRelinked(cluster))
+                link(cluster);
+        for(Cluster cluster : clusters)
+            cluster.relinked = false;
+    }
+
+    private boolean neighborRelinked(Cluster cluster)
+    {
+        int cx = cluster.index % clustersX;
+        int cy = cluster.index / clustersX;
+        return (cx > 0 && clusters[cluster.index - 1].relinked)
+                || (cx + 1 < clustersX && clusters[cluster.index + 1].relinked)
+                || (cy > 0 && clusters[cluster.index - clustersX].relinked)
+                || (cy + 1 < clustersY && clusters[cluster.index + clustersX].relinked);
+    }
+
+    private void build(PassableGrid current)
+    {
+        grid = current;
+        width = current.width();
+        int height = current.height();
+        clustersX = (width + size - 1) / size;
+        clustersY = (height + size - 1) / size;
+        clusters = new Cluster[clustersX * clustersY];
+        for(int cy = 0; cy < clustersY; cy++)
+            for(int cx = 0; cx < clustersX; cx++)
+                clusters[cy * clustersX + cx] = new Cluster(cy * clustersX + cx, cx * size, cy
+                        * size, Math.min((cx + 1) * size, width) - 1, Math.min((cy + 1) * size,
+                        height) - 1);
+
+        for(Cluster cluster : clusters)
+        {
+            if(cluster.index % clustersX + 1 < clustersX)
+                scanEast(cluster);
+            if(cluster.index / clustersX + 1 < clustersY)
+                scanSouth(cluster);
+        }
+        for(Cluster cluster : clusters)
+            gather(cluster);
+        number();
+        for(Cluster cluster : clusters)
+        {
+            link(cluster);
+            cluster.relinked = false;
+        }
+    }
+
+    /*
+     * Numbers the entrances of every cluster consecutively, leaving a few spare numbers after each
+     * cluster so that it can gain entrances without renumbering the others.
+     */
+    private void number()
+    {
+        nodes = 0;
+        int costCount = 0;
+        for(Cluster cluster : clusters)
+        {
+            cluster.base = nodes;
+            cluster.capacity = cluster.entrances.length + 4;
+            cluster.costBase = costCount;
+            nodes += cluster.capacity;
+            costCount += cluster.capacity * cluster.capacity;
+        }
+        owners = new int[nodes];
+        cells = new int[nodes];
+        links = new int[nodes * LINKS];
+        costs = new double[costCount];
+        for(Cluster cluster : clusters)
+            Arrays.fill(owners, cluster.base, cluster.base + cluster.capacity, cluster.index);
+    }
+
+    private void scanEast(Cluster cluster)
+    {
+        cluster.east = scanBorder(cluster.right, cluster.top, 0, 1, cluster.bottom - cluster.top
+                + 1, 1, 0);
+        cluster.eastDirty = false;
+    }
+
+    private void scanSouth(Cluster cluster)
+    {
+        cluster.south = scanBorder(cluster.left, cluster.bottom, 1, 0, cluster.right
+                - cluster.left + 1, 0, 1);
+        cluster.southDirty = false;
+    }
+
+    /*
+     * Finds the transitions across a border, as pairs of cells, the first inside the cluster and
+     * the second across the border. The border is walked from (x, y) in steps of (alongX, alongY),
+     * and the cell across from each is offset by (acrossX, acrossY). Each open stretch of border
+     * gets a transition at its middle, or at both ends if it is wide. Where a cell only reaches
+     * across the border diagonally, that diagonal step is a transition too.
+     */
+    private int[] scanBorder(int x, int y, int alongX, int alongY, int length, int acrossX,
+            int acrossY)
+    {
+        boolean[] open = new boolean[length];
+        for(int k = 0; k < length; k++)
+            open[k] = grid.passable(x + k * alongX, y + k * alongY)
+                    && grid.passable(x + k * alongX + acrossX, y + k * alongY + acrossY);
+
+        int[] pairs = new int[8];
+        int count = 0;
+        for(int k = 0; k < length; k++)
+        {
+            int ax = x + k * alongX;
+            int ay = y + k * alongY;
+            if(open[k])
+            {
+                int end = k;
+                while(end + 1 < length && open[end + 1])
+                    end++;
+                if(end - k + 1 >= WIDE_ENTRANCE)
+                {
+                    pairs = add(pairs, count, x, y, alongX, alongY, acrossX, acrossY, k, k);
+                    pairs = add(pairs, count + 2, x, y, alongX, alongY, acrossX, acrossY, end,
+                            end);
+                    count += 4;
+                }
+                else
+                {
+                    int mid = (k + end) / 2;
+                    pairs = add(pairs, count, x, y, alongX, alongY, acrossX, acrossY, mid, mid);
+                    count += 2;
+                }
+                k = end;
+            }
+            else if(grid.passable(ax, ay))
+                for(int d = -1; d <= 1; d += 2)
+                    if(k + d >= 0 && k + d < length && !open[k + d]
+                            && grid.passable(ax + d * alongX + acrossX, ay + d * alongY + acrossY))
+                    {
+                        pairs = add(pairs, count, x, y, alongX, alongY, acrossX, acrossY, k, k + d);
+                        count += 2;
+                    }
+        }
+
+        int[] result = new int[count];
+        System.arraycopy(pairs, 0, result, 0, count);
+        return result;
+    }
+
+    private int[] add(int[] pairs, int count, int x, int y, int alongX, int alongY, int acrossX,
+            int acrossY, int inside, int across)
+    {
+        if(count + 2 > pairs.length)
+        {
+            int[] grown = new int[pairs.length * 2];
+            System.arraycopy(pairs, 0, grown, 0, count);
+            pairs = grown;
+        }
+        pairs[count] = (y + inside * alongY) * width + x + inside * alongX;
+        pairs[count + 1] = (y + across * alongY + acrossY) * width + x + across * alongX + acrossX;
+        return pairs;
+    }
+
+    /*
+     * Returns the four borders of a cluster: its own east and south borders, on which it holds the
+     * first cell of each pair, then those its west and north neighbors own, on which it holds the
+     * second.
+     */
+    private int[][] borders(Cluster cluster)
+    {
+        int[] west = cluster.index % clustersX > 0 ? clusters[cluster.index - 1].east : NO_CELLS;
+        int[] north = cluster.index >= clustersX ? clusters[cluster.index - clustersX].south
+                : NO_CELLS;
+        return new int[][] {cluster.east, cluster.south, west, north};
+    }
+
+    /*
+     * Collects the entrances of a cluster from its borders, and calculates the cost between every
+     * pair of them.
+     */
+    private void gather(Cluster cluster)
+    {
+        int[][] borders = borders(cluster);
+        // each entrance is a different cell around the edge of the cluster
+        int[] entrances = new int[4 * size];
+        int count = 0;
+        for(int b = 0; b < borders.length; b++)
+            for(int p = b / 2; p < borders[b].length; p += 2)
+            {
+                int cell = borders[b][p];
+                boolean known = false;
+                for(int i = 0; i < count && !known; i++)
+                    known = entrances[i] == cell;
+                if(!known)
+                    entrances[count++] = cell;
+            }
+        cluster.entrances = Arrays.copyOf(entrances, count);
+
+        // costs are the same both ways, so each search only looks for the entrances after it
+        cluster.costs = new double[count * count];
+        for(int i = 0; i < count - 1; i++)
+        {
+            int cell = entrances[i];
+            double[] costs = local.costsToEntrances(cluster, cell % width, cell / width, i + 1);
+            for(int j = i + 1; j < count; j++)
+            {
+                cluster.costs[i * count + j] = costs[j];
+                cluster.costs[j * count + i] = costs[j];
+            }
+        }
+        cluster.dirty = false;
+        cluster.relinked = true;
+    }
+
+    /*
+     * Copies the entrances of a cluster and the costs between them to where the search reads
+     * them, and finds the entrances of neighboring clusters across the border from each.
+     */
+    private void link(Cluster cluster)
+    {
+        int[][] borders = borders(cluster);
+        int count = cluster.entrances.length;
+        for(int i = 0; i < count; i++)
+        {
+            int node = cluster.base + i;
+            int cell = cluster.entrances[i];
+            cells[node] = cell;
+            System.arraycopy(cluster.costs, i * count, costs, cluster.costBase + i
+                    * cluster.capacity, count);
+
+            int linked = node * LINKS;
+            for(int b = 0; b < borders.length; b++)
+                for(int p = b / 2; p < borders[b].length; p += 2)
+                    if(borders[b][p] == cell)
+                    {
+                        int across = borders[b][p + 1 - 2 * (b / 2)];
+                        Cluster neighbor = clusterAt(across % width, across / width);
+                        links[linked++] = neighbor.base + neighbor.indexOf(across);
+                    }
+            if(linked < node * LINKS + LINKS)
+                links[linked] = -1;
+        }
+    }
+
+    private static class Cluster
+    {
+        public int index;
+        // the number of the first entrance, and how many numbers are set aside for entrances
+        public int base;
+        public int capacity;
+        public int costBase;
+        public int left;
+        public int top;
+        public int right;
+        public int bottom;
+        // transitions across the east and south borders, as pairs of cells
+        public int[] east;
+        public int[] south;
+        public int[] entrances;
+        // the costs between entrances
+        public double[] costs;
+        public boolean dirty;
+        public boolean eastDirty;
+        public boolean southDirty;
+        public boolean relinked;
+
+        public Cluster(int index, int left, int top, int right, int bottom)
+        {
+            this.index = index;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+            east = NO_CELLS;
+            south = NO_CELLS;
+        }
+
+        public int indexOf(int cell)
+        {
+            for(int i = 0; i < entrances.length; i++)
+                if(entrances[i] == cell)
+                    return i;
+            return -1;
+        }
+    }
+    /*
+     * A search confined to a single cluster, with cells identified by their offset from the top
+     * left corner of the cluster.
+     */
+    private class LocalSearch
+    {
+        private int span;
+        private double[] cost;
+        private int[] prev;
+        private int[] seen;
+        private int[] wanted;
+        private int generation;
+        private IndexedHeap open;
+        private Cluster cluster;
+
+        public LocalSearch(int size)
+        {
+            span = size;
+            cost = new double[size * size];
+            prev = new int[size * size];
+            seen = new int[size * size];
+            wanted = new int[size * size];
+            open = new IndexedHeap(size * size);
+        }
+
+        public double[] costsToEntrances(Cluster cluster, int x, int y)
+        {
+            return costsToEntrances(cluster, x, y, 0);
+        }
+
+        /*
+         * Runs Dijkstra from (x, y) until every entrance of the cluster from the given index on is
+         * reached, and returns the cost of reaching each of them.
+         */
+        public double[] costsToEntrances(Cluster cluster, int x, int y, int from)
+        {
+            begin(cluster);
+            int[] entrances = cluster.entrances;
+            for(int i = from; i < entrances.length; i++)
+                wanted[id(entrances[i] % width, entrances[i] / width)] = generation;
+            run(x, y, -1, -1, entrances.length - from);
+
+            double[] costs = new double[entrances.length];
+            for(int i = from; i < costs.length; i++)
+            {
+                int id = id(entrances[i] % width, entrances[i] / width);
+                costs[i] = seen[id] == generation ? cost[id] : Double.MAX_VALUE;
+            }
+            return costs;
+        }
+
+        /*
+         * Runs A* from (x, y) to the end, and appends the steps taken to the path.
+         */
+        public void appendPath(Cluster cluster, int x, int y, int endX, int endY,
+                List<Coordinate> path)
+        {
+            begin(cluster);
+            run(x, y, endX, endY, 0);
+
+            int mark = path.size();
+            for(int id = id(endX, endY); prev[id] >= 0; id = prev[id])
+                path.add(new Coordinate(cluster.left + id % span, cluster.top + id / span));
+            Collections.reverse(path.subList(mark, path.size()));
+        }
+
+        private int id(int x, int y)
+        {
+            return (y - cluster.top) * span + x - cluster.left;
+        }
+
+        private void begin(Cluster cluster)
+        {
+            this.cluster = cluster;
+            if(++generation == Integer.MAX_VALUE)
+            {
+                Arrays.fill(seen, 0);
+                Arrays.fill(wanted, 0);
+                generation = 1;
+            }
+            open.clear();
+        }
+
+        private void run(int x, int y, int endX, int endY, int remaining)
+        {
+            boolean targeted = endX >= 0;
+            int first = id(x, y);
+            int last = targeted ? id(endX, endY) : -1;
+            seen[first] = generation;
+            cost[first] = 0;
+            prev[first] = -1;
+            open.push(first, 0, first);
+
+            while(!open.isEmpty())
+            {
+                int node = open.pop();
+                if(node == last || (wanted[node] == generation && --remaining == 0))
+                    return;
+
+                int nodeX = cluster.left + node % span;
+                int nodeY = cluster.top + node / span;
+                int maxX = Math.min(nodeX + 1, cluster.right);
+                int maxY = Math.min(nodeY + 1, cluster.bottom);
+                for(int nx = Math.max(nodeX - 1, cluster.left); nx <= maxX; nx++)
+                    for(int ny = Math.max(nodeY - 1, cluster.top); ny <= maxY; ny++)
+                    {
+                        if(!grid.passable(nx, ny))
+                            continue;
+                        int neighbor = id(nx, ny);
+                        if(seen[neighbor] != generation)
+                        {
+                            seen[neighbor] = generation;
+                            cost[neighbor] = Double.MAX_VALUE;
+                        }
+                        double g = cost[node] + (nx == nodeX || ny == nodeY ? 1 : DIAGONAL);
+                        if(g < cost[neighbor])
+                        {
+                            cost[neighbor] = g;
+                            prev[neighbor] = node;
+                            open.push(neighbor, targeted ? g + octile(nx, ny, endX, endY) : g,
+                                    neighbor);
+                        }
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package jade.path;
+
+import java.util.Arrays;
+
+/**
+ * A d-ary min-heap of int ids, ordered by a double key and then by an int tie breaker. The heap
+ * knows where each id is stored, so the key of an id already in the heap can be lowered in place
+ * instead of removing and adding it again. Ids range from 0 up to the capacity. Once grown, the
+ * storage is kept, so a heap reused between searches does not allocate.
+ */
+class IndexedHeap
+{
+    private static final int ARITY = 4;
+
+    private int[] ids;
+    private double[] keys;
+    private int[] ties;
+    private int[] slots;
+    private int size;
+
+    /**
+     * Constructs a new empty {@code IndexedHeap} for ids from 0 up to the given capacity.
+     * @param capacity the number of possible ids
+     */
+    public IndexedHeap(int capacity)
+    {
+        ids = new int[16];
+        keys = new double[16];
+        ties = new int[16];
+        slots = new int[0];
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Makes room for ids from 0 up to the given capacity.
+     * @param capacity the number of possible ids
+     */
+    public void ensureCapacity(int capacity)
+    {
+        if(capacity <= slots.length)
+            return;
+        int old = slots.length;
+        slots = Arrays.copyOf(slots, capacity);
+        Arrays.fill(slots, old, capacity, -1);
+    }
+
+    /**
+     * Returns true if the heap holds no ids.
+     * @return true if the heap is empty
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of ids in the heap.
+     * @return the number of ids in the heap
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if the id is in the heap.
+     * @param id the id being queried
+     * @return true if the id is in the heap
+     */
+    public boolean contains(int id)
+    {
+        return slots[id] >= 0;
+    }
+
+    /**
+     * Adds the id with the given key, or if it is already in the heap, lowers its key. The key of
+     * an id already in the heap must not be raised.
+     * @param id the id being added
+     * @param key the key of the id
+     * @param tie orders ids with equal keys, lowest first
+     */
+    public void push(int id, double key, int tie)
+    {
+        int slot = slots[id];
+        if(slot < 0)
+        {
+            if(size == ids.length)
+            {
+                ids = Arrays.copyOf(ids, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+                ties = Arrays.copyOf(ties, size * 2);
+            }
+            slot = size++;
+        }
+        siftUp(slot, id, key, tie);
+    }
+
+    /**
+     * Returns the key of the first id in the heap.
+     * @return the key of the first id in the heap
+     */
+    public double peekKey()
+    {
+        return keys[0];
+    }
+
+    /**
+     * Removes and returns the id with the lowest key.
+     * @return the id with the lowest key
+     */
+    public int pop()
+    {
+        int first = ids[0];
+        slots[first] = -1;
+        size--;
+        if(size > 0)
+            siftDown(0, ids[size], keys[size], ties[size]);
+        return first;
+    }
+
+    /**
+     * Removes every id from the heap.
+     */
+    public void clear()
+    {
+        for(int i = 0; i < size; i++)
+            slots[ids[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int slot, int id, double key, int tie)
+    {
+        while(slot > 0)
+        {
+            int parent = (slot - 1) / ARITY;
+            if(!less(key, tie, keys[parent], ties[parent]))
+                break;
+            place(slot, ids[parent], keys[parent], ties[parent]);
+            slot = parent;
+        }
+        place(slot, id, key, tie);
+    }
+
+    private void siftDown(int slot, int id, double key, int tie)
+    {
+        while(true)
+        {
+            int child = slot * ARITY + 1;
+            if(child >= size)
+                break;
+            int best = child;
+            int last = Math.min(child + ARITY, size);
+            for(int i = child + 1; i < last; i++)
+                if(less(keys[i], ties[i], keys[best], ties[best]))
+                    best = i;
+            if(!less(keys[best], ties[best], key, tie))
+                break;
+            place(slot, ids[best], keys[best], ties[best]);
+            slot = best;
+        }
+        place(slot, id, key, tie);
+    }
+
+    private void place(int slot, int id, double key, int tie)
+    {
+        ids[slot] = id;
+        keys[slot] = key;
+        ties[slot] = tie;
+        slots[id] = slot;
+    }
+
+    private static boolean less(double key, int tie, double otherKey, int otherTie)
+    {
+        return key < otherKey || (key == otherKey && tie < otherTie);
+    }
+}
@@ -0,0 +1,378 @@
+package jade.path;
+
+import jade.core.PassableGrid;
+import jade.core.World;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@code PathFinder} which uses Jump Point Search, an A* variant for uniform cost grids. Rather
+ * than adding every neighbor of a node to the open list, JPS follows each direction in a straight
+ * line until it reaches a cell where an optimal path could turn, and only adds that cell. Among
+ * the many equally short paths across open ground, only one is ever explored, so large open areas
+ * cost a handful of heap operations instead of one per cell.
+ * <p>
+ * This implementation is JPS+: for every cell and direction, the distance to the next jump point
+ * or wall is calculated ahead of time, so following a direction is a single lookup. The distances
+ * are calculated for a {@code PassableGrid}, and recalculated whenever the layout of the {@code
+ * World} changes, which costs about as much as a long {@code AStar} query. {@code JumpPointSearch}
+ * therefore suits maps whose layout rarely changes between queries.
+ * <p>
+ * Movement is the same as with {@code AStar}: a step to any of the 8 neighbors costs its Cartesian
+ * length, and diagonal steps may pass between two walls. The paths found are optimal, and so have
+ * the same length as those of {@code AStar}, though where several paths are equally short, a
+ * different one may be returned.
+ * <p>
+ * If the goal is impassable or cannot be reached, or the budget of the search runs out, the
+ * partial path leads to the cell nearest the goal which the search has looked along. Besides the
+ * jump points, this takes in every cell on the straight and diagonal lines out of each jump point
+ * as far as the table reaches, so it is usually, though not always, the cell {@code AStar} would
+ * end its partial path on. Cells which only a straight line off a diagonal one reaches are not
+ * looked along. The budget counts jump points expanded rather than cells.
+ */
+public class JumpPointSearch extends PathFinder
+{
+    private static final double DIAGONAL = Math.sqrt(2);
+
+    // the 8 directions, straight ones first, and the direction of each (dx, dy)
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int[] DIRECTIONS = {7, 3, 5, 1, -1, 0, 6, 2, 4};
+
+    private ThreadLocal<SearchState> searches;
+    private volatile JumpTable table;
+
+    /**
+     * Constructs a new {@code JumpPointSearch}.
+     */
+    public JumpPointSearch()
+    {
+        searches = SearchState.perThread();
+    }
+
+    @Override
+    protected List<Coordinate> calcPath(World world, Coordinate start, Coordinate end)
+    {
+        PassableGrid grid = world.passableGrid();
+        JumpTable jumps = table;
+        if(jumps == null || jumps.grid != grid)
+        {
+            jumps = new JumpTable(grid);
+            table = jumps;
+        }
+
+        return search(jumps, start.x(), start.y(), end.x(), end.y());
+    }
+
+    private List<Coordinate> search(JumpTable jumps, int startX, int startY, int endX, int endY)
+    {
+        PassableGrid grid = jumps.grid;
+        int width = grid.width();
+        SearchState search = searches.get();
+        search.prepare(width * grid.height());
+        double[] gCost = search.gCost;
+        int[] prev = search.prev;
+        // closed nodes are marked with the negated generation, to touch one less array per node
+        int[] visited = search.visited;
+        int generation = search.generation;
+        IndexedHeap open = search.open;
+
+        int first = startY * width + startX;
+        int goal = endY * width + endX;
+        visited[first] = generation;
+        gCost[first] = 0;
+        prev[first] = -1;
+        open.push(first, 0, first);
+
+        // the nearest cell to the goal seen so far, as a jump point and the steps beyond it
+        int best = first;
+        int bestDir = 0;
+        int bestSteps = 0;
+        long bestDistance = Long.MAX_VALUE;
+        long started = System.nanoTime();
+        int expansions = 0;
+        while(!open.isEmpty() && !overBudget(expansions++, started))
+        {
+            int node = open.pop();
+            visited[node] = -generation;
+            if(node == goal)
+                return reconstructPath(prev, node, width);
+
+            int x = node % width;
+            int y = node / width;
+            for(int dir = 0; dir < 8; dir++)
+            {
+                int steps = nearestStep(x, y, dir, jumps.reach(node, dir), endX, endY);
+                long distance = distance(x + DX[dir] * steps, y + DY[dir] * steps, endX, endY);
+                if(distance < bestDistance)
+                {
+                    best = node;
+                    bestDir = dir;
+                    bestSteps = steps;
+                    bestDistance = distance;
+                }
+            }
+
+            int directions = directions(grid, x, y, prev[node], width);
+            for(int dir = 0; dir < 8; dir++)
+            {
+                if((directions & (1 << dir)) == 0)
+                    continue;
+                int steps = jumps.successor(node, x, y, dir, endX, endY);
+                if(steps == 0)
+                    continue;
+                int jumpX = x + DX[dir] * steps;
+                int jumpY = y + DY[dir] * steps;
+                int jump = jumpY * width + jumpX;
+                int mark = visited[jump];
+                if(mark == -generation)
+                    continue;
+                if(mark != generation)
+                {
+                    visited[jump] = generation;
+                    gCost[jump] = Double.MAX_VALUE;
+                }
+
+                double g = gCost[node] + (dir < 4 ? steps : steps * DIAGONAL);
+                if(g < gCost[jump])
+                {
+                    gCost[jump] = g;
+                    prev[jump] = node;
+                    open.push(jump, g + octile(jumpX, jumpY, endX, endY), jump);
+                }
+            }
+        }
+
+        List<Coordinate> path = reconstructPath(prev, best, width);
+        for(int step = 1; step <= bestSteps; step++)
+            path.add(new Coordinate(best % width + DX[bestDir] * step, best / width + DY[bestDir]
+                    * step));
+        return path;
+    }
+
+    /*
+     * Returns the number of steps, up to the given reach, from (x, y) in the given direction to
+     * the cell on that line nearest the goal.
+     */
+    private static int nearestStep(int x, int y, int dir, int reach, int endX, int endY)
+    {
+        int dx = DX[dir];
+        int dy = DY[dir];
+        // the nearest point of the line is at (goal - start) . d / |d|^2, between two cells
+        int steps = Math.max(0, Math.min(reach, ((endX - x) * dx + (endY - y) * dy)
+                / (dx * dx + dy * dy)));
+        if(steps < reach
+                && distance(x + dx * (steps + 1), y + dy * (steps + 1), endX, endY) < distance(x
+                        + dx * steps, y + dy * steps, endX, endY))
+            steps++;
+        return steps;
+    }
+
+    private static long distance(int x, int y, int endX, int endY)
+    {
+        long dx = x - endX;
+        long dy = y - endY;
+        return dx * dx + dy * dy;
+    }
+
+    private static int direction(int dx, int dy)
+    {
+        return DIRECTIONS[(dy + 1) * 3 + dx + 1];
+    }
+
+    /*
+     * Returns a mask of the directions worth following from (x, y) when it was reached from the
+     * given parent: the natural neighbors, which continue the direction of travel, and the forced
+     * neighbors, which only an optimal path through (x, y) can reach because of an adjacent wall.
+     */
+    private static int directions(PassableGrid grid, int x, int y, int parent, int width)
+    {
+        if(parent < 0)
+            return 0xFF;
+
+        int dx = Integer.signum(x - parent % width);
+        int dy = Integer.signum(y - parent / width);
+        int mask = 0;
+        if(dx != 0 && dy != 0)
+        {
+            mask |= 1 << direction(dx, 0);
+            mask |= 1 << direction(0, dy);
+            mask |= 1 << direction(dx, dy);
+            if(!grid.passable(x - dx, y))
+                mask |= 1 << direction(-dx, dy);
+            if(!grid.passable(x, y - dy))
+                mask |= 1 << direction(dx, -dy);
+        }
+        else if(dx != 0)
+        {
+            mask |= 1 << direction(dx, 0);
+            if(!grid.passable(x, y + 1))
+                mask |= 1 << direction(dx, 1);
+            if(!grid.passable(x, y - 1))
+                mask |= 1 << direction(dx, -1);
+        }
+        else
+        {
+            mask |= 1 << direction(0, dy);
+            if(!grid.passable(x + 1, y))
+                mask |= 1 << direction(1, dy);
+            if(!grid.passable(x - 1, y))
+                mask |= 1 << direction(-1, dy);
+        }
+        return mask;
+    }
+
+    private static double octile(int x1, int y1, int x2, int y2)
+    {
+        int dx = Math.abs(x1 - x2);
+        int dy = Math.abs(y1 - y2);
+        return Math.max(dx, dy) + (DIAGONAL - 1) * Math.min(dx, dy);
+    }
+
+    /*
+     * Jump points are joined by straight or diagonal lines, so the path is filled in by stepping
+     * from each jump point towards the next.
+     */
+    private List<Coordinate> reconstructPath(int[] prev, int node, int width)
+    {
+        List<Coordinate> path = new ArrayList<Coordinate>();
+        for(int step = node; prev[step] >= 0; step = prev[step])
+        {
+            int x = step % width;
+            int y = step / width;
+            int fromX = prev[step] % width;
+            int fromY = prev[step] / width;
+            int dx = Integer.signum(fromX - x);
+            int dy = Integer.signum(fromY - y);
+            while(x != fromX || y != fromY)
+            {
+                path.add(new Coordinate(x, y));
+                x += dx;
+                y += dy;
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /*
+     * The jump distances of a PassableGrid. For each direction and cell, a positive distance is the
+     * number of steps to the next jump point, and otherwise minus the number of steps which can be
+     * taken before a wall. Runs too long for a short are cut into pieces by treating the furthest
+     * reachable cell as a jump point, which only adds a node to the search.
+     */
+    private static class JumpTable
+    {
+        public PassableGrid grid;
+        private int width;
+        private int height;
+        // the 8 distances of each cell are kept together, since a node reads all of them
+        private short[] distances;
+
+        public JumpTable(PassableGrid grid)
+        {
+            this.grid = grid;
+            width = grid.width();
+            height = grid.height();
+            distances = new short[8 * width * height];
+            // diagonal distances depend on the straight ones, which come first
+            for(int dir = 0; dir < 8; dir++)
+                fill(dir);
+        }
+
+        /*
+         * Returns the number of steps which can be taken from a cell in the given direction before
+         * the next jump point or wall, every one of which is reachable from the cell.
+         */
+        public int reach(int node, int dir)
+        {
+            return Math.abs(distances[node << 3 | dir]);
+        }
+
+        /*
+         * Returns the number of steps from (x, y) in the given direction to its successor, taking
+         * the goal into account, or 0 if there is none.
+         */
+        public int successor(int node, int x, int y, int dir, int endX, int endY)
+        {
+            int distance = distances[node << 3 | dir];
+            int reach = Math.abs(distance);
+            int dx = DX[dir];
+            int dy = DY[dir];
+            int goalX = (endX - x) * dx;
+            int goalY = (endY - y) * dy;
+            if(dir < 4)
+            {
+                // the goal is ahead on the line of travel
+                int ahead = dx != 0 ? goalX : goalY;
+                int aside = dx != 0 ? endY - y : endX - x;
+                if(aside == 0 && ahead > 0 && ahead <= reach)
+                    return ahead;
+            }
+            else
+            {
+                // the goal is in the quadrant of travel, its row or column can be reached, and the
+                // goal can be reached from there in a straight line
+                int toLine = Math.min(goalX, goalY);
+                if(toLine > 0 && toLine <= reach)
+                {
+                    int line = (node + toLine * (dy * width + dx)) << 3;
+                    if(goalX > toLine)
+                        line |= direction(dx, 0);
+                    else
+                        line |= direction(0, dy);
+                    if(Math.abs(distances[line]) >= Math.abs(goalX - goalY))
+                        return toLine;
+                }
+            }
+            return distance > 0 ? distance : 0;
+        }
+
+        private void fill(int dir)
+        {
+            int dx = DX[dir];
+            int dy = DY[dir];
+            // cells are filled furthest first, so the next cell along the direction is known
+            for(int j = 0; j < height; j++)
+            {
+                int y = dy > 0 ? height - 1 - j : j;
+                for(int i = 0; i < width; i++)
+                {
+                    int x = dx > 0 ? width - 1 - i : i;
+                    int nextX = x + dx;
+                    int nextY = y + dy;
+                    int value;
+                    if(!grid.passable(nextX, nextY))
+                        value = 0;
+                    else if(jumpPoint(nextX, nextY, dx, dy))
+                        value = 1;
+                    else
+                    {
+                        int next = distances[(nextY * width + nextX) << 3 | dir];
+                        value = next > 0 ? next + 1 : next - 1;
+                        if(Math.abs(value) > Short.MAX_VALUE)
+                            value = Short.MAX_VALUE;
+                    }
+                    distances[(y * width + x) << 3 | dir] = (short)value;
+                }
+            }
+        }
+
+        private boolean jumpPoint(int x, int y, int dx, int dy)
+        {
+            if(dx != 0 && dy != 0)
+                return !grid.passable(x - dx, y) && grid.passable(x - dx, y + dy)
+                        || !grid.passable(x, y - dy) && grid.passable(x + dx, y - dy)
+                        || distances[(y * width + x) << 3 | direction(dx, 0)] > 0
+                        || distances[(y * width + x) << 3 | direction(0, dy)] > 0;
+            else if(dx != 0)
+                return !grid.passable(x, y + 1) && grid.passable(x + dx, y + 1)
+                        || !grid.passable(x, y - 1) && grid.passable(x + dx, y - 1);
+            else
+                return !grid.passable(x + 1, y) && grid.passable(x + 1, y + dy)
+                        || !grid.passable(x - 1, y) && grid.passable(x - 1, y + dy);
+        }
+    }
+}
@@ -9,9 +9,18 @@ import java.util.List;
  * Represents an algorithm for calculating paths on a {@code World}. These paths can be either
  * partial, meaning the path may not actually reach its goal, or complete, meaning it is either
  * {@code null} or reaches its goal.
+ * <p>
+ * A search may be given a budget, as a number of node expansions, a time limit, or both, to bound
+ * the latency of a single query. A search which runs out of budget returns the best partial path
+ * it has found so far. The budget is honored by every {@code PathFinder} in this package which
+ * searches, and counts whatever each one expands: cells for {@code AStar}, jump points for {@code
+ * JumpPointSearch}, and entrances for {@code HierarchicalPathFinder}.
  */
 public abstract class PathFinder
 {
+    private int expansionLimit = Integer.MAX_VALUE;
+    private long timeLimit = Long.MAX_VALUE;
+
     /**
      * Calculates and returns the partial path from the given start to end on the provided {@code
      * World}. Since the path is incomplete, it may or may not terminate at the provided end. Null
@@ -66,6 +75,8 @@ public abstract class PathFinder
     public final List<Coordinate> getPath(World world, Coordinate start, Coordinate end)
     {
         List<Coordinate> path = getPartialPath(world, start, end);
+        if(path.isEmpty())
+            return start.equals(end) ? path : null;
         return path.get(path.size() - 1).equals(end) ? path : null;
     }
 
@@ -83,4 +94,86 @@ public abstract class PathFinder
     {
         return getPath(world, new Coordinate(posX, posY), new Coordinate(endX, endY));
     }
+
+    /**
+     * Limits the number of nodes a single search may expand before it gives up and returns the
+     * best partial path found so far.
+     * @param limit the number of nodes a search may expand
+     */
+    public void setExpansionLimit(int limit)
+    {
+        Guard.argumentIsPositive(limit);
+
+        expansionLimit = limit;
+    }
+
+    /**
+     * Returns the number of nodes a single search may expand, which is {@code Integer.MAX_VALUE}
+     * unless limited.
+     * @return the number of nodes a search may expand
+     */
+    public int expansionLimit()
+    {
+        return expansionLimit;
+    }
+
+    /**
+     * Limits the time a single search may take before it gives up and returns the best partial
+     * path found so far. The clock is only read every few expansions, so a search may overrun the
+     * limit slightly.
+     * @param nanoseconds the time a search may take, in nanoseconds
+     */
+    public void setTimeLimit(long nanoseconds)
+    {
+        Guard.validateArgument(nanoseconds > 0);
+
+        timeLimit = nanoseconds;
+    }
+
+    /**
+     * Returns the time a single search may take in nanoseconds, which is {@code Long.MAX_VALUE}
+     * unless limited.
+     * @return the time a search may take, in nanoseconds
+     */
+    public long timeLimit()
+    {
+        return timeLimit;
+    }
+
+    /**
+     * Removes any limit on the number of expansions or the time a search may take.
+     */
+    public void clearLimits()
+    {
+        expansionLimit = Integer.MAX_VALUE;
+        timeLimit = Long.MAX_VALUE;
+    }
+
+    /**
+     * Gives another {@code PathFinder} the same limits as this one, so that queries this one
+     * hands on to it are held to the same budget.
+     * @param other the {@code PathFinder} queries are handed on to
+     */
+    protected final void copyLimits(PathFinder other)
+    {
+        Guard.argumentIsNotNull(other);
+
+        other.expansionLimit = expansionLimit;
+        other.timeLimit = timeLimit;
+    }
+
+    /**
+     * Returns true if a search which has made the given number of expansions, and which started at
+     * the given {@code System.nanoTime()}, has run out of budget and should stop.
+     * @param expansions the number of nodes expanded so far
+     * @param started the value of {@code System.nanoTime()} when the search started
+     * @return true if the search should stop
+     */
+    protected final boolean overBudget(int expansions, long started)
+    {
+        if(expansions >= expansionLimit)
+            return true;
+        return timeLimit != Long.MAX_VALUE && (expansions & 63) == 0
+                && System.nanoTime() - started >= timeLimit;
+    }
 }
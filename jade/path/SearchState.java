@@ -0,0 +1,80 @@
+package jade.path;
+
+import java.util.Arrays;
+
+/**
+ * The reusable state of a grid search, with nodes identified by their index {@code y * width + x}.
+ * Rather than clearing the arrays for every query, each query gets a new generation, and a node
+ * only counts as visited or closed if it was marked so in the current generation. The arrays only
+ * grow, so a {@code SearchState} kept between queries does not allocate.
+ */
+class SearchState
+{
+    public double[] gCost;
+    public double[] hScore;
+    public int[] prev;
+    public int[] visited;
+    public int[] closed;
+    public int generation;
+    public IndexedHeap open;
+
+    public SearchState()
+    {
+        prev = new int[0];
+        open = new IndexedHeap(0);
+    }
+
+    /**
+     * Starts a new query on a grid with the given number of nodes.
+     * @param size the number of nodes on the grid
+     */
+    public void prepare(int size)
+    {
+        if(prev.length < size)
+        {
+            gCost = new double[size];
+            hScore = new double[size];
+            prev = new int[size];
+            visited = new int[size];
+            closed = new int[size];
+            generation = 0;
+            open.ensureCapacity(size);
+        }
+        if(generation == Integer.MAX_VALUE)
+        {
+            Arrays.fill(visited, 0);
+            Arrays.fill(closed, 0);
+            generation = 0;
+        }
+        open.clear();
+        generation++;
+    }
+
+    /**
+     * Marks the node visited in the current query, with no known cost and the given estimate.
+     * @param node the node being visited
+     * @param h the estimated cost from the node to the goal
+     */
+    public void visit(int node, double h)
+    {
+        visited[node] = generation;
+        gCost[node] = Double.MAX_VALUE;
+        hScore[node] = h;
+    }
+
+    /**
+     * Creates a {@code ThreadLocal} which gives each thread its own {@code SearchState}.
+     * @return a {@code ThreadLocal} of {@code SearchState}
+     */
+    public static ThreadLocal<SearchState> perThread()
+    {
+        return new ThreadLocal<SearchState>()
+        {
+            @Override
+            protected SearchState initialValue()
+            {
+                return new SearchState();
+            }
+        };
+    }
+}
@@ -0,0 +1,222 @@
+package jade.ui;
+
+import jade.core.World;
+import jade.fov.FieldOfView;
+import jade.util.Guard;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the parts of a {@code World} a {@code Camera} has explored, along with the tile last
+ * seen on each explored cell. The explored cells are kept as a bitset, and the last seen tiles as an
+ * index into a palette of the distinct tiles seen so far, so the memory costs a little over two
+ * bytes per cell regardless of how much has been explored. Each call to {@code update()} adds the
+ * current view field of the {@code Camera}. If the {@code Camera} moves to a different {@code
+ * World}, everything is forgotten.
+ * <p>
+ * {@code Terminal.bufferExplored()} draws the remembered tiles with dimmed colors, after which
+ * {@code bufferCamera()} can draw what is currently visible over them.
+ */
+public class ExploredMap
+{
+    private Camera camera;
+    private float dim;
+    private World world;
+    private int width;
+    private int height;
+    private long[] seen;
+    private char[] faces;
+    private List<ColoredChar> palette;
+    private List<ColoredChar> dimmed;
+    private Map<ColoredChar, Integer> paletteIndex;
+
+    /**
+     * Constructs a new {@code ExploredMap} for the given {@code Camera}, which draws remembered
+     * tiles at half brightness.
+     * @param camera the {@code Camera} whose view fields are remembered
+     */
+    public ExploredMap(Camera camera)
+    {
+        this(camera, 0.5f);
+    }
+
+    /**
+     * Constructs a new {@code ExploredMap} for the given {@code Camera}, which draws remembered
+     * tiles with their color scaled by the given brightness.
+     * @param camera the {@code Camera} whose view fields are remembered
+     * @param dim the brightness of remembered tiles, from 0 to 1
+     */
+    public ExploredMap(Camera camera, float dim)
+    {
+        Guard.argumentIsNotNull(camera);
+        Guard.validateArgument(dim >= 0 && dim <= 1);
+
+        this.camera = camera;
+        this.dim = dim;
+        palette = new ArrayList<ColoredChar>();
+        dimmed = new ArrayList<ColoredChar>();
+        paletteIndex = new HashMap<ColoredChar, Integer>();
+    }
+
+    /**
+     * Returns the {@code Camera} whose view fields are remembered.
+     * @return the {@code Camera} whose view fields are remembered
+     */
+    public Camera camera()
+    {
+        return camera;
+    }
+
+    /**
+     * Adds the current view field of the {@code Camera}, remembering the tile on each cell in it.
+     */
+    public void update()
+    {
+        World current = camera.world();
+        if(current == null)
+            return;
+        if(current != world)
+            reset(current);
+
+        Collection<Coordinate> viewField = camera.getViewField();
+        if(viewField instanceof FieldOfView)
+        {
+            FieldOfView fov = (FieldOfView)viewField;
+            for(int cell = fov.nextCell(0); cell >= 0; cell = fov.nextCell(cell + 1))
+                remember(fov.cellX(cell), fov.cellY(cell));
+        }
+        else
+            for(Coordinate coord : viewField)
+                remember(coord.x(), coord.y());
+    }
+
+    /**
+     * Forgets everything explored so far.
+     */
+    public void clear()
+    {
+        world = null;
+        seen = null;
+        faces = null;
+    }
+
+    /**
+     * Returns true if the cell at (x, y) has been explored.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return true if the cell has been explored
+     */
+    public boolean explored(int x, int y)
+    {
+        if(world == null || x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+        int index = y * width + x;
+        return (seen[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the tile last seen on the cell at (x, y), or null if it has not been explored.
+     * @param x the x value of the cell
+     * @param y the y value of the cell
+     * @return the tile last seen on the cell
+     */
+    public ColoredChar remembered(int x, int y)
+    {
+        if(!explored(x, y))
+            return null;
+        return palette.get(faces[y * width + x]);
+    }
+
+    /**
+     * Returns the number of distinct tiles in the palette.
+     * @return the number of distinct tiles in the palette
+     */
+    public int paletteSize()
+    {
+        return palette.size();
+    }
+
+    /*
+     * Buffers the dimmed face of every explored cell which lands on the given number of columns
+     * and rows of the terminal, translated by the given offset. Only the words of the bitset
+     * holding the visible part of each visible row are scanned, so neither cells never explored nor
+     * cells off screen cost anything.
+     */
+    void buffer(Terminal term, int offX, int offY, int columns, int rows)
+    {
+        if(world == null)
+            return;
+        int minX = Math.max(0, -offX);
+        int minY = Math.max(0, -offY);
+        int maxX = (int)Math.min(width, (long)columns - offX);
+        int maxY = (int)Math.min(height, (long)rows - offY);
+        if(minX >= maxX)
+            return;
+
+        for(int y = minY; y < maxY; y++)
+        {
+            int row = y * width;
+            int first = row + minX;
+            int last = row + maxX - 1;
+            for(int word = first >> 6; word <= last >> 6; word++)
+            {
+                long bits = seen[word];
+                if(word == first >> 6)
+                    bits &= -1L << first;
+                if(word == last >> 6)
+                    bits &= -1L >>> (63 - (last & 63));
+                while(bits != 0)
+                {
+                    int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    term.bufferChar(index - row + offX, y + offY, dimmed.get(faces[index]));
+                }
+            }
+        }
+    }
+
+    private void reset(World world)
+    {
+        this.world = world;
+        width = world.width();
+        height = world.height();
+        seen = new long[(width * height + 63) >> 6];
+        faces = new char[width * height];
+    }
+
+    private void remember(int x, int y)
+    {
+        if(x < 0 || y < 0 || x >= width || y >= height)
+            return;
+        int index = y * width + x;
+        seen[index >> 6] |= 1L << index;
+        faces[index] = paletteIndex(world.tileAt(x, y));
+    }
+
+    private char paletteIndex(ColoredChar face)
+    {
+        Integer index = paletteIndex.get(face);
+        if(index == null)
+        {
+            Guard.verifyState(palette.size() <= Character.MAX_VALUE);
+
+            index = palette.size();
+            palette.add(face);
+            dimmed.add(ColoredChar.create(face.ch(), dim(face.color())));
+            paletteIndex.put(face, index);
+        }
+        return (char)index.intValue();
+    }
+
+    private Color dim(Color color)
+    {
+        return new Color(Math.round(color.getRed() * dim), Math.round(color.getGreen() * dim),
+                Math.round(color.getBlue() * dim), color.getAlpha());
+    }
+}
@@ -1,15 +1,15 @@
 package jade.ui;
 
 import jade.util.datatype.ColoredChar;
-import jade.util.datatype.Coordinate;
+import jade.util.datatype.LongIterator;
+import jade.util.datatype.LongMap;
+import jade.util.datatype.PackedCoordinate;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import javax.swing.JFrame;
@@ -100,10 +100,24 @@ public class TermPanel extends Terminal
     @Override
     public void refreshScreen()
     {
-        screen.setBuffer(getBuffer());
+        screen.setBuffer(getPackedBuffer());
         screen.repaint();
     }
 
+    @Override
+    protected int columns()
+    {
+        int width = screen.getWidth() > 0 ? screen.getWidth() : screen.getPreferredSize().width;
+        return (width + screen.tileWidth() - 1) / screen.tileWidth();
+    }
+
+    @Override
+    protected int rows()
+    {
+        int height = screen.getHeight() > 0 ? screen.getHeight() : screen.getPreferredSize().height;
+        return (height + screen.tileHeight() - 1) / screen.tileHeight();
+    }
+
     protected static class Screen extends JPanel implements KeyListener
     {
         private static final long serialVersionUID = 7219226976524388778L;
@@ -111,7 +125,7 @@ public class TermPanel extends Terminal
         private int tileWidth;
         private int tileHeight;
         private BlockingQueue<Character> inputBuffer;
-        private Map<Coordinate, ColoredChar> screenBuffer;
+        private LongMap<ColoredChar> screenBuffer;
 
         public Screen(int columns, int rows, int fontSize)
         {
@@ -121,7 +135,7 @@ public class TermPanel extends Terminal
         public Screen(int columns, int rows, int tileWidth, int tileHeight)
         {
             inputBuffer = new LinkedBlockingQueue<Character>();
-            screenBuffer = new HashMap<Coordinate, ColoredChar>();
+            screenBuffer = new LongMap<ColoredChar>();
 
             addKeyListener(this);
             this.tileWidth = tileWidth;
@@ -148,11 +162,12 @@ public class TermPanel extends Terminal
             super.paintComponent(page);
             synchronized(screenBuffer)
             {
-                for(Coordinate coord : screenBuffer.keySet())
+                for(LongIterator iter = screenBuffer.keys(); iter.hasNext();)
                 {
+                    long coord = iter.next();
                     ColoredChar ch = screenBuffer.get(coord);
-                    int x = tileWidth * coord.x();
-                    int y = tileHeight * (coord.y() + 1);
+                    int x = tileWidth * PackedCoordinate.x(coord);
+                    int y = tileHeight * (PackedCoordinate.y(coord) + 1);
 
                     page.setColor(ch.color());
                     page.drawString(ch.toString(), x, y);
@@ -160,7 +175,7 @@ public class TermPanel extends Terminal
             }
         }
 
-        public void setBuffer(Map<Coordinate, ColoredChar> buffer)
+        public void setBuffer(LongMap<ColoredChar> buffer)
         {
             synchronized(screenBuffer)
             {
@@ -4,9 +4,17 @@ import jade.core.World;
 import jade.util.Guard;
 import jade.util.datatype.ColoredChar;
 import jade.util.datatype.Coordinate;
+import jade.util.datatype.LongIterator;
+import jade.util.datatype.LongMap;
+import jade.util.datatype.PackedCoordinate;
 import java.awt.Color;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * A terminal used for text mode IO. Features a screen buffer with save and recall, the ability to
@@ -14,8 +22,9 @@ import java.util.Map;
  */
 public abstract class Terminal
 {
-    private Map<Coordinate, ColoredChar> buffer;
-    private Map<Coordinate, ColoredChar> saved;
+    private LongMap<ColoredChar> buffer;
+    private LongMap<ColoredChar> saved;
+    private Map<Coordinate, ColoredChar> bufferView;
     private Map<Camera, Coordinate> cameras;
 
     /**
@@ -23,8 +32,9 @@ public abstract class Terminal
      */
     public Terminal()
     {
-        buffer = new HashMap<Coordinate, ColoredChar>();
-        saved = new HashMap<Coordinate, ColoredChar>();
+        buffer = new LongMap<ColoredChar>();
+        saved = new LongMap<ColoredChar>();
+        bufferView = new BufferView(buffer);
         cameras = new HashMap<Camera, Coordinate>();
     }
 
@@ -35,7 +45,23 @@ public abstract class Terminal
      */
     public abstract void refreshScreen();
     
+    /**
+     * Returns a view of the screen buffer keyed by screen coordinates. Changes to either are
+     * reflected in the other. Iterating the view copies the keys of the buffer and creates a
+     * {@code Coordinate} for each of them, so {@code getPackedBuffer()} is cheaper for reading
+     * the whole buffer.
+     * @return a view of the screen buffer
+     */
     protected final Map<Coordinate, ColoredChar> getBuffer()
+    {
+        return bufferView;
+    }
+
+    /**
+     * Returns the screen buffer, keyed by packed screen coordinates (see {@code PackedCoordinate}).
+     * @return the screen buffer
+     */
+    protected final LongMap<ColoredChar> getPackedBuffer()
     {
         return buffer;
     }
@@ -57,7 +83,7 @@ public abstract class Terminal
     {
         Guard.argumentsAreNotNull(coord, ch);
 
-        buffer.put(coord, ch);
+        buffer.put(PackedCoordinate.pack(coord), ch);
     }
 
     /**
@@ -79,7 +105,9 @@ public abstract class Terminal
      */
     public ColoredChar charAt(Coordinate coord)
     {
-        return buffer.get(coord);
+        Guard.argumentIsNotNull(coord);
+
+        return buffer.get(PackedCoordinate.pack(coord));
     }
 
     /**
@@ -255,6 +283,47 @@ public abstract class Terminal
             bufferChar(coord.getTranslated(offX, offY), world.look(coord));
     }
 
+    /**
+     * Buffers the remembered tiles of an {@code ExploredMap} with dimmed colors, relative to the
+     * registered screen center of its {@code Camera}. Calling {@code bufferCamera} afterwards draws
+     * the currently visible cells over them. Only tiles landing within {@code columns()} and {@code
+     * rows()} are buffered, so the cost follows the size of the screen rather than the amount
+     * explored.
+     * @param explored the {@code ExploredMap} being buffered
+     */
+    public void bufferExplored(ExploredMap explored)
+    {
+        Guard.argumentIsNotNull(explored);
+        Guard.verifyState(cameraRegistered(explored.camera()));
+
+        Camera camera = explored.camera();
+        Coordinate screenCenter = cameras.get(camera);
+        explored.buffer(this, screenCenter.x() - camera.x(), screenCenter.y() - camera.y(),
+                columns(), rows());
+    }
+
+    /**
+     * Returns the number of columns shown on screen, starting from column 0. Characters buffered
+     * beyond it are kept but not shown, and {@code bufferExplored()} does not buffer them at all.
+     * The default is unbounded.
+     * @return the number of columns shown on screen
+     */
+    protected int columns()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of rows shown on screen, starting from row 0. Characters buffered beyond
+     * it are kept but not shown, and {@code bufferExplored()} does not buffer them at all. The
+     * default is unbounded.
+     * @return the number of rows shown on screen
+     */
+    protected int rows()
+    {
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * Calls {@code bufferCamera} for every {@code Camera} registered with the {@code Terminal}.
      */
@@ -298,4 +367,144 @@ public abstract class Terminal
 
         bufferRelative(camera, ch, pos.x(), pos.y());
     }
+
+    /*
+     * A Map<Coordinate, ColoredChar> view of a buffer keyed by packed coordinates. Iterators work on
+     * a copy of the keys taken when they are created, so removing through them, or through the
+     * buffer itself, cannot disturb the iteration.
+     */
+    private static class BufferView extends AbstractMap<Coordinate, ColoredChar>
+    {
+        private LongMap<ColoredChar> buffer;
+
+        public BufferView(LongMap<ColoredChar> buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public ColoredChar get(Object key)
+        {
+            return key instanceof Coordinate ? buffer.get(PackedCoordinate.pack((Coordinate)key))
+                    : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return get(key) != null;
+        }
+
+        @Override
+        public ColoredChar put(Coordinate key, ColoredChar value)
+        {
+            Guard.argumentsAreNotNull(key, value);
+
+            return buffer.put(PackedCoordinate.pack(key), value);
+        }
+
+        @Override
+        public ColoredChar remove(Object key)
+        {
+            return key instanceof Coordinate ? buffer.remove(PackedCoordinate.pack((Coordinate)key))
+                    : null;
+        }
+
+        @Override
+        public int size()
+        {
+            return buffer.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            buffer.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<Coordinate, ColoredChar>> entrySet()
+        {
+            return new AbstractSet<Map.Entry<Coordinate, ColoredChar>>()
+            {
+                @Override
+                public int size()
+                {
+                    return buffer.size();
+                }
+
+                @Override
+                public void clear()
+                {
+                    buffer.clear();
+                }
+
+                @Override
+                public Iterator<Map.Entry<Coordinate, ColoredChar>> iterator()
+                {
+                    return new EntryIterator(buffer);
+                }
+            };
+        }
+    }
+
+    private static class EntryIterator implements Iterator<Map.Entry<Coordinate, ColoredChar>>
+    {
+        private LongMap<ColoredChar> buffer;
+        private long[] keys;
+        private int next;
+        private long current;
+        private boolean removable;
+
+        public EntryIterator(LongMap<ColoredChar> buffer)
+        {
+            this.buffer = buffer;
+            keys = new long[buffer.size()];
+            LongIterator iter = buffer.keys();
+            while(iter.hasNext())
+                keys[next++] = iter.next();
+            next = 0;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while(next < keys.length && !buffer.containsKey(keys[next]))
+                next++;
+            return next < keys.length;
+        }
+
+        @Override
+        public Map.Entry<Coordinate, ColoredChar> next()
+        {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            current = keys[next++];
+            removable = true;
+            final long key = current;
+            return new AbstractMap.SimpleEntry<Coordinate, ColoredChar>(PackedCoordinate
+                    .unpack(key), buffer.get(key))
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public ColoredChar setValue(ColoredChar value)
+                {
+                    Guard.argumentIsNotNull(value);
+
+                    super.setValue(value);
+                    return buffer.put(key, value);
+                }
+            };
+        }
+
+        @Override
+        public void remove()
+        {
+            Guard.verifyState(removable);
+
+            buffer.remove(current);
+            removable = false;
+        }
+    }
 }
@@ -4,6 +4,9 @@ import jade.core.World;
 import jade.util.Guard;
 import jade.util.datatype.ColoredChar;
 import jade.util.datatype.Coordinate;
+import jade.util.datatype.LongIterator;
+import jade.util.datatype.LongMap;
+import jade.util.datatype.PackedCoordinate;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
@@ -20,8 +23,8 @@ public class TiledTermPanel extends TermPanel
 {
     public static final int DEFAULT_TILESIZE = 16;
 
-    private Map<Coordinate, List<ColoredChar>> tileBuffer;
-    private Map<Coordinate, List<ColoredChar>> savedTile;
+    private LongMap<List<ColoredChar>> tileBuffer;
+    private LongMap<List<ColoredChar>> savedTile;
 
     public TiledTermPanel(int columns, int rows, int tile_size)
     {
@@ -36,8 +39,8 @@ public class TiledTermPanel extends TermPanel
     private TiledTermPanel(TiledScreen screen)
     {
         super(screen);
-        tileBuffer = new HashMap<Coordinate, List<ColoredChar>>();
-        savedTile = new HashMap<Coordinate, List<ColoredChar>>();
+        tileBuffer = new LongMap<List<ColoredChar>>();
+        savedTile = new LongMap<List<ColoredChar>>();
     }
 
     public static TiledTermPanel getFramedTerminal(String title)
@@ -111,7 +114,7 @@ public class TiledTermPanel extends TermPanel
         int offY = screenCenter.y() - camera.y();
         World world = camera.world();
         for(Coordinate coord : camera.getViewField())
-            tileBuffer.put(coord.getTranslated(offX, offY),
+            tileBuffer.put(PackedCoordinate.pack(coord.x() + offX, coord.y() + offY),
                     world.lookAll(coord));
     }
 
@@ -124,18 +127,18 @@ public class TiledTermPanel extends TermPanel
         Coordinate screenCenter = cameraCenter(camera);
         int offX = screenCenter.x() - camera.x();
         int offY = screenCenter.y() - camera.y();
-        Coordinate pos = new Coordinate(x + offX, y + offY);
+        long pos = PackedCoordinate.pack(x + offX, y + offY);
         List<ColoredChar> look = tileBuffer.containsKey(pos) ? tileBuffer
                 .get(pos) : new ArrayList<ColoredChar>();
         look.add(0, ch);
-        tileBuffer.put(new Coordinate(x + offX, y + offY), look);
+        tileBuffer.put(pos, look);
     }
 
     private static class TiledScreen extends Screen
     {
         private static final long serialVersionUID = 6739172935885377439L;
 
-        private Map<Coordinate, List<ColoredChar>> tileBuffer;
+        private LongMap<List<ColoredChar>> tileBuffer;
         private Map<ColoredChar, Image> tileRegister;
 
         public TiledScreen(int columns, int rows, int tileSize)
@@ -146,11 +149,11 @@ public class TiledTermPanel extends TermPanel
         public TiledScreen(int columns, int rows, int tileWidth, int tileHeight)
         {
             super(columns, rows, tileWidth, tileHeight);
-            tileBuffer = new HashMap<Coordinate, List<ColoredChar>>();
+            tileBuffer = new LongMap<List<ColoredChar>>();
             tileRegister = new HashMap<ColoredChar, Image>();
         }
 
-        public void setTileBuffer(Map<Coordinate, List<ColoredChar>> buffer)
+        public void setTileBuffer(LongMap<List<ColoredChar>> buffer)
         {
             synchronized(tileBuffer)
             {
@@ -171,10 +174,11 @@ public class TiledTermPanel extends TermPanel
         protected void paintComponent(Graphics page)
         {
             super.paintComponent(page);
-            for(Coordinate coord : tileBuffer.keySet())
+            for(LongIterator iter = tileBuffer.keys(); iter.hasNext();)
             {
-                int x = tileWidth() * coord.x();
-                int y = tileHeight() * coord.y();
+                long coord = iter.next();
+                int x = tileWidth() * PackedCoordinate.x(coord);
+                int y = tileHeight() * PackedCoordinate.y(coord);
                 
                 List<ColoredChar> tiles = tileBuffer.get(coord);
                 Collections.reverse(tiles);
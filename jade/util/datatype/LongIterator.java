@@ -0,0 +1,20 @@
+package jade.util.datatype;
+
+/**
+ * An iterator over primitive {@code long} values, used by {@code LongSet} and {@code LongMap} so
+ * that iterating does not box every value.
+ */
+public interface LongIterator
+{
+    /**
+     * Returns true if there are more values.
+     * @return true if there are more values
+     */
+    public boolean hasNext();
+
+    /**
+     * Returns the next value.
+     * @return the next value
+     */
+    public long next();
+}
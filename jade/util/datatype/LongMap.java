@@ -0,0 +1,283 @@
+package jade.util.datatype;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A map from primitive {@code long} keys to values, stored in an open-addressing hash table with
+ * linear probing. Unlike a {@code HashMap<Long, V>}, putting a value allocates nothing unless the
+ * table has to grow. Null values are not permitted, so that {@code get()} returning null always
+ * means the key is absent.
+ * @param <V> the type of the values of the map
+ */
+public class LongMap<V>
+{
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private V freeValue;
+
+    /**
+     * Constructs a new, empty {@code LongMap}.
+     */
+    public LongMap()
+    {
+        this(16);
+    }
+
+    /**
+     * Constructs a new, empty {@code LongMap} which can hold the given number of entries without
+     * growing.
+     * @param expected the number of entries expected to be added
+     */
+    public LongMap(int expected)
+    {
+        int capacity = tableSize(expected);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the value mapped to the given key, or null if there is none.
+     * @param key the key being queried
+     * @return the value mapped to the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key)
+    {
+        if(key == FREE)
+            return freeValue;
+
+        int slot = hash(key) & mask;
+        while(keys[slot] != FREE)
+        {
+            if(keys[slot] == key)
+                return (V)values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the map contains the given key.
+     * @param key the key being queried
+     * @return true if the map contains the key
+     */
+    public boolean containsKey(long key)
+    {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the given key to the given value, replacing any previous value.
+     * @param key the key being mapped
+     * @param value the value, which may not be null
+     * @return the previous value mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value)
+    {
+        if(value == null)
+            throw new IllegalArgumentException();
+
+        if(key == FREE)
+        {
+            V previous = freeValue;
+            freeValue = value;
+            if(previous == null)
+                size++;
+            return previous;
+        }
+
+        int slot = hash(key) & mask;
+        while(keys[slot] != FREE)
+        {
+            if(keys[slot] == key)
+            {
+                V previous = (V)values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size * 2 > keys.length)
+            rehash(keys.length * 2);
+        return null;
+    }
+
+    /**
+     * Copies every entry of the given map into this one.
+     * @param other the map being copied
+     */
+    public void putAll(LongMap<? extends V> other)
+    {
+        if(other.freeValue != null)
+            put(FREE, other.freeValue);
+        for(int i = 0; i < other.keys.length; i++)
+            if(other.keys[i] != FREE)
+                put(other.keys[i], other.valueAt(i));
+    }
+
+    /**
+     * Removes the given key from the map.
+     * @param key the key being removed
+     * @return the value which was mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key)
+    {
+        if(key == FREE)
+        {
+            V previous = freeValue;
+            if(previous != null)
+                size--;
+            freeValue = null;
+            return previous;
+        }
+
+        int slot = hash(key) & mask;
+        while(keys[slot] != FREE)
+        {
+            if(keys[slot] == key)
+            {
+                V previous = (V)values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     * @return the number of entries in the map
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if the map is empty.
+     * @return true if the map is empty
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry from the map, keeping the current capacity.
+     */
+    public void clear()
+    {
+        if(size == 0)
+            return;
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        freeValue = null;
+        size = 0;
+    }
+
+    /**
+     * Returns an iterator over the keys of the map, in no particular order. The map must not be
+     * modified while iterating.
+     * @return an iterator over the keys of the map
+     */
+    public LongIterator keys()
+    {
+        return new LongIterator()
+        {
+            private int slot = -1;
+            private boolean free = freeValue != null;
+
+            @Override
+            public boolean hasNext()
+            {
+                if(free)
+                    return true;
+                while(slot + 1 < keys.length && keys[slot + 1] == FREE)
+                    slot++;
+                return slot + 1 < keys.length;
+            }
+
+            @Override
+            public long next()
+            {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                if(free)
+                {
+                    free = false;
+                    return FREE;
+                }
+                return keys[++slot];
+            }
+        };
+    }
+
+    static int hash(long key)
+    {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int)(mixed ^ (mixed >>> 32));
+    }
+
+    static int tableSize(int expected)
+    {
+        int capacity = 16;
+        while(capacity < expected * 2)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot)
+    {
+        return (V)values[slot];
+    }
+
+    private void shiftBack(int slot)
+    {
+        int next = (slot + 1) & mask;
+        while(keys[next] != FREE)
+        {
+            int home = hash(keys[next]) & mask;
+            // move the entry back only if its home slot is not between the hole and its position
+            if(((next - home) & mask) >= ((next - slot) & mask))
+            {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = FREE;
+        values[slot] = null;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for(int i = 0; i < oldKeys.length; i++)
+            if(oldKeys[i] != FREE)
+            {
+                int slot = hash(oldKeys[i]) & mask;
+                while(keys[slot] != FREE)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+    }
+}
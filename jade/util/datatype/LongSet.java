@@ -0,0 +1,217 @@
+package jade.util.datatype;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of primitive {@code long} values, stored in a single open-addressing hash table with linear
+ * probing. Unlike a {@code HashSet<Long>}, adding a value allocates nothing unless the table has to
+ * grow, which makes it a good fit for algorithms which visit many packed coordinates (see
+ * {@code PackedCoordinate}).
+ */
+public class LongSet
+{
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean hasFree;
+
+    /**
+     * Constructs a new, empty {@code LongSet}.
+     */
+    public LongSet()
+    {
+        this(16);
+    }
+
+    /**
+     * Constructs a new, empty {@code LongSet} which can hold the given number of values without
+     * growing.
+     * @param expected the number of values expected to be added
+     */
+    public LongSet(int expected)
+    {
+        keys = new long[LongMap.tableSize(expected)];
+        mask = keys.length - 1;
+    }
+
+    /**
+     * Adds a value to the set.
+     * @param key the value being added
+     * @return true if the set did not already contain the value
+     */
+    public boolean add(long key)
+    {
+        if(key == FREE)
+        {
+            if(hasFree)
+                return false;
+            hasFree = true;
+            size++;
+            return true;
+        }
+
+        int slot = LongMap.hash(key) & mask;
+        while(keys[slot] != FREE)
+        {
+            if(keys[slot] == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if(++size * 2 > keys.length)
+            rehash(keys.length * 2);
+        return true;
+    }
+
+    /**
+     * Returns true if the set contains the given value.
+     * @param key the value being queried
+     * @return true if the set contains the value
+     */
+    public boolean contains(long key)
+    {
+        if(key == FREE)
+            return hasFree;
+
+        int slot = LongMap.hash(key) & mask;
+        while(keys[slot] != FREE)
+        {
+            if(keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value from the set.
+     * @param key the value being removed
+     * @return true if the set contained the value
+     */
+    public boolean remove(long key)
+    {
+        if(key == FREE)
+        {
+            if(!hasFree)
+                return false;
+            hasFree = false;
+            size--;
+            return true;
+        }
+
+        int slot = LongMap.hash(key) & mask;
+        while(keys[slot] != FREE)
+        {
+            if(keys[slot] == key)
+            {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of values in the set.
+     * @return the number of values in the set
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if the set is empty.
+     * @return true if the set is empty
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes every value from the set, keeping the current capacity.
+     */
+    public void clear()
+    {
+        if(size == 0)
+            return;
+        Arrays.fill(keys, FREE);
+        hasFree = false;
+        size = 0;
+    }
+
+    /**
+     * Returns an iterator over the values of the set, in no particular order. The set must not be
+     * modified while iterating.
+     * @return an iterator over the values of the set
+     */
+    public LongIterator iterator()
+    {
+        return new LongIterator()
+        {
+            private int slot = -1;
+            private boolean free = hasFree;
+
+            @Override
+            public boolean hasNext()
+            {
+                if(free)
+                    return true;
+                while(slot + 1 < keys.length && keys[slot + 1] == FREE)
+                    slot++;
+                return slot + 1 < keys.length;
+            }
+
+            @Override
+            public long next()
+            {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                if(free)
+                {
+                    free = false;
+                    return FREE;
+                }
+                return keys[++slot];
+            }
+        };
+    }
+
+    private void shiftBack(int slot)
+    {
+        int next = (slot + 1) & mask;
+        while(keys[next] != FREE)
+        {
+            int home = LongMap.hash(keys[next]) & mask;
+            // move the key back only if its home slot is not between the hole and its position
+            if(((next - home) & mask) >= ((next - slot) & mask))
+            {
+                keys[slot] = keys[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = FREE;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] old = keys;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        for(long key : old)
+            if(key != FREE)
+            {
+                int slot = LongMap.hash(key) & mask;
+                while(keys[slot] != FREE)
+                    slot = (slot + 1) & mask;
+                keys[slot] = key;
+            }
+    }
+}
@@ -0,0 +1,74 @@
+package jade.util.datatype;
+
+/**
+ * A collection of methods for packing a 2-dimensional integer coordinate into a single {@code long}.
+ * The x value is kept in the high 32 bits and the y value in the low 32 bits, so any pair of
+ * {@code int} values can be packed without loss. Packed coordinates let algorithms which visit many
+ * locations store them in primitive collections such as {@code LongSet} and {@code LongMap}
+ * instead of allocating a {@code Coordinate} for each one.
+ */
+public final class PackedCoordinate
+{
+    /**
+     * Packs the given (x, y) value into a {@code long}.
+     * @param x the x value
+     * @param y the y value
+     * @return the packed coordinate
+     */
+    public static long pack(int x, int y)
+    {
+        return ((long)x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Packs the given {@code Coordinate} into a {@code long}.
+     * @param coord the {@code Coordinate} being packed
+     * @return the packed coordinate
+     */
+    public static long pack(Coordinate coord)
+    {
+        return pack(coord.x(), coord.y());
+    }
+
+    /**
+     * Returns the x value of a packed coordinate.
+     * @param packed the packed coordinate
+     * @return the x value of the packed coordinate
+     */
+    public static int x(long packed)
+    {
+        return (int)(packed >> 32);
+    }
+
+    /**
+     * Returns the y value of a packed coordinate.
+     * @param packed the packed coordinate
+     * @return the y value of the packed coordinate
+     */
+    public static int y(long packed)
+    {
+        return (int)packed;
+    }
+
+    /**
+     * Returns the packed coordinate translated by the given amounts.
+     * @param packed the packed coordinate
+     * @param dx the change in x
+     * @param dy the change in y
+     * @return the translated packed coordinate
+     */
+    public static long translate(long packed, int dx, int dy)
+    {
+        return pack(x(packed) + dx, y(packed) + dy);
+    }
+
+    /**
+     * Returns a new {@code Coordinate} with the value of the packed coordinate.
+     * @param packed the packed coordinate
+     * @return a new {@code Coordinate} with the value of the packed coordinate
+     */
+    public static Coordinate unpack(long packed)
+    {
+        return new Coordinate(x(packed), y(packed));
+    }
+}
@@ -1,7 +1,6 @@
 package rogue.creature;
 
 import java.util.Arrays;
-import jade.util.Dice;
 import jade.util.datatype.ColoredChar;
 import jade.util.datatype.Direction;
 
@@ -15,6 +14,6 @@ public class Monster extends Creature
     @Override
     public void act()
     {
-        move(Dice.global.choose(Arrays.asList(Direction.values())));
+        move(world().dice().choose(Arrays.asList(Direction.values())));
     }
 }
@@ -1,6 +1,7 @@
 package rogue.creature;
 
 import java.util.Collection;
+import jade.fov.CachedViewField;
 import jade.fov.RayCaster;
 import jade.fov.ViewField;
 import jade.ui.Camera;
@@ -18,7 +19,7 @@ public class Player extends Creature implements Camera
     {
         super(ColoredChar.create('@'));
         this.term = term;
-        fov = new RayCaster();
+        fov = new CachedViewField(new RayCaster(), 1);
     }
 
     @Override
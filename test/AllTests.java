@@ -3,10 +3,17 @@ package test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import test.core.ActorTest;
+import test.core.EnergySchedulerTest;
 import test.core.MessengerTest;
 import test.core.WorldTest;
+import test.fov.CachedViewFieldTest;
+import test.fov.FieldOfViewTest;
+import test.fov.LightMapTest;
 import test.fov.RayCasterTest;
 import test.fov.ShadowCasterTests;
+import test.fov.SymmetricShadowCasterTest;
+import test.fov.ViewFieldBatchTest;
+import test.fov.ViewFieldPostProcessTest;
 import test.fov.ViewFieldTest;
 import test.gen.GeneratorTest;
 import test.gen.feature.FenceTest;
@@ -17,10 +24,17 @@ import test.gen.map.TerrainTest;
 import test.gen.map.TraditionalTest;
 import test.path.AStarTest;
 import test.path.BresenhamTest;
+import test.path.CachedPathFinderTest;
+import test.path.ConnectedComponentsTest;
+import test.path.CostGridTest;
+import test.path.DijkstraMapTest;
+import test.path.HierarchicalPathFinderTest;
+import test.path.JumpPointSearchTest;
 import test.path.PathFinderTest;
 import test.story.prob.CategoricalTest;
 import test.story.prob.MixtureCategoricalTest;
 import test.ui.CameraTest;
+import test.ui.ExploredMapTest;
 import test.ui.TermPanelTest;
 import test.ui.TerminalTest;
 import test.util.DiceTest;
@@ -29,14 +43,24 @@ import test.util.LambdaTest;
 import test.util.datatypes.ColoredCharTest;
 import test.util.datatypes.CoordinateTest;
 import test.util.datatypes.DirectionTest;
+import test.util.datatypes.LongMapTest;
+import test.util.datatypes.LongSetTest;
+import test.util.datatypes.PackedCoordinateTest;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ActorTest.class, MessengerTest.class, WorldTest.class, RayCasterTest.class,
+@Suite.SuiteClasses({ActorTest.class, MessengerTest.class, WorldTest.class,
+        EnergySchedulerTest.class, RayCasterTest.class,
         ShadowCasterTests.class, ViewFieldTest.class, GeneratorTest.class, FenceTest.class,
         SprinklerTest.class, CellularTest.class, MazeTest.class, TerrainTest.class,
         TraditionalTest.class, AStarTest.class, BresenhamTest.class, PathFinderTest.class,
         CategoricalTest.class, MixtureCategoricalTest.class, TerminalTest.class,
         TermPanelTest.class, CameraTest.class, ColoredCharTest.class, CoordinateTest.class,
-        DiceTest.class, DirectionTest.class, GuardTest.class, LambdaTest.class})
+        DiceTest.class, DirectionTest.class, GuardTest.class, LambdaTest.class, LongMapTest.class,
+        LongSetTest.class, PackedCoordinateTest.class,
+        FieldOfViewTest.class, CachedViewFieldTest.class, ViewFieldBatchTest.class,
+        SymmetricShadowCasterTest.class, ViewFieldPostProcessTest.class, LightMapTest.class,
+        ExploredMapTest.class, JumpPointSearchTest.class, DijkstraMapTest.class,
+        HierarchicalPathFinderTest.class, CachedPathFinderTest.class,
+        CostGridTest.class, ConnectedComponentsTest.class})
 public class AllTests
 {}
@@ -0,0 +1,153 @@
+package test.core;
+
+import jade.core.EnergyScheduler;
+import jade.util.datatype.ColoredChar;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EnergySchedulerTest extends CoreTest
+{
+    private EnergyScheduler scheduler;
+    private List<CountingActor> log;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        scheduler = new EnergyScheduler();
+        world.setScheduler(scheduler);
+        log = new ArrayList<CountingActor>();
+    }
+
+    @Test
+    public void defaultDelayActsOncePerTick()
+    {
+        CountingActor counter = add();
+        for(int i = 1; i <= 5; i++)
+        {
+            world.tick();
+            Assert.assertEquals(i, counter.count);
+        }
+        Assert.assertEquals(5 * EnergyScheduler.TURN, scheduler.time());
+    }
+
+    @Test
+    public void delayControlsSpeed()
+    {
+        CountingActor fast = add();
+        CountingActor slow = add();
+        scheduler.setDelay(fast, EnergyScheduler.TURN / 2);
+        scheduler.setDelay(slow, EnergyScheduler.TURN * 2);
+        for(int i = 0; i < 4; i++)
+            world.tick();
+        Assert.assertEquals(8, fast.count);
+        Assert.assertEquals(2, slow.count);
+    }
+
+    @Test
+    public void actsInTimeOrder()
+    {
+        CountingActor slow = add();
+        CountingActor fast = add();
+        scheduler.setDelay(fast, EnergyScheduler.TURN / 2);
+        world.tick();
+        Assert.assertEquals(3, log.size());
+        Assert.assertSame(fast, log.get(0));
+        Assert.assertSame(slow, log.get(1));
+        Assert.assertSame(fast, log.get(2));
+    }
+
+    @Test
+    public void sleepAndWake()
+    {
+        CountingActor counter = add();
+        scheduler.sleep(counter);
+        Assert.assertFalse(scheduler.scheduled(counter));
+        world.tick();
+        Assert.assertEquals(0, counter.count);
+        scheduler.wake(counter);
+        Assert.assertTrue(scheduler.scheduled(counter));
+        world.tick();
+        Assert.assertEquals(1, counter.count);
+    }
+
+    @Test
+    public void removedActorStopsActing()
+    {
+        CountingActor counter = add();
+        world.tick();
+        world.removeActor(counter);
+        Assert.assertFalse(scheduler.scheduled(counter));
+        world.tick();
+        Assert.assertEquals(1, counter.count);
+    }
+
+    @Test
+    public void expiredActorStopsActing()
+    {
+        CountingActor counter = add();
+        counter.expire();
+        world.tick();
+        Assert.assertEquals(0, counter.count);
+        Assert.assertFalse(counter.bound());
+    }
+
+    @Test
+    public void outsideActOrderStartsAsleep()
+    {
+        world.getActOrder().clear();
+        world.getActOrder().add(ActorA.class);
+        CountingActor counter = add();
+        Assert.assertFalse(scheduler.scheduled(counter));
+        world.tick();
+        Assert.assertEquals(0, counter.count);
+    }
+
+    @Test
+    public void setSchedulerRegistersExisting()
+    {
+        CountingActor counter = add();
+        world.setScheduler(null);
+        Assert.assertFalse(scheduler.scheduled(counter));
+        Assert.assertNull(scheduler.world());
+
+        EnergyScheduler other = new EnergyScheduler();
+        world.setScheduler(other);
+        Assert.assertTrue(other.scheduled(counter));
+        Assert.assertSame(world, other.world());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setSchedulerTwice()
+    {
+        new ConcreteWorld().setScheduler(scheduler);
+    }
+
+    private CountingActor add()
+    {
+        CountingActor counter = new CountingActor();
+        world.addActor(counter, 0, 0);
+        return counter;
+    }
+
+    private class CountingActor extends ConcreteActor
+    {
+        public int count;
+
+        public CountingActor()
+        {
+            super(ColoredChar.create('c'));
+        }
+
+        @Override
+        public void act()
+        {
+            count++;
+            log.add(this);
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package test.core;
 
 import jade.core.Actor;
+import jade.core.PassableGrid;
 import jade.core.World;
 import jade.util.Dice;
 import jade.util.datatype.ColoredChar;
 import jade.util.datatype.Coordinate;
+import jade.util.datatype.PackedCoordinate;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -376,6 +379,356 @@ public class WorldTest extends CoreTest
         Assert.assertEquals(4, world.getActors(Actor.class).size());
     }
 
+    @Test
+    public void getActorsLiveView()
+    {
+        Collection<ActorA> view = world.getActors(ActorA.class);
+        Actor actorA = new ActorA();
+        world.addActor(actorA, 2, 5);
+        world.addActor(new ActorB(), 5, 8);
+        Assert.assertEquals(1, view.size());
+        Assert.assertTrue(view.contains(actorA));
+        world.removeActor(actorA);
+        Assert.assertTrue(view.isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getActorsReadOnly()
+    {
+        world.getActors(Actor.class).clear();
+    }
+
+    @Test
+    public void tickActsInActOrder()
+    {
+        final List<Actor> acted = new ArrayList<Actor>();
+        Actor actorA = new ActorA()
+        {
+            @Override
+            public void act()
+            {
+                acted.add(this);
+            }
+        };
+        Actor actorB = new ActorB()
+        {
+            @Override
+            public void act()
+            {
+                acted.add(this);
+                world().addActor(new ActorB(), 1, 1);
+            }
+        };
+        world.addActor(actorB, 5, 8);
+        world.addActor(actorA, 2, 5);
+        world.getActOrder().clear();
+        world.getActOrder().add(ActorA.class);
+        world.getActOrder().add(ActorB.class);
+
+        world.tick();
+
+        Assert.assertEquals(2, acted.size());
+        Assert.assertSame(actorA, acted.get(0));
+        Assert.assertSame(actorB, acted.get(1));
+        Assert.assertEquals(2, world.getActors(ActorB.class).size());
+    }
+
+    @Test
+    public void getActorsInMatchesCells()
+    {
+        world = new ConcreteWorld(40, 30);
+        Dice dice = new Dice(7);
+        for(int i = 0; i < 200; i++)
+            world.addActor(i % 2 == 0 ? new ActorA() : new ActorB(), dice);
+        int[][] rects = { {0, 0, 39, 29}, {3, 5, 17, 9}, {8, 8, 15, 15}, {-5, -5, 4, 2},
+                {30, 20, 50, 50}, {12, 12, 12, 12}};
+        for(int[] rect : rects)
+        {
+            Collection<ActorA> expected = new HashSet<ActorA>();
+            for(int x = Math.max(rect[0], 0); x <= Math.min(rect[2], 39); x++)
+                for(int y = Math.max(rect[1], 0); y <= Math.min(rect[3], 29); y++)
+                    expected.addAll(world.getActorsAt(ActorA.class, x, y));
+            Collection<ActorA> actual = world.getActorsIn(ActorA.class, rect[0], rect[1],
+                    rect[2], rect[3]);
+            Assert.assertEquals(expected.size(), actual.size());
+            Assert.assertEquals(expected, new HashSet<ActorA>(actual));
+        }
+    }
+
+    @Test
+    public void getActorsInFollowsMoves()
+    {
+        world = new ConcreteWorld(40, 30);
+        world.addActor(actor, 2, 2);
+        Assert.assertTrue(world.getActorsIn(Actor.class, 0, 0, 3, 3).contains(actor));
+        actor.setPos(35, 25);
+        Assert.assertTrue(world.getActorsIn(Actor.class, 0, 0, 3, 3).isEmpty());
+        Assert.assertTrue(world.getActorsIn(Actor.class, 30, 20, 39, 29).contains(actor));
+        world.removeActor(actor);
+        Assert.assertTrue(world.getActorsIn(Actor.class, 0, 0, 39, 29).isEmpty());
+    }
+
+    @Test
+    public void getActorsWithinRadius()
+    {
+        world = new ConcreteWorld(40, 30);
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                world.addActor(new ActorA(), x, y);
+        for(Actor actor : world.getActorsWithin(Actor.class, 20, 15, 5))
+            Assert.assertTrue(actor.pos().distance(20, 15) <= 5);
+        Assert.assertEquals(81, world.getActorsWithin(Actor.class, 20, 15, 5).size());
+        Assert.assertEquals(1, world.getActorsWithin(Actor.class, 0, 0, 0).size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getActorsWithinBounds()
+    {
+        world.getActorsWithin(Actor.class, -1, 5, 5);
+    }
+
+    @Test
+    public void getNearestActorsOrdered()
+    {
+        world = new ConcreteWorld(40, 30);
+        Dice dice = new Dice(11);
+        for(int i = 0; i < 100; i++)
+            world.addActor(i % 2 == 0 ? new ActorA() : new ActorB(), dice);
+        List<ActorB> nearest = world.getNearestActors(ActorB.class, 21, 13, 10);
+        Assert.assertEquals(10, nearest.size());
+        double farthest = nearest.get(nearest.size() - 1).pos().distance(21, 13);
+        for(int i = 1; i < nearest.size(); i++)
+            Assert.assertTrue(nearest.get(i - 1).pos().distance(21, 13) <= nearest.get(i).pos()
+                    .distance(21, 13));
+        for(ActorB other : world.getActors(ActorB.class))
+            if(!nearest.contains(other))
+                Assert.assertTrue(other.pos().distance(21, 13) >= farthest);
+    }
+
+    @Test
+    public void getNearestActorsFewer()
+    {
+        world.addActor(actor, 9, 14);
+        List<Actor> nearest = world.getNearestActors(Actor.class, 0, 0, 3);
+        Assert.assertEquals(1, nearest.size());
+        Assert.assertSame(actor, nearest.get(0));
+        Assert.assertTrue(world.getNearestActors(Actor.class, 0, 0, 0).isEmpty());
+    }
+
+    @Test
+    public void parallelTickDeterministic()
+    {
+        List<Coordinate> serial = walkers(new ForkJoinPool(1));
+        List<Coordinate> parallel = walkers(new ForkJoinPool(4));
+        Assert.assertEquals(serial, parallel);
+    }
+
+    private List<Coordinate> walkers(ForkJoinPool pool)
+    {
+        world = new ConcreteWorld(60, 40);
+        world.setDice(new Dice(42));
+        world.setTickPool(pool);
+        List<Actor> walkers = new ArrayList<Actor>();
+        for(int i = 0; i < 300; i++)
+        {
+            Actor walker = new ConcreteActor(ColoredChar.create('w'))
+            {
+                @Override
+                public void act()
+                {
+                    int x = x() + world().dice().nextInt(-1, 1);
+                    int y = y() + world().dice().nextInt(-1, 1);
+                    if(world().insideBounds(x, y))
+                        setPos(x, y);
+                }
+            };
+            world.addActor(walker, i % 60, i % 40);
+            walkers.add(walker);
+        }
+        for(int i = 0; i < 20; i++)
+            world.tick();
+
+        List<Coordinate> positions = new ArrayList<Coordinate>();
+        for(Actor walker : walkers)
+            positions.add(walker.pos());
+        return positions;
+    }
+
+    @Test
+    public void parallelTickDefersMoves()
+    {
+        final List<Coordinate> seen = new ArrayList<Coordinate>();
+        final List<Actor> found = new ArrayList<Actor>();
+        Actor mover = new ConcreteActor(ColoredChar.create('m'))
+        {
+            @Override
+            public void act()
+            {
+                setPos(7, 9);
+                seen.add(pos());
+                found.add(world().getActorAt(Actor.class, 1, 2));
+            }
+        };
+        world.setTickPool(new ForkJoinPool(2));
+        world.addActor(mover, 1, 2);
+        world.tick();
+
+        Assert.assertEquals(new Coordinate(7, 9), seen.get(0));
+        Assert.assertSame(mover, found.get(0));
+        Assert.assertEquals(new Coordinate(7, 9), mover.pos());
+        Assert.assertSame(mover, world.getActorAt(Actor.class, 7, 9));
+        Assert.assertNull(world.getActorAt(Actor.class, 1, 2));
+    }
+
+    @Test
+    public void parallelTickComposesMoves()
+    {
+        Actor mover = new ConcreteActor(ColoredChar.create('m'))
+        {
+            @Override
+            public void act()
+            {
+                move(1, 0);
+                move(1, 1);
+            }
+        };
+        world.setTickPool(new ForkJoinPool(2));
+        world.addActor(mover, 1, 2);
+        world.tick();
+
+        Assert.assertEquals(new Coordinate(3, 3), mover.pos());
+        Assert.assertSame(mover, world.getActorAt(Actor.class, 3, 3));
+        Assert.assertNull(world.getActorAt(Actor.class, 2, 2));
+    }
+
+    @Test
+    public void parallelTickContendedCell()
+    {
+        world = new ConcreteWorld(60, 40);
+        Actor west = new ConcreteActor(ColoredChar.create('w'))
+        {
+            @Override
+            public void act()
+            {
+                setPos(16, 5);
+            }
+        };
+        Actor east = new ConcreteActor(ColoredChar.create('e'))
+        {
+            @Override
+            public void act()
+            {
+                setPos(16, 5);
+            }
+        };
+        // west is in the first region and east in the second, so west claims the cell
+        world.addActor(east, 17, 5);
+        world.addActor(west, 15, 5);
+        world.setTickPool(new ForkJoinPool(4));
+        world.tick();
+
+        Assert.assertEquals(new Coordinate(16, 5), west.pos());
+        Assert.assertEquals(new Coordinate(17, 5), east.pos());
+        Assert.assertEquals(1, world.getActorsAt(Actor.class, 16, 5).size());
+        Assert.assertSame(east, world.getActorAt(Actor.class, 17, 5));
+    }
+
+    @Test
+    public void parallelTickDropsStaleMove()
+    {
+        world = new ConcreteWorld(60, 40);
+        final Actor pushed = new ConcreteActor(ColoredChar.create('p'))
+        {
+            @Override
+            public void act()
+            {
+                move(-1, 0);
+            }
+        };
+        Actor pusher = new ConcreteActor(ColoredChar.create('s'))
+        {
+            @Override
+            public void act()
+            {
+                pushed.move(1, 0);
+            }
+        };
+        world.addActor(pusher, 1, 1);
+        world.addActor(pushed, 20, 1);
+        world.setTickPool(new ForkJoinPool(4));
+        world.tick();
+
+        Assert.assertEquals(new Coordinate(21, 1), pushed.pos());
+        Assert.assertSame(pushed, world.getActorAt(Actor.class, 21, 1));
+        Assert.assertNull(world.getActorAt(Actor.class, 19, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void parallelTickRejectsAdd()
+    {
+        Actor spawner = new ConcreteActor(ColoredChar.create('s'))
+        {
+            @Override
+            public void act()
+            {
+                world().addActor(new ActorA(), 3, 3);
+            }
+        };
+        world.setTickPool(new ForkJoinPool(2));
+        world.addActor(spawner, 1, 2);
+        world.tick();
+    }
+
+    @Test
+    public void parallelTickDefersMessages()
+    {
+        final List<Integer> seen = new ArrayList<Integer>();
+        world = new ConcreteWorld(60, 40);
+        int[][] places = { {40, 1}, {1, 30}, {1, 1}};
+        for(final int[] place : places)
+        {
+            Actor speaker = new ConcreteActor(ColoredChar.create('s'))
+            {
+                @Override
+                public void act()
+                {
+                    world().appendMessage(x() + "," + y());
+                    appendMessage("self");
+                    synchronized(seen)
+                    {
+                        seen.add(world().getActors(ActorB.class).size());
+                    }
+                }
+            };
+            world.addActor(speaker, place[0], place[1]);
+        }
+        world.setTickPool(new ForkJoinPool(4));
+        world.tick();
+
+        List<String> messages = new ArrayList<String>();
+        for(String message : world.retrieveMessages())
+            messages.add(message);
+        Assert.assertEquals(3, messages.size());
+        Assert.assertEquals("1,1", messages.get(0));
+        Assert.assertEquals("40,1", messages.get(1));
+        Assert.assertEquals("1,30", messages.get(2));
+        Assert.assertEquals(3, seen.size());
+        for(Actor speaker : world.getActors(Actor.class))
+            Assert.assertEquals("self", speaker.retrieveMessages().iterator().next());
+    }
+
+    @Test
+    public void getActorsUnregisteredClassLive()
+    {
+        Collection<ActorB> actors = world.getActors(ActorB.class);
+        Assert.assertTrue(actors.isEmpty());
+        ActorB b = new ActorB();
+        world.addActor(b, 4, 4);
+        Assert.assertEquals(1, actors.size());
+        Assert.assertTrue(actors.contains(b));
+        Assert.assertSame(b, actors.iterator().next());
+    }
+
     @Test
     public void getActorOne()
     {
@@ -474,6 +827,54 @@ public class WorldTest extends CoreTest
         Assert.assertTrue(actor.expired());
     }
 
+    @Test
+    public void removeExpiredRemovesHeld()
+    {
+        Actor holder = new ConcreteActor(ColoredChar.create('D'));
+        world.addActor(holder, 5, 5);
+        actor.attach(holder);
+        holder.expire();
+        world.removeExpired();
+
+        Assert.assertFalse(holder.bound());
+        Assert.assertFalse(actor.bound());
+        Assert.assertTrue(world.getActors(Actor.class).isEmpty());
+        Assert.assertNull(world.getActorAt(Actor.class, 5, 5));
+    }
+
+    @Test
+    public void removeExpiredIgnoresRemoved()
+    {
+        world.addActor(actor, 5, 5);
+        actor.expire();
+        world.removeActor(actor);
+        world.removeExpired();
+        Assert.assertFalse(actor.bound());
+    }
+
+    @Test
+    public void removeExpiredAddedExpired()
+    {
+        actor.expire();
+        world.addActor(actor, 5, 5);
+        Assert.assertTrue(actor.bound());
+        world.tick();
+        Assert.assertFalse(actor.bound());
+        Assert.assertTrue(world.getActors(Actor.class).isEmpty());
+    }
+
+    @Test
+    public void removeHolderUnregistersHeld()
+    {
+        Actor holder = new ConcreteActor(ColoredChar.create('D'));
+        world.addActor(holder, 5, 5);
+        actor.attach(holder);
+        world.removeActor(holder);
+
+        Assert.assertFalse(actor.bound());
+        Assert.assertTrue(world.getActors(Actor.class).isEmpty());
+    }
+
     @Test
     public void removeActorUnplaces()
     {
@@ -621,6 +1022,26 @@ public class WorldTest extends CoreTest
                 Assert.assertEquals(x % 2 == 0, world.passableAt(x, y));
     }
 
+    @Test
+    public void setTileIndependent()
+    {
+        ColoredChar wall = ColoredChar.create('#');
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+            {
+                world.setTile(wall, false, x, y);
+                for(int i = 0; i < world.width(); i++)
+                    for(int j = 0; j < world.height(); j++)
+                    {
+                        boolean changed = i == x && j == y;
+                        Assert.assertEquals(!changed, world.passableAt(i, j));
+                        Assert.assertEquals(changed ? wall : ColoredChar.create('.'),
+                                world.tileAt(i, j));
+                    }
+                world.setTile(ColoredChar.create('.'), true, x, y);
+            }
+    }
+
     @Test
     public void setTileFace()
     {
@@ -658,6 +1079,73 @@ public class WorldTest extends CoreTest
         }, world.width(), world.height());
     }
 
+    @Test
+    public void passableVersionCountsChanges()
+    {
+        int version = world.passableVersion();
+        world.setTile(ColoredChar.create('#'), false, 3, 4);
+        world.setTile(ColoredChar.create('+'), false, 3, 4);
+        world.setTile(ColoredChar.create('#'), false, 5, 6);
+        Assert.assertEquals(version + 2, world.passableVersion());
+        Assert.assertEquals(PackedCoordinate.pack(3, 4), world.passableChange(version + 1));
+        Assert.assertEquals(PackedCoordinate.pack(5, 6), world.passableChange(version + 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void passableChangeForgotten()
+    {
+        for(int i = 0; i <= World.PASSABLE_HISTORY; i++)
+            world.setTile(ColoredChar.create('.'), i % 2 == 0, 1, 1);
+        world.passableChange(world.passableVersion() - World.PASSABLE_HISTORY);
+    }
+
+    @Test
+    public void passableGridSnapshot()
+    {
+        world.setTile(ColoredChar.create('#'), false, 3, 4);
+        PassableGrid grid = world.passableGrid();
+        Assert.assertSame(grid, world.passableGrid());
+        Assert.assertFalse(grid.stale());
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                Assert.assertEquals(world.passableAt(x, y), grid.passable(x, y));
+        Assert.assertFalse(grid.passable(-1, 0));
+        Assert.assertFalse(grid.passable(0, world.height()));
+
+        world.setTile(ColoredChar.create('.'), true, 3, 4);
+        Assert.assertTrue(grid.stale());
+        Assert.assertFalse(grid.passable(3, 4));
+        Assert.assertNotSame(grid, world.passableGrid());
+        Assert.assertTrue(world.passableGrid().passable(3, 4));
+    }
+
+    @Test
+    public void passableGridFollowsOverride()
+    {
+        world = new ConcreteWorld()
+        {
+            @Override
+            public boolean passableAt(int x, int y)
+            {
+                return x != 2 && super.passableAt(x, y);
+            }
+        };
+        world.setTile(ColoredChar.create('#'), false, 3, 4);
+        PassableGrid grid = world.passableGrid();
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                Assert.assertEquals(world.passableAt(x, y), grid.passable(x, y));
+        Assert.assertFalse(grid.passable(2, 0));
+        Assert.assertFalse(grid.passable(3, 4));
+
+        world.setTile(ColoredChar.create('.'), true, 3, 4);
+        world.setTile(ColoredChar.create('#'), false, 2, 5);
+        world.setTile(ColoredChar.create('.'), true, 2, 5);
+        grid = world.passableGrid();
+        Assert.assertTrue(grid.passable(3, 4));
+        Assert.assertFalse(grid.passable(2, 5));
+    }
+
     @Test
     public void setTileCoord()
     {
@@ -1073,36 +1561,91 @@ public class WorldTest extends CoreTest
     }
 
     @Test
-    public void lookCallsAll()
+    public void lookMatchesLookAll()
     {
-        List<ColoredChar> expectedAll = new ArrayList<ColoredChar>();
-        ColoredChar expectedChar = ColoredChar.create('@');
-        expectedAll.add(expectedChar);
-        expectedAll.add(ColoredChar.create('D'));
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+            {
+                if(x % 2 == 0)
+                    world.addActor(new ActorB(), x, y);
+                if(y % 3 == 0)
+                    world.addActor(new ActorA(), x, y);
+                if(x % 5 == 0)
+                    world.addActor(new ConcreteActor(null), x, y);
+            }
 
-        int x = 3;
-        int y = 5;
-        world = Mockito.spy(world);
-        Mockito.doReturn(expectedAll).when(world).lookAll(x, y);
+        world.getDrawOrder().clear();
+        world.getDrawOrder().add(ActorA.class);
+        world.getDrawOrder().add(ActorB.class);
 
-        Assert.assertSame(expectedChar, world.look(x, y));
-        Mockito.verify(world).lookAll(x, y);
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                Assert.assertSame(world.lookAll(x, y).get(0), world.look(x, y));
+    }
+
+    @Test
+    public void lookBounds()
+    {
+        testBounds(new BoundTest()
+        {
+            @Override
+            public void action(int x, int y)
+            {
+                world.look(x, y);
+            }
+        }, world.width(), world.height());
     }
 
     @Test
     public void lookCoordCallsInt()
     {
-        List<ColoredChar> expectedAll = new ArrayList<ColoredChar>();
         ColoredChar expectedChar = ColoredChar.create('@');
-        expectedAll.add(expectedChar);
-        expectedAll.add(ColoredChar.create('D'));
-
         Coordinate pos = new Coordinate(5, 3);
         world = Mockito.spy(world);
-        Mockito.doReturn(expectedAll).when(world).lookAll(pos.x(), pos.y());
+        Mockito.doReturn(expectedChar).when(world).tileAt(pos.x(), pos.y());
 
         Assert.assertSame(expectedChar, world.look(pos));
-        Mockito.verify(world).lookAll(pos.x(), pos.y());
+        Mockito.verify(world).tileAt(pos.x(), pos.y());
+    }
+
+    @Test
+    public void lookFollowsTileAtOverride()
+    {
+        final ColoredChar fog = ColoredChar.create('?');
+        world = new ConcreteWorld()
+        {
+            @Override
+            public ColoredChar tileAt(int x, int y)
+            {
+                return x < 4 ? fog : super.tileAt(x, y);
+            }
+        };
+        world.addActor(actor, 2, 2);
+
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                Assert.assertSame(world.lookAll(x, y).get(0), world.look(x, y));
+        Assert.assertSame(fog, world.look(1, 1));
+        Assert.assertSame(actor.face(), world.look(2, 2));
+    }
+
+    @Test
+    public void lookAllBufferReused()
+    {
+        world.addActor(actor, 3, 5);
+        List<ColoredChar> buffer = new ArrayList<ColoredChar>();
+        buffer.add(ColoredChar.create('x'));
+
+        Assert.assertSame(buffer, world.lookAll(3, 5, buffer));
+        Assert.assertEquals(world.lookAll(3, 5), buffer);
+        Assert.assertSame(buffer, world.lookAll(0, 0, buffer));
+        Assert.assertEquals(world.lookAll(0, 0), buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lookAllNullBuffer()
+    {
+        world.lookAll(0, 0, null);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -0,0 +1,143 @@
+package test.fov;
+
+import jade.core.World;
+import jade.fov.CachedViewField;
+import jade.fov.FieldOfView;
+import jade.fov.RayCaster;
+import jade.fov.ShadowCaster;
+import jade.fov.ViewField;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.Collection;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class CachedViewFieldTest
+{
+    private World world;
+    private CountingCaster caster;
+    private CachedViewField cache;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getSinglePillar();
+        caster = new CountingCaster();
+        cache = new CachedViewField(caster);
+    }
+
+    @Test
+    public void repeatedQueryCached()
+    {
+        Collection<Coordinate> first = cache.getViewField(world, 3, 3, 5);
+        Assert.assertEquals(8, caster.octants);
+        Assert.assertSame(first, cache.getViewField(world, 3, 3, 5));
+        Assert.assertEquals(8, caster.octants);
+        Assert.assertEquals(new ShadowCaster().getViewField(world, 3, 3, 5), first);
+    }
+
+    @Test
+    public void faceChangeIgnored()
+    {
+        cache.getViewField(world, 3, 3, 5);
+        world.setTile(ColoredChar.create('~'), true, 4, 4);
+        cache.getViewField(world, 3, 3, 5);
+        Assert.assertEquals(8, caster.octants);
+    }
+
+    @Test
+    public void farChangeIgnored()
+    {
+        cache.getViewField(world, 3, 3, 2);
+        world.setTile(ColoredChar.create('#'), false, 10, 10);
+        cache.getViewField(world, 3, 3, 2);
+        Assert.assertEquals(8, caster.octants);
+    }
+
+    @Test
+    public void nearChangeRecalculatesOctants()
+    {
+        cache.getViewField(world, 3, 3, 8);
+        world.setTile(ColoredChar.create('#'), false, 6, 4);
+        Collection<Coordinate> actual = cache.getViewField(world, 3, 3, 8);
+
+        Assert.assertTrue(caster.octants > 8 && caster.octants < 16);
+        Assert.assertEquals(new ShadowCaster().getViewField(world, 3, 3, 8), actual);
+    }
+
+    @Test
+    public void randomChangesMatch()
+    {
+        Dice dice = new Dice(7);
+        ViewField fresh = new ShadowCaster();
+        for(int i = 0; i < 200; i++)
+        {
+            int x = dice.nextInt(1, 11);
+            int y = dice.nextInt(1, 11);
+            world.setTile(ColoredChar.create('#'), !dice.chance(30), x, y);
+            Assert.assertEquals(fresh.getViewField(world, 5, 5, 6), cache.getViewField(world, 5,
+                    5, 6));
+        }
+    }
+
+    @Test
+    public void historyOverflowRecalculates()
+    {
+        cache.getViewField(world, 3, 3, 8);
+        for(int i = 0; i <= World.PASSABLE_HISTORY; i++)
+            world.setTile(ColoredChar.create('#'), i % 2 == 0, 10, 10);
+        world.setTile(ColoredChar.create('#'), false, 4, 3);
+        Assert.assertEquals(new ShadowCaster().getViewField(world, 3, 3, 8), cache.getViewField(
+                world, 3, 3, 8));
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted()
+    {
+        cache = new CachedViewField(caster, 2);
+        cache.getViewField(world, 3, 3, 4);
+        cache.getViewField(world, 8, 8, 4);
+        cache.getViewField(world, 3, 3, 4);
+        cache.getViewField(world, 9, 2, 4);
+        Assert.assertEquals(24, caster.octants);
+        cache.getViewField(world, 3, 3, 4);
+        Assert.assertEquals(24, caster.octants);
+        Assert.assertEquals(new ShadowCaster().getViewField(world, 8, 8, 4), cache.getViewField(
+                world, 8, 8, 4));
+        Assert.assertEquals(32, caster.octants);
+    }
+
+    @Test
+    public void wholeViewFieldRecalculated()
+    {
+        cache = new CachedViewField(new RayCaster());
+        cache.getViewField(world, 3, 3, 8);
+        world.setTile(ColoredChar.create('#'), false, 5, 5);
+        Assert.assertEquals(new RayCaster().getViewField(world, 3, 3, 8), cache.getViewField(
+                world, 3, 3, 8));
+    }
+
+    @Test
+    public void fieldOfViewCopied()
+    {
+        FieldOfView buffer = new FieldOfView(0, 0, 0);
+        cache.getFieldOfView(world, 3, 3, 5, buffer);
+        Assert.assertNotSame(buffer, cache.getViewField(world, 3, 3, 5));
+        Assert.assertEquals(cache.getViewField(world, 3, 3, 5), buffer);
+    }
+
+    private static class CountingCaster extends ShadowCaster
+    {
+        public int octants;
+
+        @Override
+        protected void calcOctant(World world, int x, int y, int r, FieldOfView fov, int octant)
+        {
+            octants++;
+            super.calcOctant(world, x, y, r, fov, octant);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package test.fov;
+
+import jade.fov.FieldOfView;
+import jade.util.datatype.Coordinate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldOfViewTest
+{
+    private FieldOfView fov;
+
+    @Before
+    public void init()
+    {
+        fov = new FieldOfView(10, 10, 3);
+    }
+
+    @Test
+    public void addContains()
+    {
+        Assert.assertTrue(fov.add(10, 10));
+        Assert.assertFalse(fov.add(new Coordinate(10, 10)));
+        Assert.assertTrue(fov.add(13, 7));
+        Assert.assertTrue(fov.contains(10, 10));
+        Assert.assertTrue(fov.contains(new Coordinate(13, 7)));
+        Assert.assertFalse(fov.contains(12, 7));
+        Assert.assertEquals(2, fov.size());
+    }
+
+    @Test
+    public void containsOutside()
+    {
+        Assert.assertFalse(fov.contains(14, 10));
+        Assert.assertFalse(fov.contains(10, 6));
+        Assert.assertFalse(fov.contains("(10, 10)"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void addOutside()
+    {
+        fov.add(14, 10);
+    }
+
+    @Test
+    public void remove()
+    {
+        fov.add(9, 11);
+        Assert.assertFalse(fov.remove(9, 12));
+        Assert.assertTrue(fov.remove(new Coordinate(9, 11)));
+        Assert.assertFalse(fov.contains(9, 11));
+        Assert.assertTrue(fov.isEmpty());
+    }
+
+    @Test
+    public void nextCellVisitsAll()
+    {
+        FieldOfView wide = new FieldOfView(0, 0, 40);
+        Set<Coordinate> expected = new HashSet<Coordinate>();
+        for(int x = -40; x <= 40; x += 7)
+            for(int y = -40; y <= 40; y += 3)
+            {
+                wide.add(x, y);
+                expected.add(new Coordinate(x, y));
+            }
+
+        Set<Coordinate> actual = new HashSet<Coordinate>();
+        for(int cell = wide.nextCell(0); cell >= 0; cell = wide.nextCell(cell + 1))
+            actual.add(new Coordinate(wide.cellX(cell), wide.cellY(cell)));
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected, wide);
+        Assert.assertEquals(wide, expected);
+    }
+
+    @Test
+    public void iteratorRemove()
+    {
+        fov.add(8, 8);
+        fov.add(12, 12);
+        Iterator<Coordinate> iter = fov.iterator();
+        Assert.assertEquals(new Coordinate(8, 8), iter.next());
+        iter.remove();
+        Assert.assertEquals(new Coordinate(12, 12), iter.next());
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertEquals(1, fov.size());
+        Assert.assertFalse(fov.contains(8, 8));
+    }
+
+    @Test
+    public void resetClears()
+    {
+        fov.add(10, 10);
+        fov.reset(50, 50, 1);
+        Assert.assertTrue(fov.isEmpty());
+        Assert.assertFalse(fov.contains(10, 10));
+        Assert.assertEquals(50, fov.originX());
+        Assert.assertEquals(1, fov.radius());
+        fov.add(51, 49);
+        Assert.assertTrue(fov.contains(51, 49));
+        Assert.assertEquals(1, fov.size());
+    }
+
+    @Test
+    public void union()
+    {
+        FieldOfView other = new FieldOfView(80, 12, 2);
+        fov.add(10, 10);
+        fov.add(7, 13);
+        other.add(82, 10);
+        other.add(7 + 71, 13);
+
+        FieldOfView union = fov.union(other);
+        Assert.assertEquals(4, union.size());
+        Assert.assertTrue(union.contains(10, 10));
+        Assert.assertTrue(union.contains(7, 13));
+        Assert.assertTrue(union.contains(82, 10));
+        Assert.assertTrue(union.contains(78, 13));
+        Assert.assertEquals(10, union.originX());
+        Assert.assertEquals(72, union.radius());
+    }
+
+    @Test
+    public void intersection()
+    {
+        FieldOfView other = new FieldOfView(12, 11, 3);
+        for(int x = 7; x <= 13; x++)
+        {
+            fov.add(x, 10);
+            if(x >= 9)
+                other.add(x, 10);
+        }
+        other.add(15, 14);
+
+        FieldOfView both = fov.intersection(other);
+        Set<Coordinate> expected = new HashSet<Coordinate>();
+        for(int x = 9; x <= 13; x++)
+            expected.add(new Coordinate(x, 10));
+        Assert.assertEquals(expected, both);
+        Assert.assertEquals(5, both.size());
+    }
+
+    @Test
+    public void intersectionDisjoint()
+    {
+        FieldOfView other = new FieldOfView(30, 30, 3);
+        fov.add(10, 10);
+        other.add(30, 30);
+        Assert.assertTrue(fov.intersection(other).isEmpty());
+    }
+}
@@ -0,0 +1,189 @@
+package test.fov;
+
+import jade.core.World;
+import jade.fov.Light;
+import jade.fov.LightMap;
+import jade.fov.ShadowCaster;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import java.awt.Color;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class LightMapTest
+{
+    private World world;
+    private LightMap lights;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getEmptyMap();
+        lights = new LightMap(world);
+    }
+
+    @Test
+    public void lightFallsOff()
+    {
+        lights.addLight(new Light(6, 6, 3, Color.WHITE));
+        Assert.assertEquals(0, lights.rgb(6, 6));
+        lights.update();
+
+        Assert.assertEquals(0xFFFFFF, lights.rgb(6, 6));
+        Assert.assertTrue(lights.red(7, 6) < 255 && lights.red(7, 6) > lights.red(8, 6));
+        Assert.assertTrue(lights.red(9, 6) > 0);
+        Assert.assertEquals(0, lights.red(10, 6));
+        Assert.assertEquals(0, lights.red(6, 10));
+    }
+
+    @Test
+    public void lightsAdd()
+    {
+        Color dim = new Color(100, 0, 0);
+        lights.addLight(new Light(4, 6, 4, dim));
+        lights.update();
+        int alone = lights.red(6, 6);
+        lights.addLight(new Light(8, 6, 4, dim));
+        lights.addLight(new Light(6, 6, 4, Color.BLUE));
+        lights.update();
+
+        Assert.assertEquals(2 * alone, lights.red(6, 6));
+        Assert.assertEquals(0, lights.green(6, 6));
+        Assert.assertEquals(255, lights.blue(6, 6));
+        Assert.assertEquals(lights.red(8, 6), lights.red(4, 6));
+    }
+
+    @Test
+    public void lightMoves()
+    {
+        Light light = new Light(3, 3, 2, Color.GREEN);
+        lights.addLight(light);
+        lights.update();
+        light.setPos(9, 9);
+        Assert.assertEquals(1, lights.update());
+
+        Assert.assertEquals(0, lights.green(3, 3));
+        Assert.assertEquals(255, lights.green(9, 9));
+        Assert.assertEquals(0, lights.update());
+    }
+
+    @Test
+    public void lightSharedByMaps()
+    {
+        LightMap other = new LightMap(world);
+        Light light = new Light(3, 3, 2, Color.GREEN);
+        lights.addLight(light);
+        other.addLight(light);
+        lights.update();
+        other.update();
+        light.setPos(9, 9);
+        light.setColor(Color.RED);
+
+        Assert.assertEquals(1, lights.update());
+        Assert.assertEquals(1, other.update());
+        for(LightMap map : new LightMap[] {lights, other})
+        {
+            Assert.assertEquals(0, map.rgb(3, 3));
+            Assert.assertEquals(0xFF0000, map.rgb(9, 9));
+        }
+        other.removeLight(light);
+        Assert.assertEquals(0xFF0000, lights.rgb(9, 9));
+        Assert.assertEquals(0, other.rgb(9, 9));
+    }
+
+    @Test
+    public void lightMovedBackNotRecalculated()
+    {
+        Light light = new Light(3, 3, 2, Color.GREEN);
+        lights.addLight(light);
+        lights.update();
+        light.setPos(4, 4);
+        light.setPos(3, 3);
+
+        Assert.assertEquals(0, lights.update());
+    }
+
+    @Test
+    public void lightRemoved()
+    {
+        Light light = new Light(6, 6, 5, Color.WHITE);
+        lights.addLight(light);
+        lights.update();
+        lights.removeLight(light);
+
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                Assert.assertEquals(0, lights.rgb(x, y));
+    }
+
+    @Test
+    public void onlyReachingLightsRecalculated()
+    {
+        lights.addLight(new Light(3, 3, 2, Color.WHITE));
+        lights.addLight(new Light(9, 9, 2, Color.WHITE));
+        lights.update();
+        world.setTile(ColoredChar.create('#'), false, 4, 5);
+        Assert.assertEquals(1, lights.update());
+        world.setTile(ColoredChar.create('~'), false, 4, 5);
+        Assert.assertEquals(0, lights.update());
+    }
+
+    @Test
+    public void wallCastsShadow()
+    {
+        lights.addLight(new Light(3, 6, 6, Color.WHITE));
+        lights.update();
+        Assert.assertTrue(lights.red(6, 6) > 0);
+        world.setTile(ColoredChar.create('#'), false, 5, 6);
+        lights.update();
+
+        Assert.assertTrue(lights.red(5, 6) > 0);
+        Assert.assertEquals(0, lights.red(6, 6));
+    }
+
+    @Test
+    public void historyOverflowRecalculates()
+    {
+        lights.addLight(new Light(3, 6, 6, Color.WHITE));
+        lights.update();
+        for(int i = 0; i <= World.PASSABLE_HISTORY; i++)
+            world.setTile(ColoredChar.create('#'), i % 2 == 0, 11, 11);
+        world.setTile(ColoredChar.create('#'), false, 5, 6);
+
+        Assert.assertEquals(1, lights.update());
+        Assert.assertEquals(0, lights.red(6, 6));
+    }
+
+    @Test
+    public void randomChangesMatch()
+    {
+        Dice dice = new Dice(11);
+        Light[] moving = new Light[4];
+        for(int i = 0; i < moving.length; i++)
+        {
+            moving[i] = new Light(6, 6, dice.nextInt(1, 5), Color.ORANGE);
+            lights.addLight(moving[i]);
+        }
+        lights.addLight(new Light(2, 2, 4, Color.CYAN));
+        lights.addLight(new Light(10, 3, 6, Color.MAGENTA));
+
+        for(int i = 0; i < 100; i++)
+        {
+            world.setTile(ColoredChar.create('#'), !dice.chance(30), dice.nextInt(1, 11), dice
+                    .nextInt(1, 11));
+            Light light = moving[dice.nextInt(0, moving.length - 1)];
+            light.setPos(dice.nextInt(1, 11), dice.nextInt(1, 11));
+            lights.update();
+
+            LightMap fresh = new LightMap(world, new ShadowCaster());
+            for(Light each : lights.getLights())
+                fresh.addLight(new Light(each.x(), each.y(), each.radius(), each.color()));
+            fresh.update();
+            for(int x = 0; x < world.width(); x++)
+                for(int y = 0; y < world.height(); y++)
+                    Assert.assertEquals(fresh.rgb(x, y), lights.rgb(x, y));
+        }
+    }
+}
@@ -1,7 +1,19 @@
 package test.fov;
 
+import jade.core.World;
 import jade.fov.RayCaster;
 import jade.fov.ViewField;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.Assert;
+import org.junit.Test;
+import test.WorldBuilder;
 
 public class RayCasterTest extends ViewFieldImplTest
 {
@@ -10,4 +22,56 @@ public class RayCasterTest extends ViewFieldImplTest
     {
         return new RayCaster();
     }
+
+    @Test
+    public void raysStopAtWorldEdge()
+    {
+        World world = new World(5, 5)
+        {};
+        Collection<Coordinate> actual = viewField.getViewField(world, 1, 1, 6);
+
+        Assert.assertEquals(25, actual.size());
+        for(int x = 0; x < 5; x++)
+            for(int y = 0; y < 5; y++)
+                Assert.assertTrue(actual.contains(new Coordinate(x, y)));
+    }
+
+    @Test
+    public void radiiAddedConcurrently() throws Exception
+    {
+        final World world = WorldBuilder.getSinglePillar();
+        final ViewField shared = new RayCaster();
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for(int i = 0; i < 4; i++)
+        {
+            final int first = i;
+            tasks.add(new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                {
+                    for(int k = 0; k < 12; k++)
+                    {
+                        int r = (first * 5 + k * 7) % 12 + 1;
+                        Collection<Coordinate> expected = new RayCaster().getViewField(world, 6,
+                                5, r);
+                        if(!expected.equals(shared.getViewField(world, 6, 5, r)))
+                            return false;
+                    }
+                    return true;
+                }
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try
+        {
+            for(Future<Boolean> result : pool.invokeAll(tasks))
+                Assert.assertTrue(result.get());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package test.fov;
+
+import jade.core.World;
+import jade.fov.FieldOfView;
+import jade.fov.SymmetricShadowCaster;
+import jade.fov.ViewField;
+import jade.fov.ViewFieldBatch;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.Assert;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class SymmetricShadowCasterTest extends ViewFieldImplTest
+{
+    @Override
+    protected ViewField getInstance()
+    {
+        return new SymmetricShadowCaster();
+    }
+
+    @Test
+    public void passableTilesSymmetric()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        Dice dice = new Dice(3);
+        for(int i = 0; i < 25; i++)
+            world.setTile(ColoredChar.create('#'), false, dice.nextInt(1, 11), dice.nextInt(1, 11));
+
+        List<Coordinate> open = new ArrayList<Coordinate>();
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                if(world.passableAt(x, y))
+                    open.add(new Coordinate(x, y));
+        List<FieldOfView> fields = new ViewFieldBatch(viewField).getFieldsOfView(world, open, 12);
+
+        for(int a = 0; a < open.size(); a++)
+            for(int b = 0; b < open.size(); b++)
+                Assert.assertEquals(fields.get(a).contains(open.get(b)), fields.get(b).contains(
+                        open.get(a)));
+    }
+
+    @Test
+    public void wallVisibleWhenTouched()
+    {
+        World world = WorldBuilder.getSinglePillar();
+        Assert.assertTrue(viewField.getViewField(world, 6, 9, 5).contains(new Coordinate(6, 6)));
+    }
+
+    @Test
+    public void outsideWorldNotVisible()
+    {
+        World world = new World(5, 5)
+        {};
+        FieldOfView actual = viewField.getFieldOfView(world, 1, 1, 6);
+        Assert.assertEquals(25, actual.size());
+    }
+
+    @Test
+    public void whoCanSeeMatchesFields()
+    {
+        World world = WorldBuilder.getSinglePillar();
+        List<Coordinate> observers = new ArrayList<Coordinate>();
+        for(int x = 1; x <= 11; x++)
+            for(int y = 1; y <= 11; y += 2)
+                observers.add(new Coordinate(x, y));
+        boolean[] actual = new ViewFieldBatch(viewField).whoCanSee(world, 6, 8, observers, 7);
+
+        for(int i = 0; i < observers.size(); i++)
+            Assert.assertEquals(viewField.getViewField(world, observers.get(i), 7).contains(
+                    new Coordinate(6, 8)), actual[i]);
+    }
+}
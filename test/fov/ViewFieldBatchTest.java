@@ -0,0 +1,179 @@
+package test.fov;
+
+import jade.core.World;
+import jade.fov.CircleClip;
+import jade.fov.FieldOfView;
+import jade.fov.ShadowCaster;
+import jade.fov.SymmetricShadowCaster;
+import jade.fov.ViewField;
+import jade.fov.ViewFieldBatch;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class ViewFieldBatchTest
+{
+    private World world;
+    private List<Coordinate> observers;
+    private int[] radii;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getSinglePillar();
+        observers = new ArrayList<Coordinate>();
+        for(int x = 1; x <= 11; x += 2)
+            for(int y = 1; y <= 11; y += 3)
+                observers.add(new Coordinate(x, y));
+        radii = new int[observers.size()];
+        for(int i = 0; i < radii.length; i++)
+            radii[i] = 2 + i % 7;
+    }
+
+    @Test
+    public void fieldsMatchSingle()
+    {
+        ViewField caster = new ShadowCaster();
+        List<FieldOfView> actual = new ViewFieldBatch(caster).getFieldsOfView(world, observers,
+                radii);
+
+        Assert.assertEquals(observers.size(), actual.size());
+        for(int i = 0; i < radii.length; i++)
+            Assert.assertEquals(caster.getViewField(world, observers.get(i), radii[i]), actual
+                    .get(i));
+    }
+
+    @Test
+    public void fieldsParallel()
+    {
+        ViewField caster = new ShadowCaster();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<FieldOfView> serial = new ViewFieldBatch(caster).getFieldsOfView(world, observers, 6);
+        List<FieldOfView> parallel = new ViewFieldBatch(caster, pool).getFieldsOfView(world,
+                observers, 6);
+        pool.shutdown();
+
+        Assert.assertEquals(serial, parallel);
+    }
+
+    @Test
+    public void fieldsReuseResults()
+    {
+        ViewFieldBatch batch = new ViewFieldBatch(new ShadowCaster());
+        List<FieldOfView> results = new ArrayList<FieldOfView>();
+        for(int i = 0; i < observers.size() + 3; i++)
+            results.add(new FieldOfView(0, 0, 0));
+        FieldOfView first = results.get(0);
+
+        Assert.assertSame(results, batch.getFieldsOfView(world, observers, radii, results));
+        Assert.assertEquals(observers.size(), results.size());
+        Assert.assertSame(first, results.get(0));
+        Assert.assertEquals(observers.get(0).x(), first.originX());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fieldsRadiiMismatch()
+    {
+        new ViewFieldBatch(new ShadowCaster()).getFieldsOfView(world, observers, new int[1]);
+    }
+
+    @Test
+    public void whoCanSeeMatchesFields()
+    {
+        ViewField caster = new ShadowCaster();
+        boolean[] actual = new ViewFieldBatch(caster).whoCanSee(world, 6, 8, observers, radii);
+
+        for(int i = 0; i < radii.length; i++)
+            Assert.assertEquals(caster.getViewField(world, observers.get(i), radii[i]).contains(
+                    new Coordinate(6, 8)), actual[i]);
+    }
+
+    @Test
+    public void whoCanSeeSymmetricCastsOnce()
+    {
+        world = WorldBuilder.getEmptyMap();
+        CountingCaster caster = new CountingCaster();
+        boolean[] actual = new ViewFieldBatch(caster).whoCanSee(world, 6, 6, observers, radii);
+
+        Assert.assertEquals(1, caster.casts);
+        for(int i = 0; i < radii.length; i++)
+        {
+            Collection<Coordinate> fov = new ShadowCaster().getViewField(world, observers.get(i),
+                    radii[i]);
+            Assert.assertEquals(fov.contains(new Coordinate(6, 6)), actual[i]);
+        }
+    }
+
+    @Test
+    public void whoCanSeePostProcessed()
+    {
+        world = WorldBuilder.getEmptyMap();
+        CountingCaster caster = new CountingCaster();
+        caster.getPostProcesses().add(new CircleClip());
+        boolean[] actual = new ViewFieldBatch(caster).whoCanSee(world, 6, 6, observers, radii);
+
+        Assert.assertTrue(caster.casts > 1);
+        boolean clipped = false;
+        for(int i = 0; i < radii.length; i++)
+        {
+            Coordinate observer = observers.get(i);
+            boolean expected = caster.getViewField(world, observer, radii[i]).contains(
+                    new Coordinate(6, 6));
+            Assert.assertEquals(expected, actual[i]);
+            clipped |= !expected && Math.abs(observer.x() - 6) <= radii[i]
+                    && Math.abs(observer.y() - 6) <= radii[i];
+        }
+        Assert.assertTrue(clipped);
+    }
+
+    @Test
+    public void whoCanSeeImpassableCell()
+    {
+        world = WorldBuilder.getEmptyMap();
+        world.setTile(ColoredChar.create('#'), false, 9, 2);
+        world.setTile(ColoredChar.create('#'), false, 10, 3);
+        ViewField caster = new SymmetricShadowCaster();
+        boolean[] actual = new ViewFieldBatch(caster).whoCanSee(world, 10, 3, observers, radii);
+
+        for(int i = 0; i < radii.length; i++)
+            Assert.assertEquals(caster.getViewField(world, observers.get(i), radii[i]).contains(
+                    new Coordinate(10, 3)), actual[i]);
+        Assert.assertTrue(actual[observers.indexOf(new Coordinate(7, 1))]);
+    }
+
+    @Test
+    public void whoCanSeeOutOfRange()
+    {
+        CountingCaster caster = new CountingCaster();
+        boolean[] actual = new ViewFieldBatch(caster).whoCanSee(world, 6, 6, observers, 0);
+
+        Assert.assertEquals(0, caster.casts);
+        for(boolean seen : actual)
+            Assert.assertFalse(seen);
+    }
+
+    private static class CountingCaster extends ShadowCaster
+    {
+        public int casts;
+
+        @Override
+        public boolean symmetric()
+        {
+            return true;
+        }
+
+        @Override
+        protected void calcFieldOfView(World world, int x, int y, int r, FieldOfView fov)
+        {
+            casts++;
+            super.calcFieldOfView(world, x, y, r, fov);
+        }
+    }
+}
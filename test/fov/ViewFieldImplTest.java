@@ -1,6 +1,7 @@
 package test.fov;
 
 import jade.core.World;
+import jade.fov.FieldOfView;
 import jade.fov.ViewField;
 import jade.util.datatype.Coordinate;
 import java.util.Collection;
@@ -203,4 +204,17 @@ public abstract class ViewFieldImplTest
             for(int y = 6; y <= 11; y++)
                 Assert.assertFalse(actual.contains(new Coordinate(x, y)));
     }
+
+    @Test
+    public void reusedBufferMatches()
+    {
+        World world = WorldBuilder.getSinglePillar();
+        FieldOfView buffer = new FieldOfView(0, 0, 1);
+
+        Assert.assertSame(buffer, viewField.getFieldOfView(world, 6, 5, 10, buffer));
+        Assert.assertEquals(viewField.getViewField(world, 6, 5, 10), buffer);
+        viewField.getFieldOfView(world, 3, 9, 4, buffer);
+        Assert.assertEquals(viewField.getViewField(world, 3, 9, 4), buffer);
+        Assert.assertEquals(3, buffer.originX());
+    }
 }
@@ -0,0 +1,274 @@
+package test.fov;
+
+import jade.core.World;
+import jade.fov.CachedViewField;
+import jade.fov.CircleClip;
+import jade.fov.FieldOfView;
+import jade.fov.LightFalloff;
+import jade.fov.SeenMarker;
+import jade.fov.ShadowCaster;
+import jade.fov.ViewField;
+import jade.fov.ViewFieldPostProcess;
+import jade.fov.WallLighting;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class ViewFieldPostProcessTest
+{
+    private World world;
+    private ViewField caster;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getEmptyMap();
+        caster = new ShadowCaster();
+    }
+
+    @Test
+    public void circleClip()
+    {
+        caster.getPostProcesses().add(new CircleClip());
+        FieldOfView fov = caster.getFieldOfView(world, 6, 6, 3);
+
+        Assert.assertTrue(fov.contains(9, 6));
+        Assert.assertTrue(fov.contains(8, 8));
+        Assert.assertTrue(fov.contains(9, 7));
+        Assert.assertFalse(fov.contains(9, 9));
+        Assert.assertFalse(fov.contains(9, 8));
+    }
+
+    @Test
+    public void wallLightingRemovesHidden()
+    {
+        world = WorldBuilder.getSinglePillar();
+        FieldOfView fov = new FieldOfView(6, 5, 1);
+        fov.add(6, 5);
+        fov.add(6, 6);
+        fov.add(7, 6);
+        world.setTile(world.tileAt(7, 6), false, 7, 6);
+        fov.remove(7, 5);
+
+        List<ViewFieldPostProcess> chain = new ArrayList<ViewFieldPostProcess>();
+        chain.add(new WallLighting());
+        ViewFieldPostProcess.process(chain, fov, world);
+
+        Assert.assertTrue(fov.contains(6, 6));
+        Assert.assertTrue(fov.contains(7, 6));
+        Assert.assertTrue(fov.contains(6, 5));
+
+        fov.reset(6, 4, 2);
+        fov.add(6, 4);
+        fov.add(6, 6);
+        ViewFieldPostProcess.process(chain, fov, world);
+        Assert.assertFalse(fov.contains(6, 6));
+    }
+
+    @Test
+    public void lightFalloff()
+    {
+        LightFalloff falloff = new LightFalloff(100);
+        caster.getPostProcesses().add(falloff);
+        caster.getFieldOfView(world, 6, 6, 4);
+
+        Assert.assertEquals(100, falloff.level(6, 6));
+        Assert.assertEquals(60, falloff.level(8, 6));
+        Assert.assertTrue(falloff.level(9, 9) < falloff.level(8, 8));
+        Assert.assertEquals(20, falloff.level(2, 6));
+        Assert.assertEquals(0, falloff.level(0, 0));
+        Assert.assertEquals(0, falloff.level(20, 6));
+    }
+
+    @Test
+    public void seenMarkerRemembers()
+    {
+        SeenMarker marker = new SeenMarker();
+        caster.getPostProcesses().add(marker);
+        caster.getViewField(world, 3, 3, 1);
+        caster.getViewField(world, 9, 9, 1);
+
+        Assert.assertTrue(marker.seen(2, 2));
+        Assert.assertTrue(marker.seen(10, 10));
+        Assert.assertFalse(marker.seen(6, 6));
+        marker.clear();
+        Assert.assertFalse(marker.seen(2, 2));
+    }
+
+    @Test
+    public void chainStopsAtRemoval()
+    {
+        SeenMarker marker = new SeenMarker();
+        caster.getPostProcesses().add(new CircleClip());
+        caster.getPostProcesses().add(marker);
+        caster.getViewField(world, 6, 6, 3);
+
+        Assert.assertTrue(marker.seen(9, 6));
+        Assert.assertFalse(marker.seen(9, 9));
+    }
+
+    @Test
+    public void collectionProcessed()
+    {
+        Collection<Coordinate> field = new HashSet<Coordinate>();
+        for(int x = 3; x <= 9; x++)
+            for(int y = 3; y <= 9; y++)
+                field.add(new Coordinate(x, y));
+        new CircleClip().process(field, world, 6, 6, 3);
+
+        Assert.assertTrue(field.contains(new Coordinate(9, 6)));
+        Assert.assertFalse(field.contains(new Coordinate(9, 9)));
+        Assert.assertEquals(37, field.size());
+    }
+
+    @Test
+    public void cacheNotModified()
+    {
+        CachedViewField cache = new CachedViewField(caster);
+        Collection<Coordinate> full = new HashSet<Coordinate>(cache.getViewField(world, 6, 6, 3));
+        cache.getPostProcesses().add(new CircleClip());
+
+        Assert.assertEquals(37, cache.getViewField(world, 6, 6, 3).size());
+        cache.getPostProcesses().clear();
+        Assert.assertEquals(full, cache.getViewField(world, 6, 6, 3));
+    }
+
+    @Test
+    public void fusedMatchesSequential()
+    {
+        world = new World(40, 40)
+        {};
+        Dice dice = new Dice(7);
+        for(int x = 0; x < 40; x++)
+            for(int y = 0; y < 40; y++)
+                if(x == 0 || y == 0 || x == 39 || y == 39 || dice.chance(30))
+                    world.setTile(ColoredChar.create('#'), false, x, y);
+        ViewFieldPostProcess lighting = new WallLighting();
+        ViewFieldPostProcess clip = new CircleClip();
+        // removes some of the floor which WallLighting looks at, so the walls it keeps depend on
+        // whether it sees the floor before or after the removals
+        ViewFieldPostProcess holes = new ViewFieldPostProcess()
+        {
+            @Override
+            public void process(Collection<Coordinate> field, World world, int x, int y, int r)
+            {
+                process(Collections.singletonList(this), field, world, x, y, r);
+            }
+
+            @Override
+            protected boolean fusable()
+            {
+                return true;
+            }
+
+            @Override
+            protected boolean processCell(FieldOfView field, World world, int x, int y)
+            {
+                return !world.passableAt(x, y) || (x + 2 * y) % 5 != 0
+                        || (x == field.originX() && y == field.originY());
+            }
+        };
+
+        boolean orderMatters = false;
+        for(int i = 0; i < 200; i++)
+        {
+            Coordinate origin = world.getOpenTile(dice);
+            int r = dice.nextInt(2, 8);
+            FieldOfView field = caster.getFieldOfView(world, origin.x(), origin.y(), r);
+            assertFusedMatchesSequential(field, world, clip, lighting);
+            assertFusedMatchesSequential(field, world, holes, lighting);
+
+            FieldOfView forward = new FieldOfView(origin.x(), origin.y(), r);
+            forward.addAll(field);
+            holes.process(forward, world, origin.x(), origin.y(), r);
+            lighting.process(forward, world, origin.x(), origin.y(), r);
+            FieldOfView reversed = new FieldOfView(origin.x(), origin.y(), r);
+            reversed.addAll(field);
+            lighting.process(reversed, world, origin.x(), origin.y(), r);
+            holes.process(reversed, world, origin.x(), origin.y(), r);
+            orderMatters |= !reversed.equals(forward);
+        }
+        Assert.assertTrue(orderMatters);
+    }
+
+    private static void assertFusedMatchesSequential(FieldOfView field, World world,
+            ViewFieldPostProcess first, ViewFieldPostProcess second)
+    {
+        int x = field.originX();
+        int y = field.originY();
+        int r = field.radius();
+        FieldOfView fused = new FieldOfView(x, y, r);
+        fused.addAll(field);
+        ViewFieldPostProcess.process(Arrays.asList(first, second), fused, world);
+        Collection<Coordinate> collection = new HashSet<Coordinate>(field);
+        ViewFieldPostProcess.process(Arrays.asList(first, second), collection, world, x, y, r);
+
+        FieldOfView sequential = new FieldOfView(x, y, r);
+        sequential.addAll(field);
+        first.process(sequential, world, x, y, r);
+        second.process(sequential, world, x, y, r);
+
+        Assert.assertEquals(sequential, fused);
+        Assert.assertEquals(new HashSet<Coordinate>(sequential), collection);
+    }
+
+    @Test
+    public void collectionProcessOverrideHonored()
+    {
+        final Coordinate hidden = new Coordinate(7, 6);
+        ViewFieldPostProcess hider = new ViewFieldPostProcess()
+        {
+            @Override
+            public void process(Collection<Coordinate> field, World world, int x, int y, int r)
+            {
+                field.remove(hidden);
+            }
+        };
+        caster.getPostProcesses().add(new CircleClip());
+        caster.getPostProcesses().add(hider);
+        caster.getPostProcesses().add(new SeenMarker());
+
+        FieldOfView fov = caster.getFieldOfView(world, 6, 6, 3);
+        Assert.assertFalse(fov.contains(7, 6));
+        Assert.assertEquals(36, fov.size());
+        Collection<Coordinate> field = caster.getViewField(world, 6, 6, 3);
+        Assert.assertFalse(field.contains(hidden));
+        Assert.assertEquals(36, field.size());
+    }
+
+    @Test
+    public void processCellNotFusedWithoutOptIn()
+    {
+        final Coordinate hidden = new Coordinate(7, 6);
+        ViewFieldPostProcess hider = new ViewFieldPostProcess()
+        {
+            @Override
+            public void process(Collection<Coordinate> field, World world, int x, int y, int r)
+            {
+                field.remove(hidden);
+            }
+
+            @Override
+            protected boolean processCell(FieldOfView field, World world, int x, int y)
+            {
+                return false;
+            }
+        };
+        caster.getPostProcesses().add(new CircleClip());
+        caster.getPostProcesses().add(hider);
+
+        FieldOfView fov = caster.getFieldOfView(world, 6, 6, 3);
+        Assert.assertFalse(fov.contains(7, 6));
+        Assert.assertTrue(fov.contains(6, 6));
+    }
+}
@@ -1,10 +1,16 @@
 package test.path;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import jade.core.World;
+import jade.gen.map.Cellular;
 import jade.path.AStar;
+import jade.path.CostGrid;
+import jade.path.Heuristic;
 import jade.path.PathFinder;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
 import jade.util.datatype.Coordinate;
 import junit.framework.Assert;
 import org.junit.Test;
@@ -94,4 +100,308 @@ public class AStarTest extends PathFinderImplTests
         expected.add(new Coordinate(2, 7));
         Assert.assertEquals(expected, pathfinder.getPartialPath(world, start, end));
     }
+
+    @Test
+    public void expensiveTerrainAvoided()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        CostGrid costs = new CostGrid(world);
+        for(int y = 1; y <= 10; y++)
+            costs.setCost(6, y, 50);
+        pathfinder = new AStar(Heuristic.OCTILE, costs);
+        List<Coordinate> path = pathfinder.getPath(world, 1, 1, 11, 1);
+        Assert.assertTrue(path.contains(new Coordinate(6, 11)));
+        Assert.assertEquals(new Coordinate(11, 1), path.get(path.size() - 1));
+        for(Coordinate coord : path)
+            Assert.assertTrue(coord.x() != 6 || coord.y() == 11);
+    }
+
+    @Test
+    public void expensiveTerrainCrossedWhenCheaper()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        CostGrid costs = new CostGrid(world);
+        for(int y = 1; y <= 10; y++)
+            costs.setCost(6, y, 3);
+        pathfinder = new AStar(Heuristic.OCTILE, costs);
+        List<Coordinate> path = pathfinder.getPath(world, 1, 1, 11, 1);
+        Assert.assertEquals(10, path.size());
+        Assert.assertTrue(path.contains(new Coordinate(6, 1)));
+    }
+
+    @Test
+    public void costlessTerrainImpassable()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        CostGrid costs = new CostGrid(world);
+        for(int y = 1; y <= 11; y++)
+            costs.setCost(6, y, 0);
+        pathfinder = new AStar(Heuristic.EUCLIDEAN, costs);
+        List<Coordinate> path = pathfinder.getPartialPath(world, 1, 1, 11, 1);
+        Assert.assertEquals(new Coordinate(5, 1), path.get(path.size() - 1));
+    }
+
+    @Test
+    public void admissibleHeuristicsOptimal()
+    {
+        World world = WorldBuilder.getMaze();
+        Coordinate start = new Coordinate(6, 6);
+        Coordinate end = new Coordinate(1, 1);
+        double expected = length(start, pathfinder.getPath(world, start, end));
+        for(Heuristic heuristic : new Heuristic[] {Heuristic.EUCLIDEAN, Heuristic.OCTILE,
+                Heuristic.CHEBYSHEV})
+        {
+            List<Coordinate> path = new AStar(heuristic).getPath(world, start, end);
+            Assert.assertEquals(expected, length(start, path), 1e-9);
+        }
+    }
+
+    @Test
+    public void admissibleWhenWeighted()
+    {
+        World world = WorldBuilder.getWallNS();
+        CostGrid costs = new CostGrid(world);
+        for(int y = 0; y < world.height(); y++)
+            for(int x = 0; x < world.width(); x++)
+                costs.setCost(x, y, 4);
+        Coordinate start = new Coordinate(5, 1);
+        Coordinate end = new Coordinate(7, 1);
+        double expected = length(start, pathfinder.getPath(world, start, end));
+        List<Coordinate> path = new AStar(Heuristic.OCTILE, costs).getPath(world, start, end);
+        Assert.assertEquals(expected, length(start, path), 1e-9);
+    }
+
+    @Test
+    public void manhattanReachesEnd()
+    {
+        World world = WorldBuilder.getMaze();
+        Coordinate end = new Coordinate(1, 1);
+        List<Coordinate> path = new AStar(Heuristic.MANHATTAN).getPath(world, 6, 6, 1, 1);
+        Assert.assertEquals(end, path.get(path.size() - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedCostGridRejected()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        pathfinder = new AStar(Heuristic.OCTILE, new CostGrid(5, 5));
+        pathfinder.getPath(world, 1, 1, 3, 3);
+    }
+
+    @Test
+    public void bidirectionalOptimal()
+    {
+        Dice dice = new Dice(5);
+        World world = new World(60, 40)
+        {};
+        new Cellular().generate(world, dice);
+        CostGrid costs = new CostGrid(world);
+        for(int i = 0; i < 300; i++)
+        {
+            Coordinate swamp = world.getOpenTile(dice);
+            costs.setCost(swamp.x(), swamp.y(), 3);
+        }
+        AStar both = new AStar(Heuristic.OCTILE, costs);
+        both.setBidirectional(true);
+        AStar forward = new AStar(Heuristic.OCTILE, costs);
+        for(int i = 0; i < 50; i++)
+        {
+            Coordinate start = world.getOpenTile(dice);
+            Coordinate end = world.getOpenTile(dice);
+            List<Coordinate> expected = forward.getPath(world, start, end);
+            List<Coordinate> actual = both.getPath(world, start, end);
+            if(expected == null)
+                Assert.assertNull(actual);
+            else
+                Assert.assertEquals(cost(costs, start, expected), cost(costs, start, actual), 1e-9);
+        }
+    }
+
+    @Test
+    public void bidirectionalAroundWall()
+    {
+        World world = WorldBuilder.getWallNS();
+        Coordinate start = new Coordinate(5, 1);
+        Coordinate end = new Coordinate(7, 1);
+        AStar both = new AStar();
+        both.setBidirectional(true);
+        List<Coordinate> path = both.getPath(world, start, end);
+        Assert.assertEquals(length(start, pathfinder.getPath(world, start, end)), length(start,
+                path), 1e-9);
+        Assert.assertEquals(end, path.get(path.size() - 1));
+    }
+
+    @Test
+    public void bidirectionalSameStartAndEnd()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        AStar both = new AStar();
+        both.setBidirectional(true);
+        Assert.assertTrue(both.getPartialPath(world, 3, 3, 3, 3).isEmpty());
+    }
+
+    @Test
+    public void bidirectionalUnreachable()
+    {
+        World world = WorldBuilder.getBlocked();
+        AStar both = new AStar();
+        both.setBidirectional(true);
+        Assert.assertNull(both.getPath(world, 4, 1, 4, 8));
+        Assert.assertFalse(both.getPartialPath(world, 4, 1, 4, 8).isEmpty());
+    }
+
+    @Test
+    public void expansionLimitGivesPartialPath()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        pathfinder.setExpansionLimit(3);
+        List<Coordinate> path = pathfinder.getPartialPath(world, 1, 1, 11, 1);
+        Assert.assertFalse(path.isEmpty());
+        Assert.assertTrue(path.size() < 10);
+        Assert.assertEquals(new Coordinate(2, 1), path.get(0));
+
+        pathfinder.clearLimits();
+        Assert.assertEquals(10, pathfinder.getPartialPath(world, 1, 1, 11, 1).size());
+    }
+
+    @Test
+    public void componentCheckRejectsUnreachable()
+    {
+        World world = WorldBuilder.getBlocked();
+        AStar checked = new AStar();
+        checked.setComponentCheck(true);
+        Assert.assertTrue(checked.getPartialPath(world, 4, 1, 4, 8).isEmpty());
+        Assert.assertNull(checked.getPath(world, 4, 1, 4, 8));
+        Assert.assertEquals(pathfinder.getPath(world, 4, 1, 2, 6), checked.getPath(world, 4, 1, 2,
+                6));
+    }
+
+    @Test
+    public void componentCheckFollowsChanges()
+    {
+        World world = WorldBuilder.getBlocked();
+        AStar checked = new AStar();
+        checked.setComponentCheck(true);
+        Assert.assertNull(checked.getPath(world, 4, 1, 4, 8));
+        world.setTile(ColoredChar.create('.'), true, 3, 7);
+        Assert.assertEquals(pathfinder.getPath(world, 4, 1, 4, 8), checked.getPath(world, 4, 1, 4,
+                8));
+    }
+
+    @Test
+    public void reusedSearchOptimal()
+    {
+        Dice dice = new Dice(11);
+        World world = new World(40, 30)
+        {};
+        new Cellular().generate(world, dice);
+        CostGrid costs = new CostGrid(world);
+        for(int i = 0; i < 200; i++)
+        {
+            Coordinate swamp = world.getOpenTile(dice);
+            costs.setCost(swamp.x(), swamp.y(), dice.nextInt(2, 5));
+        }
+        AStar reused = new AStar(Heuristic.OCTILE, costs);
+        for(int i = 0; i < 40; i++)
+        {
+            Coordinate start = world.getOpenTile(dice);
+            Coordinate end = world.getOpenTile(dice);
+            double[][] expected = distances(world, costs, end);
+            List<Coordinate> path = reused.getPath(world, start, end);
+            if(expected[start.x()][start.y()] == Double.MAX_VALUE)
+                Assert.assertNull(path);
+            else
+                Assert.assertEquals(expected[start.x()][start.y()], cost(costs, start, path), 1e-9);
+            Assert.assertEquals(path, new AStar(Heuristic.OCTILE, costs).getPath(world, start,
+                    end));
+        }
+    }
+
+    @Test
+    public void reusedAcrossWorldSizes()
+    {
+        World small = WorldBuilder.getMaze();
+        Dice dice = new Dice(3);
+        World large = new World(70, 50)
+        {};
+        new Cellular().generate(large, dice);
+        Coordinate start = large.getOpenTile(dice);
+        Coordinate end = large.getOpenTile(dice);
+        for(int i = 0; i < 3; i++)
+        {
+            Assert.assertEquals(new AStar().getPath(small, 6, 6, 1, 1), pathfinder.getPath(small,
+                    6, 6, 1, 1));
+            Assert.assertEquals(new AStar().getPath(large, start, end), pathfinder.getPath(large,
+                    start, end));
+        }
+    }
+
+    /*
+     * The cost of the cheapest path from each tile to the end, by relaxing every tile until
+     * nothing changes.
+     */
+    private static double[][] distances(World world, CostGrid costs, Coordinate end)
+    {
+        double[][] dist = new double[world.width()][world.height()];
+        for(double[] column : dist)
+            Arrays.fill(column, Double.MAX_VALUE);
+        dist[end.x()][end.y()] = 0;
+        boolean changed = true;
+        while(changed)
+        {
+            changed = false;
+            for(int x = 0; x < world.width(); x++)
+                for(int y = 0; y < world.height(); y++)
+                {
+                    if(dist[x][y] == Double.MAX_VALUE || !world.passableAt(x, y))
+                        continue;
+                    double weight = costs.cost(x, y);
+                    if(weight == 0)
+                        continue;
+                    for(int dx = -1; dx <= 1; dx++)
+                        for(int dy = -1; dy <= 1; dy++)
+                        {
+                            int nx = x + dx;
+                            int ny = y + dy;
+                            if(nx < 0 || ny < 0 || nx >= world.width() || ny >= world.height())
+                                continue;
+                            if(!world.passableAt(nx, ny) || costs.cost(nx, ny) == 0)
+                                continue;
+                            double d = dist[x][y] + (dx == 0 || dy == 0 ? weight : weight
+                                    * Math.sqrt(2));
+                            if(d < dist[nx][ny] - 1e-12)
+                            {
+                                dist[nx][ny] = d;
+                                changed = true;
+                            }
+                        }
+                }
+        }
+        return dist;
+    }
+
+    private static double length(Coordinate start, List<Coordinate> path)
+    {
+        double length = 0;
+        Coordinate prev = start;
+        for(Coordinate step : path)
+        {
+            length += step.x() == prev.x() || step.y() == prev.y() ? 1 : Math.sqrt(2);
+            prev = step;
+        }
+        return length;
+    }
+
+    private static double cost(CostGrid costs, Coordinate start, List<Coordinate> path)
+    {
+        double cost = 0;
+        Coordinate prev = start;
+        for(Coordinate step : path)
+        {
+            double weight = costs.cost(step.x(), step.y());
+            cost += step.x() == prev.x() || step.y() == prev.y() ? weight : weight * Math.sqrt(2);
+            prev = step;
+        }
+        return cost;
+    }
 }
@@ -0,0 +1,152 @@
+package test.path;
+
+import jade.core.World;
+import jade.path.AStar;
+import jade.path.CachedPathFinder;
+import jade.path.PathFinder;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.List;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class CachedPathFinderTest
+{
+    private World world;
+    private CountingPathFinder counter;
+    private CachedPathFinder cache;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getEmptyMap();
+        counter = new CountingPathFinder();
+        cache = new CachedPathFinder(counter, 2);
+    }
+
+    @Test
+    public void repeatedQueryRemembered()
+    {
+        List<Coordinate> first = cache.getPath(world, 1, 1, 11, 6);
+        List<Coordinate> second = cache.getPath(world, 1, 1, 11, 6);
+
+        Assert.assertEquals(new AStar().getPath(world, 1, 1, 11, 6), first);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(1, counter.calls);
+        Assert.assertEquals(1, cache.hits());
+        Assert.assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void returnedPathsCopied()
+    {
+        cache.getPath(world, 1, 1, 11, 6).clear();
+        Assert.assertEquals(10, cache.getPath(world, 1, 1, 11, 6).size());
+    }
+
+    @Test
+    public void suffixReused()
+    {
+        List<Coordinate> path = cache.getPath(world, 1, 1, 11, 6);
+        Coordinate along = path.get(3);
+        Assert.assertEquals(path.subList(4, path.size()), cache.getPath(world, along, path
+                .get(path.size() - 1)));
+        Assert.assertEquals(1, counter.calls);
+        Assert.assertEquals(1, cache.hits());
+    }
+
+    @Test
+    public void otherEndsCalculated()
+    {
+        cache.getPath(world, 1, 1, 11, 6);
+        cache.getPath(world, 1, 1, 11, 7);
+        cache.getPath(world, 2, 1, 11, 7);
+        Assert.assertEquals(3, counter.calls);
+        Assert.assertEquals(0, cache.hits());
+        Assert.assertEquals(3, cache.misses());
+    }
+
+    @Test
+    public void leastRecentlyUsedForgotten()
+    {
+        cache.getPath(world, 1, 1, 11, 6);
+        cache.getPath(world, 1, 1, 11, 7);
+        cache.getPath(world, 1, 1, 11, 6);
+        cache.getPath(world, 1, 1, 11, 8);
+        Assert.assertEquals(3, counter.calls);
+
+        cache.getPath(world, 1, 1, 11, 6);
+        Assert.assertEquals(3, counter.calls);
+        cache.getPath(world, 1, 1, 11, 7);
+        Assert.assertEquals(4, counter.calls);
+    }
+
+    @Test
+    public void changeOffPathIgnored()
+    {
+        cache.getPath(world, 1, 1, 11, 1);
+        world.setTile(ColoredChar.create('#'), false, 6, 9);
+        cache.getPath(world, 1, 1, 11, 1);
+        Assert.assertEquals(1, counter.calls);
+    }
+
+    @Test
+    public void changeOnPathRecalculated()
+    {
+        cache.getPath(world, 1, 1, 11, 1);
+        world.setTile(ColoredChar.create('#'), false, 6, 1);
+        List<Coordinate> path = cache.getPath(world, 1, 1, 11, 1);
+        Assert.assertEquals(2, counter.calls);
+        Assert.assertFalse(path.contains(new Coordinate(6, 1)));
+    }
+
+    @Test
+    public void partialPathRecalculatedOnAnyChange()
+    {
+        world = WorldBuilder.getBlocked();
+        Coordinate start = new Coordinate(4, 1);
+        Coordinate end = new Coordinate(4, 8);
+        Assert.assertNull(cache.getPath(world, start, end));
+        Assert.assertNull(cache.getPath(world, start, end));
+        Assert.assertEquals(1, counter.calls);
+
+        world.setTile(ColoredChar.create('.'), true, 3, 7);
+        Assert.assertNotNull(cache.getPath(world, start, end));
+        Assert.assertEquals(2, counter.calls);
+    }
+
+    @Test
+    public void worldsKeptApart()
+    {
+        World other = WorldBuilder.getEmptyMap();
+        cache.getPath(world, 1, 1, 11, 6);
+        cache.getPath(other, 1, 1, 11, 6);
+        Assert.assertEquals(2, counter.calls);
+    }
+
+    @Test
+    public void clearForgets()
+    {
+        cache.getPath(world, 1, 1, 11, 6);
+        cache.clear();
+        cache.resetCounts();
+        cache.getPath(world, 1, 1, 11, 6);
+        Assert.assertEquals(2, counter.calls);
+        Assert.assertEquals(0, cache.hits());
+        Assert.assertEquals(1, cache.misses());
+    }
+
+    private static class CountingPathFinder extends PathFinder
+    {
+        public int calls;
+
+        @Override
+        protected List<Coordinate> calcPath(World world, Coordinate start, Coordinate end)
+        {
+            calls++;
+            return new AStar().getPartialPath(world, start, end);
+        }
+    }
+}
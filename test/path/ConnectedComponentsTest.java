@@ -0,0 +1,87 @@
+package test.path;
+
+import jade.core.World;
+import jade.path.ConnectedComponents;
+import jade.util.datatype.ColoredChar;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class ConnectedComponentsTest
+{
+    private World world;
+    private ConnectedComponents components;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getBlocked();
+        components = new ConnectedComponents(world);
+    }
+
+    @Test
+    public void regionsSeparated()
+    {
+        Assert.assertTrue(components.connected(4, 1, 2, 6));
+        Assert.assertTrue(components.connected(4, 8, 8, 8));
+        Assert.assertFalse(components.connected(4, 8, 8, 1));
+        Assert.assertFalse(components.connected(4, 1, 4, 8));
+        Assert.assertFalse(components.component(4, 1) == components.component(4, 8));
+    }
+
+    @Test
+    public void impassableUnconnected()
+    {
+        Assert.assertEquals(0, components.component(0, 0));
+        Assert.assertFalse(components.connected(0, 0, 0, 0));
+        Assert.assertFalse(components.connected(4, 1, 3, 1));
+    }
+
+    @Test
+    public void diagonalsConnect()
+    {
+        world.setTile(ColoredChar.create('.'), true, 3, 7);
+        Assert.assertTrue(components.connected(4, 1, 4, 8));
+    }
+
+    @Test
+    public void openingMerges()
+    {
+        Assert.assertFalse(components.connected(4, 1, 4, 8));
+        world.setTile(ColoredChar.create('.'), true, 3, 7);
+        Assert.assertTrue(components.connected(4, 1, 4, 8));
+        Assert.assertTrue(components.connected(1, 1, 6, 1));
+    }
+
+    @Test
+    public void closingSplits()
+    {
+        world = WorldBuilder.getSlitEW();
+        components = new ConnectedComponents(world);
+        Assert.assertTrue(components.connected(1, 1, 1, 11));
+        world.setTile(ColoredChar.create('#'), false, 6, 6);
+        Assert.assertFalse(components.connected(1, 1, 1, 11));
+        world.setTile(ColoredChar.create('.'), true, 6, 6);
+        Assert.assertTrue(components.connected(1, 1, 1, 11));
+    }
+
+    @Test
+    public void manyChangesFollowed()
+    {
+        world = WorldBuilder.getEmptyMap();
+        components = new ConnectedComponents(world);
+        Assert.assertTrue(components.connected(1, 1, 11, 11));
+        for(int i = 0; i < World.PASSABLE_HISTORY; i++)
+            for(int y = 1; y <= 11; y++)
+                world.setTile(ColoredChar.create('#'), i % 2 == 0, 6, y);
+        Assert.assertFalse(components.connected(1, 1, 11, 11));
+        Assert.assertTrue(components.connected(1, 1, 5, 11));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBoundsRejected()
+    {
+        components.connected(4, 1, world.width(), 1);
+    }
+}
@@ -0,0 +1,83 @@
+package test.path;
+
+import jade.core.World;
+import jade.path.CostGrid;
+import jade.util.datatype.ColoredChar;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class CostGridTest
+{
+    private World world;
+    private CostGrid costs;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getEmptyMap();
+        costs = new CostGrid(world);
+    }
+
+    @Test
+    public void sizedToWorld()
+    {
+        Assert.assertEquals(world.width(), costs.width());
+        Assert.assertEquals(world.height(), costs.height());
+    }
+
+    @Test
+    public void defaultCostOne()
+    {
+        for(int y = 0; y < costs.height(); y++)
+            for(int x = 0; x < costs.width(); x++)
+                Assert.assertEquals(1, costs.cost(x, y));
+        Assert.assertEquals(1, costs.lowestCost());
+    }
+
+    @Test
+    public void setCostStored()
+    {
+        costs.setCost(3, 4, 255);
+        costs.setCost(5, 6, 0);
+        Assert.assertEquals(255, costs.cost(3, 4));
+        Assert.assertEquals(0, costs.cost(5, 6));
+        Assert.assertEquals(1, costs.cost(4, 3));
+    }
+
+    @Test
+    public void lowestCostTracked()
+    {
+        for(int y = 0; y < costs.height(); y++)
+            for(int x = 0; x < costs.width(); x++)
+                costs.setCost(x, y, 3);
+        costs.setCost(2, 2, 0);
+        Assert.assertEquals(3, costs.lowestCost());
+        costs.setCost(4, 4, 2);
+        Assert.assertEquals(2, costs.lowestCost());
+        costs.setCost(4, 4, 5);
+        Assert.assertEquals(3, costs.lowestCost());
+    }
+
+    @Test
+    public void setCostByFace()
+    {
+        costs.setCost(world, ColoredChar.create('#'), 0);
+        for(int y = 0; y < costs.height(); y++)
+            for(int x = 0; x < costs.width(); x++)
+                Assert.assertEquals(world.passableAt(x, y) ? 1 : 0, costs.cost(x, y));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void costTooHighRejected()
+    {
+        costs.setCost(1, 1, 256);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBoundsRejected()
+    {
+        costs.cost(costs.width(), 0);
+    }
+}
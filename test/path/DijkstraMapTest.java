@@ -0,0 +1,237 @@
+package test.path;
+
+import jade.core.World;
+import jade.gen.map.Cellular;
+import jade.path.DijkstraMap;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.Direction;
+import java.util.Arrays;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class DijkstraMapTest
+{
+    private World world;
+    private DijkstraMap map;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getEmptyMap();
+        map = new DijkstraMap(world);
+    }
+
+    @Test
+    public void stepsCounted()
+    {
+        map.addGoal(3, 4);
+        map.build();
+
+        Assert.assertEquals(0, map.distance(3, 4));
+        Assert.assertEquals(1, map.distance(4, 5));
+        Assert.assertEquals(8, map.distance(11, 11));
+        Assert.assertEquals(DijkstraMap.UNREACHABLE, map.distance(0, 0));
+        Assert.assertEquals(DijkstraMap.UNREACHABLE, map.distance(-1, 4));
+    }
+
+    @Test
+    public void nearestGoalWins()
+    {
+        map.addGoal(1, 1);
+        map.addGoal(11, 11, 3);
+        map.build();
+
+        Assert.assertEquals(5, map.distance(6, 6));
+        Assert.assertEquals(4, map.distance(10, 10));
+        Assert.assertEquals(3, map.distance(11, 11));
+    }
+
+    @Test
+    public void downhillReachesGoal()
+    {
+        world = WorldBuilder.getWallNS();
+        map = new DijkstraMap(world);
+        map.addGoal(7, 1);
+        map.build();
+
+        Coordinate pos = new Coordinate(5, 1);
+        int steps = 0;
+        while(map.downhill(pos) != Direction.ORIGIN)
+        {
+            Direction dir = map.downhill(pos);
+            Assert.assertTrue(world.passableAt(pos.getTranslated(dir)));
+            Assert.assertEquals(map.distance(pos.x(), pos.y()) - 1, map.distance(pos.x() + dir.dx(),
+                    pos.y() + dir.dy()));
+            pos = pos.getTranslated(dir);
+            steps++;
+        }
+        Assert.assertEquals(new Coordinate(7, 1), pos);
+        Assert.assertEquals(12, steps);
+    }
+
+    @Test
+    public void unreachableIsFlat()
+    {
+        world = WorldBuilder.getBlocked();
+        map = new DijkstraMap(world);
+        map.addGoal(4, 8);
+        map.build();
+
+        Assert.assertEquals(DijkstraMap.UNREACHABLE, map.distance(4, 1));
+        Assert.assertEquals(Direction.ORIGIN, map.downhill(4, 1));
+    }
+
+    @Test
+    public void fleeLeadsAway()
+    {
+        map.addGoal(6, 6);
+        map.build();
+        DijkstraMap flee = map.flee();
+
+        Coordinate pos = new Coordinate(7, 6);
+        for(int i = 0; i < 4; i++)
+            pos = pos.getTranslated(flee.downhill(pos));
+        Assert.assertTrue(map.distance(pos.x(), pos.y()) >= 5);
+        Assert.assertTrue(flee.distance(11, 11) < flee.distance(7, 7));
+    }
+
+    @Test
+    public void fleeIntoExistingMap()
+    {
+        map.addGoal(6, 6);
+        map.build();
+        DijkstraMap flee = new DijkstraMap(world);
+        flee.addGoal(1, 1);
+        Assert.assertSame(flee, map.flee(flee));
+        Assert.assertEquals(DijkstraMap.UNREACHABLE, flee.goal(0, 0));
+
+        map.moveGoal(new Coordinate(6, 6), new Coordinate(9, 3));
+        map.flee(flee);
+        DijkstraMap expected = map.flee();
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                Assert.assertEquals(expected.distance(x, y), flee.distance(x, y));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fleeIntoItselfRejected()
+    {
+        map.addGoal(6, 6);
+        map.build();
+        map.flee(map);
+    }
+
+    @Test
+    public void movingGoalMatchesBuild()
+    {
+        Dice dice = new Dice(3);
+        Coordinate goal = new Coordinate(6, 6);
+        map.addGoal(goal);
+        map.addGoal(2, 10, 4);
+        map.build();
+        for(int i = 0; i < 100; i++)
+        {
+            Coordinate next = goal.getTranslated(dice.choose(Arrays.asList(Direction.values())));
+            if(!world.passableAt(next))
+                continue;
+            map.moveGoal(goal, next);
+            goal = next;
+            assertMatchesBuild();
+        }
+    }
+
+    @Test
+    public void goalChangesMatchBuild()
+    {
+        Dice dice = new Dice(4);
+        map.build();
+        for(int i = 0; i < 100; i++)
+        {
+            int x = dice.nextInt(1, 11);
+            int y = dice.nextInt(1, 11);
+            if(dice.chance(50))
+                map.addGoal(x, y, dice.nextInt(0, 6));
+            else
+                map.removeGoal(x, y);
+            assertMatchesBuild();
+        }
+    }
+
+    @Test
+    public void tileChangesMatchBuild()
+    {
+        Dice dice = new Dice(5);
+        map.addGoal(6, 6);
+        map.addGoal(1, 11, 2);
+        map.build();
+        for(int i = 0; i < 100; i++)
+        {
+            for(int j = dice.nextInt(1, 3); j > 0; j--)
+                world.setTile(ColoredChar.create('#'), dice.chance(60), dice.nextInt(1, 11), dice
+                        .nextInt(1, 11));
+            map.update();
+            assertMatchesBuild();
+        }
+    }
+
+    @Test
+    public void historyOverflowRebuilds()
+    {
+        map.addGoal(6, 6);
+        map.build();
+        for(int i = 0; i <= World.PASSABLE_HISTORY; i++)
+            world.setTile(ColoredChar.create('#'), i % 2 == 0, 3, 3);
+        world.setTile(ColoredChar.create('#'), false, 5, 5);
+        map.update();
+        assertMatchesBuild();
+    }
+
+    @Test
+    public void largeMapChangesMatchBuild()
+    {
+        Dice dice = new Dice(6);
+        world = new World(64, 48)
+        {};
+        new Cellular().generate(world, dice);
+        map = new DijkstraMap(world);
+        Coordinate[] goals = new Coordinate[6];
+        for(int i = 0; i < goals.length; i++)
+        {
+            goals[i] = world.getOpenTile(dice);
+            map.addGoal(goals[i]);
+        }
+        map.build();
+        for(int i = 0; i < 60; i++)
+        {
+            int goal = dice.nextInt(0, goals.length - 1);
+            Coordinate next = goals[goal].getTranslated(dice.choose(Arrays.asList(Direction
+                    .values())));
+            if(world.passableAt(next) && map.goal(next.x(), next.y()) == DijkstraMap.UNREACHABLE)
+            {
+                map.moveGoal(goals[goal], next);
+                goals[goal] = next;
+            }
+            world.setTile(ColoredChar.create('#'), dice.chance(50), dice.nextInt(1, 62), dice
+                    .nextInt(1, 46));
+            map.update();
+            assertMatchesBuild();
+        }
+    }
+
+    private void assertMatchesBuild()
+    {
+        DijkstraMap fresh = new DijkstraMap(world);
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                if(map.goal(x, y) != DijkstraMap.UNREACHABLE)
+                    fresh.addGoal(x, y, map.goal(x, y));
+        fresh.build();
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+                Assert.assertEquals(fresh.distance(x, y), map.distance(x, y));
+    }
+}
@@ -0,0 +1,186 @@
+package test.path;
+
+import jade.core.World;
+import jade.gen.map.Cellular;
+import jade.gen.map.Traditional;
+import jade.path.AStar;
+import jade.path.HierarchicalPathFinder;
+import jade.path.PathFinder;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.List;
+import junit.framework.Assert;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class HierarchicalPathFinderTest extends PathFinderImplTests
+{
+    @Override
+    protected PathFinder getInstance()
+    {
+        return new HierarchicalPathFinder();
+    }
+
+    @Test
+    public void dungeonPathsNearOptimal()
+    {
+        Dice dice = new Dice(3);
+        World world = new World(80, 60)
+        {};
+        new Traditional().generate(world, dice);
+        assertNearOptimal(world, new HierarchicalPathFinder(8), dice);
+    }
+
+    @Test
+    public void cavePathsNearOptimal()
+    {
+        Dice dice = new Dice(4);
+        World world = new World(80, 60)
+        {};
+        new Cellular().generate(world, dice);
+        assertNearOptimal(world, new HierarchicalPathFinder(6), dice);
+    }
+
+    @Test
+    public void partialPathMatchesAStar()
+    {
+        World world = WorldBuilder.getBlocked();
+        Coordinate start = new Coordinate(4, 1);
+        Coordinate end = new Coordinate(4, 8);
+        PathFinder hierarchical = new HierarchicalPathFinder(3);
+        Assert.assertEquals(new AStar().getPartialPath(world, start, end), hierarchical
+                .getPartialPath(world, start, end));
+        Assert.assertNull(hierarchical.getPath(world, start, end));
+    }
+
+    @Test
+    public void expansionLimitHonored()
+    {
+        Dice dice = new Dice(3);
+        World world = new World(80, 60)
+        {};
+        new Traditional().generate(world, dice);
+        PathFinder hierarchical = new HierarchicalPathFinder(8);
+        Coordinate start;
+        Coordinate end;
+        do
+        {
+            start = world.getOpenTile(dice);
+            end = world.getOpenTile(dice);
+        }
+        while(start.distance(end) < 40 || hierarchical.getPath(world, start, end) == null);
+
+        hierarchical.setExpansionLimit(3);
+        List<Coordinate> path = hierarchical.getPartialPath(world, start, end);
+        Assert.assertFalse(path.isEmpty());
+        assertValid(world, start, path.get(path.size() - 1), path);
+        Assert.assertNull(hierarchical.getPath(world, start, end));
+    }
+
+    @Test
+    public void limitsPassedToAStar()
+    {
+        World world = WorldBuilder.getBlocked();
+        Coordinate start = new Coordinate(4, 1);
+        Coordinate end = new Coordinate(4, 8);
+        PathFinder hierarchical = new HierarchicalPathFinder(8);
+        Assert.assertFalse(hierarchical.getPartialPath(world, start, end).isEmpty());
+
+        hierarchical.setExpansionLimit(1);
+        Assert.assertTrue(hierarchical.getPartialPath(world, start, end).isEmpty());
+        hierarchical.clearLimits();
+        Assert.assertEquals(new AStar().getPartialPath(world, start, end), hierarchical
+                .getPartialPath(world, start, end));
+    }
+
+    @Test
+    public void layoutChangeFollowed()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        PathFinder hierarchical = new HierarchicalPathFinder(3);
+        Coordinate start = new Coordinate(1, 6);
+        Coordinate end = new Coordinate(11, 6);
+        assertValid(world, start, end, hierarchical.getPath(world, start, end));
+
+        for(int y = 1; y < 11; y++)
+            world.setTile(ColoredChar.create('#'), false, 6, y);
+        List<Coordinate> path = hierarchical.getPath(world, start, end);
+        assertValid(world, start, end, path);
+        Assert.assertTrue(path.contains(new Coordinate(6, 11)));
+
+        world.setTile(ColoredChar.create('#'), false, 6, 11);
+        Assert.assertNull(hierarchical.getPath(world, start, end));
+        world.setTile(ColoredChar.create('.'), true, 6, 3);
+        path = hierarchical.getPath(world, start, end);
+        assertValid(world, start, end, path);
+        Assert.assertTrue(path.contains(new Coordinate(6, 3)));
+    }
+
+    @Test
+    public void manyChangesFollowed()
+    {
+        Dice dice = new Dice(6);
+        World world = new World(60, 60)
+        {};
+        new Traditional().generate(world, dice);
+        PathFinder hierarchical = new HierarchicalPathFinder(5);
+        hierarchical.getPath(world, world.getOpenTile(dice), world.getOpenTile(dice));
+
+        for(int i = 0; i < World.PASSABLE_HISTORY * 2; i++)
+        {
+            Coordinate wall = world.getOpenTile(dice);
+            world.setTile(ColoredChar.create('#'), false, wall);
+            int x = dice.nextInt(1, world.width() - 2);
+            int y = dice.nextInt(1, world.height() - 2);
+            world.setTile(ColoredChar.create('.'), true, x, y);
+            if(i % 8 == 0)
+                assertNearOptimal(world, hierarchical, dice);
+        }
+    }
+
+    private void assertNearOptimal(World world, PathFinder hierarchical, Dice dice)
+    {
+        for(int i = 0; i < 20; i++)
+        {
+            Coordinate start = world.getOpenTile(dice);
+            Coordinate end = world.getOpenTile(dice);
+            List<Coordinate> expected = new AStar().getPartialPath(world, start, end);
+            List<Coordinate> actual = hierarchical.getPartialPath(world, start, end);
+            if(expected.isEmpty() || !expected.get(expected.size() - 1).equals(end))
+                Assert.assertEquals(expected, actual);
+            else
+            {
+                assertValid(world, start, end, actual);
+                double optimal = length(start, expected);
+                Assert.assertTrue(length(start, actual) <= optimal * 1.25 + 2);
+            }
+        }
+    }
+
+    private void assertValid(World world, Coordinate start, Coordinate end, List<Coordinate> path)
+    {
+        Assert.assertEquals(end, path.get(path.size() - 1));
+        Coordinate prev = start;
+        for(Coordinate step : path)
+        {
+            Assert.assertTrue(world.passableAt(step));
+            Assert.assertTrue(Math.abs(step.x() - prev.x()) <= 1);
+            Assert.assertTrue(Math.abs(step.y() - prev.y()) <= 1);
+            Assert.assertFalse(step.equals(prev));
+            prev = step;
+        }
+    }
+
+    private double length(Coordinate start, List<Coordinate> path)
+    {
+        double length = 0;
+        Coordinate prev = start;
+        for(Coordinate step : path)
+        {
+            length += prev.distance(step);
+            prev = step;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,147 @@
+package test.path;
+
+import jade.core.World;
+import jade.path.AStar;
+import jade.path.JumpPointSearch;
+import jade.path.PathFinder;
+import jade.util.Dice;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.util.List;
+import junit.framework.Assert;
+import org.junit.Test;
+import test.WorldBuilder;
+
+public class JumpPointSearchTest extends PathFinderImplTests
+{
+    @Override
+    protected PathFinder getInstance()
+    {
+        return new JumpPointSearch();
+    }
+
+    @Test
+    public void aroundWall()
+    {
+        assertOptimal(WorldBuilder.getWallNS(), new Coordinate(5, 1), new Coordinate(7, 1));
+    }
+
+    @Test
+    public void nonGreedyOptimal()
+    {
+        assertOptimal(WorldBuilder.getMaze(), new Coordinate(6, 6), new Coordinate(1, 1));
+    }
+
+    @Test
+    public void avoidDeadEnd()
+    {
+        assertOptimal(WorldBuilder.getDeadEnd(), new Coordinate(4, 1), new Coordinate(4, 8));
+    }
+
+    @Test
+    public void partialPathUnreachable()
+    {
+        World world = WorldBuilder.getBlocked();
+        Coordinate start = new Coordinate(4, 1);
+        Coordinate end = new Coordinate(4, 8);
+        List<Coordinate> path = pathfinder.getPartialPath(world, start, end);
+        length(world, start, path);
+        Assert.assertEquals(new Coordinate(4, 5), path.get(path.size() - 1));
+        Assert.assertNull(pathfinder.getPath(world, start, end));
+    }
+
+    @Test
+    public void partialPathImpassableEnd()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        for(int y = 1; y < 11; y++)
+            world.setTile(ColoredChar.create('#'), false, 6, y);
+        Coordinate start = new Coordinate(1, 6);
+        Coordinate end = new Coordinate(6, 6);
+        List<Coordinate> path = pathfinder.getPartialPath(world, start, end);
+        length(world, start, path);
+        Assert.assertEquals(new Coordinate(5, 6), path.get(path.size() - 1));
+        Assert.assertNull(pathfinder.getPath(world, start, end));
+    }
+
+    @Test
+    public void expansionLimitHonored()
+    {
+        World world = WorldBuilder.getMaze();
+        Coordinate start = new Coordinate(6, 6);
+        Coordinate end = new Coordinate(1, 1);
+        Assert.assertNotNull(pathfinder.getPath(world, start, end));
+
+        pathfinder.setExpansionLimit(2);
+        List<Coordinate> path = pathfinder.getPartialPath(world, start, end);
+        length(world, start, path);
+        Assert.assertNull(pathfinder.getPath(world, start, end));
+        pathfinder.clearLimits();
+        Assert.assertNotNull(pathfinder.getPath(world, start, end));
+    }
+
+    @Test
+    public void layoutChangeFollowed()
+    {
+        World world = WorldBuilder.getEmptyMap();
+        Coordinate start = new Coordinate(1, 6);
+        Coordinate end = new Coordinate(11, 6);
+        assertOptimal(world, start, end);
+        for(int y = 1; y < 11; y++)
+            world.setTile(ColoredChar.create('#'), false, 6, y);
+        assertOptimal(world, start, end);
+        Assert.assertTrue(pathfinder.getPath(world, start, end).contains(new Coordinate(6, 11)));
+    }
+
+    @Test
+    public void randomMapsOptimal()
+    {
+        Dice dice = new Dice(5);
+        for(int i = 0; i < 20; i++)
+        {
+            World world = WorldBuilder.getEmptyMap();
+            for(int x = 1; x < world.width() - 1; x++)
+                for(int y = 1; y < world.height() - 1; y++)
+                    if(dice.chance(30))
+                        world.setTile(ColoredChar.create('#'), false, x, y);
+            for(int j = 0; j < 10; j++)
+            {
+                Coordinate start = world.getOpenTile(dice);
+                Coordinate end = world.getOpenTile(dice);
+                if(!start.equals(end))
+                    assertOptimal(world, start, end);
+            }
+        }
+    }
+
+    private void assertOptimal(World world, Coordinate start, Coordinate end)
+    {
+        List<Coordinate> expected = new AStar().getPartialPath(world, start, end);
+        List<Coordinate> actual = pathfinder.getPartialPath(world, start, end);
+        if(expected.isEmpty() || !expected.get(expected.size() - 1).equals(end))
+        {
+            length(world, start, actual);
+            Assert.assertFalse(actual.contains(end));
+        }
+        else
+        {
+            Assert.assertEquals(end, actual.get(actual.size() - 1));
+            Assert.assertEquals(length(world, start, expected), length(world, start, actual), 1e-9);
+        }
+    }
+
+    private double length(World world, Coordinate start, List<Coordinate> path)
+    {
+        double length = 0;
+        Coordinate prev = start;
+        for(Coordinate step : path)
+        {
+            Assert.assertTrue(world.passableAt(step));
+            Assert.assertTrue(Math.abs(step.x() - prev.x()) <= 1);
+            Assert.assertTrue(Math.abs(step.y() - prev.y()) <= 1);
+            length += prev.distance(step);
+            prev = step;
+        }
+        return length;
+    }
+}
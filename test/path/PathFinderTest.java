@@ -173,6 +173,43 @@ public class PathFinderTest
         path.getPartialPath(world, start, end);
     }
 
+    @Test
+    public void getPathEmptyIncomplete()
+    {
+        PathFinder path = new EchoPathFinder(new ArrayList<Coordinate>());
+        Assert.assertNull(path.getPath(world, start, end));
+        Assert.assertTrue(path.getPath(world, start, start).isEmpty());
+    }
+
+    @Test
+    public void limitsDefaultUnbounded()
+    {
+        PathFinder path = new EchoPathFinder(full);
+        Assert.assertEquals(Integer.MAX_VALUE, path.expansionLimit());
+        Assert.assertEquals(Long.MAX_VALUE, path.timeLimit());
+
+        path.setExpansionLimit(10);
+        path.setTimeLimit(1000);
+        Assert.assertEquals(10, path.expansionLimit());
+        Assert.assertEquals(1000, path.timeLimit());
+
+        path.clearLimits();
+        Assert.assertEquals(Integer.MAX_VALUE, path.expansionLimit());
+        Assert.assertEquals(Long.MAX_VALUE, path.timeLimit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void expansionLimitPositive()
+    {
+        new EchoPathFinder(full).setExpansionLimit(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void timeLimitPositive()
+    {
+        new EchoPathFinder(full).setTimeLimit(0);
+    }
+
     public static class EchoPathFinder extends PathFinder
     {
         private List<Coordinate> expected;
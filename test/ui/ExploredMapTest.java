@@ -0,0 +1,185 @@
+package test.ui;
+
+import jade.core.World;
+import jade.fov.FieldOfView;
+import jade.ui.Camera;
+import jade.ui.ExploredMap;
+import jade.ui.Terminal;
+import jade.util.datatype.ColoredChar;
+import jade.util.datatype.Coordinate;
+import java.awt.Color;
+import java.util.Collection;
+import java.util.HashSet;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import test.WorldBuilder;
+
+public class ExploredMapTest
+{
+    private World world;
+    private Camera camera;
+    private ExploredMap explored;
+
+    @Before
+    public void init()
+    {
+        world = WorldBuilder.getEmptyMap();
+        camera = Mockito.mock(Camera.class);
+        Mockito.when(camera.world()).thenReturn(world);
+        explored = new ExploredMap(camera);
+    }
+
+    @Test
+    public void viewFieldsAccumulate()
+    {
+        see(square(3, 3, 1));
+        see(square(8, 8, 1));
+
+        Assert.assertTrue(explored.explored(3, 3));
+        Assert.assertTrue(explored.explored(9, 9));
+        Assert.assertFalse(explored.explored(6, 6));
+        Assert.assertFalse(explored.explored(-1, 3));
+        Assert.assertEquals(world.tileAt(2, 2), explored.remembered(2, 2));
+        Assert.assertNull(explored.remembered(6, 6));
+    }
+
+    @Test
+    public void fieldOfViewAccumulates()
+    {
+        FieldOfView fov = new FieldOfView(0, 0, 2);
+        fov.add(0, 0);
+        fov.add(-2, 1);
+        fov.add(2, 2);
+        see(fov);
+
+        Assert.assertTrue(explored.explored(0, 0));
+        Assert.assertTrue(explored.explored(2, 2));
+        Assert.assertFalse(explored.explored(1, 1));
+    }
+
+    @Test
+    public void lastSeenRemembered()
+    {
+        see(square(4, 4, 1));
+        ColoredChar water = ColoredChar.create('~', Color.blue);
+        world.setTile(water, true, 4, 4);
+        Assert.assertFalse(water.equals(explored.remembered(4, 4)));
+        see(square(4, 4, 0));
+
+        Assert.assertEquals(water, explored.remembered(4, 4));
+        Assert.assertEquals(2, explored.paletteSize());
+    }
+
+    @Test
+    public void newWorldForgets()
+    {
+        see(square(4, 4, 1));
+        Mockito.when(camera.world()).thenReturn(WorldBuilder.getEmptyMap());
+        see(square(8, 8, 0));
+
+        Assert.assertFalse(explored.explored(4, 4));
+        Assert.assertTrue(explored.explored(8, 8));
+    }
+
+    @Test
+    public void clearForgets()
+    {
+        see(square(4, 4, 1));
+        explored.clear();
+        Assert.assertFalse(explored.explored(4, 4));
+    }
+
+    @Test
+    public void bufferExploredDims()
+    {
+        Terminal term = new ConcreteTerminal();
+        Mockito.when(camera.x()).thenReturn(5);
+        Mockito.when(camera.y()).thenReturn(5);
+        term.registerCamera(camera, 10, 10);
+        see(square(1, 1, 1));
+        term.bufferExplored(explored);
+
+        for(int x = 0; x < world.width(); x++)
+            for(int y = 0; y < world.height(); y++)
+            {
+                ColoredChar ch = term.charAt(x + 5, y + 5);
+                if(x <= 2 && y <= 2)
+                {
+                    Assert.assertEquals(world.tileAt(x, y).ch(), ch.ch());
+                    Assert.assertEquals(new Color(128, 128, 128), ch.color());
+                }
+                else
+                    Assert.assertNull(ch);
+            }
+    }
+
+    @Test
+    public void bufferExploredClipped()
+    {
+        Terminal term = new ConcreteTerminal()
+        {
+            @Override
+            protected int columns()
+            {
+                return 8;
+            }
+
+            @Override
+            protected int rows()
+            {
+                return 7;
+            }
+        };
+        Mockito.when(camera.x()).thenReturn(5);
+        Mockito.when(camera.y()).thenReturn(5);
+        term.registerCamera(camera, 4, 3);
+        see(square(6, 6, 6));
+        term.bufferExplored(explored);
+
+        for(int x = -5; x < 20; x++)
+            for(int y = -5; y < 20; y++)
+            {
+                ColoredChar ch = term.charAt(x, y);
+                if(x >= 0 && y >= 0 && x < 8 && y < 7)
+                    Assert.assertEquals(world.tileAt(x + 1, y + 2).ch(), ch.ch());
+                else
+                    Assert.assertNull(ch);
+            }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bufferExploredUnregistered()
+    {
+        new ConcreteTerminal().bufferExplored(explored);
+    }
+
+    private void see(Collection<Coordinate> viewField)
+    {
+        Mockito.when(camera.getViewField()).thenReturn(viewField);
+        explored.update();
+    }
+
+    private Collection<Coordinate> square(int cx, int cy, int r)
+    {
+        Collection<Coordinate> square = new HashSet<Coordinate>();
+        for(int x = cx - r; x <= cx + r; x++)
+            for(int y = cy - r; y <= cy + r; y++)
+                square.add(new Coordinate(x, y));
+        return square;
+    }
+
+    private static class ConcreteTerminal extends Terminal
+    {
+        @Override
+        public void refreshScreen()
+        {}
+
+        @Override
+        public char getKey()
+        {
+            return 0;
+        }
+    }
+}
@@ -3,7 +3,10 @@ package test.ui;
 import jade.ui.Terminal;
 import jade.util.datatype.ColoredChar;
 import jade.util.datatype.Coordinate;
+import jade.util.datatype.LongMap;
 import java.awt.Color;
+import java.util.Iterator;
+import java.util.Map;
 import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -261,4 +264,54 @@ public class TerminalTest
     {
         term.bufferString(null, "YAVP");
     }
+
+    @Test
+    public void bufferViewWritesThrough()
+    {
+        BufferTerm term = new BufferTerm();
+        Map<Coordinate, ColoredChar> view = term.buffer();
+        ColoredChar wall = ColoredChar.create('#');
+        ColoredChar floor = ColoredChar.create('.');
+        term.bufferChar(1, 2, wall);
+        Assert.assertEquals(wall, view.get(new Coordinate(1, 2)));
+        view.put(new Coordinate(3, 4), floor);
+        Assert.assertEquals(floor, term.charAt(3, 4));
+        Assert.assertEquals(2, view.size());
+
+        Iterator<Map.Entry<Coordinate, ColoredChar>> iter = view.entrySet().iterator();
+        while(iter.hasNext())
+        {
+            Map.Entry<Coordinate, ColoredChar> entry = iter.next();
+            if(entry.getKey().equals(new Coordinate(1, 2)))
+                iter.remove();
+            else
+                entry.setValue(wall);
+        }
+        Assert.assertNull(term.charAt(1, 2));
+        Assert.assertEquals(wall, term.charAt(3, 4));
+        Assert.assertEquals(1, term.packedBuffer().size());
+    }
+
+    private static class BufferTerm extends Terminal
+    {
+        @Override
+        public char getKey()
+        {
+            return 0;
+        }
+
+        @Override
+        public void refreshScreen()
+        {}
+
+        public Map<Coordinate, ColoredChar> buffer()
+        {
+            return getBuffer();
+        }
+
+        public LongMap<ColoredChar> packedBuffer()
+        {
+            return getPackedBuffer();
+        }
+    }
 }
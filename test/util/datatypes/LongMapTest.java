@@ -0,0 +1,122 @@
+package test.util.datatypes;
+
+import jade.util.datatype.LongIterator;
+import jade.util.datatype.LongMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongMapTest
+{
+    private LongMap<String> map;
+
+    @Before
+    public void init()
+    {
+        map = new LongMap<String>();
+    }
+
+    @Test
+    public void newMapEmpty()
+    {
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(0));
+        Assert.assertFalse(map.keys().hasNext());
+    }
+
+    @Test
+    public void putGet()
+    {
+        for(long i = -50; i <= 50; i++)
+            Assert.assertNull(map.put(i, "v" + i));
+        for(long i = -50; i <= 50; i++)
+        {
+            Assert.assertEquals("v" + i, map.get(i));
+            Assert.assertTrue(map.containsKey(i));
+        }
+        Assert.assertFalse(map.containsKey(51));
+        Assert.assertEquals(101, map.size());
+    }
+
+    @Test
+    public void putReplaces()
+    {
+        Assert.assertNull(map.put(0, "a"));
+        Assert.assertEquals("a", map.put(0, "b"));
+        Assert.assertNull(map.put(9, "a"));
+        Assert.assertEquals("a", map.put(9, "c"));
+        Assert.assertEquals("b", map.get(0));
+        Assert.assertEquals("c", map.get(9));
+        Assert.assertEquals(2, map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putNullValue()
+    {
+        map.put(1, null);
+    }
+
+    @Test
+    public void removeRemoves()
+    {
+        map.put(0, "a");
+        map.put(4, "b");
+        Assert.assertEquals("a", map.remove(0));
+        Assert.assertNull(map.remove(0));
+        Assert.assertEquals("b", map.remove(4));
+        Assert.assertNull(map.get(4));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void putAllCopies()
+    {
+        map.put(0, "a");
+        map.put(1, "b");
+        LongMap<String> copy = new LongMap<String>();
+        copy.put(2, "c");
+        copy.putAll(map);
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals("a", copy.get(0));
+        Assert.assertEquals("b", copy.get(1));
+        Assert.assertEquals("c", copy.get(2));
+    }
+
+    @Test
+    public void keysVisitsAll()
+    {
+        for(long i = 0; i < 40; i++)
+            map.put(i, "v");
+        int count = 0;
+        for(LongIterator iter = map.keys(); iter.hasNext();)
+        {
+            Assert.assertEquals("v", map.get(iter.next()));
+            count++;
+        }
+        Assert.assertEquals(40, count);
+    }
+
+    @Test
+    public void matchesHashMap()
+    {
+        Random random = new Random(2);
+        Map<Long, String> expected = new HashMap<Long, String>();
+        for(int i = 0; i < 20000; i++)
+        {
+            long key = random.nextInt(500) - 250;
+            if(random.nextBoolean())
+            {
+                String value = Integer.toString(i);
+                Assert.assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            else
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        for(long key = -250; key < 250; key++)
+            Assert.assertEquals(expected.get(key), map.get(key));
+    }
+}
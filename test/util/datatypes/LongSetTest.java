@@ -0,0 +1,109 @@
+package test.util.datatypes;
+
+import jade.util.datatype.LongIterator;
+import jade.util.datatype.LongSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongSetTest
+{
+    private LongSet set;
+
+    @Before
+    public void init()
+    {
+        set = new LongSet();
+    }
+
+    @Test
+    public void newSetEmpty()
+    {
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertEquals(0, set.size());
+        Assert.assertFalse(set.contains(0));
+        Assert.assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void addContains()
+    {
+        for(long i = -50; i <= 50; i++)
+            Assert.assertTrue(set.add(i * 31));
+        for(long i = -50; i <= 50; i++)
+        {
+            Assert.assertTrue(set.contains(i * 31));
+            Assert.assertFalse(set.contains(i * 31 + 1));
+        }
+        Assert.assertEquals(101, set.size());
+    }
+
+    @Test
+    public void addTwice()
+    {
+        Assert.assertTrue(set.add(7));
+        Assert.assertFalse(set.add(7));
+        Assert.assertTrue(set.add(0));
+        Assert.assertFalse(set.add(0));
+        Assert.assertEquals(2, set.size());
+    }
+
+    @Test
+    public void removeRemoves()
+    {
+        set.add(0);
+        set.add(5);
+        Assert.assertTrue(set.remove(0));
+        Assert.assertFalse(set.remove(0));
+        Assert.assertTrue(set.remove(5));
+        Assert.assertFalse(set.contains(5));
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void clearEmpties()
+    {
+        for(long i = 0; i < 100; i++)
+            set.add(i);
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        for(long i = 0; i < 100; i++)
+            Assert.assertFalse(set.contains(i));
+    }
+
+    @Test
+    public void iteratorVisitsAll()
+    {
+        Set<Long> expected = new HashSet<Long>();
+        for(long i = -20; i < 20; i++)
+        {
+            set.add(i << 32);
+            expected.add(i << 32);
+        }
+        Set<Long> actual = new HashSet<Long>();
+        for(LongIterator iter = set.iterator(); iter.hasNext();)
+            Assert.assertTrue(actual.add(iter.next()));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void matchesHashSet()
+    {
+        Random random = new Random(1);
+        Set<Long> expected = new HashSet<Long>();
+        for(int i = 0; i < 20000; i++)
+        {
+            long key = random.nextInt(500) - 250;
+            if(random.nextBoolean())
+                Assert.assertEquals(expected.add(key), set.add(key));
+            else
+                Assert.assertEquals(expected.remove(key), set.remove(key));
+            Assert.assertEquals(expected.size(), set.size());
+        }
+        for(long key = -250; key < 250; key++)
+            Assert.assertEquals(expected.contains(key), set.contains(key));
+    }
+}
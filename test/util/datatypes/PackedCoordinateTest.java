@@ -0,0 +1,63 @@
+package test.util.datatypes;
+
+import jade.util.datatype.Coordinate;
+import jade.util.datatype.PackedCoordinate;
+import java.util.HashSet;
+import java.util.Set;
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class PackedCoordinateTest
+{
+    private static final int[] VALUES = {0, 1, -1, 42, -42, 65535, 65536, -65536,
+            Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    @Test
+    public void packRoundTrips()
+    {
+        for(int x : VALUES)
+            for(int y : VALUES)
+            {
+                long packed = PackedCoordinate.pack(x, y);
+                Assert.assertEquals(x, PackedCoordinate.x(packed));
+                Assert.assertEquals(y, PackedCoordinate.y(packed));
+            }
+    }
+
+    @Test
+    public void packDistinct()
+    {
+        Set<Long> seen = new HashSet<Long>();
+        for(int x : VALUES)
+            for(int y : VALUES)
+                Assert.assertTrue(seen.add(PackedCoordinate.pack(x, y)));
+    }
+
+    @Test
+    public void packCoordMatchesInt()
+    {
+        for(int x = -10; x <= 10; x++)
+            for(int y = -10; y <= 10; y++)
+                Assert.assertEquals(PackedCoordinate.pack(x, y), PackedCoordinate
+                        .pack(new Coordinate(x, y)));
+    }
+
+    @Test
+    public void unpackMatches()
+    {
+        for(int x = -10; x <= 10; x++)
+            for(int y = -10; y <= 10; y++)
+                Assert.assertEquals(new Coordinate(x, y), PackedCoordinate.unpack(PackedCoordinate
+                        .pack(x, y)));
+    }
+
+    @Test
+    public void translateMatches()
+    {
+        long packed = PackedCoordinate.pack(3, -4);
+        for(int dx = -5; dx <= 5; dx++)
+            for(int dy = -5; dy <= 5; dy++)
+                Assert.assertEquals(PackedCoordinate.pack(3 + dx, -4 + dy), PackedCoordinate
+                        .translate(packed, dx, dy));
+    }
+}